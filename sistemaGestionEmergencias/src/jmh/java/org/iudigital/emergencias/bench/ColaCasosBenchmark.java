@@ -0,0 +1,82 @@
+package org.iudigital.emergencias.bench;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offer + poll sobre la cola de casos compartida por operadores y
+ * despachador, con la cola precargada y los dos órdenes disponibles. Con
+ * varios hilos mide la contención sobre el lock de la cola.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColaCasosBenchmark {
+
+    @Param({ "prioridad", "plazo" })
+    public String orden;
+
+    @Param({ "100", "10000" })
+    public int casosEnCola;
+
+    private PriorityBlockingQueue<CasoEmergencia> cola;
+
+    @State(Scope.Thread)
+    public static class CasosDelHilo {
+        final CasoEmergencia[] casos = new CasoEmergencia[1024];
+        int siguiente;
+
+        @Setup
+        public void preparar() {
+            for (int i = 0; i < casos.length; i++) {
+                casos[i] = ColaCasosBenchmark.casoAleatorio();
+            }
+        }
+
+        CasoEmergencia siguiente() {
+            return casos[siguiente++ & (casos.length - 1)];
+        }
+    }
+
+    @Setup
+    public void preparar() {
+        cola = "plazo".equals(orden)
+                ? new PriorityBlockingQueue<>(casosEnCola, CasoEmergencia.POR_PLAZO)
+                : new PriorityBlockingQueue<>(casosEnCola);
+        for (int i = 0; i < casosEnCola; i++) {
+            cola.offer(casoAleatorio());
+        }
+    }
+
+    static CasoEmergencia casoAleatorio() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Severity[] severidades = Severity.values();
+        CasoEmergencia caso = new CasoEmergencia(severidades[random.nextInt(severidades.length)], random.nextInt(50));
+        caso.setHoraLimite(caso.getHoraRecibido() + random.nextInt(40_000));
+        return caso;
+    }
+
+    @Benchmark
+    public CasoEmergencia offerPoll(CasosDelHilo casos) {
+        cola.offer(casos.siguiente());
+        return cola.poll();
+    }
+}
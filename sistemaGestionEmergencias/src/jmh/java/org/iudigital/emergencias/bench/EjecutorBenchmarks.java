@@ -0,0 +1,49 @@
+package org.iudigital.emergencias.bench;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ejecuta los benchmarks una vez por cada cantidad de hilos pedida y
+ * escribe todos los resultados en un único JSON (cada entrada lleva su
+ * campo "threads"). Propiedades:
+ * <ul>
+ * <li>{@code bench.incluir}: expresión regular de benchmarks a ejecutar</li>
+ * <li>{@code bench.hilos}: cantidades de hilos separadas por coma</li>
+ * <li>{@code bench.salida}: archivo JSON de resultados</li>
+ * </ul>
+ */
+public final class EjecutorBenchmarks {
+
+    private EjecutorBenchmarks() {
+    }
+
+    public static void main(String[] args) throws RunnerException, FileNotFoundException {
+        String incluir = System.getProperty("bench.incluir", ".*");
+        String salida = System.getProperty("bench.salida", "target/jmh-result.json");
+
+        List<RunResult> resultados = new ArrayList<>();
+        for (String hilos : System.getProperty("bench.hilos", "1").split(",")) {
+            Options opciones = new OptionsBuilder()
+                    .include("org\\.iudigital\\.emergencias\\..*" + incluir)
+                    .threads(Integer.parseInt(hilos.trim()))
+                    .build();
+            resultados.addAll(new Runner(opciones).run());
+        }
+
+        try (PrintStream archivo = new PrintStream(salida)) {
+            ResultFormatFactory.getInstance(ResultFormatType.JSON, archivo).writeOut(resultados);
+        }
+        System.out.println("Resultados JMH escritos en " + salida);
+    }
+}
@@ -0,0 +1,112 @@
+package org.iudigital.emergencias.bench;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.observer.EmergenciaObserver;
+import org.iudigital.emergencias.observer.EventPublisher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de publicar un evento a N observadores que solo consumen sus
+ * argumentos: mide el recorrido de la lista y el despacho, no el trabajo de
+ * los observadores.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventPublisherBenchmark {
+
+    @Param({ "1", "2", "4", "8", "16" })
+    public int observadores;
+
+    private EventPublisher publisher;
+    private CasoEmergencia caso;
+    private Ambulancia ambulancia;
+
+    /**
+     * Observador que entrega los argumentos al Blackhole.
+     */
+    private static final class ObservadorVacio implements EmergenciaObserver {
+        private final Blackhole blackhole;
+
+        ObservadorVacio(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onNuevoCasoRecibido(CasoEmergencia caso, String operadorId, int casosPendientes) {
+            blackhole.consume(caso);
+        }
+
+        @Override
+        public void onCasoAsignado(CasoEmergencia caso, Ambulancia ambulancia) {
+            blackhole.consume(caso);
+            blackhole.consume(ambulancia);
+        }
+
+        @Override
+        public void onEquipoMedicoAsignado(CasoEmergencia caso, EquipoMedico equipo) {
+            blackhole.consume(equipo);
+        }
+
+        @Override
+        public void onCasoCompletado(CasoEmergencia caso, long tiempoEsperaMs, long tiempoTotalMs) {
+            blackhole.consume(tiempoTotalMs);
+        }
+
+        @Override
+        public void onCambioEstadoAmbulancia(Ambulancia ambulancia, Ambulancia.StatusAmbulancia estadoAnterior,
+                Ambulancia.StatusAmbulancia estadoNuevo) {
+            blackhole.consume(estadoNuevo);
+        }
+
+        @Override
+        public void onCambioEstadoEquipoMedico(EquipoMedico equipo, EquipoMedico.StatusEquipo estadoAnterior,
+                EquipoMedico.StatusEquipo estadoNuevo) {
+            blackhole.consume(estadoNuevo);
+        }
+
+        @Override
+        public void onRecursoNoDisponible(CasoEmergencia caso, String tipoRecurso) {
+            blackhole.consume(tipoRecurso);
+        }
+    }
+
+    @Setup
+    public void preparar(Blackhole blackhole) {
+        publisher = new EventPublisher();
+        for (int i = 0; i < observadores; i++) {
+            publisher.registrarObserver(new ObservadorVacio(blackhole));
+        }
+        caso = new CasoEmergencia(CasoEmergencia.Severity.GRAVE, 3);
+        ambulancia = new Ambulancia(1, new ArrayList<>());
+    }
+
+    @Benchmark
+    public void publicarCasoAsignado() {
+        publisher.publicarCasoAsignado(caso, ambulancia);
+    }
+
+    @Benchmark
+    public void publicarNuevoCaso() {
+        publisher.publicarNuevoCasoRecibido(caso, "OP-1", 10);
+    }
+}
@@ -0,0 +1,41 @@
+package org.iudigital.emergencias.domain;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Acceso de los benchmarks de este paquete a operaciones del ciclo de vida
+ * que en la simulación solo ejecuta el hilo del propio recurso. Se usa un
+ * MethodHandle (que el JIT integra como una llamada directa) para no abrir
+ * esas operaciones en el código de producción.
+ */
+final class AccesoRecursos {
+
+    private static final MethodHandle LIBERAR;
+
+    static {
+        try {
+            LIBERAR = MethodHandles.privateLookupIn(Ambulancia.class, MethodHandles.lookup())
+                    .findVirtual(Ambulancia.class, "liberar", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private AccesoRecursos() {
+    }
+
+    /**
+     * Devuelve la ambulancia a DISPONIBLE sin recorrer el viaje ni el servicio.
+     */
+    static void liberar(Ambulancia ambulancia) {
+        try {
+            LIBERAR.invokeExact(ambulancia);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
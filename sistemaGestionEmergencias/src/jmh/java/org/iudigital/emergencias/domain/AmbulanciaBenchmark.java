@@ -0,0 +1,92 @@
+package org.iudigital.emergencias.domain;
+
+import org.iudigital.emergencias.dispatch.IndiceDisponibles;
+import org.iudigital.emergencias.geo.MatrizDistancias;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de un ciclo de estado de una ambulancia: tomarla con
+ * {@link Ambulancia#asignarSiDisponible} (CAS de propietario, monitor y
+ * notificación a listeners) y devolverla a DISPONIBLE. Con índice, cada
+ * transición actualiza además el índice espacial de disponibles.
+ * {@code cicloPropio} usa una ambulancia por hilo; {@code competir} hace que
+ * todos los hilos se disputen la misma unidad.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AmbulanciaBenchmark {
+
+    @State(Scope.Thread)
+    public static class Propia {
+        @Param({ "false", "true" })
+        public boolean conIndice;
+
+        Ambulancia ambulancia;
+        CasoEmergencia caso;
+
+        @Setup
+        public void preparar() {
+            ambulancia = crear(conIndice);
+            caso = new CasoEmergencia(CasoEmergencia.Severity.GRAVE, 7);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Compartida {
+        @Param({ "false", "true" })
+        public boolean conIndice;
+
+        Ambulancia ambulancia;
+        CasoEmergencia caso;
+
+        @Setup
+        public void preparar() {
+            ambulancia = crear(conIndice);
+            caso = new CasoEmergencia(CasoEmergencia.Severity.GRAVE, 7);
+        }
+    }
+
+    static Ambulancia crear(boolean conIndice) {
+        RegistroUbicaciones registro = RegistroUbicaciones.getInstance();
+        Ambulancia ambulancia = new Ambulancia(101, new ArrayList<>(), registro.getBases()[0],
+                MatrizDistancias.getPredeterminada());
+        if (conIndice) {
+            new IndiceDisponibles(List.of(ambulancia), List.of(), registro);
+        }
+        return ambulancia;
+    }
+
+    @Benchmark
+    public boolean cicloPropio(Propia estado) {
+        boolean asignada = estado.ambulancia.asignarSiDisponible(estado.caso);
+        AccesoRecursos.liberar(estado.ambulancia);
+        return asignada;
+    }
+
+    @Benchmark
+    public boolean competir(Compartida estado) {
+        boolean asignada = estado.ambulancia.asignarSiDisponible(estado.caso);
+        if (asignada) {
+            AccesoRecursos.liberar(estado.ambulancia);
+        }
+        return asignada;
+    }
+}
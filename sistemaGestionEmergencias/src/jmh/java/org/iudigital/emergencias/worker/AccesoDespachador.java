@@ -0,0 +1,59 @@
+package org.iudigital.emergencias.worker;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Acceso de los benchmarks de este paquete a la decisión de despacho de un
+ * caso y a la liberación de la ambulancia, que en la simulación ejecutan el
+ * hilo del despachador y el de la unidad. Se usan MethodHandle (que el JIT
+ * integra como llamadas directas) para no abrir esas operaciones en el
+ * código de producción.
+ */
+final class AccesoDespachador {
+
+    private static final MethodHandle DESPACHAR;
+    private static final MethodHandle LIBERAR;
+
+    static {
+        try {
+            DESPACHAR = MethodHandles.privateLookupIn(Despachador.class, MethodHandles.lookup())
+                    .findVirtual(Despachador.class, "despacharCaso",
+                            MethodType.methodType(boolean.class, CasoEmergencia.class));
+            LIBERAR = MethodHandles.privateLookupIn(Ambulancia.class, MethodHandles.lookup())
+                    .findVirtual(Ambulancia.class, "liberar", MethodType.methodType(void.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private AccesoDespachador() {
+    }
+
+    static boolean despachar(Despachador despachador, CasoEmergencia caso) throws InterruptedException {
+        try {
+            return (boolean) DESPACHAR.invokeExact(despachador, caso);
+        } catch (InterruptedException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Devuelve la ambulancia a DISPONIBLE sin recorrer el viaje ni el servicio.
+     */
+    static void liberar(Ambulancia ambulancia) {
+        try {
+            LIBERAR.invokeExact(ambulancia);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.iudigital.emergencias.worker;
+
+import org.iudigital.emergencias.dispatch.IndiceDisponibles;
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.geo.MatrizDistancias;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.output.SalidaNula;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asignación de un caso por el despachador en modo individual, con flotas
+ * de distinto tamaño: búsqueda en el índice espacial, reserva y
+ * confirmación de la ambulancia. Tras cada caso la unidad vuelve a
+ * DISPONIBLE para que la flota no se agote. Cada hilo tiene su propio
+ * despachador y flota.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DespachadorBenchmark {
+
+    @Param({ "10", "100", "1000", "5000" })
+    public int flota;
+
+    private Despachador despachador;
+    private final CasoEmergencia[] casos = new CasoEmergencia[1024];
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        RegistroUbicaciones registro = RegistroUbicaciones.getInstance();
+        int[] bases = registro.getBases();
+        SplittableRandom random = new SplittableRandom(7);
+
+        List<Ambulancia> ambulancias = new ArrayList<>();
+        for (int i = 0; i < flota; i++) {
+            ambulancias.add(new Ambulancia(100 + i, new ArrayList<>(),
+                    bases[random.nextInt(bases.length)], MatrizDistancias.getPredeterminada()));
+        }
+        List<EquipoMedico> equipos = new ArrayList<>();
+        despachador = new Despachador(new PriorityBlockingQueue<>(), ambulancias, equipos,
+                new IndiceDisponibles(ambulancias, equipos, registro));
+        despachador.setDesvio(false, 0);
+        despachador.setAnticipacion(false);
+        despachador.setSalida(SalidaNula.getInstance());
+
+        for (int i = 0; i < casos.length; i++) {
+            casos[i] = new CasoEmergencia(CasoEmergencia.Severity.MODERADO,
+                    random.nextInt(RegistroUbicaciones.NUM_LUGARES_PREDETERMINADOS));
+        }
+    }
+
+    @Benchmark
+    public boolean asignar() throws InterruptedException {
+        CasoEmergencia caso = casos[siguiente++ & (casos.length - 1)];
+        boolean asignado = AccesoDespachador.despachar(despachador, caso);
+        if (asignado) {
+            AccesoDespachador.liberar(caso.getRecursoAsignado());
+        }
+        return asignado;
+    }
+}
@@ -0,0 +1,114 @@
+package org.iudigital.emergencias.dispatch;
+
+import java.util.Arrays;
+
+/**
+ * Resuelve el problema de asignación de costo mínimo (casos × unidades) con
+ * el algoritmo húngaro en su versión de potenciales, O(n² · m) para n ≤ m.
+ * Los arreglos de trabajo se reutilizan entre llamadas, por lo que una
+ * instancia no es thread-safe: cada despachador usa la suya.
+ * El tamaño del problema está acotado por {@link #MAX_FILAS} y
+ * {@link #MAX_COLUMNAS} para mantener el tiempo por tick en pocos ms.
+ */
+public class AsignadorHungaro {
+
+    public static final int MAX_FILAS = 200;
+    public static final int MAX_COLUMNAS = 400;
+
+    private static final double INF = Double.MAX_VALUE / 4;
+
+    private double[] u = new double[0];
+    private double[] v = new double[0];
+    private double[] minv = new double[0];
+    private int[] p = new int[0];
+    private int[] camino = new int[0];
+    private boolean[] usado = new boolean[0];
+
+    /**
+     * Calcula la asignación de costo mínimo.
+     *
+     * @param costo matriz de costos plana de n filas por m columnas (costo[i * m + j])
+     * @param n     número de filas (casos), n ≤ m
+     * @param m     número de columnas (unidades)
+     * @return arreglo de n posiciones con la columna asignada a cada fila
+     */
+    public int[] resolver(double[] costo, int n, int m) {
+        if (n > m) {
+            throw new IllegalArgumentException("Se requieren al menos tantas columnas como filas");
+        }
+        if (n > MAX_FILAS || m > MAX_COLUMNAS) {
+            throw new IllegalArgumentException("Problema de asignación demasiado grande: " + n + "x" + m);
+        }
+        prepararArreglos(n, m);
+
+        for (int i = 1; i <= n; i++) {
+            p[0] = i;
+            int j0 = 0;
+            Arrays.fill(minv, 0, m + 1, INF);
+            Arrays.fill(usado, 0, m + 1, false);
+
+            do {
+                usado[j0] = true;
+                int i0 = p[j0];
+                double delta = INF;
+                int j1 = 0;
+                int fila = (i0 - 1) * m;
+                for (int j = 1; j <= m; j++) {
+                    if (!usado[j]) {
+                        double actual = costo[fila + j - 1] - u[i0] - v[j];
+                        if (actual < minv[j]) {
+                            minv[j] = actual;
+                            camino[j] = j0;
+                        }
+                        if (minv[j] < delta) {
+                            delta = minv[j];
+                            j1 = j;
+                        }
+                    }
+                }
+                for (int j = 0; j <= m; j++) {
+                    if (usado[j]) {
+                        u[p[j]] += delta;
+                        v[j] -= delta;
+                    } else {
+                        minv[j] -= delta;
+                    }
+                }
+                j0 = j1;
+            } while (p[j0] != 0);
+
+            do {
+                int j1 = camino[j0];
+                p[j0] = p[j1];
+                j0 = j1;
+            } while (j0 != 0);
+        }
+
+        int[] asignacion = new int[n];
+        for (int j = 1; j <= m; j++) {
+            if (p[j] != 0) {
+                asignacion[p[j] - 1] = j - 1;
+            }
+        }
+        return asignacion;
+    }
+
+    private void prepararArreglos(int n, int m) {
+        if (u.length < n + 1) {
+            u = new double[n + 1];
+        } else {
+            Arrays.fill(u, 0, n + 1, 0);
+        }
+        if (v.length < m + 1) {
+            v = new double[m + 1];
+            minv = new double[m + 1];
+            p = new int[m + 1];
+            camino = new int[m + 1];
+            usado = new boolean[m + 1];
+        } else {
+            Arrays.fill(v, 0, m + 1, 0);
+            Arrays.fill(p, 0, m + 1, 0);
+            Arrays.fill(camino, 0, m + 1, 0);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package org.iudigital.emergencias.dispatch;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.geo.IndiceEspacial;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.observer.RecursoEstadoListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice espacial de los recursos DISPONIBLES.
+ * Se registra como listener de cada ambulancia y equipo médico, y se
+ * actualiza en cada cambio de estado: entra al quedar DISPONIBLE (en su
+ * ubicación actual) y sale al dejar de estarlo. Así el despachador obtiene
+ * los k recursos libres más cercanos sin recorrer toda la flota.
+ * Las ambulancias EN_RUTA se indexan aparte, en su punto de partida, como
+ * candidatas a desvío; las OCUPADA y RETORNANDO, en el hospital donde
+ * quedarán libres, como candidatas a reserva anticipada.
+ */
+public class IndiceDisponibles implements RecursoEstadoListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndiceDisponibles.class);
+
+    public static final int CELDAS_POR_LADO = 20;
+
+    // Ids devueltos por el índice espacial, reutilizados por hilo
+    private static final ThreadLocal<int[]> IDS = ThreadLocal.withInitial(() -> new int[8]);
+
+    private final RegistroUbicaciones registro;
+    private final IndiceEspacial indiceAmbulancias;
+    private final IndiceEspacial indiceEquipos;
+    private final IndiceEspacial indiceEnRuta;
+    private final IndiceEspacial indicePorLiberar;
+
+    // Id denso del índice -> recurso, y recurso -> id denso
+    private final Ambulancia[] ambulancias;
+    private final EquipoMedico[] equipos;
+    private final Map<Ambulancia, Integer> idDeAmbulancia = new IdentityHashMap<>();
+    private final Map<EquipoMedico, Integer> idDeEquipo = new IdentityHashMap<>();
+
+    public IndiceDisponibles(List<Ambulancia> poolAmbulancias, List<EquipoMedico> poolEquipos,
+            RegistroUbicaciones registro) {
+        this.registro = registro;
+        this.indiceAmbulancias = new IndiceEspacial(RegistroUbicaciones.LADO_CIUDAD_KM, CELDAS_POR_LADO);
+        this.indiceEquipos = new IndiceEspacial(RegistroUbicaciones.LADO_CIUDAD_KM, CELDAS_POR_LADO);
+        this.indiceEnRuta = new IndiceEspacial(RegistroUbicaciones.LADO_CIUDAD_KM, CELDAS_POR_LADO);
+        this.indicePorLiberar = new IndiceEspacial(RegistroUbicaciones.LADO_CIUDAD_KM, CELDAS_POR_LADO);
+
+        List<Ambulancia> copiaAmbulancias;
+        synchronized (poolAmbulancias) {
+            copiaAmbulancias = new ArrayList<>(poolAmbulancias);
+        }
+        List<EquipoMedico> copiaEquipos;
+        synchronized (poolEquipos) {
+            copiaEquipos = new ArrayList<>(poolEquipos);
+        }
+        this.ambulancias = copiaAmbulancias.toArray(new Ambulancia[0]);
+        this.equipos = copiaEquipos.toArray(new EquipoMedico[0]);
+
+        for (int i = 0; i < ambulancias.length; i++) {
+            idDeAmbulancia.put(ambulancias[i], i);
+        }
+        for (int i = 0; i < equipos.length; i++) {
+            idDeEquipo.put(equipos[i], i);
+        }
+
+        // Registrar primero y luego cargar el estado actual: una transición
+        // concurrente solo puede dejar el índice más actualizado
+        for (int i = 0; i < ambulancias.length; i++) {
+            ambulancias[i].agregarListener(this);
+            Ambulancia.StatusAmbulancia estado = ambulancias[i].getStatusAmbulancia();
+            if (estado == Ambulancia.StatusAmbulancia.DISPONIBLE) {
+                insertar(indiceAmbulancias, i, ambulancias[i].getUbicacionActualId());
+            } else if (estado == Ambulancia.StatusAmbulancia.EN_RUTA) {
+                insertar(indiceEnRuta, i, ambulancias[i].getUbicacionActualId());
+            } else {
+                insertar(indicePorLiberar, i, ambulancias[i].getUbicacionLiberacionId());
+            }
+        }
+        for (int i = 0; i < equipos.length; i++) {
+            equipos[i].agregarListener(this);
+            if (equipos[i].getStatusEquipo() == EquipoMedico.StatusEquipo.DISPONIBLE) {
+                insertar(indiceEquipos, i, equipos[i].getUbicacionActualId());
+            }
+        }
+
+        logger.info("Índice de disponibles creado: {} ambulancias, {} equipos médicos",
+                ambulancias.length, equipos.length);
+    }
+
+    @Override
+    public void onCambioEstadoAmbulancia(Ambulancia ambulancia,
+            Ambulancia.StatusAmbulancia estadoAnterior,
+            Ambulancia.StatusAmbulancia estadoNuevo) {
+        Integer id = idDeAmbulancia.get(ambulancia);
+        if (id == null) {
+            return;
+        }
+        if (estadoNuevo == Ambulancia.StatusAmbulancia.DISPONIBLE) {
+            insertar(indiceAmbulancias, id, ambulancia.getUbicacionActualId());
+        } else if (estadoAnterior == Ambulancia.StatusAmbulancia.DISPONIBLE) {
+            indiceAmbulancias.eliminar(id);
+        }
+        if (estadoNuevo == Ambulancia.StatusAmbulancia.EN_RUTA) {
+            insertar(indiceEnRuta, id, ambulancia.getUbicacionActualId());
+        } else if (estadoAnterior == Ambulancia.StatusAmbulancia.EN_RUTA) {
+            indiceEnRuta.eliminar(id);
+        }
+        if (estadoNuevo == Ambulancia.StatusAmbulancia.OCUPADA
+                || estadoNuevo == Ambulancia.StatusAmbulancia.RETORNANDO) {
+            insertar(indicePorLiberar, id, ambulancia.getUbicacionLiberacionId());
+        } else if (estadoAnterior == Ambulancia.StatusAmbulancia.OCUPADA
+                || estadoAnterior == Ambulancia.StatusAmbulancia.RETORNANDO) {
+            indicePorLiberar.eliminar(id);
+        }
+    }
+
+    @Override
+    public void onCambioEstadoEquipoMedico(EquipoMedico equipo,
+            EquipoMedico.StatusEquipo estadoAnterior,
+            EquipoMedico.StatusEquipo estadoNuevo) {
+        Integer id = idDeEquipo.get(equipo);
+        if (id == null) {
+            return;
+        }
+        if (estadoNuevo == EquipoMedico.StatusEquipo.DISPONIBLE) {
+            insertar(indiceEquipos, id, equipo.getUbicacionActualId());
+        } else if (estadoAnterior == EquipoMedico.StatusEquipo.DISPONIBLE) {
+            indiceEquipos.eliminar(id);
+        }
+    }
+
+    /**
+     * Ambulancias disponibles más cercanas (en línea recta) a una ubicación.
+     *
+     * @param ubicacionId id de la ubicación
+     * @param k           número máximo de candidatas
+     * @param salida      arreglo de al menos k posiciones
+     * @return número de candidatas escritas en salida
+     */
+    public int ambulanciasCercanas(int ubicacionId, int k, Ambulancia[] salida) {
+        int[] ids = idsDelHilo(k);
+        int n = indiceAmbulancias.vecinosMasCercanos(registro.getX(ubicacionId), registro.getY(ubicacionId), k, ids);
+        for (int i = 0; i < n; i++) {
+            salida[i] = ambulancias[ids[i]];
+        }
+        return n;
+    }
+
+    /**
+     * Ambulancias EN_RUTA cuyo punto de partida está más cerca (en línea
+     * recta) de una ubicación: candidatas a desvío.
+     *
+     * @param ubicacionId id de la ubicación
+     * @param k           número máximo de candidatas
+     * @param salida      arreglo de al menos k posiciones
+     * @return número de candidatas escritas en salida
+     */
+    public int ambulanciasEnRutaCercanas(int ubicacionId, int k, Ambulancia[] salida) {
+        int[] ids = idsDelHilo(k);
+        int n = indiceEnRuta.vecinosMasCercanos(registro.getX(ubicacionId), registro.getY(ubicacionId), k, ids);
+        for (int i = 0; i < n; i++) {
+            salida[i] = ambulancias[ids[i]];
+        }
+        return n;
+    }
+
+    /**
+     * Ambulancias OCUPADA o RETORNANDO cuyo punto de liberación está más
+     * cerca (en línea recta) de una ubicación: candidatas a reserva.
+     *
+     * @param ubicacionId id de la ubicación
+     * @param k           número máximo de candidatas
+     * @param salida      arreglo de al menos k posiciones
+     * @return número de candidatas escritas en salida
+     */
+    public int ambulanciasPorLiberarCercanas(int ubicacionId, int k, Ambulancia[] salida) {
+        int[] ids = idsDelHilo(k);
+        int n = indicePorLiberar.vecinosMasCercanos(registro.getX(ubicacionId), registro.getY(ubicacionId), k, ids);
+        for (int i = 0; i < n; i++) {
+            salida[i] = ambulancias[ids[i]];
+        }
+        return n;
+    }
+
+    /**
+     * Equipos médicos disponibles más cercanos (en línea recta) a una ubicación.
+     *
+     * @param ubicacionId id de la ubicación
+     * @param k           número máximo de candidatos
+     * @param salida      arreglo de al menos k posiciones
+     * @return número de candidatos escritos en salida
+     */
+    public int equiposCercanos(int ubicacionId, int k, EquipoMedico[] salida) {
+        int[] ids = idsDelHilo(k);
+        int n = indiceEquipos.vecinosMasCercanos(registro.getX(ubicacionId), registro.getY(ubicacionId), k, ids);
+        for (int i = 0; i < n; i++) {
+            salida[i] = equipos[ids[i]];
+        }
+        return n;
+    }
+
+    private static int[] idsDelHilo(int k) {
+        int[] ids = IDS.get();
+        if (ids.length < k) {
+            ids = new int[k];
+            IDS.set(ids);
+        }
+        return ids;
+    }
+
+    private void insertar(IndiceEspacial indice, int id, int ubicacionId) {
+        indice.insertar(id, registro.getX(ubicacionId), registro.getY(ubicacionId));
+    }
+
+    public int getTotalAmbulancias() {
+        return ambulancias.length;
+    }
+
+    public int getTotalEquipos() {
+        return equipos.length;
+    }
+
+    public int getAmbulanciasDisponibles() {
+        return indiceAmbulancias.size();
+    }
+
+    public int getEquiposDisponibles() {
+        return indiceEquipos.size();
+    }
+}
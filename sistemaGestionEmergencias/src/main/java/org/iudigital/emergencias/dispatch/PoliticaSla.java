@@ -0,0 +1,74 @@
+package org.iudigital.emergencias.dispatch;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Plazos de respuesta comprometidos por severidad: tiempo máximo entre la
+ * recepción de la llamada y la llegada de la primera ambulancia al lugar.
+ * Inmutable. Los valores por defecto están en la escala de tiempo de la
+ * simulación y pueden cambiarse con las propiedades
+ * {@code emergencias.sla.<severidad>} (en ms), por ejemplo
+ * {@code -Demergencias.sla.critico=4000}.
+ */
+public final class PoliticaSla {
+
+    public static final String PREFIJO_PROPIEDAD = "emergencias.sla.";
+
+    private static final long SLA_CRITICO_MS = 5_000;
+    private static final long SLA_GRAVE_MS = 10_000;
+    private static final long SLA_MODERADO_MS = 20_000;
+    private static final long SLA_LEVE_MS = 40_000;
+
+    private final EnumMap<Severity, Long> plazos;
+
+    public PoliticaSla(Map<Severity, Long> plazos) {
+        this.plazos = new EnumMap<>(Severity.class);
+        for (Severity severidad : Severity.values()) {
+            Long plazo = plazos.get(severidad);
+            if (plazo == null || plazo <= 0) {
+                throw new IllegalArgumentException("Plazo inválido para " + severidad + ": " + plazo);
+            }
+            this.plazos.put(severidad, plazo);
+        }
+    }
+
+    /**
+     * Política con los plazos por defecto, sobrescritos por las propiedades
+     * del sistema que estén definidas.
+     */
+    public static PoliticaSla desdePropiedades() {
+        EnumMap<Severity, Long> plazos = new EnumMap<>(Severity.class);
+        plazos.put(Severity.CRITICO, SLA_CRITICO_MS);
+        plazos.put(Severity.GRAVE, SLA_GRAVE_MS);
+        plazos.put(Severity.MODERADO, SLA_MODERADO_MS);
+        plazos.put(Severity.LEVE, SLA_LEVE_MS);
+        for (Severity severidad : Severity.values()) {
+            Long valor = Long.getLong(PREFIJO_PROPIEDAD + severidad.name().toLowerCase(Locale.ROOT));
+            if (valor != null) {
+                plazos.put(severidad, valor);
+            }
+        }
+        return new PoliticaSla(plazos);
+    }
+
+    public long plazoMs(Severity severidad) {
+        return plazos.get(severidad);
+    }
+
+    /**
+     * Hora límite (epoch ms) de llegada para un caso.
+     */
+    public long horaLimite(CasoEmergencia caso) {
+        return caso.getHoraRecibido() + plazoMs(caso.getSeveridad());
+    }
+
+    @Override
+    public String toString() {
+        return "PoliticaSla" + plazos;
+    }
+}
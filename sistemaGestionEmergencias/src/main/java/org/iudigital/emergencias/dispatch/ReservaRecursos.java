@@ -0,0 +1,197 @@
+package org.iudigital.emergencias.dispatch;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reserva todo-o-nada de varias ambulancias y equipos médicos para un caso.
+ * Cada unidad se aparta con un CAS propio (sin lock global); si no se
+ * consiguen todas las requeridas se revierte y las apartadas vuelven a estar
+ * libres sin haber cambiado de estado. Al confirmar, todas pasan juntas al
+ * caso. Una instancia la usa un solo hilo.
+ * Una ambulancia que ya quedó ligada al caso por otra vía (desvío o reserva
+ * al liberarse) se registra como comprometida: cuenta para completar la
+ * reserva pero no se confirma ni se revierte desde aquí.
+ * <p>
+ * En una reserva al liberarse los equipos se confirman aparte, con
+ * {@link #confirmarEquipos()}, cuando la ambulancia sale hacia el caso: ese
+ * paso lo da el hilo de la ambulancia, bajo su monitor.
+ */
+public class ReservaRecursos {
+
+    private final CasoEmergencia caso;
+    private final int ambulanciasRequeridas;
+    private final int equiposRequeridos;
+    private final List<Ambulancia> ambulancias = new ArrayList<>(2);
+    private final List<EquipoMedico> equipos = new ArrayList<>(2);
+    private final List<Ambulancia> comprometidas = new ArrayList<>(1);
+    private boolean cerrada = false;
+    private boolean equiposPendientes = false;
+
+    public ReservaRecursos(CasoEmergencia caso) {
+        this(caso, caso.getAmbulanciasRequeridas(), caso.getEquiposRequeridos());
+    }
+
+    /**
+     * Reserva con requisitos ajustados, por ejemplo al tamaño de la flota
+     * cuando el caso pide más unidades de las que existen.
+     */
+    public ReservaRecursos(CasoEmergencia caso, int ambulanciasRequeridas, int equiposRequeridos) {
+        this.caso = caso;
+        this.ambulanciasRequeridas = ambulanciasRequeridas;
+        this.equiposRequeridos = equiposRequeridos;
+    }
+
+    /**
+     * @return true si la ambulancia quedó apartada para esta reserva
+     */
+    public boolean apartar(Ambulancia ambulancia) {
+        verificarAbierta();
+        if (ambulancia.apartar(this)) {
+            ambulancias.add(ambulancia);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true si el equipo quedó apartado para esta reserva
+     */
+    public boolean apartar(EquipoMedico equipo) {
+        verificarAbierta();
+        if (equipo.apartar(this)) {
+            equipos.add(equipo);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Registra una ambulancia ya ligada al caso por otra vía.
+     */
+    public void registrarComprometida(Ambulancia ambulancia) {
+        verificarAbierta();
+        comprometidas.add(ambulancia);
+    }
+
+    /**
+     * @return ambulancias que todavía faltan para completar la reserva
+     */
+    public int ambulanciasFaltantes() {
+        return Math.max(0, ambulanciasRequeridas - ambulancias.size() - comprometidas.size());
+    }
+
+    /**
+     * @return equipos que todavía faltan para completar la reserva
+     */
+    public int equiposFaltantes() {
+        return Math.max(0, equiposRequeridos - equipos.size());
+    }
+
+    /**
+     * @return true si ya se apartaron todos los recursos que requiere el caso
+     */
+    public boolean estaCompleta() {
+        return ambulancias.size() + comprometidas.size() >= ambulanciasRequeridas
+                && equipos.size() >= equiposRequeridos;
+    }
+
+    /**
+     * Entrega todas las unidades apartadas al caso.
+     *
+     * @throws IllegalStateException si la reserva no está completa o ya se cerró
+     */
+    public void confirmar() {
+        confirmarSinEquipos();
+        confirmarEquipos();
+    }
+
+    /**
+     * Entrega las ambulancias al caso y deja los equipos apartados, fuera
+     * del alcance de otros despachadores, hasta {@link #confirmarEquipos()}.
+     *
+     * @throws IllegalStateException si la reserva no está completa o ya se cerró
+     */
+    public void confirmarSinEquipos() {
+        verificarAbierta();
+        if (!estaCompleta()) {
+            throw new IllegalStateException("Reserva incompleta para caso #" + caso.getCasoId());
+        }
+        cerrada = true;
+        equiposPendientes = true;
+        caso.setEntregasPendientes(ambulancias.size() + comprometidas.size());
+        for (Ambulancia ambulancia : ambulancias) {
+            ambulancia.confirmarApartado(this, caso);
+        }
+    }
+
+    /**
+     * Entrega al caso los equipos apartados de una reserva ya confirmada.
+     *
+     * @throws IllegalStateException si no hay equipos pendientes de entregar
+     */
+    public void confirmarEquipos() {
+        if (!equiposPendientes) {
+            throw new IllegalStateException("Sin equipos pendientes para caso #" + caso.getCasoId());
+        }
+        equiposPendientes = false;
+        for (EquipoMedico equipo : equipos) {
+            equipo.confirmarApartado(this, caso);
+        }
+    }
+
+    /**
+     * Suelta todas las unidades apartadas. No hace nada si ya se cerró.
+     */
+    public void revertir() {
+        if (cerrada) {
+            return;
+        }
+        cerrada = true;
+        for (Ambulancia ambulancia : ambulancias) {
+            ambulancia.soltar(this);
+        }
+        for (EquipoMedico equipo : equipos) {
+            equipo.soltar(this);
+        }
+        ambulancias.clear();
+        equipos.clear();
+        comprometidas.clear();
+    }
+
+    private void verificarAbierta() {
+        if (cerrada) {
+            throw new IllegalStateException("La reserva del caso #" + caso.getCasoId() + " ya fue cerrada");
+        }
+    }
+
+    public CasoEmergencia getCaso() {
+        return caso;
+    }
+
+    /**
+     * @return ambulancias apartadas y comprometidas, en orden de obtención
+     */
+    public List<Ambulancia> getAmbulancias() {
+        List<Ambulancia> todas = new ArrayList<>(comprometidas);
+        todas.addAll(ambulancias);
+        return Collections.unmodifiableList(todas);
+    }
+
+    public List<EquipoMedico> getEquipos() {
+        return Collections.unmodifiableList(equipos);
+    }
+
+    public int getNumAmbulancias() {
+        return ambulancias.size() + comprometidas.size();
+    }
+
+    public int getNumEquipos() {
+        return equipos.size();
+    }
+}
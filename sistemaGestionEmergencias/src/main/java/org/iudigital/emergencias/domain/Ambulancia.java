@@ -1,13 +1,28 @@
 package org.iudigital.emergencias.domain;
 
+import org.iudigital.emergencias.geo.MatrizDistancias;
+import org.iudigital.emergencias.geo.ModeloViaje;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.jfr.CambioEstadoRecursoEvento;
+import org.iudigital.emergencias.metrics.EstadisticaCerrojo;
+import org.iudigital.emergencias.metrics.EstadoFlota;
+import org.iudigital.emergencias.metrics.RegistroCerrojos;
+import org.iudigital.emergencias.metrics.TrazadorCasos;
+import org.iudigital.emergencias.observer.RecursoEstadoListener;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 import org.iudigital.emergencias.worker.Stoppable;
 
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class Ambulancia implements Runnable, Stoppable {
 
     private final List<CasoEmergencia> casosCompletados;
+    private static final EstadisticaCerrojo CERROJO_COMPLETADOS =
+            RegistroCerrojos.getInstance().obtener("casosCompletados");
 
     public enum StatusAmbulancia {
         DISPONIBLE,
@@ -21,10 +36,74 @@ public class Ambulancia implements Runnable, Stoppable {
     private CasoEmergencia casoEmergencia;
     private volatile boolean corriendo = true;
 
+    // Posición y modelo de viaje
+    private final int baseId;
+    private final ModeloViaje modeloViaje;
+    private volatile int ubicacionActualId;
+
+    // Predicción de liberación: cuándo y dónde (hospital de entrega) quedará
+    // libre la unidad, y caso reservado para tomar al liberarse
+    private static final long SERVICIO_MEDIO_MS = 7000;
+    private volatile long liberacionEstimadaMs;
+    private volatile int hospitalDestinoId;
+    private long duracionServicioMs;
+    private CasoEmergencia casoSiguiente;
+    // Despacho de los equipos del caso reservado, al salir hacia él
+    private Runnable alTomarSiguiente;
+
+    // Dueño de la unidad mientras no está libre: una reserva en curso o el
+    // caso asignado. Se toma con CAS para que varios despachadores compitan
+    // sin lock global; vuelve a null al quedar DISPONIBLE.
+    private final AtomicReference<Object> propietario = new AtomicReference<>();
+
+    // Listeners síncronos de cambio de estado
+    private final List<RecursoEstadoListener> listeners = new CopyOnWriteArrayList<>();
+
+    private Salida salida = SalidaConsola.getInstance();
+
+    // Ranura en el estado compartido de la flota, si está registrada
+    private EstadoFlota estadoFlota;
+    private int ranuraFlota;
+
     public Ambulancia(int idAmbulancia, List<CasoEmergencia> casosCompletados) {
+        this(idAmbulancia, casosCompletados, basePor(idAmbulancia), MatrizDistancias.getPredeterminada());
+    }
+
+    public Ambulancia(int idAmbulancia, List<CasoEmergencia> casosCompletados, int baseId,
+            ModeloViaje modeloViaje) {
         this.idAmbulancia = idAmbulancia;
         this.statusAmbulancia = StatusAmbulancia.DISPONIBLE;
         this.casosCompletados = casosCompletados;
+        this.baseId = baseId;
+        this.modeloViaje = modeloViaje;
+        this.ubicacionActualId = baseId;
+        this.hospitalDestinoId = baseId;
+    }
+
+    /**
+     * Reparte las ambulancias entre las bases de zona según su id.
+     */
+    private static int basePor(int idAmbulancia) {
+        RegistroUbicaciones registro = RegistroUbicaciones.getInstance();
+        return registro.getBaseDeZona(idAmbulancia % registro.getNumZonas());
+    }
+
+    /**
+     * Destino de los mensajes de progreso; por defecto la consola.
+     * Debe configurarse antes de lanzar el hilo.
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
+    }
+
+    /**
+     * Vincula la unidad a su ranura del estado de la flota y publica ahí su
+     * estado actual. Lo llama {@link EstadoFlota#registrar(Ambulancia)}.
+     */
+    public synchronized void setEstadoFlota(EstadoFlota estadoFlota, int ranura) {
+        this.estadoFlota = estadoFlota;
+        this.ranuraFlota = ranura;
+        publicarEstado();
     }
 
     @Override
@@ -35,50 +114,334 @@ public class Ambulancia implements Runnable, Stoppable {
         try {
             while (corriendo && !Thread.currentThread().isInterrupted()) {
                 if (statusAmbulancia == StatusAmbulancia.EN_RUTA) {
-                    System.out.println("Ambulancia " + idAmbulancia + " en ruta a " + casoEmergencia.getLugar());
-                    TimeUnit.SECONDS.sleep(3);
-
-                    this.statusAmbulancia = StatusAmbulancia.OCUPADA;
-                    System.out.println("Ambulancia " + idAmbulancia + " ha llegado. Atendiendo caso #"
-                            + casoEmergencia.getCasoId());
+                    CasoEmergencia atendido = viajarAlCaso();
+                    salida.linea("Ambulancia %d ha llegado. Atendiendo caso #%d", idAmbulancia,
+                            atendido.getCasoId());
 
                 } else if (statusAmbulancia == StatusAmbulancia.OCUPADA) {
-                    TimeUnit.SECONDS.sleep(5 + (long) (Math.random() * 5));
+                    TimeUnit.MILLISECONDS.sleep(duracionServicioMs);
 
-                    System.out.println("Ambulancia " + idAmbulancia + " finaliza atención y regresa");
-                    this.statusAmbulancia = StatusAmbulancia.RETORNANDO;
+                    salida.linea("Ambulancia %d finaliza atención y regresa", idAmbulancia);
+                    iniciarRetorno();
 
                 } else if (statusAmbulancia == StatusAmbulancia.RETORNANDO) {
-                    TimeUnit.SECONDS.sleep(3);
+                    // Traslado al hospital más cercano y regreso a la base
+                    int hospitalId = hospitalDestinoId;
+                    TimeUnit.MILLISECONDS.sleep(modeloViaje.tiempoViajeMs(ubicacionActualId, hospitalId));
+                    this.ubicacionActualId = hospitalId;
+                    entregarCaso();
 
-                    if (casoEmergencia != null) {
-                        casoEmergencia.setHoraAtendido(System.currentTimeMillis());
-
-                        synchronized (casosCompletados) {
-                            casosCompletados.add(casoEmergencia);
-                        }
+                    if (tomarCasoReservado()) {
+                        salida.linea("Ambulancia %d sale del hospital hacia el caso reservado", idAmbulancia);
+                    } else if (regresarABase()) {
+                        salida.linea("Ambulancia %d toma el caso reservado camino a la base", idAmbulancia);
+                    } else {
+                        salida.linea("Ambulancia %d ahora DISPONIBLE", idAmbulancia);
                     }
-                    this.statusAmbulancia = StatusAmbulancia.DISPONIBLE;
-                    this.casoEmergencia = null;
-                    System.out.println("Ambulancia " + idAmbulancia + " ahora DISPONIBLE");
 
                 } else {
                     TimeUnit.MILLISECONDS.sleep(100);
                 }
             }
         } catch (InterruptedException e) {
-            System.out.println("Ambulancia " + idAmbulancia + " fue interrumpida.");
+            salida.linea("Ambulancia %d fue interrumpida.", idAmbulancia);
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Viaja al caso asignado. La espera se hace con wait() sobre el monitor
+     * para que {@link #desviar} pueda cambiar el destino a mitad de camino:
+     * al despertar con otro caso se recalcula la llegada desde el último punto
+     * conocido.
+     *
+     * @return el caso al que finalmente llegó
+     */
+    private synchronized CasoEmergencia viajarAlCaso() throws InterruptedException {
+        CasoEmergencia caso = casoEmergencia;
+        int destinoId = caso.getUbicacionId();
+        salida.linea("Ambulancia %d en ruta a %s", idAmbulancia, caso.getLugar());
+        long llegada = System.currentTimeMillis() + modeloViaje.tiempoViajeMs(ubicacionActualId, destinoId);
+
+        long restante;
+        while ((restante = llegada - System.currentTimeMillis()) > 0) {
+            wait(restante);
+            if (casoEmergencia != caso) {
+                caso = casoEmergencia;
+                destinoId = caso.getUbicacionId();
+                llegada = System.currentTimeMillis() + modeloViaje.tiempoViajeMs(ubicacionActualId, destinoId);
+                salida.linea("Ambulancia %d DESVIADA a %s (caso #%d)", idAmbulancia, caso.getLugar(),
+                        caso.getCasoId());
+            }
+        }
+
+        this.ubicacionActualId = destinoId;
+        this.hospitalDestinoId = modeloViaje.hospitalMasCercano(destinoId);
+        this.duracionServicioMs = TimeUnit.SECONDS.toMillis(5 + (long) (Math.random() * 5));
+        this.liberacionEstimadaMs = System.currentTimeMillis() + duracionServicioMs
+                + modeloViaje.tiempoViajeMs(destinoId, hospitalDestinoId);
+        trazar(caso, TrazadorCasos.Fase.AMBULANCIA_EN_ESCENA);
+        cambiarEstado(StatusAmbulancia.OCUPADA);
+        return caso;
+    }
+
+    private synchronized void iniciarRetorno() {
+        this.liberacionEstimadaMs = System.currentTimeMillis()
+                + modeloViaje.tiempoViajeMs(ubicacionActualId, hospitalDestinoId);
+        trazar(casoEmergencia, TrazadorCasos.Fase.AMBULANCIA_RETORNANDO);
+        cambiarEstado(StatusAmbulancia.RETORNANDO);
+    }
+
+    /**
+     * Entrega el paciente en el hospital: el caso queda completado.
+     */
+    private void entregarCaso() {
+        // La pila de una tenencia larga de la lista se toma fuera de ambos monitores
+        CERROJO_COMPLETADOS.registrarLarga(completarCaso());
+    }
+
+    /**
+     * @return tenencia larga de la lista de completados a registrar, o 0
+     */
+    private synchronized long completarCaso() {
+        long larga = 0L;
+        if (casoEmergencia != null && casoEmergencia.registrarEntrega()) {
+            casoEmergencia.setHoraAtendido(System.currentTimeMillis());
+            trazar(casoEmergencia, TrazadorCasos.Fase.COMPLETADO);
+
+            long espera = CERROJO_COMPLETADOS.inicioEspera();
+            synchronized (casosCompletados) {
+                long tenencia = CERROJO_COMPLETADOS.adquirido(espera);
+                casosCompletados.add(casoEmergencia);
+                larga = CERROJO_COMPLETADOS.liberado(tenencia);
+            }
+        }
+        return larga;
+    }
+
+    /**
+     * Vuelve a la base esperando sobre el monitor, para que una reserva
+     * hecha durante el trayecto lo corte y la unidad salga hacia el caso
+     * reservado desde el último punto conocido (el hospital).
+     *
+     * @return true si tomó un caso reservado en el camino
+     */
+    private synchronized boolean regresarABase() throws InterruptedException {
+        long llegada = System.currentTimeMillis() + modeloViaje.tiempoViajeMs(ubicacionActualId, baseId);
+        long restante;
+        while ((restante = llegada - System.currentTimeMillis()) > 0) {
+            wait(restante);
+            if (tomarCasoReservado()) {
+                return true;
+            }
+        }
+        this.ubicacionActualId = baseId;
+        liberar();
+        return false;
+    }
+
+    /**
+     * Si hay un caso reservado lo toma y pasa directo a EN_RUTA, sin pasar
+     * por DISPONIBLE. La espera del caso se cuenta hasta este momento.
+     */
+    private synchronized boolean tomarCasoReservado() {
+        if (casoSiguiente == null) {
+            return false;
+        }
+        CasoEmergencia siguiente = casoSiguiente;
+        Runnable alTomar = alTomarSiguiente;
+        this.casoSiguiente = null;
+        this.alTomarSiguiente = null;
+        trazar(casoEmergencia, TrazadorCasos.Fase.AMBULANCIA_LIBERADA);
+        siguiente.setHoraInicioServicio(System.currentTimeMillis());
+        setOcupada(siguiente);
+        if (alTomar != null) {
+            alTomar.run();
+        }
+        return true;
+    }
+
+    /**
+     * Reserva el próximo caso de una unidad que todavía está atendiendo o
+     * retornando; lo tomará apenas entregue al paciente. Admite una sola
+     * reserva por unidad.
+     *
+     * @param caso el caso a reservar
+     * @return true si la reserva quedó registrada
+     */
+    public synchronized boolean reservarSiguiente(CasoEmergencia caso) {
+        if ((statusAmbulancia != StatusAmbulancia.OCUPADA && statusAmbulancia != StatusAmbulancia.RETORNANDO)
+                || casoSiguiente != null) {
+            return false;
+        }
+        this.casoSiguiente = caso;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Deja una acción para cuando la unidad salga hacia el caso reservado,
+     * p. ej. despachar los equipos médicos que lo acompañan. Si ya salió
+     * hacia él, la ejecuta ahora.
+     *
+     * @param caso   el caso reservado con {@link #reservarSiguiente}
+     * @param accion lo que debe ocurrir al tomarlo
+     */
+    public synchronized void alTomarReservado(CasoEmergencia caso, Runnable accion) {
+        if (casoSiguiente == caso) {
+            this.alTomarSiguiente = accion;
+        } else {
+            accion.run();
+        }
+    }
+
+    public synchronized boolean tieneReserva() {
+        return casoSiguiente != null;
+    }
+
+    /**
+     * Desvía la ambulancia a un caso nuevo si sigue EN_RUTA hacia un caso de
+     * severidad igual o menor a la indicada. Comprobación y cambio son
+     * atómicos respecto del viaje y de otros despachadores.
+     *
+     * @param nuevoCaso             el caso al que se desvía
+     * @param valorSeveridadMaximo  severidad máxima (ver {@link CasoEmergencia#getValorSeveridad()})
+     *                              del caso que se puede desplazar
+     * @return el caso desplazado, o null si no se pudo desviar
+     */
+    public synchronized CasoEmergencia desviar(CasoEmergencia nuevoCaso, int valorSeveridadMaximo) {
+        if (statusAmbulancia != StatusAmbulancia.EN_RUTA || casoEmergencia == null
+                || casoEmergencia.getValorSeveridad() > valorSeveridadMaximo) {
+            return null;
+        }
+        CasoEmergencia desplazado = casoEmergencia;
+        this.casoEmergencia = nuevoCaso;
+        publicarEstado();
+        trazar(desplazado, TrazadorCasos.Fase.AMBULANCIA_LIBERADA);
+        trazar(nuevoCaso, TrazadorCasos.Fase.AMBULANCIA_EN_RUTA);
+        estimarLiberacionEnRuta(nuevoCaso.getUbicacionId());
+        notifyAll();
+        return desplazado;
+    }
+
     public synchronized void setOcupada(CasoEmergencia casoEmergencia) {
         this.casoEmergencia = casoEmergencia;
-        this.statusAmbulancia = StatusAmbulancia.EN_RUTA;
+        estimarLiberacionEnRuta(casoEmergencia.getUbicacionId());
+        trazar(casoEmergencia, TrazadorCasos.Fase.AMBULANCIA_EN_RUTA);
+        cambiarEstado(StatusAmbulancia.EN_RUTA);
+    }
+
+    private void estimarLiberacionEnRuta(int destinoId) {
+        this.liberacionEstimadaMs = System.currentTimeMillis()
+                + modeloViaje.tiempoViajeMs(ubicacionActualId, destinoId) + SERVICIO_MEDIO_MS
+                + modeloViaje.tiempoViajeMs(destinoId, modeloViaje.hospitalMasCercano(destinoId));
+    }
+
+    /**
+     * Toma el caso solo si la ambulancia sigue DISPONIBLE. La comprobación y
+     * la transición son atómicas, así varios despachadores pueden competir por
+     * la misma unidad sin un lock global: solo uno gana.
+     *
+     * @param casoEmergencia el caso a atender
+     * @return true si la ambulancia quedó asignada al caso
+     */
+    public boolean asignarSiDisponible(CasoEmergencia casoEmergencia) {
+        if (!apartar(casoEmergencia)) {
+            return false;
+        }
+        confirmarApartado(casoEmergencia, casoEmergencia);
+        return true;
+    }
+
+    /**
+     * Aparta la unidad para una reserva sin cambiar todavía su estado. Una
+     * unidad apartada sigue DISPONIBLE pero nadie más puede tomarla hasta que
+     * se confirme o se suelte.
+     *
+     * @param reserva identidad de quien aparta
+     * @return true si la unidad estaba libre y quedó apartada
+     */
+    public boolean apartar(Object reserva) {
+        if (statusAmbulancia != StatusAmbulancia.DISPONIBLE || !propietario.compareAndSet(null, reserva)) {
+            return false;
+        }
+        if (statusAmbulancia != StatusAmbulancia.DISPONIBLE) {
+            propietario.compareAndSet(reserva, null);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Confirma una unidad apartada: toma el caso y pasa a EN_RUTA.
+     *
+     * @throws IllegalStateException si la unidad no está apartada por esa reserva
+     */
+    public synchronized void confirmarApartado(Object reserva, CasoEmergencia casoEmergencia) {
+        if (propietario.get() != reserva) {
+            throw new IllegalStateException("Ambulancia " + idAmbulancia + " no está apartada por esta reserva");
+        }
+        setOcupada(casoEmergencia);
+    }
+
+    /**
+     * Suelta una unidad apartada y sin confirmar.
+     */
+    public void soltar(Object reserva) {
+        propietario.compareAndSet(reserva, null);
     }
 
     public synchronized void setEnRuta() {
-        this.statusAmbulancia = StatusAmbulancia.EN_RUTA;
+        cambiarEstado(StatusAmbulancia.EN_RUTA);
+    }
+
+    /**
+     * Suelta el caso y vuelve a DISPONIBLE de forma atómica, para que el
+     * despachador no pueda asignar un caso nuevo que luego se pierda.
+     */
+    private synchronized void liberar() {
+        trazar(casoEmergencia, TrazadorCasos.Fase.AMBULANCIA_LIBERADA);
+        this.casoEmergencia = null;
+        cambiarEstado(StatusAmbulancia.DISPONIBLE);
+        propietario.set(null);
+    }
+
+    /**
+     * Cambia el estado y notifica a los listeners dentro del monitor, de modo
+     * que reciben las transiciones en el mismo orden en que ocurren.
+     */
+    private synchronized void cambiarEstado(StatusAmbulancia nuevo) {
+        StatusAmbulancia anterior = this.statusAmbulancia;
+        this.statusAmbulancia = nuevo;
+        publicarEstado();
+        CambioEstadoRecursoEvento.emitir("AMBULANCIA", idAmbulancia, anterior, nuevo, getCasoActualId());
+        for (RecursoEstadoListener listener : listeners) {
+            listener.onCambioEstadoAmbulancia(this, anterior, nuevo);
+        }
+    }
+
+    private void trazar(CasoEmergencia caso, TrazadorCasos.Fase fase) {
+        if (caso != null) {
+            TrazadorCasos.getInstance().registrar(caso, fase, idAmbulancia);
+        }
+    }
+
+    /**
+     * Copia estado y caso a la ranura de la flota; se llama dentro del
+     * monitor tras cada cambio de uno u otro.
+     */
+    private void publicarEstado() {
+        if (estadoFlota != null) {
+            estadoFlota.actualizarAmbulancia(ranuraFlota, statusAmbulancia, getCasoActualId());
+        }
+    }
+
+    public void agregarListener(RecursoEstadoListener listener) {
+        listeners.add(listener);
+    }
+
+    public void eliminarListener(RecursoEstadoListener listener) {
+        listeners.remove(listener);
     }
 
     public int getIdAmbulancia() {
@@ -89,6 +452,40 @@ public class Ambulancia implements Runnable, Stoppable {
         return statusAmbulancia;
     }
 
+    public int getBaseId() {
+        return baseId;
+    }
+
+    public int getUbicacionActualId() {
+        return ubicacionActualId;
+    }
+
+    /**
+     * Momento estimado (epoch ms) en que la unidad podrá tomar otro caso,
+     * según su fase actual: EN_RUTA usa la duración media de atención;
+     * OCUPADA y RETORNANDO usan la duración real ya sorteada y el viaje al
+     * hospital. En DISPONIBLE el valor no aplica.
+     */
+    public long getLiberacionEstimadaMs() {
+        return liberacionEstimadaMs;
+    }
+
+    /**
+     * Hospital donde la unidad entregará al paciente actual: el punto desde
+     * el que saldría hacia un caso reservado.
+     */
+    public int getUbicacionLiberacionId() {
+        return hospitalDestinoId;
+    }
+
+    public ModeloViaje getModeloViaje() {
+        return modeloViaje;
+    }
+
+    public synchronized CasoEmergencia getCasoActual() {
+        return casoEmergencia;
+    }
+
     public long getCasoActualId() {
         return (casoEmergencia != null) ? casoEmergencia.getCasoId() : -1;
     }
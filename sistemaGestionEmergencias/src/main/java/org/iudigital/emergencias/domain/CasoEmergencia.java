@@ -1,10 +1,22 @@
 package org.iudigital.emergencias.domain;
 
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class CasoEmergencia implements Comparable<CasoEmergencia> {
     private static final AtomicLong ID_GENERATOR = new AtomicLong(1000);
 
+    /**
+     * Orden por plazo más próximo (EDF); a igual plazo, por orden de llegada.
+     * A diferencia del orden natural, la clave no cambia con el tiempo.
+     */
+    public static final Comparator<CasoEmergencia> POR_PLAZO = Comparator
+            .comparingLong(CasoEmergencia::getHoraLimite)
+            .thenComparingLong(CasoEmergencia::getCasoId);
+
     public enum Severity {
         CRITICO,
         GRAVE,
@@ -15,19 +27,52 @@ public class CasoEmergencia implements Comparable<CasoEmergencia> {
     private final long casoId;
     private final Severity severidad;
     private final long horaRecibido;
-    private final String lugar;
+    private final int ubicacionId;
     private Ambulancia recursoAsignado;
     private long horaInicioServicio = 0;
     private long horaAtendido = 0;
 
+    // Recursos que requiere el caso y ambulancias que aún deben entregarlo
+    private final int ambulanciasRequeridas;
+    private final int equiposRequeridos;
+    private final AtomicInteger entregasPendientes = new AtomicInteger(1);
+
+    // Plazo de respuesta y primera llegada de una ambulancia al lugar
+    private volatile long horaLimite = Long.MAX_VALUE;
+    private final AtomicLong horaLlegada = new AtomicLong(0);
+
+    // Llamadas que reportaron este incidente (la original más las fusionadas)
+    private final AtomicInteger llamadas = new AtomicInteger(1);
+
     private static final double WG = 4.0;
     private static final double WT = 0.5;
 
-    public CasoEmergencia(Severity severidad, String lugar) {
+    public CasoEmergencia(Severity severidad, int ubicacionId) {
+        this(severidad, ubicacionId, 1,
+                (severidad == Severity.CRITICO || severidad == Severity.GRAVE) ? 1 : 0);
+    }
+
+    /**
+     * Crea un caso que requiere varias unidades (incidente múltiple).
+     *
+     * @param ambulanciasRequeridas ambulancias que deben despacharse juntas (al menos 1)
+     * @param equiposRequeridos     equipos médicos que deben despacharse junto con ellas
+     */
+    public CasoEmergencia(Severity severidad, int ubicacionId, int ambulanciasRequeridas, int equiposRequeridos) {
+        if (ambulanciasRequeridas < 1 || equiposRequeridos < 0) {
+            throw new IllegalArgumentException("Recursos requeridos inválidos: "
+                    + ambulanciasRequeridas + " ambulancias, " + equiposRequeridos + " equipos");
+        }
         this.casoId = ID_GENERATOR.getAndIncrement();
         this.severidad = severidad;
         this.horaRecibido = System.currentTimeMillis();
-        this.lugar = lugar;
+        this.ubicacionId = ubicacionId;
+        this.ambulanciasRequeridas = ambulanciasRequeridas;
+        this.equiposRequeridos = equiposRequeridos;
+    }
+
+    public CasoEmergencia(Severity severidad, String lugar) {
+        this(severidad, RegistroUbicaciones.getInstance().internar(lugar));
     }
 
     @Override
@@ -45,13 +90,19 @@ public class CasoEmergencia implements Comparable<CasoEmergencia> {
     private double calculatePriorityScore() {
         long timeInQueue = (System.currentTimeMillis() - horaRecibido) / 1000;
 
-        int severityValue = switch (severidad) {
+        return (getValorSeveridad() * WG) + (timeInQueue * WT);
+    }
+
+    /**
+     * Valor numérico de la severidad (CRITICO = 4 ... LEVE = 1).
+     */
+    public int getValorSeveridad() {
+        return switch (severidad) {
             case CRITICO -> 4;
             case GRAVE -> 3;
             case MODERADO -> 2;
             case LEVE -> 1;
         };
-        return (severityValue * WG) + (timeInQueue * WT);
     }
 
     // Getters
@@ -67,8 +118,72 @@ public class CasoEmergencia implements Comparable<CasoEmergencia> {
         return horaRecibido;
     }
 
+    public int getAmbulanciasRequeridas() {
+        return ambulanciasRequeridas;
+    }
+
+    public int getEquiposRequeridos() {
+        return equiposRequeridos;
+    }
+
+    /**
+     * Fija cuántas ambulancias deben entregar el caso para darlo por completado.
+     */
+    public void setEntregasPendientes(int entregas) {
+        entregasPendientes.set(entregas);
+    }
+
+    /**
+     * Registra la entrega de una de las ambulancias asignadas.
+     *
+     * @return true si era la última y el caso queda completado
+     */
+    public boolean registrarEntrega() {
+        return entregasPendientes.decrementAndGet() == 0;
+    }
+
+    /**
+     * Hora límite (epoch ms) de llegada según el plazo de su severidad. Debe
+     * fijarse antes de encolar el caso.
+     */
+    public long getHoraLimite() {
+        return horaLimite;
+    }
+
+    public void setHoraLimite(long horaLimite) {
+        this.horaLimite = horaLimite;
+    }
+
+    /**
+     * Registra la llegada de una ambulancia al lugar.
+     *
+     * @return true si es la primera llegada del caso
+     */
+    public boolean registrarLlegada(long hora) {
+        return horaLlegada.compareAndSet(0, hora);
+    }
+
+    public long getHoraLlegada() {
+        return horaLlegada.get();
+    }
+
+    /**
+     * Registra otra llamada por el mismo incidente.
+     */
+    public void registrarLlamada() {
+        llamadas.incrementAndGet();
+    }
+
+    public int getLlamadas() {
+        return llamadas.get();
+    }
+
+    public int getUbicacionId() {
+        return ubicacionId;
+    }
+
     public String getLugar() {
-        return lugar;
+        return RegistroUbicaciones.getInstance().getNombre(ubicacionId);
     }
 
     public Ambulancia getRecursoAsignado() {
@@ -1,8 +1,20 @@
 package org.iudigital.emergencias.domain;
 
+import org.iudigital.emergencias.geo.MatrizDistancias;
+import org.iudigital.emergencias.geo.ModeloViaje;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.jfr.CambioEstadoRecursoEvento;
+import org.iudigital.emergencias.metrics.EstadoFlota;
+import org.iudigital.emergencias.metrics.TrazadorCasos;
+import org.iudigital.emergencias.observer.RecursoEstadoListener;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 import org.iudigital.emergencias.worker.Stoppable;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class EquipoMedico implements Runnable, Stoppable {
 
@@ -18,9 +30,49 @@ public class EquipoMedico implements Runnable, Stoppable {
     private CasoEmergencia casoEmergencia;
     private volatile boolean corriendo = true;
 
+    // Posición y modelo de viaje (los equipos tienen sede en un hospital)
+    private final int sedeId;
+    private final ModeloViaje modeloViaje;
+    private volatile int ubicacionActualId;
+
+    // Dueño del equipo mientras no está libre (ver Ambulancia)
+    private final AtomicReference<Object> propietario = new AtomicReference<>();
+
+    // Listeners síncronos de cambio de estado
+    private final List<RecursoEstadoListener> listeners = new CopyOnWriteArrayList<>();
+
+    private Salida salida = SalidaConsola.getInstance();
+
+    // Ranura en el estado compartido de la flota, si está registrado
+    private EstadoFlota estadoFlota;
+    private int ranuraFlota;
+
     public EquipoMedico(int idEquipo) {
+        this(idEquipo, sedePor(idEquipo), MatrizDistancias.getPredeterminada());
+    }
+
+    public EquipoMedico(int idEquipo, int sedeId, ModeloViaje modeloViaje) {
         this.idEquipo = idEquipo;
         this.statusEquipo = StatusEquipo.DISPONIBLE;
+        this.sedeId = sedeId;
+        this.modeloViaje = modeloViaje;
+        this.ubicacionActualId = sedeId;
+    }
+
+    /**
+     * Reparte los equipos entre los hospitales según su id.
+     */
+    private static int sedePor(int idEquipo) {
+        int[] hospitales = RegistroUbicaciones.getInstance().getHospitales();
+        return hospitales[idEquipo % hospitales.length];
+    }
+
+    /**
+     * Destino de los mensajes de progreso; por defecto la consola.
+     * Debe configurarse antes de lanzar el hilo.
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
     }
 
     @Override
@@ -32,39 +84,154 @@ public class EquipoMedico implements Runnable, Stoppable {
             while (corriendo && !Thread.currentThread().isInterrupted()) {
 
                 if (statusEquipo == StatusEquipo.ASIGNADO) {
-                    System.out.printf("⚕️ Equipo %d: En camino a %s.\n", idEquipo, casoEmergencia.getLugar());
-                    TimeUnit.SECONDS.sleep(2);
-                    this.statusEquipo = StatusEquipo.OCUPADO;
+                    salida.linea("⚕️ Equipo %d: En camino a %s.", idEquipo, casoEmergencia.getLugar());
+                    int destinoId = casoEmergencia.getUbicacionId();
+                    TimeUnit.MILLISECONDS.sleep(modeloViaje.tiempoViajeMs(ubicacionActualId, destinoId));
+                    this.ubicacionActualId = destinoId;
+                    trazar(TrazadorCasos.Fase.EQUIPO_EN_ESCENA);
+                    cambiarEstado(StatusEquipo.OCUPADO);
 
                 } else if (statusEquipo == StatusEquipo.OCUPADO) {
-                    System.out.printf("⚕️ Equipo %d: Atendiendo caso #%d (Servicio especializado).\n",
+                    salida.linea("⚕️ Equipo %d: Atendiendo caso #%d (Servicio especializado).",
                             idEquipo, casoEmergencia.getCasoId());
 
                     TimeUnit.SECONDS.sleep(4 + (long) (Math.random() * 4));
 
-                    System.out.printf("⚕️ Equipo %d: Finaliza servicio y retorna.\n", idEquipo);
-                    this.statusEquipo = StatusEquipo.RETORNANDO;
+                    salida.linea("⚕️ Equipo %d: Finaliza servicio y retorna.", idEquipo);
+                    trazar(TrazadorCasos.Fase.EQUIPO_RETORNANDO);
+                    cambiarEstado(StatusEquipo.RETORNANDO);
 
                 } else if (statusEquipo == StatusEquipo.RETORNANDO) {
-                    TimeUnit.SECONDS.sleep(2);
+                    TimeUnit.MILLISECONDS.sleep(modeloViaje.tiempoViajeMs(ubicacionActualId, sedeId));
+                    this.ubicacionActualId = sedeId;
 
-                    this.statusEquipo = StatusEquipo.DISPONIBLE;
-                    this.casoEmergencia = null;
-                    System.out.printf("⚕️ Equipo %d: ahora DISPONIBLE.\n", idEquipo);
+                    liberar();
+                    salida.linea("⚕️ Equipo %d: ahora DISPONIBLE.", idEquipo);
 
                 } else {
                     TimeUnit.MILLISECONDS.sleep(100);
                 }
             }
         } catch (InterruptedException e) {
-            System.out.printf("⚕️ Equipo %d interrumpido y detenido.\n", idEquipo);
+            salida.linea("⚕️ Equipo %d interrumpido y detenido.", idEquipo);
             Thread.currentThread().interrupt();
         }
     }
 
+    /**
+     * Vincula el equipo a su ranura del estado de la flota y publica ahí su
+     * estado actual. Lo llama {@link EstadoFlota#registrar(EquipoMedico)}.
+     */
+    public synchronized void setEstadoFlota(EstadoFlota estadoFlota, int ranura) {
+        this.estadoFlota = estadoFlota;
+        this.ranuraFlota = ranura;
+        publicarEstado();
+    }
+
     public synchronized void asignarCaso(CasoEmergencia casoEmergencia) {
         this.casoEmergencia = casoEmergencia;
-        this.statusEquipo = StatusEquipo.ASIGNADO;
+        trazar(TrazadorCasos.Fase.EQUIPO_EN_RUTA);
+        cambiarEstado(StatusEquipo.ASIGNADO);
+    }
+
+    /**
+     * Toma el caso solo si el equipo sigue DISPONIBLE (comprobación y
+     * transición atómicas).
+     *
+     * @param casoEmergencia el caso a atender
+     * @return true si el equipo quedó asignado al caso
+     */
+    public boolean asignarSiDisponible(CasoEmergencia casoEmergencia) {
+        if (!apartar(casoEmergencia)) {
+            return false;
+        }
+        confirmarApartado(casoEmergencia, casoEmergencia);
+        return true;
+    }
+
+    /**
+     * Aparta el equipo para una reserva sin cambiar todavía su estado.
+     *
+     * @param reserva identidad de quien aparta
+     * @return true si el equipo estaba libre y quedó apartado
+     */
+    public boolean apartar(Object reserva) {
+        if (statusEquipo != StatusEquipo.DISPONIBLE || !propietario.compareAndSet(null, reserva)) {
+            return false;
+        }
+        if (statusEquipo != StatusEquipo.DISPONIBLE) {
+            propietario.compareAndSet(reserva, null);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Confirma un equipo apartado: toma el caso y pasa a ASIGNADO.
+     *
+     * @throws IllegalStateException si el equipo no está apartado por esa reserva
+     */
+    public synchronized void confirmarApartado(Object reserva, CasoEmergencia casoEmergencia) {
+        if (propietario.get() != reserva) {
+            throw new IllegalStateException("Equipo " + idEquipo + " no está apartado por esta reserva");
+        }
+        asignarCaso(casoEmergencia);
+    }
+
+    /**
+     * Suelta un equipo apartado y sin confirmar.
+     */
+    public void soltar(Object reserva) {
+        propietario.compareAndSet(reserva, null);
+    }
+
+    /**
+     * Suelta el caso y vuelve a DISPONIBLE de forma atómica.
+     */
+    private synchronized void liberar() {
+        trazar(TrazadorCasos.Fase.EQUIPO_LIBERADO);
+        this.casoEmergencia = null;
+        cambiarEstado(StatusEquipo.DISPONIBLE);
+        propietario.set(null);
+    }
+
+    /**
+     * Cambia el estado y notifica a los listeners dentro del monitor.
+     */
+    private synchronized void cambiarEstado(StatusEquipo nuevo) {
+        StatusEquipo anterior = this.statusEquipo;
+        this.statusEquipo = nuevo;
+        publicarEstado();
+        CambioEstadoRecursoEvento.emitir("EQUIPO", idEquipo, anterior, nuevo,
+                casoEmergencia != null ? casoEmergencia.getCasoId() : -1);
+        for (RecursoEstadoListener listener : listeners) {
+            listener.onCambioEstadoEquipoMedico(this, anterior, nuevo);
+        }
+    }
+
+    private void trazar(TrazadorCasos.Fase fase) {
+        CasoEmergencia caso = casoEmergencia;
+        if (caso != null) {
+            TrazadorCasos.getInstance().registrar(caso, fase, idEquipo);
+        }
+    }
+
+    /**
+     * Copia estado y caso a la ranura de la flota, dentro del monitor.
+     */
+    private void publicarEstado() {
+        if (estadoFlota != null) {
+            estadoFlota.actualizarEquipo(ranuraFlota, statusEquipo,
+                    casoEmergencia != null ? casoEmergencia.getCasoId() : -1);
+        }
+    }
+
+    public void agregarListener(RecursoEstadoListener listener) {
+        listeners.add(listener);
+    }
+
+    public void eliminarListener(RecursoEstadoListener listener) {
+        listeners.remove(listener);
     }
 
     public synchronized StatusEquipo getStatusEquipo() {
@@ -75,6 +242,18 @@ public class EquipoMedico implements Runnable, Stoppable {
         return idEquipo;
     }
 
+    public int getSedeId() {
+        return sedeId;
+    }
+
+    public int getUbicacionActualId() {
+        return ubicacionActualId;
+    }
+
+    public ModeloViaje getModeloViaje() {
+        return modeloViaje;
+    }
+
     @Override
     public void stop() {
         this.corriendo = false;
@@ -0,0 +1,107 @@
+package org.iudigital.emergencias.geo;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché LRU de rutas indexada por par de nodos (origen, destino).
+ * Se divide en segmentos independientes para que varios hilos de despacho
+ * no compitan por un único lock.
+ */
+public class CacheRutas {
+
+    /**
+     * Resultado de una búsqueda de ruta entre dos nodos.
+     */
+    public static final class Ruta {
+        private final float tiempoMs;
+        private final float distanciaKm;
+
+        public Ruta(float tiempoMs, float distanciaKm) {
+            this.tiempoMs = tiempoMs;
+            this.distanciaKm = distanciaKm;
+        }
+
+        public float getTiempoMs() {
+            return tiempoMs;
+        }
+
+        public float getDistanciaKm() {
+            return distanciaKm;
+        }
+    }
+
+    private static final int NUM_SEGMENTOS = 16;
+
+    private final Segmento[] segmentos;
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+
+    /**
+     * @param capacidad número máximo de rutas en caché (repartidas entre segmentos)
+     */
+    public CacheRutas(int capacidad) {
+        int capacidadSegmento = Math.max(1, capacidad / NUM_SEGMENTOS);
+        this.segmentos = new Segmento[NUM_SEGMENTOS];
+        for (int i = 0; i < NUM_SEGMENTOS; i++) {
+            segmentos[i] = new Segmento(capacidadSegmento);
+        }
+    }
+
+    public static long clave(int origen, int destino) {
+        return ((long) origen << 32) | (destino & 0xFFFFFFFFL);
+    }
+
+    public Ruta get(long clave) {
+        Segmento segmento = segmentoDe(clave);
+        Ruta ruta;
+        synchronized (segmento) {
+            ruta = segmento.get(clave);
+        }
+        if (ruta != null) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+        }
+        return ruta;
+    }
+
+    public void put(long clave, Ruta ruta) {
+        Segmento segmento = segmentoDe(clave);
+        synchronized (segmento) {
+            segmento.put(clave, ruta);
+        }
+    }
+
+    private Segmento segmentoDe(long clave) {
+        long h = clave * 0x9E3779B97F4A7C15L;
+        return segmentos[(int) (h >>> 60) & (NUM_SEGMENTOS - 1)];
+    }
+
+    public long getAciertos() {
+        return aciertos.sum();
+    }
+
+    public long getFallos() {
+        return fallos.sum();
+    }
+
+    /**
+     * Segmento LRU basado en LinkedHashMap con orden de acceso.
+     */
+    @SuppressWarnings("serial")
+    private static final class Segmento extends LinkedHashMap<Long, Ruta> {
+        private final int capacidad;
+
+        Segmento(int capacidad) {
+            super(capacidad * 4 / 3 + 1, 0.75f, true);
+            this.capacidad = capacidad;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Ruta> eldest) {
+            return size() > capacidad;
+        }
+    }
+}
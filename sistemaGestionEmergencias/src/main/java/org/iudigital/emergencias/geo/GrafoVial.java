@@ -0,0 +1,308 @@
+package org.iudigital.emergencias.geo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Red vial de la ciudad en formato CSR (compressed sparse row).
+ * Los nodos tienen coordenadas en km y cada arco guarda su longitud y su
+ * tiempo de recorrido simulado. Es inmutable una vez construida.
+ *
+ * Formato de archivo (una entrada por línea, '#' para comentarios):
+ * <pre>
+ * N &lt;id&gt; &lt;x_km&gt; &lt;y_km&gt;
+ * E &lt;desde&gt; &lt;hasta&gt; [factorVelocidad]   (vía de doble sentido)
+ * D &lt;desde&gt; &lt;hasta&gt; [factorVelocidad]   (vía de un solo sentido)
+ * </pre>
+ * El factor de velocidad es relativo a {@link MatrizDistancias#MS_POR_KM}
+ * (1.0 = calle normal, 2.0 = avenida al doble de velocidad).
+ */
+public class GrafoVial {
+
+    private static final Logger logger = LoggerFactory.getLogger(GrafoVial.class);
+
+    private final double[] xs;
+    private final double[] ys;
+
+    // Arcos salientes (CSR) y entrantes (para búsquedas en reversa)
+    private final int[] inicioSalientes;
+    private final int[] destinos;
+    private final float[] tiemposMs;
+    private final float[] longitudesKm;
+
+    private final int[] inicioEntrantes;
+    private final int[] origenes;
+    private final float[] tiemposEntrantesMs;
+
+    private GrafoVial(double[] xs, double[] ys, int[] desde, int[] hasta, float[] factores, int numArcos) {
+        this.xs = xs;
+        this.ys = ys;
+        int n = xs.length;
+
+        this.inicioSalientes = new int[n + 1];
+        this.inicioEntrantes = new int[n + 1];
+        for (int i = 0; i < numArcos; i++) {
+            inicioSalientes[desde[i] + 1]++;
+            inicioEntrantes[hasta[i] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            inicioSalientes[i + 1] += inicioSalientes[i];
+            inicioEntrantes[i + 1] += inicioEntrantes[i];
+        }
+
+        this.destinos = new int[numArcos];
+        this.tiemposMs = new float[numArcos];
+        this.longitudesKm = new float[numArcos];
+        this.origenes = new int[numArcos];
+        this.tiemposEntrantesMs = new float[numArcos];
+
+        int[] posSal = Arrays.copyOf(inicioSalientes, n);
+        int[] posEnt = Arrays.copyOf(inicioEntrantes, n);
+        for (int i = 0; i < numArcos; i++) {
+            double km = distanciaRecta(desde[i], hasta[i]);
+            float tiempo = (float) (km * MatrizDistancias.MS_POR_KM / factores[i]);
+
+            int s = posSal[desde[i]]++;
+            destinos[s] = hasta[i];
+            tiemposMs[s] = tiempo;
+            longitudesKm[s] = (float) km;
+
+            int e = posEnt[hasta[i]]++;
+            origenes[e] = desde[i];
+            tiemposEntrantesMs[e] = tiempo;
+        }
+    }
+
+    /**
+     * Carga una red vial desde un archivo de texto local.
+     *
+     * @param archivo ruta del archivo
+     * @return la red vial cargada
+     * @throws IOException si el archivo no se puede leer o tiene errores de formato
+     */
+    public static GrafoVial cargar(Path archivo) throws IOException {
+        Map<Integer, Integer> indicePorId = new HashMap<>();
+        Constructor constructor = new Constructor();
+
+        try (BufferedReader reader = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String linea;
+            int numLinea = 0;
+            while ((linea = reader.readLine()) != null) {
+                numLinea++;
+                linea = linea.trim();
+                if (linea.isEmpty() || linea.startsWith("#")) {
+                    continue;
+                }
+
+                String[] partes = linea.split("\\s+");
+                try {
+                    switch (partes[0]) {
+                        case "N" -> indicePorId.put(Integer.parseInt(partes[1]),
+                                constructor.agregarNodo(Double.parseDouble(partes[2]), Double.parseDouble(partes[3])));
+                        case "E", "D" -> {
+                            Integer a = indicePorId.get(Integer.parseInt(partes[1]));
+                            Integer b = indicePorId.get(Integer.parseInt(partes[2]));
+                            if (a == null || b == null) {
+                                throw new IOException("Nodo no declarado en línea " + numLinea);
+                            }
+                            float factor = partes.length > 3 ? Float.parseFloat(partes[3]) : 1.0f;
+                            constructor.agregarArco(a, b, factor);
+                            if (partes[0].equals("E")) {
+                                constructor.agregarArco(b, a, factor);
+                            }
+                        }
+                        default -> throw new IOException("Tipo de entrada desconocido en línea " + numLinea);
+                    }
+                } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                    throw new IOException("Formato inválido en línea " + numLinea + ": " + linea, e);
+                }
+            }
+        }
+
+        GrafoVial grafo = constructor.construir();
+        logger.info("Red vial cargada desde {}: {} nodos, {} arcos",
+                archivo, grafo.getNumNodos(), grafo.getNumArcos());
+        return grafo;
+    }
+
+    /**
+     * Genera una red vial sintética en cuadrícula: calles normales, una avenida
+     * rápida cada cuatro cuadras y algunas cuadras cortadas al azar.
+     *
+     * @param nodosPorLado número de intersecciones por lado
+     * @param ladoKm       tamaño de la ciudad en km
+     * @param semilla      semilla para reproducibilidad
+     * @return la red vial generada
+     */
+    public static GrafoVial generarCuadricula(int nodosPorLado, double ladoKm, long semilla) {
+        if (nodosPorLado < 2) {
+            throw new IllegalArgumentException("Se requieren al menos 2 nodos por lado");
+        }
+
+        Random random = new Random(semilla);
+        Constructor constructor = new Constructor();
+        double paso = ladoKm / (nodosPorLado - 1);
+
+        for (int fila = 0; fila < nodosPorLado; fila++) {
+            for (int col = 0; col < nodosPorLado; col++) {
+                constructor.agregarNodo(col * paso, fila * paso);
+            }
+        }
+
+        for (int fila = 0; fila < nodosPorLado; fila++) {
+            for (int col = 0; col < nodosPorLado; col++) {
+                int nodo = fila * nodosPorLado + col;
+                if (col + 1 < nodosPorLado && (fila % 4 == 0 || random.nextDouble() > 0.1)) {
+                    float factor = fila % 4 == 0 ? 2.0f : 1.0f;
+                    constructor.agregarArco(nodo, nodo + 1, factor);
+                    constructor.agregarArco(nodo + 1, nodo, factor);
+                }
+                if (fila + 1 < nodosPorLado && (col % 4 == 0 || random.nextDouble() > 0.1)) {
+                    float factor = col % 4 == 0 ? 2.0f : 1.0f;
+                    constructor.agregarArco(nodo, nodo + nodosPorLado, factor);
+                    constructor.agregarArco(nodo + nodosPorLado, nodo, factor);
+                }
+            }
+        }
+
+        GrafoVial grafo = constructor.construir();
+        logger.info("Red vial sintética generada: {} nodos, {} arcos", grafo.getNumNodos(), grafo.getNumArcos());
+        return grafo;
+    }
+
+    /**
+     * Busca el nodo más cercano a unas coordenadas (búsqueda lineal; se usa
+     * solo al proyectar ubicaciones sobre la red, no durante el despacho).
+     */
+    public int nodoMasCercano(double x, double y) {
+        int mejor = 0;
+        double mejorDistancia = Double.MAX_VALUE;
+        for (int i = 0; i < xs.length; i++) {
+            double dx = xs[i] - x;
+            double dy = ys[i] - y;
+            double d = dx * dx + dy * dy;
+            if (d < mejorDistancia) {
+                mejorDistancia = d;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    double distanciaRecta(int a, int b) {
+        double dx = xs[a] - xs[b];
+        double dy = ys[a] - ys[b];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Accesos de solo lectura para el ruteador (mismo paquete)
+
+    int inicioSalientes(int nodo) {
+        return inicioSalientes[nodo];
+    }
+
+    int finSalientes(int nodo) {
+        return inicioSalientes[nodo + 1];
+    }
+
+    int destino(int arco) {
+        return destinos[arco];
+    }
+
+    float tiempoMs(int arco) {
+        return tiemposMs[arco];
+    }
+
+    float longitudKm(int arco) {
+        return longitudesKm[arco];
+    }
+
+    int inicioEntrantes(int nodo) {
+        return inicioEntrantes[nodo];
+    }
+
+    int finEntrantes(int nodo) {
+        return inicioEntrantes[nodo + 1];
+    }
+
+    int origen(int arcoEntrante) {
+        return origenes[arcoEntrante];
+    }
+
+    float tiempoEntranteMs(int arcoEntrante) {
+        return tiemposEntrantesMs[arcoEntrante];
+    }
+
+    public double getX(int nodo) {
+        return xs[nodo];
+    }
+
+    public double getY(int nodo) {
+        return ys[nodo];
+    }
+
+    public int getNumNodos() {
+        return xs.length;
+    }
+
+    public int getNumArcos() {
+        return destinos.length;
+    }
+
+    /**
+     * Acumula nodos y arcos antes de compactarlos en CSR.
+     */
+    private static final class Constructor {
+        private double[] xs = new double[64];
+        private double[] ys = new double[64];
+        private int numNodos = 0;
+
+        private int[] desde = new int[256];
+        private int[] hasta = new int[256];
+        private float[] factores = new float[256];
+        private int numArcos = 0;
+
+        int agregarNodo(double x, double y) {
+            if (numNodos == xs.length) {
+                xs = Arrays.copyOf(xs, numNodos * 2);
+                ys = Arrays.copyOf(ys, numNodos * 2);
+            }
+            xs[numNodos] = x;
+            ys[numNodos] = y;
+            return numNodos++;
+        }
+
+        void agregarArco(int a, int b, float factor) {
+            if (factor <= 0) {
+                throw new IllegalArgumentException("El factor de velocidad debe ser positivo");
+            }
+            if (numArcos == desde.length) {
+                desde = Arrays.copyOf(desde, numArcos * 2);
+                hasta = Arrays.copyOf(hasta, numArcos * 2);
+                factores = Arrays.copyOf(factores, numArcos * 2);
+            }
+            desde[numArcos] = a;
+            hasta[numArcos] = b;
+            factores[numArcos] = factor;
+            numArcos++;
+        }
+
+        GrafoVial construir() {
+            if (numNodos == 0) {
+                throw new IllegalStateException("La red vial no tiene nodos");
+            }
+            return new GrafoVial(Arrays.copyOf(xs, numNodos), Arrays.copyOf(ys, numNodos),
+                    desde, hasta, factores, numArcos);
+        }
+    }
+}
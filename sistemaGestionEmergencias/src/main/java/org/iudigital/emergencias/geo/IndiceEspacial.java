@@ -0,0 +1,244 @@
+package org.iudigital.emergencias.geo;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial de cuadrícula uniforme sobre la ciudad.
+ * Guarda elementos identificados por un id entero denso (0..n-1) con su
+ * posición, y responde consultas de los k vecinos más cercanos recorriendo
+ * anillos de celdas alrededor del punto de consulta. Insertar y eliminar son
+ * O(1); una consulta visita solo las celdas necesarias para garantizar el
+ * resultado exacto.
+ * Thread-safe: las consultas toman el lock de lectura y las actualizaciones
+ * el de escritura.
+ */
+public class IndiceEspacial {
+
+    private static final int FUERA = -1;
+
+    // Distancias del top-k de cada consulta, reutilizadas por hilo: las
+    // consultas están en el camino del despacho y no deben asignar memoria
+    private static final ThreadLocal<double[]> DISTANCIAS = ThreadLocal.withInitial(() -> new double[8]);
+
+    private final double ladoKm;
+    private final int celdasPorLado;
+    private final double ladoCelda;
+
+    // Miembros de cada celda como arreglos con borrado por intercambio
+    private final int[][] miembros;
+    private final int[] tamanoCelda;
+
+    // Estado por elemento
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int[] celdaDe = new int[0];
+    private int[] posicionEnCelda = new int[0];
+    private int cantidad = 0;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * @param ladoKm        tamaño de la ciudad en km
+     * @param celdasPorLado número de celdas por lado de la cuadrícula
+     */
+    public IndiceEspacial(double ladoKm, int celdasPorLado) {
+        if (celdasPorLado <= 0) {
+            throw new IllegalArgumentException("Se requiere al menos una celda por lado");
+        }
+        this.ladoKm = ladoKm;
+        this.celdasPorLado = celdasPorLado;
+        this.ladoCelda = ladoKm / celdasPorLado;
+        this.miembros = new int[celdasPorLado * celdasPorLado][];
+        this.tamanoCelda = new int[celdasPorLado * celdasPorLado];
+        for (int i = 0; i < miembros.length; i++) {
+            miembros[i] = new int[4];
+        }
+    }
+
+    /**
+     * Inserta o mueve un elemento a una posición.
+     *
+     * @param id id denso del elemento
+     * @param x  coordenada X en km
+     * @param y  coordenada Y en km
+     */
+    public void insertar(int id, double x, double y) {
+        lock.writeLock().lock();
+        try {
+            asegurarCapacidad(id + 1);
+            if (celdaDe[id] != FUERA) {
+                quitarDeCelda(id);
+            } else {
+                cantidad++;
+            }
+            xs[id] = x;
+            ys[id] = y;
+            int celda = celdaDe(x, y);
+            int[] lista = miembros[celda];
+            if (tamanoCelda[celda] == lista.length) {
+                lista = Arrays.copyOf(lista, lista.length * 2);
+                miembros[celda] = lista;
+            }
+            lista[tamanoCelda[celda]] = id;
+            posicionEnCelda[id] = tamanoCelda[celda]++;
+            celdaDe[id] = celda;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Elimina un elemento del índice. No hace nada si no estaba.
+     *
+     * @param id id denso del elemento
+     */
+    public void eliminar(int id) {
+        lock.writeLock().lock();
+        try {
+            if (id < celdaDe.length && celdaDe[id] != FUERA) {
+                quitarDeCelda(id);
+                celdaDe[id] = FUERA;
+                cantidad--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean contiene(int id) {
+        lock.readLock().lock();
+        try {
+            return id < celdaDe.length && celdaDe[id] != FUERA;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Busca los k elementos más cercanos a un punto.
+     *
+     * @param x      coordenada X en km
+     * @param y      coordenada Y en km
+     * @param k      número máximo de vecinos
+     * @param salida arreglo donde se escriben los ids, del más cercano al más lejano
+     * @return número de vecinos encontrados (≤ k)
+     */
+    public int vecinosMasCercanos(double x, double y, int k, int[] salida) {
+        if (k <= 0) {
+            return 0;
+        }
+        double[] distancias = DISTANCIAS.get();
+        if (distancias.length < k) {
+            distancias = new double[k];
+            DISTANCIAS.set(distancias);
+        }
+        int encontrados = 0;
+
+        lock.readLock().lock();
+        try {
+            if (cantidad == 0) {
+                return 0;
+            }
+            int col = columnaDe(x);
+            int fila = columnaDe(y);
+
+            for (int radio = 0; radio < celdasPorLado; radio++) {
+                // Ningún elemento en este anillo puede estar más cerca que esto
+                if (encontrados == k) {
+                    double cotaAnillo = (radio - 1) * ladoCelda;
+                    if (cotaAnillo * cotaAnillo > distancias[k - 1]) {
+                        break;
+                    }
+                }
+
+                for (int f = fila - radio; f <= fila + radio; f++) {
+                    if (f < 0 || f >= celdasPorLado) {
+                        continue;
+                    }
+                    boolean bordeFila = f == fila - radio || f == fila + radio;
+                    int paso = bordeFila ? 1 : Math.max(1, 2 * radio);
+                    for (int c = col - radio; c <= col + radio; c += paso) {
+                        if (c < 0 || c >= celdasPorLado) {
+                            continue;
+                        }
+                        int celda = f * celdasPorLado + c;
+                        int[] lista = miembros[celda];
+                        for (int i = 0; i < tamanoCelda[celda]; i++) {
+                            int id = lista[i];
+                            double dx = xs[id] - x;
+                            double dy = ys[id] - y;
+                            encontrados = insertarOrdenado(id, dx * dx + dy * dy, salida, distancias, encontrados, k);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return encontrados;
+    }
+
+    /**
+     * Inserción ordenada en el top-k (k es pequeño, la inserción lineal es lo más rápido).
+     */
+    private static int insertarOrdenado(int id, double d, int[] ids, double[] distancias, int n, int k) {
+        if (n == k && d >= distancias[k - 1]) {
+            return n;
+        }
+        int i = (n < k) ? n++ : k - 1;
+        while (i > 0 && distancias[i - 1] > d) {
+            distancias[i] = distancias[i - 1];
+            ids[i] = ids[i - 1];
+            i--;
+        }
+        distancias[i] = d;
+        ids[i] = id;
+        return n;
+    }
+
+    private void quitarDeCelda(int id) {
+        int celda = celdaDe[id];
+        int pos = posicionEnCelda[id];
+        int ultimo = --tamanoCelda[celda];
+        int movido = miembros[celda][ultimo];
+        miembros[celda][pos] = movido;
+        posicionEnCelda[movido] = pos;
+    }
+
+    private void asegurarCapacidad(int minimo) {
+        if (minimo <= celdaDe.length) {
+            return;
+        }
+        int nueva = Math.max(minimo, celdaDe.length * 2);
+        int anterior = celdaDe.length;
+        xs = Arrays.copyOf(xs, nueva);
+        ys = Arrays.copyOf(ys, nueva);
+        posicionEnCelda = Arrays.copyOf(posicionEnCelda, nueva);
+        celdaDe = Arrays.copyOf(celdaDe, nueva);
+        Arrays.fill(celdaDe, anterior, nueva, FUERA);
+    }
+
+    private int columnaDe(double coordenada) {
+        int c = (int) (coordenada / ladoCelda);
+        return Math.max(0, Math.min(celdasPorLado - 1, c));
+    }
+
+    private int celdaDe(double x, double y) {
+        return columnaDe(y) * celdasPorLado + columnaDe(x);
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return cantidad;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public double getLadoKm() {
+        return ladoKm;
+    }
+}
@@ -0,0 +1,120 @@
+package org.iudigital.emergencias.geo;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Modelo de viaje en línea recta con matriz de distancias precalculada.
+ * Al construirse calcula distancia, tiempo y hospital más cercano para todas
+ * las ubicaciones registradas, de modo que cada consulta durante el despacho
+ * es un acceso a un arreglo plano. Las ubicaciones registradas después de
+ * construir la matriz se calculan al vuelo.
+ */
+public class MatrizDistancias implements ModeloViaje {
+
+    private static final Logger logger = LoggerFactory.getLogger(MatrizDistancias.class);
+
+    // Escala de tiempo simulado: un trayecto típico de 5 km tarda ~3 s
+    public static final long MS_POR_KM = 600;
+    public static final long TIEMPO_MINIMO_MS = 300;
+
+    private final RegistroUbicaciones registro;
+    private final int n;
+    private final float[] distancias;
+    private final int[] tiemposMs;
+    private final int[] hospitalCercano;
+    private final int[] hospitales;
+
+    /**
+     * Holder para inicialización perezosa y thread-safe de la matriz por defecto.
+     */
+    private static final class Holder {
+        private static final MatrizDistancias PREDETERMINADA = new MatrizDistancias(RegistroUbicaciones.getInstance());
+    }
+
+    /**
+     * Construye la matriz para todas las ubicaciones registradas actualmente.
+     *
+     * @param registro registro de ubicaciones
+     */
+    public MatrizDistancias(RegistroUbicaciones registro) {
+        this.registro = registro;
+        this.n = registro.size();
+        this.distancias = new float[n * n];
+        this.tiemposMs = new int[n * n];
+        this.hospitales = registro.getHospitales();
+        this.hospitalCercano = new int[n];
+
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                double d = calcularDistancia(i, j);
+                distancias[i * n + j] = (float) d;
+                tiemposMs[i * n + j] = (int) aTiempoMs(d);
+            }
+            hospitalCercano[i] = buscarHospitalMasCercano(i);
+        }
+
+        logger.info("Matriz de distancias precalculada para {} ubicaciones", n);
+    }
+
+    /**
+     * @return matriz compartida construida sobre el registro global
+     */
+    public static MatrizDistancias getPredeterminada() {
+        return Holder.PREDETERMINADA;
+    }
+
+    @Override
+    public double distanciaKm(int origenId, int destinoId) {
+        if (origenId < n && destinoId < n) {
+            return distancias[origenId * n + destinoId];
+        }
+        return calcularDistancia(origenId, destinoId);
+    }
+
+    @Override
+    public long tiempoViajeMs(int origenId, int destinoId) {
+        if (origenId < n && destinoId < n) {
+            return tiemposMs[origenId * n + destinoId];
+        }
+        return aTiempoMs(calcularDistancia(origenId, destinoId));
+    }
+
+    @Override
+    public int hospitalMasCercano(int ubicacionId) {
+        if (ubicacionId < n) {
+            return hospitalCercano[ubicacionId];
+        }
+        return buscarHospitalMasCercano(ubicacionId);
+    }
+
+    /**
+     * Convierte una distancia en tiempo de viaje simulado.
+     */
+    public static long aTiempoMs(double distanciaKm) {
+        return Math.max(TIEMPO_MINIMO_MS, Math.round(distanciaKm * MS_POR_KM));
+    }
+
+    private double calcularDistancia(int origenId, int destinoId) {
+        double dx = registro.getX(origenId) - registro.getX(destinoId);
+        double dy = registro.getY(origenId) - registro.getY(destinoId);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private int buscarHospitalMasCercano(int ubicacionId) {
+        int mejor = hospitales[0];
+        double mejorDistancia = Double.MAX_VALUE;
+        for (int hospital : hospitales) {
+            double d = calcularDistancia(ubicacionId, hospital);
+            if (d < mejorDistancia) {
+                mejorDistancia = d;
+                mejor = hospital;
+            }
+        }
+        return mejor;
+    }
+
+    public int getTamano() {
+        return n;
+    }
+}
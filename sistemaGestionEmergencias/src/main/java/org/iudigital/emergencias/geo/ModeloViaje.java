@@ -0,0 +1,35 @@
+package org.iudigital.emergencias.geo;
+
+/**
+ * Modelo de tiempos de viaje entre ubicaciones del {@link RegistroUbicaciones}.
+ * Las implementaciones deben responder en O(1) (o casi) porque se consultan
+ * durante el despacho por cada candidato.
+ */
+public interface ModeloViaje {
+
+    /**
+     * Distancia entre dos ubicaciones.
+     *
+     * @param origenId  id de la ubicación de origen
+     * @param destinoId id de la ubicación de destino
+     * @return distancia en kilómetros
+     */
+    double distanciaKm(int origenId, int destinoId);
+
+    /**
+     * Tiempo de viaje simulado entre dos ubicaciones.
+     *
+     * @param origenId  id de la ubicación de origen
+     * @param destinoId id de la ubicación de destino
+     * @return tiempo de viaje en milisegundos
+     */
+    long tiempoViajeMs(int origenId, int destinoId);
+
+    /**
+     * Hospital más cercano a una ubicación.
+     *
+     * @param ubicacionId id de la ubicación
+     * @return id de la ubicación del hospital
+     */
+    int hospitalMasCercano(int ubicacionId);
+}
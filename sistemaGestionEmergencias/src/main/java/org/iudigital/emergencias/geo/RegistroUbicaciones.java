@@ -0,0 +1,246 @@
+package org.iudigital.emergencias.geo;
+
+import org.iudigital.emergencias.geo.Ubicacion.TipoUbicacion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Registro central de ubicaciones de la ciudad.
+ * Asigna a cada lugar un id entero denso (0..n-1) junto con sus coordenadas
+ * y su zona, de modo que el resto del sistema pueda indexar por int en lugar
+ * de comparar o crear Strings por cada caso.
+ * Implementa Singleton thread-safe con double-checked locking.
+ */
+public class RegistroUbicaciones {
+
+    private static final Logger logger = LoggerFactory.getLogger(RegistroUbicaciones.class);
+
+    private static volatile RegistroUbicaciones instance;
+
+    // Geometría de la ciudad simulada
+    public static final double LADO_CIUDAD_KM = 10.0;
+    public static final int ZONAS_POR_LADO = 2;
+    public static final int NUM_LUGARES_PREDETERMINADOS = 50;
+    private static final String PREFIJO_LUGAR = "Lugar- ";
+    private static final long SEMILLA_COORDENADAS = 42L;
+
+    // Hospitales fijos: nombre y coordenadas (km)
+    private static final String[] NOMBRES_HOSPITALES = { "Hospital Central", "Hospital Norte", "Hospital Sur" };
+    private static final double[][] COORDENADAS_HOSPITALES = { { 2.0, 2.0 }, { 7.5, 2.0 }, { 5.0, 8.0 } };
+
+    // Índice nombre -> id para internar en O(1)
+    private final ConcurrentHashMap<String, Integer> indicePorNombre;
+
+    // Arreglo copy-on-write: las lecturas son una sola lectura volatile
+    private volatile Ubicacion[] ubicaciones;
+
+    // Ids de bases (una por zona) y hospitales
+    private final int[] bases;
+    private final int[] hospitales;
+
+    private RegistroUbicaciones() {
+        this.indicePorNombre = new ConcurrentHashMap<>();
+        this.ubicaciones = new Ubicacion[0];
+        registrarLugaresPredeterminados();
+        this.bases = registrarBases();
+        this.hospitales = registrarHospitales();
+        logger.info("RegistroUbicaciones inicializado con {} lugares, {} bases y {} hospitales",
+                NUM_LUGARES_PREDETERMINADOS, bases.length, hospitales.length);
+    }
+
+    /**
+     * Obtiene la instancia única del registro.
+     *
+     * @return la instancia única de RegistroUbicaciones
+     */
+    public static RegistroUbicaciones getInstance() {
+        if (instance == null) {
+            synchronized (RegistroUbicaciones.class) {
+                if (instance == null) {
+                    instance = new RegistroUbicaciones();
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Crea los lugares "Lugar- 0" .. "Lugar- 49" con coordenadas fijas
+     * (semilla constante) para que las simulaciones sean comparables.
+     */
+    private void registrarLugaresPredeterminados() {
+        Random random = new Random(SEMILLA_COORDENADAS);
+        for (int i = 0; i < NUM_LUGARES_PREDETERMINADOS; i++) {
+            registrar(PREFIJO_LUGAR + i,
+                    random.nextDouble() * LADO_CIUDAD_KM,
+                    random.nextDouble() * LADO_CIUDAD_KM);
+        }
+    }
+
+    /**
+     * Crea una base de ambulancias en el centro de cada zona.
+     */
+    private int[] registrarBases() {
+        int numZonas = ZONAS_POR_LADO * ZONAS_POR_LADO;
+        double ladoZona = LADO_CIUDAD_KM / ZONAS_POR_LADO;
+        int[] ids = new int[numZonas];
+        for (int zona = 0; zona < numZonas; zona++) {
+            double x = (zona % ZONAS_POR_LADO + 0.5) * ladoZona;
+            double y = (zona / ZONAS_POR_LADO + 0.5) * ladoZona;
+            ids[zona] = registrar("Base Zona " + zona, x, y, TipoUbicacion.BASE);
+        }
+        return ids;
+    }
+
+    /**
+     * Registra los hospitales fijos de la ciudad.
+     */
+    private int[] registrarHospitales() {
+        int[] ids = new int[NOMBRES_HOSPITALES.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = registrar(NOMBRES_HOSPITALES[i],
+                    COORDENADAS_HOSPITALES[i][0], COORDENADAS_HOSPITALES[i][1], TipoUbicacion.HOSPITAL);
+        }
+        return ids;
+    }
+
+    /**
+     * Registra un lugar con coordenadas conocidas. Si el nombre ya existe
+     * devuelve el id existente sin modificarlo.
+     *
+     * @param nombre nombre del lugar
+     * @param x      coordenada X en km
+     * @param y      coordenada Y en km
+     * @return id denso de la ubicación
+     */
+    public int registrar(String nombre, double x, double y) {
+        return registrar(nombre, x, y, TipoUbicacion.LUGAR);
+    }
+
+    /**
+     * Registra una ubicación del tipo indicado. Si el nombre ya existe
+     * devuelve el id existente sin modificarlo.
+     *
+     * @param nombre nombre de la ubicación
+     * @param x      coordenada X en km
+     * @param y      coordenada Y en km
+     * @param tipo   tipo de ubicación
+     * @return id denso de la ubicación
+     */
+    public int registrar(String nombre, double x, double y, TipoUbicacion tipo) {
+        Integer existente = indicePorNombre.get(nombre);
+        if (existente != null) {
+            return existente;
+        }
+
+        synchronized (this) {
+            existente = indicePorNombre.get(nombre);
+            if (existente != null) {
+                return existente;
+            }
+
+            Ubicacion[] actuales = ubicaciones;
+            int id = actuales.length;
+            Ubicacion[] nuevas = Arrays.copyOf(actuales, id + 1);
+            nuevas[id] = new Ubicacion(id, nombre, x, y, calcularZona(x, y), tipo);
+            ubicaciones = nuevas;
+            indicePorNombre.put(nombre, id);
+
+            logger.debug("Ubicación registrada: {} -> {}", nombre, id);
+            return id;
+        }
+    }
+
+    /**
+     * Interna un nombre de lugar. Los lugares desconocidos reciben
+     * coordenadas deterministas derivadas de su nombre.
+     *
+     * @param nombre nombre del lugar
+     * @return id denso de la ubicación
+     */
+    public int internar(String nombre) {
+        Integer existente = indicePorNombre.get(nombre);
+        if (existente != null) {
+            return existente;
+        }
+
+        Random random = new Random(nombre.hashCode());
+        return registrar(nombre,
+                random.nextDouble() * LADO_CIUDAD_KM,
+                random.nextDouble() * LADO_CIUDAD_KM);
+    }
+
+    /**
+     * Devuelve el id de un lugar predeterminado al azar. No crea Strings.
+     *
+     * @return id de ubicación
+     */
+    public int ubicacionAleatoria() {
+        return ThreadLocalRandom.current().nextInt(NUM_LUGARES_PREDETERMINADOS);
+    }
+
+    /**
+     * Calcula la zona de unas coordenadas dividiendo la ciudad en una
+     * cuadrícula de ZONAS_POR_LADO x ZONAS_POR_LADO.
+     */
+    public static int calcularZona(double x, double y) {
+        int col = (int) (x / LADO_CIUDAD_KM * ZONAS_POR_LADO);
+        int fila = (int) (y / LADO_CIUDAD_KM * ZONAS_POR_LADO);
+        col = Math.max(0, Math.min(ZONAS_POR_LADO - 1, col));
+        fila = Math.max(0, Math.min(ZONAS_POR_LADO - 1, fila));
+        return fila * ZONAS_POR_LADO + col;
+    }
+
+    // Accesos por id
+
+    public Ubicacion get(int id) {
+        return ubicaciones[id];
+    }
+
+    public String getNombre(int id) {
+        return ubicaciones[id].getNombre();
+    }
+
+    public double getX(int id) {
+        return ubicaciones[id].getX();
+    }
+
+    public double getY(int id) {
+        return ubicaciones[id].getY();
+    }
+
+    public int getZona(int id) {
+        return ubicaciones[id].getZona();
+    }
+
+    /**
+     * @return copia de los ids de las bases, indexadas por zona
+     */
+    public int[] getBases() {
+        return bases.clone();
+    }
+
+    /**
+     * @return copia de los ids de los hospitales
+     */
+    public int[] getHospitales() {
+        return hospitales.clone();
+    }
+
+    public int getBaseDeZona(int zona) {
+        return bases[zona];
+    }
+
+    public int getNumZonas() {
+        return ZONAS_POR_LADO * ZONAS_POR_LADO;
+    }
+
+    public int size() {
+        return ubicaciones.length;
+    }
+}
@@ -0,0 +1,438 @@
+package org.iudigital.emergencias.geo;
+
+import org.iudigital.emergencias.geo.CacheRutas.Ruta;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Modelo de viaje sobre la red vial.
+ * Calcula rutas con A* guiado por landmarks (ALT): al construirse elige K
+ * landmarks por punto más lejano y precalcula con Dijkstra las distancias
+ * desde y hacia cada uno, lo que da una cota inferior admisible mucho más
+ * ajustada que la línea recta. Los resultados se guardan en una caché LRU
+ * por par de nodos, así que las consultas repetidas durante el despacho son
+ * O(1) y las nuevas exploran solo una fracción pequeña de la red.
+ */
+public class RuteadorVial implements ModeloViaje {
+
+    private static final Logger logger = LoggerFactory.getLogger(RuteadorVial.class);
+
+    public static final int LANDMARKS_POR_DEFECTO = 8;
+    public static final int CAPACIDAD_CACHE_POR_DEFECTO = 65_536;
+
+    private final GrafoVial grafo;
+    private final RegistroUbicaciones registro;
+    private final CacheRutas cache;
+
+    // Datos ALT precalculados: [landmark][nodo]
+    private final float[][] desdeLandmark;
+    private final float[][] haciaLandmark;
+
+    // Cota de velocidad máxima para la heurística en línea recta
+    private final double msPorKmMinimo;
+
+    // Proyección de ubicaciones sobre la red (crece al registrarse nuevas)
+    private volatile int[] nodoDeUbicacion;
+    private volatile float[] accesoMs;
+    private volatile float[] accesoKm;
+    private volatile int[] hospitalCercano;
+    private final int[] hospitales;
+
+    // Estados de búsqueda libres para reutilizar sin asignar memoria; hay
+    // tantos como búsquedas simultáneas, no uno por hilo que consulta
+    private final ConcurrentLinkedQueue<EstadoBusqueda> estadosLibres = new ConcurrentLinkedQueue<>();
+
+    public RuteadorVial(GrafoVial grafo, RegistroUbicaciones registro) {
+        this(grafo, registro, LANDMARKS_POR_DEFECTO, CAPACIDAD_CACHE_POR_DEFECTO);
+    }
+
+    public RuteadorVial(GrafoVial grafo, RegistroUbicaciones registro, int numLandmarks, int capacidadCache) {
+        this.grafo = grafo;
+        this.registro = registro;
+        this.cache = new CacheRutas(capacidadCache);
+        this.msPorKmMinimo = calcularMsPorKmMinimo();
+
+        long inicio = System.nanoTime();
+        int k = Math.min(numLandmarks, grafo.getNumNodos());
+        this.desdeLandmark = new float[k][];
+        this.haciaLandmark = new float[k][];
+        precalcularLandmarks(k);
+
+        this.hospitales = registro.getHospitales();
+        this.nodoDeUbicacion = new int[0];
+        this.accesoMs = new float[0];
+        this.accesoKm = new float[0];
+        this.hospitalCercano = new int[0];
+        proyectarUbicaciones(registro.size());
+
+        logger.info("RuteadorVial listo: {} nodos, {} landmarks, {} ubicaciones proyectadas en {} ms",
+                grafo.getNumNodos(), k, registro.size(), (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    @Override
+    public double distanciaKm(int origenId, int destinoId) {
+        asegurarProyeccion(Math.max(origenId, destinoId));
+        Ruta ruta = rutaEntreNodos(nodoDeUbicacion[origenId], nodoDeUbicacion[destinoId]);
+        return accesoKm[origenId] + ruta.getDistanciaKm() + accesoKm[destinoId];
+    }
+
+    @Override
+    public long tiempoViajeMs(int origenId, int destinoId) {
+        if (origenId == destinoId) {
+            return MatrizDistancias.TIEMPO_MINIMO_MS;
+        }
+        asegurarProyeccion(Math.max(origenId, destinoId));
+        Ruta ruta = rutaEntreNodos(nodoDeUbicacion[origenId], nodoDeUbicacion[destinoId]);
+        long total = Math.round(accesoMs[origenId] + ruta.getTiempoMs() + accesoMs[destinoId]);
+        return Math.max(MatrizDistancias.TIEMPO_MINIMO_MS, total);
+    }
+
+    @Override
+    public int hospitalMasCercano(int ubicacionId) {
+        int[] cercanos = hospitalCercano;
+        if (ubicacionId >= cercanos.length) {
+            proyectarUbicaciones(registro.size());
+            cercanos = hospitalCercano;
+        }
+        return cercanos[ubicacionId];
+    }
+
+    /**
+     * Ruta entre dos nodos de la red, consultando primero la caché LRU.
+     */
+    public Ruta rutaEntreNodos(int origen, int destino) {
+        long clave = CacheRutas.clave(origen, destino);
+        Ruta ruta = cache.get(clave);
+        if (ruta == null) {
+            ruta = buscarAEstrella(origen, destino);
+            cache.put(clave, ruta);
+        }
+        return ruta;
+    }
+
+    /**
+     * A* con heurística ALT. Si el destino es inalcanzable se usa la línea
+     * recta a velocidad normal como aproximación.
+     */
+    private Ruta buscarAEstrella(int origen, int destino) {
+        if (origen == destino) {
+            return new Ruta(0f, 0f);
+        }
+
+        EstadoBusqueda e = estadosLibres.poll();
+        if (e == null) {
+            e = new EstadoBusqueda(grafo.getNumNodos());
+        }
+        try {
+            return buscarAEstrella(e, origen, destino);
+        } finally {
+            estadosLibres.offer(e);
+        }
+    }
+
+    private Ruta buscarAEstrella(EstadoBusqueda e, int origen, int destino) {
+        e.nuevaBusqueda();
+        e.abrir(origen, 0f, 0f, heuristica(origen, destino));
+
+        while (!e.heapVacio()) {
+            int u = e.extraerMinimo();
+            if (e.cerrado(u)) {
+                continue;
+            }
+            if (u == destino) {
+                return new Ruta(e.g(u), e.km(u));
+            }
+            e.cerrar(u);
+
+            float gu = e.g(u);
+            float kmu = e.km(u);
+            for (int arco = grafo.inicioSalientes(u); arco < grafo.finSalientes(u); arco++) {
+                int v = grafo.destino(arco);
+                if (e.cerrado(v)) {
+                    continue;
+                }
+                float ng = gu + grafo.tiempoMs(arco);
+                if (!e.visto(v) || ng < e.g(v)) {
+                    e.abrir(v, ng, kmu + grafo.longitudKm(arco), ng + heuristica(v, destino));
+                }
+            }
+        }
+
+        double recta = grafo.distanciaRecta(origen, destino);
+        return new Ruta((float) (recta * MatrizDistancias.MS_POR_KM), (float) recta);
+    }
+
+    /**
+     * Cota inferior del tiempo de v a t: máximo entre la línea recta a
+     * velocidad máxima y las desigualdades triangulares de cada landmark.
+     */
+    private float heuristica(int v, int t) {
+        float h = (float) (grafo.distanciaRecta(v, t) * msPorKmMinimo);
+        for (int l = 0; l < desdeLandmark.length; l++) {
+            float[] desde = desdeLandmark[l];
+            float[] hacia = haciaLandmark[l];
+            // d(L,t) - d(L,v) <= d(v,t)
+            float a = desde[t] - desde[v];
+            // d(v,L) - d(t,L) <= d(v,t)
+            float b = hacia[v] - hacia[t];
+            if (a > h && a != Float.POSITIVE_INFINITY && !Float.isNaN(a)) {
+                h = a;
+            }
+            if (b > h && b != Float.POSITIVE_INFINITY && !Float.isNaN(b)) {
+                h = b;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Selección de landmarks por punto más lejano y Dijkstra completo desde
+     * y hacia cada uno.
+     */
+    private void precalcularLandmarks(int k) {
+        if (k == 0) {
+            return;
+        }
+        float[] minimaDistancia = new float[grafo.getNumNodos()];
+        Arrays.fill(minimaDistancia, Float.POSITIVE_INFINITY);
+
+        int siguiente = masLejano(dijkstra(0, true), minimaDistancia, true);
+        for (int l = 0; l < k; l++) {
+            desdeLandmark[l] = dijkstra(siguiente, true);
+            haciaLandmark[l] = dijkstra(siguiente, false);
+            siguiente = masLejano(desdeLandmark[l], minimaDistancia, false);
+        }
+    }
+
+    private int masLejano(float[] distancias, float[] minimaDistancia, boolean soloDistancias) {
+        int mejor = 0;
+        float mejorValor = -1f;
+        for (int i = 0; i < distancias.length; i++) {
+            float d = distancias[i];
+            if (d == Float.POSITIVE_INFINITY) {
+                continue;
+            }
+            float valor = d;
+            if (!soloDistancias) {
+                minimaDistancia[i] = Math.min(minimaDistancia[i], d);
+                valor = minimaDistancia[i];
+            }
+            if (valor > mejorValor) {
+                mejorValor = valor;
+                mejor = i;
+            }
+        }
+        return mejor;
+    }
+
+    /**
+     * Dijkstra completo desde un nodo, sobre arcos salientes (adelante) o
+     * entrantes (reversa).
+     */
+    private float[] dijkstra(int fuente, boolean adelante) {
+        EstadoBusqueda e = new EstadoBusqueda(grafo.getNumNodos());
+        e.nuevaBusqueda();
+        e.abrir(fuente, 0f, 0f, 0f);
+
+        while (!e.heapVacio()) {
+            int u = e.extraerMinimo();
+            if (e.cerrado(u)) {
+                continue;
+            }
+            e.cerrar(u);
+            float gu = e.g(u);
+
+            int inicio = adelante ? grafo.inicioSalientes(u) : grafo.inicioEntrantes(u);
+            int fin = adelante ? grafo.finSalientes(u) : grafo.finEntrantes(u);
+            for (int arco = inicio; arco < fin; arco++) {
+                int v = adelante ? grafo.destino(arco) : grafo.origen(arco);
+                float ng = gu + (adelante ? grafo.tiempoMs(arco) : grafo.tiempoEntranteMs(arco));
+                if (!e.cerrado(v) && (!e.visto(v) || ng < e.g(v))) {
+                    e.abrir(v, ng, 0f, ng);
+                }
+            }
+        }
+
+        float[] resultado = new float[grafo.getNumNodos()];
+        for (int i = 0; i < resultado.length; i++) {
+            resultado[i] = e.visto(i) ? e.g(i) : Float.POSITIVE_INFINITY;
+        }
+        return resultado;
+    }
+
+    private double calcularMsPorKmMinimo() {
+        double minimo = MatrizDistancias.MS_POR_KM;
+        for (int arco = 0; arco < grafo.getNumArcos(); arco++) {
+            float km = grafo.longitudKm(arco);
+            if (km > 0) {
+                minimo = Math.min(minimo, grafo.tiempoMs(arco) / km);
+            }
+        }
+        return minimo;
+    }
+
+    private void asegurarProyeccion(int ubicacionId) {
+        if (ubicacionId >= nodoDeUbicacion.length) {
+            proyectarUbicaciones(registro.size());
+        }
+    }
+
+    /**
+     * Proyecta las ubicaciones [actuales, hasta) sobre su nodo más cercano y
+     * calcula el hospital más cercano por tiempo de viaje.
+     */
+    private synchronized void proyectarUbicaciones(int hasta) {
+        int desde = nodoDeUbicacion.length;
+        if (hasta <= desde) {
+            return;
+        }
+
+        int[] nodos = Arrays.copyOf(nodoDeUbicacion, hasta);
+        float[] msAcceso = Arrays.copyOf(accesoMs, hasta);
+        float[] kmAcceso = Arrays.copyOf(accesoKm, hasta);
+        for (int id = desde; id < hasta; id++) {
+            double x = registro.getX(id);
+            double y = registro.getY(id);
+            int nodo = grafo.nodoMasCercano(x, y);
+            double dx = grafo.getX(nodo) - x;
+            double dy = grafo.getY(nodo) - y;
+            double km = Math.sqrt(dx * dx + dy * dy);
+            nodos[id] = nodo;
+            kmAcceso[id] = (float) km;
+            msAcceso[id] = (float) (km * MatrizDistancias.MS_POR_KM);
+        }
+        this.accesoMs = msAcceso;
+        this.accesoKm = kmAcceso;
+        this.nodoDeUbicacion = nodos;
+
+        int[] cercanos = Arrays.copyOf(hospitalCercano, hasta);
+        for (int id = desde; id < hasta; id++) {
+            int mejor = hospitales[0];
+            long mejorTiempo = Long.MAX_VALUE;
+            for (int hospital : hospitales) {
+                long t = tiempoViajeMs(id, hospital);
+                if (t < mejorTiempo) {
+                    mejorTiempo = t;
+                    mejor = hospital;
+                }
+            }
+            cercanos[id] = mejor;
+        }
+        this.hospitalCercano = cercanos;
+    }
+
+    public CacheRutas getCache() {
+        return cache;
+    }
+
+    public GrafoVial getGrafo() {
+        return grafo;
+    }
+
+    /**
+     * Arreglos de búsqueda con marcas de generación: reiniciar una búsqueda
+     * es O(1) en lugar de limpiar arreglos del tamaño de la red.
+     */
+    private static final class EstadoBusqueda {
+        private final float[] g;
+        private final float[] km;
+        private final int[] marcaVisto;
+        private final int[] marcaCerrado;
+        private int generacion = 0;
+
+        // Heap binario con entradas duplicadas (borrado perezoso)
+        private int[] heapNodos = new int[256];
+        private float[] heapPrioridades = new float[256];
+        private int heapTamano = 0;
+
+        EstadoBusqueda(int numNodos) {
+            this.g = new float[numNodos];
+            this.km = new float[numNodos];
+            this.marcaVisto = new int[numNodos];
+            this.marcaCerrado = new int[numNodos];
+        }
+
+        void nuevaBusqueda() {
+            generacion++;
+            heapTamano = 0;
+        }
+
+        boolean visto(int v) {
+            return marcaVisto[v] == generacion;
+        }
+
+        boolean cerrado(int v) {
+            return marcaCerrado[v] == generacion;
+        }
+
+        void cerrar(int v) {
+            marcaCerrado[v] = generacion;
+        }
+
+        float g(int v) {
+            return g[v];
+        }
+
+        float km(int v) {
+            return km[v];
+        }
+
+        void abrir(int v, float gv, float kmv, float prioridad) {
+            g[v] = gv;
+            km[v] = kmv;
+            marcaVisto[v] = generacion;
+            insertar(v, prioridad);
+        }
+
+        boolean heapVacio() {
+            return heapTamano == 0;
+        }
+
+        private void insertar(int nodo, float prioridad) {
+            if (heapTamano == heapNodos.length) {
+                heapNodos = Arrays.copyOf(heapNodos, heapTamano * 2);
+                heapPrioridades = Arrays.copyOf(heapPrioridades, heapTamano * 2);
+            }
+            int i = heapTamano++;
+            while (i > 0) {
+                int padre = (i - 1) >>> 1;
+                if (heapPrioridades[padre] <= prioridad) {
+                    break;
+                }
+                heapNodos[i] = heapNodos[padre];
+                heapPrioridades[i] = heapPrioridades[padre];
+                i = padre;
+            }
+            heapNodos[i] = nodo;
+            heapPrioridades[i] = prioridad;
+        }
+
+        int extraerMinimo() {
+            int minimo = heapNodos[0];
+            int ultimoNodo = heapNodos[--heapTamano];
+            float ultimaPrioridad = heapPrioridades[heapTamano];
+            int i = 0;
+            while (true) {
+                int hijo = 2 * i + 1;
+                if (hijo >= heapTamano) {
+                    break;
+                }
+                if (hijo + 1 < heapTamano && heapPrioridades[hijo + 1] < heapPrioridades[hijo]) {
+                    hijo++;
+                }
+                if (heapPrioridades[hijo] >= ultimaPrioridad) {
+                    break;
+                }
+                heapNodos[i] = heapNodos[hijo];
+                heapPrioridades[i] = heapPrioridades[hijo];
+                i = hijo;
+            }
+            heapNodos[i] = ultimoNodo;
+            heapPrioridades[i] = ultimaPrioridad;
+            return minimo;
+        }
+    }
+}
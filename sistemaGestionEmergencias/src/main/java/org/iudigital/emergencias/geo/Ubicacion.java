@@ -0,0 +1,69 @@
+package org.iudigital.emergencias.geo;
+
+/**
+ * Ubicación registrada en el {@link RegistroUbicaciones}.
+ * Es inmutable: se crea una sola vez por nombre y luego se referencia
+ * por su id entero denso.
+ */
+public final class Ubicacion {
+
+    /**
+     * Tipo de ubicación dentro de la ciudad.
+     */
+    public enum TipoUbicacion {
+        LUGAR,
+        BASE,
+        HOSPITAL
+    }
+
+    private final int id;
+    private final String nombre;
+    private final double x;
+    private final double y;
+    private final int zona;
+    private final TipoUbicacion tipo;
+
+    Ubicacion(int id, String nombre, double x, double y, int zona, TipoUbicacion tipo) {
+        this.id = id;
+        this.nombre = nombre;
+        this.x = x;
+        this.y = y;
+        this.zona = zona;
+        this.tipo = tipo;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    /**
+     * @return coordenada X en kilómetros dentro de la ciudad
+     */
+    public double getX() {
+        return x;
+    }
+
+    /**
+     * @return coordenada Y en kilómetros dentro de la ciudad
+     */
+    public double getY() {
+        return y;
+    }
+
+    public int getZona() {
+        return zona;
+    }
+
+    public TipoUbicacion getTipo() {
+        return tipo;
+    }
+
+    @Override
+    public String toString() {
+        return nombre;
+    }
+}
@@ -0,0 +1,34 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+/**
+ * Punto de entrada de los casos recibidos por los operadores.
+ * Desacopla a los operadores de cómo se almacenan y reparten los casos
+ * pendientes entre los despachadores.
+ */
+public interface CanalIngreso {
+
+    /**
+     * Entrega un caso nuevo al sistema.
+     *
+     * @param caso el caso recibido
+     * @return qué se hizo con el caso
+     * @throws InterruptedException si el hilo es interrumpido mientras espera
+     */
+    ResultadoIngreso recibir(CasoEmergencia caso) throws InterruptedException;
+
+    /**
+     * @return número de casos pendientes de despacho
+     */
+    int pendientes();
+
+    /**
+     * Señal de contrapresión para los operadores.
+     *
+     * @return true si el sistema está saturado y puede no admitir casos
+     */
+    default boolean saturado() {
+        return false;
+    }
+}
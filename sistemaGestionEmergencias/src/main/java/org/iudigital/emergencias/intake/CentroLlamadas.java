@@ -0,0 +1,281 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.metrics.HistogramaLatencia;
+import org.iudigital.emergencias.worker.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Modelo de la central de llamadas: cada llamada espera a un operador
+ * libre, lo ocupa durante un tiempo de atención muestreado y, si espera más
+ * que su paciencia, cuelga. Solo al terminar la atención el caso pasa al
+ * canal siguiente.
+ * Es un modelo por eventos: cada llamada es un objeto pequeño y las
+ * llegadas, fines de atención y abandonos son tareas programadas en un
+ * único hilo, dueño de todo el estado (operadores libres y fila de espera),
+ * por lo que no hay locks y miles de llamadas simultáneas cuestan solo su
+ * entrada en el heap del planificador. Los llamantes esperan en orden de
+ * llegada: la severidad se conoce recién al ser atendidos. Una llamada
+ * atendida cancela su abandono programado y una que cuelga sale de la fila
+ * en el acto, así que ni la fila ni el planificador crecen con llamadas ya
+ * resueltas aunque la central esté saturada.
+ */
+public class CentroLlamadas implements CanalIngreso, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CentroLlamadas.class);
+
+    // Dispersión del tiempo de atención (sigma de la lognormal)
+    private static final double SIGMA_ATENCION = 0.5;
+
+    /**
+     * Llamada en curso; solo la modifica el hilo de eventos. Mientras espera
+     * es un nodo de la fila, para poder sacarla en O(1) si cuelga.
+     */
+    private static final class Llamada {
+        final CasoEmergencia caso;
+        final long llegadaNs;
+        boolean resuelta;
+        ScheduledFuture<?> abandono;
+        long atencionMs;
+        Llamada anterior;
+        Llamada siguiente;
+
+        Llamada(CasoEmergencia caso, long llegadaNs) {
+            this.caso = caso;
+            this.llegadaNs = llegadaNs;
+        }
+    }
+
+    private final CanalIngreso destino;
+    private final int numOperadores;
+    private final double muAtencion;
+    private final double pacienciaMediaMs;
+    private final ScheduledThreadPoolExecutor eventos;
+
+    // Estado confinado al hilo de eventos: la fila de espera (primera y
+    // última llamada) y los operadores libres
+    private Llamada primeraEnEspera;
+    private Llamada ultimaEnEspera;
+    private final SplittableRandom random;
+    private int operadoresLibres;
+
+    // Métricas, legibles desde cualquier hilo
+    private volatile int llamadasEnEspera = 0;
+    private volatile int operadoresOcupados = 0;
+    private final LongAdder recibidas = new LongAdder();
+    private final LongAdder atendidas = new LongAdder();
+    private final LongAdder abandonadas = new LongAdder();
+    private final LongAdder ocupacionMs = new LongAdder();
+    private final HistogramaLatencia tiempoRespuesta = new HistogramaLatencia();
+    private final HistogramaLatencia esperaAbandono = new HistogramaLatencia();
+    private final long inicioNs = System.nanoTime();
+
+    /**
+     * @param destino          canal que recibe los casos ya atendidos
+     * @param numOperadores    operadores de la central
+     * @param atencionMediaMs  tiempo medio de atención de una llamada
+     * @param pacienciaMediaMs paciencia media de un llamante en espera (exponencial)
+     * @param semilla          semilla de los muestreos
+     */
+    public CentroLlamadas(CanalIngreso destino, int numOperadores, long atencionMediaMs, long pacienciaMediaMs,
+            long semilla) {
+        if (numOperadores < 1 || atencionMediaMs <= 0 || pacienciaMediaMs <= 0) {
+            throw new IllegalArgumentException("Parámetros de la central inválidos: " + numOperadores
+                    + " operadores, atención " + atencionMediaMs + " ms, paciencia " + pacienciaMediaMs + " ms");
+        }
+        this.destino = destino;
+        this.numOperadores = numOperadores;
+        this.operadoresLibres = numOperadores;
+        this.muAtencion = Math.log(atencionMediaMs) - SIGMA_ATENCION * SIGMA_ATENCION / 2;
+        this.pacienciaMediaMs = pacienciaMediaMs;
+        this.random = new SplittableRandom(semilla);
+        this.eventos = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread hilo = new Thread(r, "Centro-Llamadas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        // Un abandono cancelado sale del heap en vez de esperar su vencimiento
+        eventos.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Pone la llamada en línea: será atendida (y su caso entregado al
+     * destino) o abandonada más adelante.
+     */
+    @Override
+    public ResultadoIngreso recibir(CasoEmergencia caso) {
+        recibidas.increment();
+        Llamada llamada = new Llamada(caso, System.nanoTime());
+        try {
+            eventos.execute(() -> llegar(llamada));
+            return ResultadoIngreso.EN_LINEA;
+        } catch (RejectedExecutionException e) {
+            // Central detenida: la llamada no llega a ser atendida
+            abandonadas.increment();
+            return ResultadoIngreso.RECHAZADO;
+        }
+    }
+
+    private void llegar(Llamada llamada) {
+        if (operadoresLibres > 0) {
+            operadoresLibres--;
+            atender(llamada);
+            return;
+        }
+        encolar(llamada);
+        long paciencia = (long) (random.nextExponential() * pacienciaMediaMs);
+        llamada.abandono = eventos.schedule(() -> abandonar(llamada), paciencia, TimeUnit.MILLISECONDS);
+    }
+
+    private void abandonar(Llamada llamada) {
+        if (llamada.resuelta) {
+            return;
+        }
+        llamada.resuelta = true;
+        quitar(llamada);
+        abandonadas.increment();
+        esperaAbandono.registrar(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - llamada.llegadaNs));
+    }
+
+    private void atender(Llamada llamada) {
+        llamada.resuelta = true;
+        if (llamada.abandono != null) {
+            llamada.abandono.cancel(false);
+            llamada.abandono = null;
+        }
+        operadoresOcupados = numOperadores - operadoresLibres;
+        atendidas.increment();
+        tiempoRespuesta.registrar(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - llamada.llegadaNs));
+
+        long duracion = Math.max(1, (long) Math.exp(muAtencion + SIGMA_ATENCION * random.nextGaussian()));
+        llamada.atencionMs = duracion;
+        eventos.schedule(() -> terminar(llamada), duracion, TimeUnit.MILLISECONDS);
+    }
+
+    private void terminar(Llamada llamada) {
+        // La ocupación cuenta solo la atención ya cumplida
+        ocupacionMs.add(llamada.atencionMs);
+        try {
+            destino.recibir(llamada.caso);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RuntimeException e) {
+            logger.error("Error entregando el caso #{}", llamada.caso.getCasoId(), e);
+        }
+
+        // Las que colgaron ya salieron de la fila: la primera sigue esperando
+        Llamada siguiente = primeraEnEspera;
+        if (siguiente != null) {
+            quitar(siguiente);
+            atender(siguiente);
+            return;
+        }
+        operadoresLibres++;
+        operadoresOcupados = numOperadores - operadoresLibres;
+    }
+
+    private void encolar(Llamada llamada) {
+        llamada.anterior = ultimaEnEspera;
+        if (ultimaEnEspera == null) {
+            primeraEnEspera = llamada;
+        } else {
+            ultimaEnEspera.siguiente = llamada;
+        }
+        ultimaEnEspera = llamada;
+        llamadasEnEspera++;
+    }
+
+    private void quitar(Llamada llamada) {
+        if (llamada.anterior == null) {
+            primeraEnEspera = llamada.siguiente;
+        } else {
+            llamada.anterior.siguiente = llamada.siguiente;
+        }
+        if (llamada.siguiente == null) {
+            ultimaEnEspera = llamada.anterior;
+        } else {
+            llamada.siguiente.anterior = llamada.anterior;
+        }
+        llamada.anterior = null;
+        llamada.siguiente = null;
+        llamadasEnEspera--;
+    }
+
+    @Override
+    public int pendientes() {
+        return destino.pendientes() + llamadasEnEspera;
+    }
+
+    @Override
+    public boolean saturado() {
+        return llamadasEnEspera > 0 || destino.saturado();
+    }
+
+    @Override
+    public void stop() {
+        eventos.shutdownNow();
+    }
+
+    public int getNumOperadores() {
+        return numOperadores;
+    }
+
+    public int getLlamadasEnEspera() {
+        return llamadasEnEspera;
+    }
+
+    public int getOperadoresOcupados() {
+        return operadoresOcupados;
+    }
+
+    public long getRecibidas() {
+        return recibidas.sum();
+    }
+
+    public long getAtendidas() {
+        return atendidas.sum();
+    }
+
+    public long getAbandonadas() {
+        return abandonadas.sum();
+    }
+
+    /**
+     * @return porcentaje de llamadas que colgaron antes de ser atendidas
+     */
+    public double getTasaAbandono() {
+        long resueltas = atendidas.sum() + abandonadas.sum();
+        return resueltas == 0 ? 0.0 : abandonadas.sum() * 100.0 / resueltas;
+    }
+
+    /**
+     * @return fracción del tiempo de operador asignada a atención desde el inicio, en %
+     */
+    public double getOcupacion() {
+        double transcurridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNs);
+        return transcurridoMs <= 0 ? 0.0 : Math.min(100.0, ocupacionMs.sum() * 100.0 / (transcurridoMs * numOperadores));
+    }
+
+    /**
+     * @return histograma del tiempo hasta ser atendido, en ms
+     */
+    public HistogramaLatencia getTiempoRespuesta() {
+        return tiempoRespuesta;
+    }
+
+    /**
+     * @return histograma del tiempo que esperaron los que abandonaron, en ms
+     */
+    public HistogramaLatencia getEsperaAbandono() {
+        return esperaAbandono;
+    }
+}
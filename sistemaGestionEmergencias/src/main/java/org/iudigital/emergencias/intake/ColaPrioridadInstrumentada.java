@@ -0,0 +1,255 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.metrics.CerrojoInstrumentado;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+
+/**
+ * Cola de prioridad bloqueante y no acotada, equivalente a
+ * {@link java.util.concurrent.PriorityBlockingQueue}, pero protegida por un
+ * {@link CerrojoInstrumentado}: el lock de la cola, que el JDK no expone,
+ * queda medido con su espera, su tenencia y las tenencias más largas. Se usa
+ * en lugar de aquella cuando la instrumentación de cerrojos está activa.
+ * <p>
+ * Como en la del JDK, el iterador recorre una copia tomada al crearlo y
+ * {@code drainTo} no respeta el orden de prioridad entre los elementos
+ * extraídos.
+ */
+public class ColaPrioridadInstrumentada<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+
+    private final PriorityQueue<E> cola;
+    private final CerrojoInstrumentado cerrojo;
+    private final Condition noVacia;
+
+    /**
+     * @param orden  comparador, o null para el orden natural
+     * @param nombre nombre del cerrojo en el registro
+     */
+    public ColaPrioridadInstrumentada(Comparator<? super E> orden, String nombre) {
+        this.cola = new PriorityQueue<>(11, orden);
+        this.cerrojo = new CerrojoInstrumentado(nombre);
+        this.noVacia = cerrojo.newCondition();
+    }
+
+    @Override
+    public boolean offer(E elemento) {
+        if (elemento == null) {
+            throw new NullPointerException();
+        }
+        cerrojo.lock();
+        try {
+            cola.offer(elemento);
+            noVacia.signal();
+        } finally {
+            cerrojo.unlock();
+        }
+        return true;
+    }
+
+    @Override
+    public void put(E elemento) {
+        offer(elemento);
+    }
+
+    @Override
+    public boolean offer(E elemento, long tiempo, TimeUnit unidad) {
+        return offer(elemento);
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        cerrojo.lockInterruptibly();
+        try {
+            E elemento;
+            while ((elemento = cola.poll()) == null) {
+                noVacia.await();
+            }
+            return elemento;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public E poll(long tiempo, TimeUnit unidad) throws InterruptedException {
+        long nanos = unidad.toNanos(tiempo);
+        cerrojo.lockInterruptibly();
+        try {
+            E elemento;
+            while ((elemento = cola.poll()) == null && nanos > 0) {
+                nanos = noVacia.awaitNanos(nanos);
+            }
+            return elemento;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public E poll() {
+        cerrojo.lock();
+        try {
+            return cola.poll();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public E peek() {
+        cerrojo.lock();
+        try {
+            return cola.peek();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        cerrojo.lock();
+        try {
+            return cola.size();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object objeto) {
+        cerrojo.lock();
+        try {
+            return cola.remove(objeto);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(Object objeto) {
+        cerrojo.lock();
+        try {
+            return cola.contains(objeto);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        cerrojo.lock();
+        try {
+            cola.clear();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public Object[] toArray() {
+        cerrojo.lock();
+        try {
+            return cola.toArray();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public <T> T[] toArray(T[] destino) {
+        cerrojo.lock();
+        try {
+            return cola.toArray(destino);
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> destino) {
+        return drainTo(destino, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> destino, int maximo) {
+        if (destino == this) {
+            throw new IllegalArgumentException();
+        }
+        cerrojo.lock();
+        try {
+            int n = 0;
+            E elemento;
+            while (n < maximo && (elemento = cola.poll()) != null) {
+                destino.add(elemento);
+                n++;
+            }
+            return n;
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Iterador sobre una copia; {@code remove} quita de la cola el elemento
+     * devuelto por última vez, si sigue en ella.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Object[] copia = toArray();
+        return new Iterator<>() {
+            private int siguiente;
+            private int ultimo = -1;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < copia.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (siguiente >= copia.length) {
+                    throw new NoSuchElementException();
+                }
+                ultimo = siguiente;
+                return (E) copia[siguiente++];
+            }
+
+            @Override
+            public void remove() {
+                if (ultimo < 0) {
+                    throw new IllegalStateException();
+                }
+                quitarIdentico(copia[ultimo]);
+                ultimo = -1;
+            }
+        };
+    }
+
+    private void quitarIdentico(Object objeto) {
+        cerrojo.lock();
+        try {
+            for (Iterator<E> it = cola.iterator(); it.hasNext();) {
+                if (it.next() == objeto) {
+                    it.remove();
+                    return;
+                }
+            }
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+}
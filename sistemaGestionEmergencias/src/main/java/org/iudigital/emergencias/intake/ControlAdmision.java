@@ -0,0 +1,195 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.iudigital.emergencias.worker.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Control de admisión delante de las colas de despacho. Acota el número de
+ * casos pendientes para que, en sobrecarga, la espera de los casos graves no
+ * crezca sin límite:
+ * <ul>
+ * <li>CRITICO se admite siempre.</li>
+ * <li>LEVE deja de admitirse al llegar la cola a la mitad de su capacidad.</li>
+ * <li>El resto deja de admitirse al llegar la cola a su capacidad.</li>
+ * </ul>
+ * Un caso LEVE no admitido se difiere (modo DIFERIR) a un búfer acotado del
+ * que se readmite cuando la cola baja; si espera más que la paciencia del
+ * llamante se cuenta como abandonado. Los demás casos no admitidos, y los
+ * LEVE en modo RECHAZAR o con el búfer lleno, se rechazan.
+ * El hilo propio revisa el búfer de diferidos periódicamente.
+ */
+public class ControlAdmision implements CanalIngreso, Runnable, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ControlAdmision.class);
+
+    private static final long INTERVALO_REVISION_MS = 200;
+
+    /**
+     * Qué hacer con los casos LEVE cuando la cola está cargada.
+     */
+    public enum ModoAdmision {
+        RECHAZAR,
+        DIFERIR
+    }
+
+    private final CanalIngreso destino;
+    private final ModoAdmision modo;
+    private final int capacidad;
+    private final int umbralLeve;
+    private final long pacienciaMs;
+    private final BlockingQueue<CasoEmergencia> diferidos;
+
+    private final LongAdder admitidos = new LongAdder();
+    private final LongAdder rechazados = new LongAdder();
+    private final LongAdder diferidosTotal = new LongAdder();
+    private final LongAdder readmitidos = new LongAdder();
+    private final LongAdder abandonados = new LongAdder();
+
+    private volatile boolean corriendo = true;
+
+    /**
+     * @param destino     canal que recibe los casos admitidos
+     * @param modo        tratamiento de los casos LEVE con la cola cargada
+     * @param capacidad   máximo de casos pendientes no críticos
+     * @param pacienciaMs tiempo que un llamante diferido espera antes de abandonar
+     */
+    public ControlAdmision(CanalIngreso destino, ModoAdmision modo, int capacidad, long pacienciaMs) {
+        if (capacidad < 2 || pacienciaMs <= 0) {
+            throw new IllegalArgumentException(
+                    "Parámetros de admisión inválidos: capacidad " + capacidad + ", paciencia " + pacienciaMs);
+        }
+        this.destino = destino;
+        this.modo = modo;
+        this.capacidad = capacidad;
+        this.umbralLeve = capacidad / 2;
+        this.pacienciaMs = pacienciaMs;
+        this.diferidos = new ArrayBlockingQueue<>(capacidad);
+    }
+
+    @Override
+    public ResultadoIngreso recibir(CasoEmergencia caso) throws InterruptedException {
+        Severity severidad = caso.getSeveridad();
+        if (severidad == Severity.CRITICO) {
+            return admitir(caso);
+        }
+
+        int nivel = destino.pendientes();
+        if (severidad == Severity.LEVE && nivel >= umbralLeve) {
+            if (modo == ModoAdmision.DIFERIR && diferidos.offer(caso)) {
+                diferidosTotal.increment();
+                return ResultadoIngreso.DIFERIDO;
+            }
+            return rechazar(caso, nivel);
+        }
+        if (nivel >= capacidad) {
+            return rechazar(caso, nivel);
+        }
+        return admitir(caso);
+    }
+
+    private ResultadoIngreso admitir(CasoEmergencia caso) throws InterruptedException {
+        admitidos.increment();
+        return destino.recibir(caso);
+    }
+
+    private ResultadoIngreso rechazar(CasoEmergencia caso, int nivel) {
+        rechazados.increment();
+        logger.debug("Caso #{} ({}) rechazado: {} pendientes", caso.getCasoId(), caso.getSeveridad(), nivel);
+        return ResultadoIngreso.RECHAZADO;
+    }
+
+    @Override
+    public void run() {
+        Thread.currentThread().setName("Control-Admision");
+        try {
+            while (corriendo) {
+                TimeUnit.MILLISECONDS.sleep(INTERVALO_REVISION_MS);
+                revisarDiferidos(System.currentTimeMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Descarta los diferidos que superaron la paciencia y readmite los demás,
+     * en orden de llegada, mientras la cola esté bajo el umbral de LEVE.
+     * Visible en el paquete para revisar con un reloj dado.
+     */
+    void revisarDiferidos(long ahora) throws InterruptedException {
+        CasoEmergencia caso;
+        while ((caso = diferidos.peek()) != null && ahora - caso.getHoraRecibido() > pacienciaMs) {
+            if (diferidos.remove(caso)) {
+                abandonados.increment();
+                logger.debug("Caso #{} abandonado tras {} ms diferido", caso.getCasoId(),
+                        ahora - caso.getHoraRecibido());
+            }
+        }
+        while (destino.pendientes() < umbralLeve && (caso = diferidos.poll()) != null) {
+            readmitidos.increment();
+            admitir(caso);
+        }
+    }
+
+    @Override
+    public int pendientes() {
+        return destino.pendientes() + diferidos.size();
+    }
+
+    /**
+     * @return true si la cola está sobre el umbral de LEVE o hay llamantes diferidos
+     */
+    @Override
+    public boolean saturado() {
+        return destino.pendientes() >= umbralLeve || !diferidos.isEmpty();
+    }
+
+    @Override
+    public void stop() {
+        this.corriendo = false;
+    }
+
+    public int getDiferidosEnEspera() {
+        return diferidos.size();
+    }
+
+    public long getAdmitidos() {
+        return admitidos.sum();
+    }
+
+    public long getRechazados() {
+        return rechazados.sum();
+    }
+
+    public long getDiferidos() {
+        return diferidosTotal.sum();
+    }
+
+    public long getReadmitidos() {
+        return readmitidos.sum();
+    }
+
+    public long getAbandonados() {
+        return abandonados.sum();
+    }
+
+    public ModoAdmision getModo() {
+        return modo;
+    }
+
+    public int getCapacidad() {
+        return capacidad;
+    }
+
+    public void limpiar() {
+        diferidos.clear();
+    }
+}
@@ -0,0 +1,90 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Etapa de correlación entre los operadores y las colas de despacho.
+ * Varias personas suelen llamar por el mismo incidente: una llamada con la
+ * misma ubicación y severidad que un caso aún no atendido y recibido dentro
+ * de la ventana se fusiona con ese caso en lugar de encolarse como uno nuevo.
+ * El índice guarda el último caso abierto por clave (ubicación, severidad),
+ * así que la búsqueda es O(1) y su tamaño está acotado por el número de
+ * ubicaciones; las entradas vencidas se reemplazan en la siguiente llamada.
+ * Solo entran al índice los casos que quedaron en camino al despacho
+ * (encolados o en línea): uno diferido o rechazado puede no atenderse nunca,
+ * y las llamadas fusionadas con él se perderían.
+ */
+public class CorrelacionIncidentes implements CanalIngreso {
+
+    private static final Logger logger = LoggerFactory.getLogger(CorrelacionIncidentes.class);
+
+    private final CanalIngreso destino;
+    private final long ventanaMs;
+    private final ConcurrentHashMap<Long, CasoEmergencia> abiertos = new ConcurrentHashMap<>();
+    private final LongAdder llamadasFusionadas = new LongAdder();
+
+    /**
+     * @param destino   canal que recibe los casos nuevos
+     * @param ventanaMs antigüedad máxima, en ms, del caso con el que se fusiona una llamada
+     */
+    public CorrelacionIncidentes(CanalIngreso destino, long ventanaMs) {
+        if (ventanaMs <= 0) {
+            throw new IllegalArgumentException("Ventana de correlación inválida: " + ventanaMs);
+        }
+        this.destino = destino;
+        this.ventanaMs = ventanaMs;
+    }
+
+    @Override
+    public ResultadoIngreso recibir(CasoEmergencia caso) throws InterruptedException {
+        long clave = clave(caso);
+        CasoEmergencia existente = abiertos.get(clave);
+        if (existente != null && existente.getHoraAtendido() == 0
+                && caso.getHoraRecibido() - existente.getHoraRecibido() <= ventanaMs) {
+            existente.registrarLlamada();
+            llamadasFusionadas.increment();
+            logger.debug("Llamada #{} fusionada con el caso #{} ({} llamadas)",
+                    caso.getCasoId(), existente.getCasoId(), existente.getLlamadas());
+            return ResultadoIngreso.FUSIONADO;
+        }
+
+        // Se indexa después de ingresar: dos llamadas simultáneas pueden dar
+        // dos casos, pero ninguna se fusiona con uno que no llegó a la cola
+        ResultadoIngreso resultado = destino.recibir(caso);
+        if (resultado == ResultadoIngreso.ENCOLADO || resultado == ResultadoIngreso.EN_LINEA) {
+            abiertos.put(clave, caso);
+        }
+        return resultado;
+    }
+
+    @Override
+    public int pendientes() {
+        return destino.pendientes();
+    }
+
+    @Override
+    public boolean saturado() {
+        return destino.saturado();
+    }
+
+    private static long clave(CasoEmergencia caso) {
+        return ((long) caso.getUbicacionId() << 2) | caso.getSeveridad().ordinal();
+    }
+
+    public long getLlamadasFusionadas() {
+        return llamadasFusionadas.sum();
+    }
+
+    public long getVentanaMs() {
+        return ventanaMs;
+    }
+
+    public void limpiar() {
+        abiertos.clear();
+    }
+}
@@ -0,0 +1,136 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.dispatch.PoliticaSla;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.jfr.CasoEncoladoEvento;
+import org.iudigital.emergencias.metrics.RegistroCerrojos;
+import org.iudigital.emergencias.metrics.TrazadorCasos;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Canal de ingreso particionado: las zonas de la ciudad se reparten en
+ * particiones de zonas contiguas, cada una con su propia cola de prioridad
+ * atendida por su propio despachador. Un caso entra a la cola de la
+ * partición de la zona donde ocurre. Con tantas particiones como zonas cada
+ * zona tiene su cola; con una sola equivale a la cola única.
+ * Al ingresar, cada caso recibe su hora límite según la política de plazos;
+ * las colas ordenan por prioridad ponderada (orden natural) o por plazo más
+ * próximo según el comparador indicado. Con la instrumentación de cerrojos
+ * activa cada cola es una {@link ColaPrioridadInstrumentada}, con su lock
+ * medido como "cola-zona-N".
+ */
+public class IngresoPorZonas implements CanalIngreso {
+
+    private final RegistroUbicaciones registro;
+    private final PoliticaSla politicaSla;
+    private final Comparator<CasoEmergencia> orden;
+    private final List<BlockingQueue<CasoEmergencia>> colas;
+
+    public IngresoPorZonas(int numParticiones, RegistroUbicaciones registro) {
+        this(numParticiones, registro, PoliticaSla.desdePropiedades(), null);
+    }
+
+    /**
+     * @param numParticiones número de colas, entre 1 y el número de zonas del registro
+     * @param registro       registro de ubicaciones usado para ubicar la zona del caso
+     * @param politicaSla    plazos de respuesta por severidad
+     * @param orden          orden de las colas, o null para el orden natural de los casos
+     */
+    public IngresoPorZonas(int numParticiones, RegistroUbicaciones registro, PoliticaSla politicaSla,
+            Comparator<CasoEmergencia> orden) {
+        if (numParticiones < 1 || numParticiones > registro.getNumZonas()) {
+            throw new IllegalArgumentException(
+                    "Particiones inválidas: " + numParticiones + " (zonas: " + registro.getNumZonas() + ")");
+        }
+        this.registro = registro;
+        this.politicaSla = politicaSla;
+        this.orden = orden;
+        boolean instrumentadas = RegistroCerrojos.getInstance().isHabilitado();
+        List<BlockingQueue<CasoEmergencia>> creadas = new ArrayList<>(numParticiones);
+        for (int i = 0; i < numParticiones; i++) {
+            creadas.add(instrumentadas
+                    ? new ColaPrioridadInstrumentada<>(orden, "cola-zona-" + i)
+                    : new PriorityBlockingQueue<>(11, orden));
+        }
+        this.colas = List.copyOf(creadas);
+    }
+
+    @Override
+    public ResultadoIngreso recibir(CasoEmergencia caso) throws InterruptedException {
+        caso.setHoraLimite(politicaSla.horaLimite(caso));
+        int particion = particionDe(caso.getUbicacionId());
+        // Antes de encolar: un despachador puede tomarlo en cuanto entra
+        CasoEncoladoEvento.emitir(caso, particion, CasoEncoladoEvento.INGRESO);
+        TrazadorCasos.getInstance().registrar(caso, TrazadorCasos.Fase.ENCOLADO, caso.getSeveridad().ordinal());
+        colas.get(particion).put(caso);
+        return ResultadoIngreso.ENCOLADO;
+    }
+
+    @Override
+    public int pendientes() {
+        int total = 0;
+        for (BlockingQueue<CasoEmergencia> cola : colas) {
+            total += cola.size();
+        }
+        return total;
+    }
+
+    /**
+     * Suma en {@code destino} los casos pendientes por severidad (índice =
+     * ordinal). Recorre una copia de cada cola, por lo que es O(pendientes):
+     * para muestreo periódico, no para el camino de despacho.
+     */
+    public void contarPorSeveridad(int[] destino) {
+        for (BlockingQueue<CasoEmergencia> cola : colas) {
+            for (CasoEmergencia caso : cola) {
+                destino[caso.getSeveridad().ordinal()]++;
+            }
+        }
+    }
+
+    /**
+     * Partición que atiende una ubicación.
+     */
+    public int particionDe(int ubicacionId) {
+        return registro.getZona(ubicacionId) * colas.size() / registro.getNumZonas();
+    }
+
+    /**
+     * Primera zona asignada a una partición; su base representa a la
+     * partición al ordenar las vecinas por cercanía.
+     */
+    public int primeraZonaDe(int particion) {
+        return (particion * registro.getNumZonas() + colas.size() - 1) / colas.size();
+    }
+
+    public BlockingQueue<CasoEmergencia> getCola(int particion) {
+        return colas.get(particion);
+    }
+
+    /**
+     * @return comparador de las colas, o null si usan el orden natural
+     */
+    public Comparator<CasoEmergencia> getOrden() {
+        return orden;
+    }
+
+    public PoliticaSla getPoliticaSla() {
+        return politicaSla;
+    }
+
+    public int getNumParticiones() {
+        return colas.size();
+    }
+
+    public void limpiar() {
+        for (BlockingQueue<CasoEmergencia> cola : colas) {
+            cola.clear();
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package org.iudigital.emergencias.intake;
+
+/**
+ * Resultado de entregar una llamada al canal de ingreso.
+ */
+public enum ResultadoIngreso {
+    /** El caso quedó en cola pendiente de despacho. */
+    ENCOLADO,
+    /** La llamada reporta un incidente abierto y se fusionó con su caso. */
+    FUSIONADO,
+    /** La llamada espera o está en atención; el caso se entregará al terminar. */
+    EN_LINEA,
+    /** El caso no se admitió por saturación y se deja en espera de readmisión. */
+    DIFERIDO,
+    /** El caso no se admitió por saturación. */
+    RECHAZADO
+}
@@ -0,0 +1,53 @@
+package org.iudigital.emergencias.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Transición de estado de una ambulancia o equipo médico. Deshabilitado por
+ * defecto: con flotas grandes son varios eventos por caso.
+ */
+@Name("emergencias.CambioEstadoRecurso")
+@Label("Cambio de estado de recurso")
+@Category({ "Emergencias", "Recursos" })
+@Description("Una unidad pasa de un estado a otro")
+@Enabled(false)
+@StackTrace(false)
+public class CambioEstadoRecursoEvento extends jdk.jfr.Event {
+
+    @Label("Tipo")
+    String tipo;
+
+    @Label("Recurso")
+    int recursoId;
+
+    @Label("Estado anterior")
+    String anterior;
+
+    @Label("Estado nuevo")
+    String nuevo;
+
+    @Label("Caso")
+    long casoId;
+
+    /**
+     * Emite el evento si está habilitado.
+     *
+     * @param tipo "AMBULANCIA" o "EQUIPO"
+     */
+    public static void emitir(String tipo, int recursoId, Enum<?> anterior, Enum<?> nuevo, long casoId) {
+        CambioEstadoRecursoEvento evento = new CambioEstadoRecursoEvento();
+        if (evento.isEnabled()) {
+            evento.tipo = tipo;
+            evento.recursoId = recursoId;
+            evento.anterior = anterior != null ? anterior.name() : null;
+            evento.nuevo = nuevo.name();
+            evento.casoId = casoId;
+            evento.commit();
+        }
+    }
+}
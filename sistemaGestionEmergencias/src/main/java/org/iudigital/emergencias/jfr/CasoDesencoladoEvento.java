@@ -0,0 +1,46 @@
+package org.iudigital.emergencias.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+/**
+ * Un despachador sacó un caso de la cola de su zona para intentar
+ * despacharlo. Habilitado por defecto.
+ */
+@Name("emergencias.CasoDesencolado")
+@Label("Caso desencolado")
+@Category({ "Emergencias", "Casos" })
+@Description("Un despachador toma un caso de la cola de su zona")
+@StackTrace(false)
+public class CasoDesencoladoEvento extends jdk.jfr.Event {
+
+    @Label("Caso")
+    long casoId;
+
+    @Label("Severidad")
+    String severidad;
+
+    @Label("Zona")
+    int zona;
+
+    @Label("Espera desde el ingreso")
+    @Timespan(Timespan.MILLISECONDS)
+    long esperaMs;
+
+    public static void emitir(CasoEmergencia caso, int zona) {
+        CasoDesencoladoEvento evento = new CasoDesencoladoEvento();
+        if (evento.isEnabled()) {
+            evento.casoId = caso.getCasoId();
+            evento.severidad = caso.getSeveridad().name();
+            evento.zona = zona;
+            evento.esperaMs = System.currentTimeMillis() - caso.getHoraRecibido();
+            evento.commit();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.iudigital.emergencias.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+/**
+ * Un caso entró a la cola de su zona: al ingresar, al volver porque no se
+ * reunieron recursos o al ser desplazado por un desvío. Habilitado por
+ * defecto; es un evento por caso, sin pila.
+ */
+@Name("emergencias.CasoEncolado")
+@Label("Caso encolado")
+@Category({ "Emergencias", "Casos" })
+@Description("Un caso entra a la cola de despacho de su zona")
+@StackTrace(false)
+public class CasoEncoladoEvento extends jdk.jfr.Event {
+
+    public static final String INGRESO = "INGRESO";
+    public static final String REINTENTO = "REINTENTO";
+    public static final String DESPLAZADO = "DESPLAZADO";
+
+    @Label("Caso")
+    long casoId;
+
+    @Label("Severidad")
+    String severidad;
+
+    @Label("Zona")
+    int zona;
+
+    @Label("Motivo")
+    String motivo;
+
+    /**
+     * Emite el evento si está habilitado; si no, no toca el caso.
+     */
+    public static void emitir(CasoEmergencia caso, int zona, String motivo) {
+        CasoEncoladoEvento evento = new CasoEncoladoEvento();
+        if (evento.isEnabled()) {
+            evento.casoId = caso.getCasoId();
+            evento.severidad = caso.getSeveridad().name();
+            evento.zona = zona;
+            evento.motivo = motivo;
+            evento.commit();
+        }
+    }
+}
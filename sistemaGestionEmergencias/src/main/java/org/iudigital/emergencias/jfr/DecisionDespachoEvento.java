@@ -0,0 +1,92 @@
+package org.iudigital.emergencias.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+/**
+ * Decisión de despacho de un caso, con duración: cuántas unidades candidatas
+ * se evaluaron, cuál se eligió, con qué resultado y cuánto tiempo estuvieron
+ * apartadas las unidades antes de confirmar o revertir la reserva (el tiempo
+ * en que otros despachadores no pueden tomarlas). Deshabilitado por defecto;
+ * mientras lo esté, el despachador no mide tiempos ni arma el evento.
+ */
+@Name("emergencias.DecisionDespacho")
+@Label("Decisión de despacho")
+@Category({ "Emergencias", "Despacho" })
+@Description("Búsqueda y reserva de recursos para un caso")
+@Enabled(false)
+@StackTrace(false)
+public class DecisionDespachoEvento extends jdk.jfr.Event {
+
+    public static final String ASIGNADO = "ASIGNADO";
+    public static final String DESVIO = "DESVIO";
+    public static final String ANTICIPADA = "ANTICIPADA";
+    public static final String SIN_RECURSOS = "SIN_RECURSOS";
+
+    private static final EventType TIPO = EventType.getEventType(DecisionDespachoEvento.class);
+
+    @Label("Caso")
+    long casoId;
+
+    @Label("Severidad")
+    String severidad;
+
+    @Label("Zona")
+    int zona;
+
+    @Label("Modo")
+    String modo;
+
+    @Label("Candidatas evaluadas")
+    int candidatas;
+
+    @Label("Ambulancia elegida")
+    @Description("Id de la primera ambulancia del caso, -1 si no se asignó")
+    int ambulancia;
+
+    @Label("Resultado")
+    String resultado;
+
+    @Label("Retención de recursos")
+    @Timespan(Timespan.NANOSECONDS)
+    long retencionNs;
+
+    /**
+     * Crea e inicia el evento solo si alguna grabación lo tiene habilitado,
+     * para no armar uno por decisión cuando no se graba.
+     *
+     * @return el evento iniciado, o null si está deshabilitado
+     */
+    public static DecisionDespachoEvento iniciar() {
+        if (!TIPO.isEnabled()) {
+            return null;
+        }
+        DecisionDespachoEvento evento = new DecisionDespachoEvento();
+        evento.begin();
+        return evento;
+    }
+
+    /**
+     * Carga los campos de la decisión; se llama solo si
+     * {@link #shouldCommit()} lo justifica.
+     */
+    public void completar(CasoEmergencia caso, int zona, String modo, int candidatas, int ambulancia,
+            String resultado, long retencionNs) {
+        this.casoId = caso.getCasoId();
+        this.severidad = caso.getSeveridad().name();
+        this.zona = zona;
+        this.modo = modo;
+        this.candidatas = candidatas;
+        this.ambulancia = ambulancia;
+        this.resultado = resultado;
+        this.retencionNs = retencionNs;
+    }
+}
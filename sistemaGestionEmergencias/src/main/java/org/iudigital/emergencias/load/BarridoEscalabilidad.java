@@ -0,0 +1,379 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.manager.SimulacionManager;
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.metrics.HistogramaLatencia;
+import org.iudigital.emergencias.metrics.LatenciaDespacho;
+import org.iudigital.emergencias.output.SalidaNula;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Barrido de escalabilidad sin interfaz: ejecuta la simulación completa en
+ * cada punto de una cuadrícula (ambulancias × equipos médicos × operadores ×
+ * tasa de llamadas) y agrega una fila por punto a un CSV con el throughput,
+ * los percentiles de la latencia de despacho, el uso de CPU y heap y la
+ * cantidad de hilos.
+ * <p>
+ * Las llamadas llegan por un proceso de Poisson de tasa constante y semilla
+ * fija a través de la central de llamadas, así que los operadores son solo
+ * capacidad de atención, y los mensajes de progreso van a una salida nula.
+ * Cada fila lleva la etiqueta de la versión (por defecto el commit de git),
+ * de modo que corridas de distintos commits sobre el mismo archivo dan
+ * curvas comparables. Uso:
+ * <pre>
+ * java -cp target/sistema-gestion-emergencias-*-jar-with-dependencies.jar \
+ *     -Dbarrido.ambulancias=10,100,1000,10000 \
+ *     org.iudigital.emergencias.load.BarridoEscalabilidad
+ * </pre>
+ * Las dimensiones sin valores explícitos se derivan de las ambulancias
+ * (ver {@link #EQUIPOS_POR_AMBULANCIA} y siguientes); las demás propiedades
+ * {@code emergencias.*} de la simulación se respetan tal cual.
+ */
+public class BarridoEscalabilidad {
+
+    private static final Logger logger = LoggerFactory.getLogger(BarridoEscalabilidad.class);
+
+    public static final String PROPIEDAD_AMBULANCIAS = "barrido.ambulancias";
+    public static final String PROPIEDAD_EQUIPOS = "barrido.equipos";
+    public static final String PROPIEDAD_OPERADORES = "barrido.operadores";
+    public static final String PROPIEDAD_TASAS = "barrido.tasas";
+    public static final String PROPIEDAD_CALENTAMIENTO_S = "barrido.calentamientoS";
+    public static final String PROPIEDAD_MEDICION_S = "barrido.medicionS";
+    public static final String PROPIEDAD_SALIDA = "barrido.salida";
+    public static final String PROPIEDAD_ETIQUETA = "barrido.etiqueta";
+
+    // Cada ambulancia es un hilo de plataforma: más allá de 10000 la JVM
+    // suele quedarse sin hilos nativos, así que esos puntos se piden explícitos
+    private static final String AMBULANCIAS_PREDETERMINADAS = "10,100,1000,10000";
+    private static final String SALIDA_PREDETERMINADA = "target/escalabilidad.csv";
+
+    // Proporciones para las dimensiones que no se barren explícitamente
+    static final double EQUIPOS_POR_AMBULANCIA = 0.5;
+    static final double OPERADORES_POR_AMBULANCIA = 0.2;
+    static final double LLAMADAS_POR_SEGUNDO_POR_AMBULANCIA = 0.1;
+
+    private static final long MUESTREO_MS = 250;
+    private static final long PAUSA_ENTRE_PUNTOS_MS = 1000;
+
+    private static final String ENCABEZADO = "etiqueta,fecha,java,nucleos,ambulancias,equipos,operadores,"
+            + "tasa_llamadas_s,medicion_s,llamadas,despachos,casos_completados,casos_s,despachos_s,"
+            + "despacho_p50_ms,despacho_p90_ms,despacho_p99_ms,despacho_max_ms,cpu_pct,"
+            + "heap_max_mb,heap_fin_mb,hilos_max,pendientes_fin,error";
+
+    private final int calentamientoS;
+    private final int medicionS;
+    private final Path salida;
+    private final String etiqueta;
+
+    private final MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.OperatingSystemMXBean sistema =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    public BarridoEscalabilidad(int calentamientoS, int medicionS, Path salida, String etiqueta) {
+        if (calentamientoS < 0 || medicionS < 1) {
+            throw new IllegalArgumentException("Duraciones inválidas: calentamiento " + calentamientoS
+                    + " s, medición " + medicionS + " s");
+        }
+        this.calentamientoS = calentamientoS;
+        this.medicionS = medicionS;
+        this.salida = salida;
+        this.etiqueta = etiqueta;
+    }
+
+    /**
+     * Un punto de la cuadrícula.
+     */
+    public static final class Punto {
+        final int ambulancias;
+        final int equipos;
+        final int operadores;
+        final double tasa;
+
+        Punto(int ambulancias, int equipos, int operadores, double tasa) {
+            this.ambulancias = ambulancias;
+            this.equipos = equipos;
+            this.operadores = operadores;
+            this.tasa = tasa;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%d ambulancias, %d equipos, %d operadores, %.1f llamadas/s",
+                    ambulancias, equipos, operadores, tasa);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        List<Punto> puntos = cuadricula(
+                enteros(System.getProperty(PROPIEDAD_AMBULANCIAS, AMBULANCIAS_PREDETERMINADAS)),
+                enteros(System.getProperty(PROPIEDAD_EQUIPOS, "")),
+                enteros(System.getProperty(PROPIEDAD_OPERADORES, "")),
+                decimales(System.getProperty(PROPIEDAD_TASAS, "")));
+        String etiqueta = System.getProperty(PROPIEDAD_ETIQUETA);
+        BarridoEscalabilidad barrido = new BarridoEscalabilidad(
+                Integer.getInteger(PROPIEDAD_CALENTAMIENTO_S, 5),
+                Integer.getInteger(PROPIEDAD_MEDICION_S, 15),
+                Path.of(System.getProperty(PROPIEDAD_SALIDA, SALIDA_PREDETERMINADA)),
+                etiqueta != null ? etiqueta : commitActual());
+        barrido.ejecutar(puntos);
+        System.exit(0);
+    }
+
+    /**
+     * Producto cartesiano de las dimensiones. Una lista vacía se reemplaza
+     * por el valor proporcional a las ambulancias de cada punto.
+     */
+    static List<Punto> cuadricula(List<Integer> ambulancias, List<Integer> equipos, List<Integer> operadores,
+            List<Double> tasas) {
+        List<Punto> puntos = new ArrayList<>();
+        for (int a : ambulancias) {
+            List<Integer> listaEquipos = equipos.isEmpty()
+                    ? List.of(Math.max(1, (int) (a * EQUIPOS_POR_AMBULANCIA))) : equipos;
+            List<Integer> listaOperadores = operadores.isEmpty()
+                    ? List.of(Math.max(1, (int) (a * OPERADORES_POR_AMBULANCIA))) : operadores;
+            List<Double> listaTasas = tasas.isEmpty() ? List.of(a * LLAMADAS_POR_SEGUNDO_POR_AMBULANCIA) : tasas;
+            for (int e : listaEquipos) {
+                for (int o : listaOperadores) {
+                    for (double t : listaTasas) {
+                        puntos.add(new Punto(a, e, o, t));
+                    }
+                }
+            }
+        }
+        return puntos;
+    }
+
+    /**
+     * Ejecuta todos los puntos en orden y agrega sus filas al CSV. Un punto
+     * que falla queda registrado con su error y el barrido sigue con el
+     * siguiente, salvo que la simulación no haya podido arrancar (por
+     * ejemplo, sin memoria para más hilos): los puntos restantes son más
+     * grandes y fallarían igual, así que el barrido se detiene ahí.
+     */
+    public void ejecutar(List<Punto> puntos) throws IOException {
+        if (salida.getParent() != null) {
+            Files.createDirectories(salida.getParent());
+        }
+        if (!Files.exists(salida) || Files.size(salida) == 0) {
+            Files.writeString(salida, ENCABEZADO + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+
+        System.setProperty(GeneradorCarga.PROPIEDAD_CARGA, "poisson");
+        System.setProperty(GeneradorCarga.PROPIEDAD_PERFIL, "constante");
+
+        logger.info("Barrido de escalabilidad '{}': {} puntos, {} s de calentamiento + {} s de medición, salida {}",
+                etiqueta, puntos.size(), calentamientoS, medicionS, salida);
+        for (int i = 0; i < puntos.size(); i++) {
+            Punto punto = puntos.get(i);
+            Medicion medicion = medir(punto);
+            Files.writeString(salida, fila(punto, medicion) + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND);
+            System.out.printf("[%d/%d] %s: %s%n", i + 1, puntos.size(), punto, medicion.error.isEmpty()
+                    ? String.format(Locale.ROOT, "%.1f casos/s, despacho p99 %d ms", medicion.casosPorSegundo(),
+                            medicion.p99)
+                    : medicion.error);
+            if (medicion.sinArranque && i + 1 < puntos.size()) {
+                logger.warn("El punto {} no pudo arrancar; se omiten los {} puntos restantes",
+                        punto, puntos.size() - i - 1);
+                break;
+            }
+
+            System.gc();
+            dormir(PAUSA_ENTRE_PUNTOS_MS);
+        }
+        System.out.printf("Resultados en %s%n", salida.toAbsolutePath());
+    }
+
+    /**
+     * Ejecuta la simulación de un punto y mide su ventana.
+     */
+    private Medicion medir(Punto punto) {
+        SimulacionManager manager = SimulacionManager.getInstance();
+        manager.reset();
+        Thread.interrupted();
+        System.setProperty(GeneradorCarga.PROPIEDAD_TASA, Double.toString(punto.tasa));
+        manager.setCentroLlamadas(true);
+        // Los mensajes por evento se descartan para no medir el costo de la terminal
+        manager.setSalida(SalidaNula.getInstance());
+
+        Medicion medicion = new Medicion();
+        LatenciaDespacho ventana = new LatenciaDespacho();
+        try {
+            medicion.sinArranque = true;
+            manager.inicializarSimulacion(punto.ambulancias, punto.equipos, punto.operadores,
+                    calentamientoS + medicionS + 60);
+            medicion.sinArranque = false;
+            dormir(TimeUnit.SECONDS.toMillis(calentamientoS));
+
+            // Un histograma propio para la ventana en lugar de reiniciar el de
+            // la simulación, que los despachadores siguen escribiendo
+            for (Ambulancia ambulancia : manager.getAmbulancias()) {
+                ambulancia.agregarListener(ventana);
+            }
+            HistogramaLatencia despacho = ventana.getLatencias();
+            long llamadasInicio = llamadasGeneradas(manager);
+            int casosInicio = manager.getCasosCompletados().size();
+            hilos.resetPeakThreadCount();
+            long cpuInicio = sistema.getProcessCpuTime();
+            long inicio = System.nanoTime();
+
+            long fin = inicio + TimeUnit.SECONDS.toNanos(medicionS);
+            while (System.nanoTime() < fin) {
+                medicion.heapMaximo = Math.max(medicion.heapMaximo, memoria.getHeapMemoryUsage().getUsed());
+                dormir(Math.min(MUESTREO_MS, Math.max(1, TimeUnit.NANOSECONDS.toMillis(fin - System.nanoTime()))));
+            }
+
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            medicion.cpuPct = (sistema.getProcessCpuTime() - cpuInicio) / 1e9
+                    / (segundos * Runtime.getRuntime().availableProcessors()) * 100.0;
+            medicion.segundos = segundos;
+            medicion.llamadas = llamadasGeneradas(manager) - llamadasInicio;
+            medicion.casos = manager.getCasosCompletados().size() - casosInicio;
+            medicion.despachos = despacho.getCantidad();
+            medicion.p50 = despacho.percentil(50);
+            medicion.p90 = despacho.percentil(90);
+            medicion.p99 = despacho.percentil(99);
+            medicion.maximo = despacho.getMaximo();
+            medicion.hilosMaximo = hilos.getPeakThreadCount();
+            medicion.pendientes = manager.getCasosPendientes();
+            medicion.heapFinal = memoria.getHeapMemoryUsage().getUsed();
+        } catch (RuntimeException | Error e) {
+            logger.error("Falló el punto {}", punto, e);
+            medicion.error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        } finally {
+            for (Ambulancia ambulancia : manager.getAmbulancias()) {
+                ambulancia.eliminarListener(ventana);
+            }
+            manager.reset();
+            // Detener los recursos interrumpe al hilo que los detiene; sin
+            // limpiarlo, las esperas del punto siguiente no dormirían
+            Thread.interrupted();
+        }
+        return medicion;
+    }
+
+    private static long llamadasGeneradas(SimulacionManager manager) {
+        GeneradorCarga generador = manager.getGeneradorCarga();
+        return generador != null ? generador.getGeneradas() : 0;
+    }
+
+    /**
+     * Valores medidos en la ventana de un punto.
+     */
+    private static final class Medicion {
+        double segundos;
+        long llamadas;
+        long casos;
+        long despachos;
+        long p50;
+        long p90;
+        long p99;
+        long maximo;
+        double cpuPct;
+        long heapMaximo;
+        long heapFinal;
+        int hilosMaximo;
+        int pendientes;
+        boolean sinArranque;
+        String error = "";
+
+        double casosPorSegundo() {
+            return segundos > 0 ? casos / segundos : 0;
+        }
+
+        double despachosPorSegundo() {
+            return segundos > 0 ? despachos / segundos : 0;
+        }
+    }
+
+    private String fila(Punto punto, Medicion m) {
+        return String.format(Locale.ROOT,
+                "%s,%s,%s,%d,%d,%d,%d,%.3f,%.1f,%d,%d,%d,%.2f,%.2f,%d,%d,%d,%d,%.1f,%.1f,%.1f,%d,%d,%s",
+                csv(etiqueta), Instant.now(), csv(System.getProperty("java.version")),
+                Runtime.getRuntime().availableProcessors(),
+                punto.ambulancias, punto.equipos, punto.operadores, punto.tasa, m.segundos,
+                m.llamadas, m.despachos, m.casos, m.casosPorSegundo(), m.despachosPorSegundo(),
+                m.p50, m.p90, m.p99, m.maximo, m.cpuPct,
+                m.heapMaximo / (1024.0 * 1024.0), m.heapFinal / (1024.0 * 1024.0), m.hilosMaximo,
+                m.pendientes, csv(m.error));
+    }
+
+    /**
+     * Escapa un campo de texto para CSV.
+     */
+    private static String csv(String valor) {
+        if (valor.indexOf(',') < 0 && valor.indexOf('"') < 0 && valor.indexOf('\n') < 0) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"").replace('\n', ' ') + '"';
+    }
+
+    static List<Integer> enteros(String lista) {
+        List<Integer> valores = new ArrayList<>();
+        for (String valor : lista.split(",")) {
+            if (!valor.isBlank()) {
+                valores.add(Integer.parseInt(valor.trim()));
+            }
+        }
+        return valores;
+    }
+
+    static List<Double> decimales(String lista) {
+        List<Double> valores = new ArrayList<>();
+        for (String valor : lista.split(",")) {
+            if (!valor.isBlank()) {
+                valores.add(Double.parseDouble(valor.trim()));
+            }
+        }
+        return valores;
+    }
+
+    /**
+     * Hash corto del commit actual, o "sin-etiqueta" si no se puede obtener.
+     */
+    private static String commitActual() {
+        try {
+            Process git = new ProcessBuilder("git", "rev-parse", "--short", "HEAD")
+                    .redirectErrorStream(true).start();
+            String linea;
+            try (BufferedReader lector = new BufferedReader(
+                    new InputStreamReader(git.getInputStream(), StandardCharsets.UTF_8))) {
+                linea = lector.readLine();
+            }
+            if (git.waitFor(5, TimeUnit.SECONDS) && git.exitValue() == 0 && linea != null && !linea.isBlank()) {
+                return linea.trim();
+            }
+        } catch (IOException e) {
+            logger.debug("No se pudo consultar git para la etiqueta del barrido", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "sin-etiqueta";
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
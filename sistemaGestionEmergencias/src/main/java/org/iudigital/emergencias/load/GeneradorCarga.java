@@ -0,0 +1,188 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.intake.CanalIngreso;
+import org.iudigital.emergencias.intake.ResultadoIngreso;
+import org.iudigital.emergencias.worker.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Generador de carga: consume un proceso de llegadas y entrega cada llamada
+ * al canal de ingreso en su instante programado. Solo duerme cuando va
+ * adelantado; si se atrasa entrega en ráfaga sin dormir hasta alcanzar el
+ * reloj, por lo que su techo lo fija el costo de crear y encolar un caso
+ * (cientos de miles de llamadas por segundo). Con una escala de tiempo
+ * mayor que 1 la traza se reproduce acelerada.
+ */
+public class GeneradorCarga implements Runnable, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeneradorCarga.class);
+
+    public static final String PROPIEDAD_CARGA = "emergencias.carga";
+    public static final String PROPIEDAD_TASA = "emergencias.carga.tasa";
+    public static final String PROPIEDAD_MS_POR_HORA = "emergencias.carga.msPorHora";
+    public static final String PROPIEDAD_HORA_INICIAL = "emergencias.carga.horaInicial";
+    public static final String PROPIEDAD_RAFAGAS = "emergencias.carga.rafagas";
+    public static final String PROPIEDAD_SEMILLA = "emergencias.carga.semilla";
+    public static final String PROPIEDAD_ESCALA = "emergencias.carga.escala";
+    public static final String PROPIEDAD_DESDE_MS = "emergencias.carga.desdeMs";
+    public static final String PROPIEDAD_PERFIL = "emergencias.carga.perfil";
+    private static final String CARGA_POISSON = "poisson";
+    private static final String PERFIL_CONSTANTE = "constante";
+
+    // Por debajo de este adelanto no vale la pena dormir
+    private static final long ESPERA_MINIMA_NS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final CanalIngreso canal;
+    private final ProcesoLlegadas proceso;
+    private final double escalaTiempo;
+
+    private final LongAdder generadas = new LongAdder();
+    private final EnumMap<ResultadoIngreso, LongAdder> porResultado = new EnumMap<>(ResultadoIngreso.class);
+    private volatile long atrasoMaximoMs = 0;
+    private volatile boolean corriendo = true;
+
+    /**
+     * @param canal        canal que recibe las llamadas
+     * @param proceso      fuente de llegadas; el generador la cierra al terminar
+     * @param escalaTiempo factor de aceleración del reloj de la carga (1 = tiempo real)
+     */
+    public GeneradorCarga(CanalIngreso canal, ProcesoLlegadas proceso, double escalaTiempo) {
+        if (escalaTiempo <= 0) {
+            throw new IllegalArgumentException("Escala de tiempo inválida: " + escalaTiempo);
+        }
+        this.canal = canal;
+        this.proceso = proceso;
+        this.escalaTiempo = escalaTiempo;
+        for (ResultadoIngreso resultado : ResultadoIngreso.values()) {
+            porResultado.put(resultado, new LongAdder());
+        }
+    }
+
+    /**
+     * Crea el generador configurado por las propiedades del sistema:
+     * {@value #PROPIEDAD_CARGA} es "poisson" o la ruta de un CSV de llamadas,
+     * que se reproduce desde el instante {@value #PROPIEDAD_DESDE_MS} si se indica.
+     * El proceso de Poisson sigue el perfil urbano por hora salvo que
+     * {@value #PROPIEDAD_PERFIL} sea "constante".
+     *
+     * @return el generador, o null si no se configuró carga
+     * @throws IOException              si no se puede abrir la traza
+     * @throws IllegalArgumentException si una propiedad de carga no es válida
+     */
+    public static GeneradorCarga desdePropiedades(CanalIngreso canal, RegistroUbicaciones registro)
+            throws IOException {
+        String carga = System.getProperty(PROPIEDAD_CARGA);
+        if (carga == null || carga.isBlank()) {
+            return null;
+        }
+        long semilla = Long.getLong(PROPIEDAD_SEMILLA, 42L);
+        double escala = Double.parseDouble(System.getProperty(PROPIEDAD_ESCALA, "1.0"));
+
+        List<ProcesoLlegadas> procesos = new ArrayList<>();
+        try {
+            agregarProcesos(procesos, carga.trim(), registro, semilla);
+        } catch (IOException | RuntimeException e) {
+            // Una traza ya abierta no debe quedar mapeada si falla lo siguiente
+            for (ProcesoLlegadas abierto : procesos) {
+                try {
+                    abierto.close();
+                } catch (IOException cierre) {
+                    e.addSuppressed(cierre);
+                }
+            }
+            throw e;
+        }
+
+        ProcesoLlegadas proceso = procesos.size() == 1 ? procesos.get(0) : new MezclaLlegadas(procesos);
+        logger.info("Carga configurada: {} con {} ráfaga(s), escala x{}", carga, procesos.size() - 1, escala);
+        return new GeneradorCarga(canal, proceso, escala);
+    }
+
+    private static void agregarProcesos(List<ProcesoLlegadas> procesos, String carga, RegistroUbicaciones registro,
+            long semilla) throws IOException {
+        if (CARGA_POISSON.equalsIgnoreCase(carga)) {
+            double tasa = Double.parseDouble(System.getProperty(PROPIEDAD_TASA, "2.0"));
+            PerfilHorario perfil = PERFIL_CONSTANTE.equalsIgnoreCase(System.getProperty(PROPIEDAD_PERFIL, "").trim())
+                    ? null
+                    : PerfilHorario.urbano(Long.getLong(PROPIEDAD_MS_POR_HORA, 10_000L),
+                            Integer.getInteger(PROPIEDAD_HORA_INICIAL, 8));
+            procesos.add(new ProcesoPoisson(tasa, perfil, registro.size(), Long.MAX_VALUE, semilla));
+        } else {
+            LectorTrazaMapeada traza = new LectorTrazaMapeada(Path.of(carga), registro.size());
+            procesos.add(traza);
+            Long desdeMs = Long.getLong(PROPIEDAD_DESDE_MS);
+            if (desdeMs != null) {
+                traza.buscar(desdeMs);
+            }
+        }
+
+        String rafagas = System.getProperty(PROPIEDAD_RAFAGAS, "");
+        for (String especificacion : rafagas.split(";")) {
+            if (!especificacion.isBlank()) {
+                procesos.add(Rafaga.desdeTexto(especificacion, registro.size(), ++semilla));
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        Thread.currentThread().setName("Generador-Carga");
+        long inicioNs = System.nanoTime();
+
+        try (ProcesoLlegadas fuente = proceso) {
+            LlegadaProgramada llegada;
+            while (corriendo && (llegada = fuente.siguiente()) != null) {
+                long objetivoNs = inicioNs + (long) (llegada.getTiempoMs() * 1_000_000.0 / escalaTiempo);
+                long adelantoNs = objetivoNs - System.nanoTime();
+                if (adelantoNs > ESPERA_MINIMA_NS) {
+                    TimeUnit.NANOSECONDS.sleep(adelantoNs);
+                } else if (-adelantoNs / 1_000_000 > atrasoMaximoMs) {
+                    atrasoMaximoMs = -adelantoNs / 1_000_000;
+                }
+
+                ResultadoIngreso resultado = canal.recibir(llegada.crearCaso());
+                generadas.increment();
+                porResultado.get(resultado).increment();
+            }
+            logger.info("Generador de carga terminado: {} llamadas, atraso máximo {} ms",
+                    generadas.sum(), atrasoMaximoMs);
+        } catch (IOException e) {
+            logger.error("Error leyendo el proceso de llegadas", e);
+        } catch (RuntimeException e) {
+            // Corre en el pool: sin registrarlo, el error quedaría en el Future
+            logger.error("El generador de carga se detuvo tras {} llamadas", generadas.sum(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void stop() {
+        this.corriendo = false;
+    }
+
+    public long getGeneradas() {
+        return generadas.sum();
+    }
+
+    public long getPorResultado(ResultadoIngreso resultado) {
+        return porResultado.get(resultado).sum();
+    }
+
+    /**
+     * @return mayor atraso, en ms, entre el instante programado de una llamada y su entrega
+     */
+    public long getAtrasoMaximoMs() {
+        return atrasoMaximoMs;
+    }
+}
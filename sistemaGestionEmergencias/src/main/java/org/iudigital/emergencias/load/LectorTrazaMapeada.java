@@ -0,0 +1,327 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Lector de trazas de llamadas históricas sobre un archivo mapeado en
+ * memoria. El archivo se recorre por ventanas de {@link #TAMANO_VENTANA}
+ * bytes (un MappedByteBuffer no puede pasar de 2 GB), de modo que trazas de
+ * varios GB no ocupan heap. Los bytes pasan de la ventana a un bloque
+ * reutilizable de {@link #TAMANO_BLOQUE} con copias masivas, y cada
+ * registro se interpreta directamente sobre ese arreglo, en una sola
+ * pasada y sin crear {@code String} intermedios.
+ * Formato por línea: {@code tiempoMs,severidad,ubicacionId[,ambulancias,equipos]},
+ * con tiempoMs en orden no decreciente; se ignoran las líneas vacías, las
+ * que empiezan con '#' y una cabecera antes del primer registro.
+ * {@link #buscar(long)} posiciona el lector en un instante de la traza por
+ * búsqueda binaria sobre el archivo.
+ */
+public class LectorTrazaMapeada implements ProcesoLlegadas {
+
+    public static final long TAMANO_VENTANA = 64L << 20;
+    public static final int TAMANO_BLOQUE = 1 << 20;
+
+    private static final Severity[] SEVERIDADES = Severity.values();
+    private static final byte[][] NOMBRES_SEVERIDAD = new byte[SEVERIDADES.length][];
+
+    static {
+        for (int i = 0; i < SEVERIDADES.length; i++) {
+            NOMBRES_SEVERIDAD[i] = SEVERIDADES[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final Path archivo;
+    private final FileChannel canal;
+    private final long tamano;
+    private final int numUbicaciones;
+
+    private MappedByteBuffer ventana;
+    private long inicioVentana = 0;
+    private long finVentana = 0;
+
+    // Copia de trabajo: bytes [inicioBloque, inicioBloque + largoBloque) del archivo
+    private final byte[] bloque = new byte[TAMANO_BLOQUE];
+    private long inicioBloque = 0;
+    private int largoBloque = 0;
+    private int ultimoSaltoBloque = -1;
+
+    // Siguiente byte por leer (offset absoluto) y campo actual dentro del bloque
+    private long posicion = 0;
+    private int cursor;
+    private long inicioLinea;
+    private boolean registrosLeidos = false;
+
+    // Instante de la traza que corresponde al inicio de la reproducción
+    private long desplazamientoMs = 0;
+    private long ultimoTiempo = Long.MIN_VALUE;
+
+    /**
+     * @param archivo        traza de llamadas
+     * @param numUbicaciones ubicaciones registradas; los ids deben ser menores
+     */
+    public LectorTrazaMapeada(Path archivo, int numUbicaciones) throws IOException {
+        this.archivo = archivo;
+        this.canal = FileChannel.open(archivo, StandardOpenOption.READ);
+        this.tamano = canal.size();
+        this.numUbicaciones = numUbicaciones;
+    }
+
+    @Override
+    public LlegadaProgramada siguiente() throws IOException {
+        while (posicion < tamano) {
+            if (!lineaCompletaEnBloque()) {
+                cargarBloque(posicion);
+            }
+            inicioLinea = posicion;
+            cursor = (int) (posicion - inicioBloque);
+            saltarEspacios();
+            if (finDeLinea() || bloque[cursor] == '#') {
+                saltarLinea();
+                continue;
+            }
+            if (!esDigito(bloque[cursor])) {
+                if (!registrosLeidos) {
+                    saltarLinea();
+                    continue;
+                }
+                throw error("registro inválido");
+            }
+            return leerRegistro();
+        }
+        return null;
+    }
+
+    /**
+     * Posiciona el lector en el primer registro con tiempo mayor o igual al
+     * indicado. Los tiempos de las llegadas siguientes quedan relativos a ese
+     * instante, así la reproducción comienza de inmediato.
+     *
+     * @param tiempoMs instante de la traza, en ms
+     */
+    public void buscar(long tiempoMs) throws IOException {
+        long bajo = 0;
+        long alto = tamano;
+        while (bajo < alto) {
+            long medio = (bajo + alto) >>> 1;
+            long inicio = inicioDeLineaDesde(medio);
+            if (inicio < tamano && tiempoEn(inicio) < tiempoMs) {
+                bajo = inicio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        posicion = inicioDeLineaDesde(bajo);
+        largoBloque = 0;
+        registrosLeidos = true;
+        desplazamientoMs = tiempoMs;
+        ultimoTiempo = tiempoMs;
+    }
+
+    /**
+     * Interpreta el registro que empieza en el cursor y deja el cursor al
+     * inicio de la línea siguiente.
+     */
+    private LlegadaProgramada leerRegistro() throws IOException {
+        long tiempoMs = leerEntero();
+        Severity severidad = leerSeveridad();
+        int ubicacionId = (int) leerEntero();
+        int ambulancias = 0;
+        int equipos = 0;
+        if (!finDeLinea()) {
+            ambulancias = (int) leerEntero();
+            equipos = (int) leerEntero();
+        }
+        if (!finDeLinea()) {
+            throw error("se esperaban 3 o 5 campos");
+        }
+        saltarLinea();
+        if (tiempoMs < ultimoTiempo) {
+            throw error("tiempo fuera de orden");
+        }
+        if (ubicacionId >= numUbicaciones) {
+            throw error("ubicación desconocida " + ubicacionId);
+        }
+        ultimoTiempo = tiempoMs;
+        registrosLeidos = true;
+        return new LlegadaProgramada(tiempoMs - desplazamientoMs, severidad, ubicacionId, ambulancias, equipos);
+    }
+
+    /**
+     * @return true si la línea que empieza en {@link #posicion} está completa
+     *         en el bloque (termina en '\n' o en el fin del archivo)
+     */
+    private boolean lineaCompletaEnBloque() {
+        if (posicion < inicioBloque || posicion >= inicioBloque + largoBloque) {
+            return false;
+        }
+        return inicioBloque + largoBloque == tamano || posicion - inicioBloque <= ultimoSaltoBloque;
+    }
+
+    /**
+     * Copia al bloque los bytes desde un offset, remapeando la ventana si no
+     * los contiene.
+     */
+    private void cargarBloque(long desde) throws IOException {
+        if (ventana == null || desde < inicioVentana || desde + TAMANO_BLOQUE > finVentana && finVentana < tamano) {
+            mapear(desde);
+        }
+        int largo = (int) Math.min(TAMANO_BLOQUE, finVentana - desde);
+        ventana.get((int) (desde - inicioVentana), bloque, 0, largo);
+        inicioBloque = desde;
+        largoBloque = largo;
+        ultimoSaltoBloque = largo - 1;
+        while (ultimoSaltoBloque >= 0 && bloque[ultimoSaltoBloque] != '\n') {
+            ultimoSaltoBloque--;
+        }
+        if (!lineaCompletaEnBloque()) {
+            throw error("línea más larga que el bloque de lectura");
+        }
+    }
+
+    private boolean finDeLinea() {
+        return cursor >= largoBloque || bloque[cursor] == '\n' || bloque[cursor] == '\r';
+    }
+
+    private void saltarLinea() {
+        while (cursor < largoBloque && bloque[cursor] != '\n') {
+            cursor++;
+        }
+        posicion = inicioBloque + cursor + 1;
+        cursor++;
+    }
+
+    private void mapear(long desde) throws IOException {
+        long largo = Math.min(TAMANO_VENTANA, tamano - desde);
+        ventana = canal.map(FileChannel.MapMode.READ_ONLY, desde, largo);
+        inicioVentana = desde;
+        finVentana = desde + largo;
+    }
+
+    private long leerEntero() throws IOException {
+        saltarEspacios();
+        long valor = 0;
+        int digitos = 0;
+        while (cursor < largoBloque) {
+            byte b = bloque[cursor];
+            if (!esDigito(b)) {
+                break;
+            }
+            valor = valor * 10 + (b - '0');
+            digitos++;
+            cursor++;
+        }
+        if (digitos == 0 || digitos > 18) {
+            throw error("número inválido");
+        }
+        saltarSeparador();
+        return valor;
+    }
+
+    private Severity leerSeveridad() throws IOException {
+        saltarEspacios();
+        int inicio = cursor;
+        while (!finDeLinea() && bloque[cursor] != ',' && bloque[cursor] != ' ') {
+            cursor++;
+        }
+        int largo = cursor - inicio;
+        for (int s = 0; s < NOMBRES_SEVERIDAD.length; s++) {
+            byte[] nombre = NOMBRES_SEVERIDAD[s];
+            if (nombre.length == largo && coincide(inicio, nombre)) {
+                saltarSeparador();
+                return SEVERIDADES[s];
+            }
+        }
+        throw error("severidad inválida");
+    }
+
+    private boolean coincide(int inicio, byte[] nombre) {
+        for (int i = 0; i < nombre.length; i++) {
+            // Comparación sin distinguir mayúsculas (solo letras ASCII)
+            if ((bloque[inicio + i] & 0xDF) != nombre[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void saltarEspacios() {
+        while (cursor < largoBloque && bloque[cursor] == ' ') {
+            cursor++;
+        }
+    }
+
+    private void saltarSeparador() throws IOException {
+        saltarEspacios();
+        if (!finDeLinea()) {
+            if (bloque[cursor] != ',') {
+                throw error("se esperaba ','");
+            }
+            cursor++;
+        }
+    }
+
+    /**
+     * Primer inicio de línea en o después de un offset (lectura byte a byte,
+     * solo para la búsqueda).
+     */
+    private long inicioDeLineaDesde(long offset) throws IOException {
+        if (offset == 0) {
+            return 0;
+        }
+        long p = offset - 1;
+        while (p < tamano && leerByte(p) != '\n') {
+            p++;
+        }
+        return Math.min(p + 1, tamano);
+    }
+
+    /**
+     * Tiempo del registro que empieza en un offset; las líneas sin datos
+     * cuentan como anteriores a cualquier instante.
+     */
+    private long tiempoEn(long inicio) throws IOException {
+        long valor = 0;
+        int digitos = 0;
+        for (long p = inicio; p < tamano; p++) {
+            byte b = leerByte(p);
+            if (esDigito(b)) {
+                valor = valor * 10 + (b - '0');
+                digitos++;
+            } else if (b != ' ' || digitos > 0) {
+                break;
+            }
+        }
+        return digitos == 0 ? Long.MIN_VALUE : valor;
+    }
+
+    private byte leerByte(long offset) throws IOException {
+        if (ventana == null || offset < inicioVentana || offset >= finVentana) {
+            mapear(offset);
+        }
+        return ventana.get((int) (offset - inicioVentana));
+    }
+
+    private static boolean esDigito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private IOException error(String detalle) {
+        return new IOException(archivo + " (byte " + inicioLinea + "): " + detalle);
+    }
+
+    public long getTamano() {
+        return tamano;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+}
@@ -0,0 +1,54 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+
+/**
+ * Llamada generada por un proceso de llegadas: instante relativo al inicio
+ * de la carga y datos del caso que la originará. Inmutable.
+ */
+public final class LlegadaProgramada {
+
+    private final long tiempoMs;
+    private final Severity severidad;
+    private final int ubicacionId;
+    private final int ambulancias;
+    private final int equipos;
+
+    public LlegadaProgramada(long tiempoMs, Severity severidad, int ubicacionId) {
+        this(tiempoMs, severidad, ubicacionId, 0, 0);
+    }
+
+    /**
+     * @param ambulancias ambulancias requeridas, o 0 para usar las de la severidad
+     * @param equipos     equipos requeridos (se ignora si ambulancias es 0)
+     */
+    public LlegadaProgramada(long tiempoMs, Severity severidad, int ubicacionId, int ambulancias, int equipos) {
+        this.tiempoMs = tiempoMs;
+        this.severidad = severidad;
+        this.ubicacionId = ubicacionId;
+        this.ambulancias = ambulancias;
+        this.equipos = equipos;
+    }
+
+    /**
+     * Crea el caso de emergencia; su hora de recepción es el momento de la llamada.
+     */
+    public CasoEmergencia crearCaso() {
+        return ambulancias > 0
+                ? new CasoEmergencia(severidad, ubicacionId, ambulancias, equipos)
+                : new CasoEmergencia(severidad, ubicacionId);
+    }
+
+    public long getTiempoMs() {
+        return tiempoMs;
+    }
+
+    public Severity getSeveridad() {
+        return severidad;
+    }
+
+    public int getUbicacionId() {
+        return ubicacionId;
+    }
+}
@@ -0,0 +1,74 @@
+package org.iudigital.emergencias.load;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Superpone varios procesos de llegadas en un solo flujo ordenado por
+ * tiempo (por ejemplo, la demanda de fondo más ráfagas). Mantiene la
+ * próxima llegada de cada proceso en un heap: O(log k) por llegada.
+ */
+public class MezclaLlegadas implements ProcesoLlegadas {
+
+    private static final class Cabeza {
+        final ProcesoLlegadas proceso;
+        LlegadaProgramada llegada;
+
+        Cabeza(ProcesoLlegadas proceso, LlegadaProgramada llegada) {
+            this.proceso = proceso;
+            this.llegada = llegada;
+        }
+    }
+
+    private final List<ProcesoLlegadas> procesos;
+    private final PriorityQueue<Cabeza> cabezas =
+            new PriorityQueue<>(Comparator.comparingLong((Cabeza c) -> c.llegada.getTiempoMs()));
+    private boolean iniciado = false;
+
+    public MezclaLlegadas(List<ProcesoLlegadas> procesos) {
+        this.procesos = List.copyOf(procesos);
+    }
+
+    @Override
+    public LlegadaProgramada siguiente() throws IOException {
+        if (!iniciado) {
+            for (ProcesoLlegadas proceso : procesos) {
+                LlegadaProgramada primera = proceso.siguiente();
+                if (primera != null) {
+                    cabezas.add(new Cabeza(proceso, primera));
+                }
+            }
+            iniciado = true;
+        }
+
+        Cabeza cabeza = cabezas.poll();
+        if (cabeza == null) {
+            return null;
+        }
+        LlegadaProgramada llegada = cabeza.llegada;
+        cabeza.llegada = cabeza.proceso.siguiente();
+        if (cabeza.llegada != null) {
+            cabezas.add(cabeza);
+        }
+        return llegada;
+    }
+
+    @Override
+    public void close() throws IOException {
+        IOException primerError = null;
+        for (ProcesoLlegadas proceso : procesos) {
+            try {
+                proceso.close();
+            } catch (IOException e) {
+                if (primerError == null) {
+                    primerError = e;
+                }
+            }
+        }
+        if (primerError != null) {
+            throw primerError;
+        }
+    }
+}
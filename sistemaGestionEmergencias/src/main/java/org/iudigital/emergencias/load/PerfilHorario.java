@@ -0,0 +1,75 @@
+package org.iudigital.emergencias.load;
+
+import java.util.Arrays;
+
+/**
+ * Variación de la tasa de llamadas a lo largo del día: un multiplicador por
+ * hora, interpolado linealmente entre horas. El día se comprime según
+ * {@code msPorHora} para recorrer horas pico en una simulación corta.
+ */
+public final class PerfilHorario {
+
+    // Perfil urbano típico: valle de madrugada, picos a media mañana y al final de la tarde
+    private static final double[] PERFIL_URBANO = {
+            0.45, 0.35, 0.30, 0.28, 0.30, 0.40, 0.60, 0.85,
+            1.00, 1.10, 1.15, 1.15, 1.20, 1.15, 1.10, 1.15,
+            1.30, 1.45, 1.50, 1.40, 1.20, 0.95, 0.75, 0.55
+    };
+
+    private final double[] multiplicadores;
+    private final long msPorHora;
+    private final long horaInicial;
+    private final double maximo;
+
+    /**
+     * @param multiplicadores 24 multiplicadores no negativos de la tasa base
+     * @param msPorHora       duración de una hora del perfil en tiempo de simulación
+     * @param horaInicial     hora del día en que comienza la carga (0-23)
+     */
+    public PerfilHorario(double[] multiplicadores, long msPorHora, int horaInicial) {
+        if (multiplicadores.length != 24 || msPorHora <= 0 || horaInicial < 0 || horaInicial > 23) {
+            throw new IllegalArgumentException("Perfil horario inválido");
+        }
+        double max = 0;
+        for (double m : multiplicadores) {
+            if (m < 0) {
+                throw new IllegalArgumentException("Multiplicador negativo: " + m);
+            }
+            max = Math.max(max, m);
+        }
+        this.multiplicadores = multiplicadores.clone();
+        this.msPorHora = msPorHora;
+        this.horaInicial = horaInicial;
+        this.maximo = max;
+    }
+
+    public static PerfilHorario urbano(long msPorHora, int horaInicial) {
+        return new PerfilHorario(PERFIL_URBANO, msPorHora, horaInicial);
+    }
+
+    /**
+     * Multiplicador de la tasa en un instante de la carga.
+     *
+     * @param tiempoMs ms desde el inicio de la carga
+     */
+    public double factor(long tiempoMs) {
+        double horas = horaInicial + (double) tiempoMs / msPorHora;
+        int hora = (int) horas;
+        double fraccion = horas - hora;
+        double actual = multiplicadores[hora % 24];
+        double siguiente = multiplicadores[(hora + 1) % 24];
+        return actual + (siguiente - actual) * fraccion;
+    }
+
+    /**
+     * @return cota superior de {@link #factor(long)}, usada para el adelgazamiento
+     */
+    public double maximo() {
+        return maximo;
+    }
+
+    @Override
+    public String toString() {
+        return "PerfilHorario" + Arrays.toString(multiplicadores) + " (" + msPorHora + " ms/h)";
+    }
+}
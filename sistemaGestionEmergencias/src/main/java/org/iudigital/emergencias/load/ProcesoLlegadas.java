@@ -0,0 +1,23 @@
+package org.iudigital.emergencias.load;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Fuente de llamadas para el generador de carga. Entrega las llegadas en
+ * orden no decreciente de tiempo; cada implementación decide cómo se
+ * distribuyen (proceso estocástico, ráfaga, traza histórica...).
+ * No es thread-safe: la consume un único generador.
+ */
+public interface ProcesoLlegadas extends Closeable {
+
+    /**
+     * @return la siguiente llegada, o null si el proceso terminó
+     * @throws IOException si falla la lectura de la fuente
+     */
+    LlegadaProgramada siguiente() throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,88 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+
+import java.util.SplittableRandom;
+
+/**
+ * Proceso de Poisson no homogéneo: tasa base modulada por un perfil
+ * horario. Genera candidatas con la tasa máxima y acepta cada una con
+ * probabilidad tasa(t) / tasaMáxima (adelgazamiento de Lewis-Shedler), lo
+ * que cuesta O(1) por llegada sin integrar la tasa. La severidad sigue la
+ * misma mezcla que los operadores y la ubicación es uniforme.
+ */
+public class ProcesoPoisson implements ProcesoLlegadas {
+
+    // Mezcla de severidades acumulada: CRITICO, GRAVE, MODERADO, LEVE
+    private static final double[] MEZCLA_PREDETERMINADA = { 0.2, 0.5, 0.8, 1.0 };
+    private static final double PROB_INCIDENTE_MULTIPLE = 0.1;
+
+    private static final Severity[] SEVERIDADES = Severity.values();
+
+    private final double tasaBasePorMs;
+    private final PerfilHorario perfil;
+    private final double tasaMaximaPorMs;
+    private final int numUbicaciones;
+    private final long duracionMs;
+    private final SplittableRandom random;
+
+    // Tiempo de la última candidata, en ms fraccionarios
+    private double tiempo;
+
+    /**
+     * @param tasaPorSegundo tasa base de llamadas por segundo
+     * @param perfil         perfil horario, o null para un proceso homogéneo
+     * @param numUbicaciones las llamadas se reparten en las ubicaciones [0, numUbicaciones)
+     * @param duracionMs     el proceso termina tras este tiempo, o Long.MAX_VALUE
+     * @param semilla        semilla del generador, para cargas reproducibles
+     */
+    public ProcesoPoisson(double tasaPorSegundo, PerfilHorario perfil, int numUbicaciones, long duracionMs,
+            long semilla) {
+        if (tasaPorSegundo <= 0 || numUbicaciones <= 0) {
+            throw new IllegalArgumentException("Parámetros de Poisson inválidos: tasa " + tasaPorSegundo
+                    + ", ubicaciones " + numUbicaciones);
+        }
+        this.tasaBasePorMs = tasaPorSegundo / 1000.0;
+        this.perfil = perfil;
+        this.tasaMaximaPorMs = tasaBasePorMs * (perfil != null ? perfil.maximo() : 1.0);
+        this.numUbicaciones = numUbicaciones;
+        this.duracionMs = duracionMs;
+        this.random = new SplittableRandom(semilla);
+    }
+
+    @Override
+    public LlegadaProgramada siguiente() {
+        if (tasaMaximaPorMs <= 0) {
+            return null;
+        }
+        while (true) {
+            tiempo += -Math.log(1.0 - random.nextDouble()) / tasaMaximaPorMs;
+            if (tiempo >= duracionMs) {
+                return null;
+            }
+            if (perfil == null
+                    || random.nextDouble() * tasaMaximaPorMs < tasaBasePorMs * perfil.factor((long) tiempo)) {
+                return crearLlegada((long) tiempo);
+            }
+        }
+    }
+
+    private LlegadaProgramada crearLlegada(long tiempoMs) {
+        Severity severidad = severidadAleatoria(random);
+        int ubicacionId = random.nextInt(numUbicaciones);
+        if (severidad == Severity.CRITICO && random.nextDouble() < PROB_INCIDENTE_MULTIPLE) {
+            return new LlegadaProgramada(tiempoMs, severidad, ubicacionId, 2, 1);
+        }
+        return new LlegadaProgramada(tiempoMs, severidad, ubicacionId);
+    }
+
+    static Severity severidadAleatoria(SplittableRandom random) {
+        double r = random.nextDouble();
+        for (int i = 0; i < MEZCLA_PREDETERMINADA.length; i++) {
+            if (r < MEZCLA_PREDETERMINADA[i]) {
+                return SEVERIDADES[i];
+            }
+        }
+        return Severity.LEVE;
+    }
+}
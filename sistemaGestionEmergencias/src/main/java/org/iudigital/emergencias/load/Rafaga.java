@@ -0,0 +1,73 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+
+import java.util.SplittableRandom;
+
+/**
+ * Ráfaga de llamadas por un incidente masivo: durante una ventana, llamadas
+ * de Poisson homogéneas desde una misma ubicación. La primera es CRITICO y
+ * las siguientes siguen la mezcla habitual, como ocurre cuando muchos
+ * testigos reportan el mismo evento con distinta gravedad percibida.
+ */
+public class Rafaga implements ProcesoLlegadas {
+
+    private final long finMs;
+    private final double tasaPorMs;
+    private final int ubicacionId;
+    private final SplittableRandom random;
+
+    private double tiempo;
+    private boolean primera = true;
+
+    /**
+     * @param inicioMs       inicio de la ráfaga desde el comienzo de la carga
+     * @param duracionMs     duración de la ráfaga
+     * @param tasaPorSegundo llamadas por segundo durante la ráfaga
+     * @param ubicacionId    ubicación del incidente
+     * @param semilla        semilla del generador
+     */
+    public Rafaga(long inicioMs, long duracionMs, double tasaPorSegundo, int ubicacionId, long semilla) {
+        if (inicioMs < 0 || duracionMs <= 0 || tasaPorSegundo <= 0) {
+            throw new IllegalArgumentException("Ráfaga inválida: inicio " + inicioMs + ", duración "
+                    + duracionMs + ", tasa " + tasaPorSegundo);
+        }
+        this.finMs = inicioMs + duracionMs;
+        this.tasaPorMs = tasaPorSegundo / 1000.0;
+        this.ubicacionId = ubicacionId;
+        this.random = new SplittableRandom(semilla);
+        this.tiempo = inicioMs;
+    }
+
+    /**
+     * Crea una ráfaga desde su especificación {@code inicioMs:duracionMs:tasa:ubicacionId}.
+     *
+     * @param numUbicaciones la ubicación debe estar en [0, numUbicaciones)
+     * @throws IllegalArgumentException si la especificación es inválida o la ubicación no existe
+     */
+    public static Rafaga desdeTexto(String especificacion, int numUbicaciones, long semilla) {
+        String[] partes = especificacion.trim().split(":");
+        if (partes.length != 4) {
+            throw new IllegalArgumentException("Ráfaga inválida (inicioMs:duracionMs:tasa:ubicacion): "
+                    + especificacion);
+        }
+        int ubicacionId = Integer.parseInt(partes[3].trim());
+        if (ubicacionId < 0 || ubicacionId >= numUbicaciones) {
+            throw new IllegalArgumentException("Ubicación de ráfaga fuera de rango [0, " + numUbicaciones + "): "
+                    + especificacion);
+        }
+        return new Rafaga(Long.parseLong(partes[0].trim()), Long.parseLong(partes[1].trim()),
+                Double.parseDouble(partes[2].trim()), ubicacionId, semilla);
+    }
+
+    @Override
+    public LlegadaProgramada siguiente() {
+        tiempo += -Math.log(1.0 - random.nextDouble()) / tasaPorMs;
+        if (tiempo >= finMs) {
+            return null;
+        }
+        Severity severidad = primera ? Severity.CRITICO : ProcesoPoisson.severidadAleatoria(random);
+        primera = false;
+        return new LlegadaProgramada((long) tiempo, severidad, ubicacionId);
+    }
+}
@@ -1,9 +1,40 @@
 package org.iudigital.emergencias.manager;
 
+import org.iudigital.emergencias.dispatch.IndiceDisponibles;
+import org.iudigital.emergencias.dispatch.PoliticaSla;
 import org.iudigital.emergencias.domain.Ambulancia;
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.geo.GrafoVial;
+import org.iudigital.emergencias.geo.MatrizDistancias;
+import org.iudigital.emergencias.geo.ModeloViaje;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.geo.RuteadorVial;
+import org.iudigital.emergencias.intake.CanalIngreso;
+import org.iudigital.emergencias.intake.CentroLlamadas;
+import org.iudigital.emergencias.intake.ControlAdmision;
+import org.iudigital.emergencias.intake.CorrelacionIncidentes;
+import org.iudigital.emergencias.intake.IngresoPorZonas;
+import org.iudigital.emergencias.intake.ResultadoIngreso;
+import org.iudigital.emergencias.load.GeneradorCarga;
+import org.iudigital.emergencias.load.ProcesoPoisson;
+import org.iudigital.emergencias.metrics.EstadisticaCerrojo;
+import org.iudigital.emergencias.metrics.EstadoFlota;
+import org.iudigital.emergencias.metrics.ExportadorPrometheus;
+import org.iudigital.emergencias.metrics.ExportadorTrazaChrome;
+import org.iudigital.emergencias.metrics.HistogramaLatencia;
+import org.iudigital.emergencias.metrics.InstantaneaSistema;
+import org.iudigital.emergencias.metrics.LatenciaDespacho;
+import org.iudigital.emergencias.metrics.MuestreadorTelemetria;
+import org.iudigital.emergencias.metrics.RegistroCerrojos;
+import org.iudigital.emergencias.metrics.SeguimientoSla;
+import org.iudigital.emergencias.metrics.TrazadorCasos;
 import org.iudigital.emergencias.observer.EventPublisher;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaAsincrona;
+import org.iudigital.emergencias.output.SalidaConsola;
+import org.iudigital.emergencias.output.SalidaNula;
+import org.iudigital.emergencias.util.TableroRecursos;
 import org.iudigital.emergencias.worker.Despachador;
 import org.iudigital.emergencias.worker.MonitorTiempoReal;
 import org.iudigital.emergencias.worker.MonitorVisual;
@@ -12,9 +43,15 @@ import org.iudigital.emergencias.worker.Stoppable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.net.InetAddress;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.concurrent.*;
 
 /**
@@ -35,12 +72,135 @@ public class SimulacionManager {
     private static final int DEFAULT_NUM_OPERADORES = 2;
     private static final int DEFAULT_DURACION_SEGUNDOS = 30;
 
+    // Red vial: ruta a un archivo local o "sintetica" para una cuadrícula generada
+    public static final String PROPIEDAD_RED_VIAL = "emergencias.redVial";
+    private static final String RED_VIAL_SINTETICA = "sintetica";
+    private static final int NODOS_POR_LADO_SINTETICA = 41;
+
+    // Modo de despacho: "individual" (por defecto) o "lote"
+    public static final String PROPIEDAD_MODO_DESPACHO = "emergencias.modoDespacho";
+
+    // Despacho particionado por zonas (por defecto) o con un único despachador,
+    // y número de particiones: entre 1 y el número de zonas, 0 para tantas
+    // como procesadores haya (sin pasar del número de zonas)
+    public static final String PROPIEDAD_DESPACHO_POR_ZONAS = "emergencias.despachoPorZonas";
+    public static final String PROPIEDAD_PARTICIONES = "emergencias.particiones";
+
+    // Desvío de ambulancias EN_RUTA hacia casos CRITICO y mejora mínima exigida
+    public static final String PROPIEDAD_DESVIO = "emergencias.desvio";
+    public static final String PROPIEDAD_UMBRAL_DESVIO_MS = "emergencias.umbralDesvioMs";
+    private static final long DEFAULT_UMBRAL_DESVIO_MS = 1000;
+
+    // Reserva anticipada de unidades que se liberan pronto
+    public static final String PROPIEDAD_ANTICIPACION = "emergencias.anticipacion";
+
+    // Orden de las colas: "prioridad" (puntaje ponderado, por defecto) o "plazo" (EDF)
+    public static final String PROPIEDAD_ORDEN_COLA = "emergencias.ordenCola";
+
+    // Fusión de llamadas repetidas por el mismo incidente y su ventana. Apagada
+    // por defecto: la clave es solo (ubicación, severidad), así que con la
+    // carga aleatoria llamadas independientes también se fusionarían
+    public static final String PROPIEDAD_CORRELACION = "emergencias.correlacion";
+    public static final String PROPIEDAD_VENTANA_CORRELACION_MS = "emergencias.ventanaCorrelacionMs";
+    private static final long DEFAULT_VENTANA_CORRELACION_MS = 15_000;
+
+    // Control de admisión: "diferir" (por defecto), "rechazar" o "ninguno"
+    // ("ninguna" también se acepta)
+    public static final String PROPIEDAD_ADMISION = "emergencias.admision";
+    public static final String PROPIEDAD_CAPACIDAD_INGRESO = "emergencias.capacidadIngreso";
+    public static final String PROPIEDAD_PACIENCIA_MS = "emergencias.pacienciaMs";
+    private static final List<String> SIN_ADMISION = List.of("ninguno", "ninguna");
+    private static final int DEFAULT_CAPACIDAD_INGRESO = 100;
+    private static final long DEFAULT_PACIENCIA_MS = 20_000;
+
+    // Central de llamadas: los operadores se modelan como capacidad con
+    // tiempo de atención y abandono, y las llamadas llegan por un proceso de llegadas
+    public static final String PROPIEDAD_CENTRO_LLAMADAS = "emergencias.centroLlamadas";
+    public static final String PROPIEDAD_ATENCION_MEDIA_MS = "emergencias.centro.atencionMediaMs";
+    public static final String PROPIEDAD_PACIENCIA_LLAMANTE_MS = "emergencias.centro.pacienciaMs";
+    private static final long DEFAULT_ATENCION_MEDIA_MS = 1200;
+    private static final long DEFAULT_PACIENCIA_LLAMANTE_MS = 8000;
+
+    // Salida de los mensajes de progreso: consola, nula (silenciosa) o asincrona
+    public static final String PROPIEDAD_SALIDA = "emergencias.salida";
+    private static final String SALIDA_NULA = "nula";
+    private static final String SALIDA_ASINCRONA = "asincrona";
+    // Tablero de recursos redibujado en su lugar en vez del panel periódico
+    public static final String PROPIEDAD_TABLERO = "emergencias.tablero";
+    public static final String PROPIEDAD_TABLERO_FPS = "emergencias.tablero.fps";
+    private static final int DEFAULT_TABLERO_FPS = 10;
+    // Intervalo del muestreador de telemetría que alimenta monitores y vistas
+    public static final String PROPIEDAD_TELEMETRIA_INTERVALO_MS = "emergencias.telemetria.intervaloMs";
+    private static final long DEFAULT_TELEMETRIA_INTERVALO_MS = 500;
+    // Puerto del endpoint de métricas Prometheus; sin definir no se expone
+    public static final String PROPIEDAD_METRICAS_PUERTO = "emergencias.metricas.puerto";
+    // Interfaz donde escucha el endpoint; sin definir, solo loopback
+    public static final String PROPIEDAD_METRICAS_DIRECCION = "emergencias.metricas.direccion";
+    // Traza por caso en formato Chrome: fracción de casos (0 = apagada), registros por hilo y archivo
+    public static final String PROPIEDAD_TRAZA_MUESTREO = "emergencias.traza.muestreo";
+    public static final String PROPIEDAD_TRAZA_CAPACIDAD = "emergencias.traza.capacidad";
+    public static final String PROPIEDAD_TRAZA_ARCHIVO = "emergencias.traza.archivo";
+    private static final int DEFAULT_TRAZA_CAPACIDAD = 8192;
+    private static final String DEFAULT_TRAZA_ARCHIVO = "traza-casos.json";
+    // Espera y tenencia de los cerrojos compartidos (colas de ingreso, casos completados)
+    public static final String PROPIEDAD_CERROJOS = "emergencias.cerrojos";
+    // Tasa de llamadas por operador cuando no se configura otra carga (como OperadorLlamadas)
+    private static final double LLAMADAS_POR_SEGUNDO_POR_OPERADOR = 0.8;
+
+    /**
+     * Criterio con que las colas de ingreso entregan los casos.
+     */
+    public enum OrdenCola {
+        /** Puntaje ponderado por severidad y antigüedad (orden natural). */
+        PRIORIDAD,
+        /** Plazo de respuesta más próximo primero. */
+        PLAZO
+    }
+
     // Recursos del sistema
-    private final BlockingQueue<CasoEmergencia> colaCasosEmergencia;
+    private IngresoPorZonas ingreso;
+    private CorrelacionIncidentes correlacion;
+    private ControlAdmision admision;
+    private GeneradorCarga generadorCarga;
+    private CentroLlamadas centroLlamadas;
     private final List<Ambulancia> ambulancias;
     private final List<EquipoMedico> equiposMedicos;
     private final List<CasoEmergencia> casosCompletados;
 
+    // Geografía: registro de ubicaciones y modelo de tiempos de viaje
+    private final RegistroUbicaciones registroUbicaciones;
+    private ModeloViaje modeloViaje;
+    private Despachador.ModoDespacho modoDespacho;
+    private boolean despachoPorZonas;
+    private int particiones;
+    private boolean desvioHabilitado;
+    private long umbralDesvioMs;
+    private boolean anticipacionHabilitada;
+    private OrdenCola ordenCola;
+    private boolean correlacionHabilitada;
+    private long ventanaCorrelacionMs;
+    private ControlAdmision.ModoAdmision modoAdmision;
+    private int capacidadIngreso;
+    private long pacienciaMs;
+    private boolean centroLlamadasHabilitado;
+    private Salida salida;
+    private boolean tableroHabilitado;
+    private int cuadrosPorSegundoTablero;
+    private long intervaloTelemetriaMs;
+    private volatile MuestreadorTelemetria telemetria;
+    private EstadoFlota estadoFlota;
+    private Integer puertoMetricas;
+    private String direccionMetricas;
+    private ExportadorPrometheus exportadorMetricas;
+    private double muestreoTraza;
+    private int capacidadTraza;
+    private String archivoTraza;
+    private final List<Despachador> despachadores;
+
+    // Cumplimiento de plazos de respuesta por severidad y latencia de despacho
+    private SeguimientoSla seguimientoSla;
+    private LatenciaDespacho latenciaDespacho;
+
     // Workers y executor service
     private final List<Stoppable> todosLosComponentes;
     private ExecutorService executorService;
@@ -55,15 +215,162 @@ public class SimulacionManager {
      * Inicializa todas las estructuras de datos.
      */
     private SimulacionManager() {
-        this.colaCasosEmergencia = new PriorityBlockingQueue<>();
         this.ambulancias = Collections.synchronizedList(new ArrayList<>());
         this.equiposMedicos = Collections.synchronizedList(new ArrayList<>());
         this.casosCompletados = Collections.synchronizedList(new ArrayList<>());
         this.todosLosComponentes = Collections.synchronizedList(new ArrayList<>());
+        this.despachadores = Collections.synchronizedList(new ArrayList<>());
+        this.registroUbicaciones = RegistroUbicaciones.getInstance();
+        this.modeloViaje = crearModeloViaje();
+        this.modoDespacho = leerEnum(PROPIEDAD_MODO_DESPACHO, Despachador.ModoDespacho.class,
+                Despachador.ModoDespacho.INDIVIDUAL);
+        this.despachoPorZonas = Boolean.parseBoolean(System.getProperty(PROPIEDAD_DESPACHO_POR_ZONAS, "true"));
+        this.particiones = Integer.getInteger(PROPIEDAD_PARTICIONES, 0);
+        if (particiones < 0 || particiones > registroUbicaciones.getNumZonas()) {
+            logger.warn("Valor inválido para {}: {}, se usa 0 (según procesadores)", PROPIEDAD_PARTICIONES,
+                    particiones);
+            this.particiones = 0;
+        }
+        this.ordenCola = leerEnum(PROPIEDAD_ORDEN_COLA, OrdenCola.class, OrdenCola.PRIORIDAD);
+        RegistroCerrojos.getInstance().setHabilitado(
+                Boolean.parseBoolean(System.getProperty(PROPIEDAD_CERROJOS, "false")));
+        this.ingreso = crearIngreso();
+        this.seguimientoSla = new SeguimientoSla();
+        this.latenciaDespacho = new LatenciaDespacho();
+        this.desvioHabilitado = Boolean.parseBoolean(System.getProperty(PROPIEDAD_DESVIO, "true"));
+        this.umbralDesvioMs = Long.getLong(PROPIEDAD_UMBRAL_DESVIO_MS, DEFAULT_UMBRAL_DESVIO_MS);
+        this.anticipacionHabilitada = Boolean.parseBoolean(System.getProperty(PROPIEDAD_ANTICIPACION, "true"));
+        this.correlacionHabilitada = Boolean.parseBoolean(System.getProperty(PROPIEDAD_CORRELACION, "false"));
+        this.ventanaCorrelacionMs = Long.getLong(PROPIEDAD_VENTANA_CORRELACION_MS, DEFAULT_VENTANA_CORRELACION_MS);
+        this.modoAdmision = SIN_ADMISION.contains(
+                System.getProperty(PROPIEDAD_ADMISION, "").trim().toLowerCase(Locale.ROOT))
+                ? null
+                : leerEnum(PROPIEDAD_ADMISION, ControlAdmision.ModoAdmision.class,
+                        ControlAdmision.ModoAdmision.DIFERIR);
+        this.capacidadIngreso = Integer.getInteger(PROPIEDAD_CAPACIDAD_INGRESO, DEFAULT_CAPACIDAD_INGRESO);
+        this.pacienciaMs = Long.getLong(PROPIEDAD_PACIENCIA_MS, DEFAULT_PACIENCIA_MS);
+        this.centroLlamadasHabilitado = Boolean.parseBoolean(System.getProperty(PROPIEDAD_CENTRO_LLAMADAS, "false"));
+        this.salida = crearSalida(System.getProperty(PROPIEDAD_SALIDA, "consola").trim());
+        this.tableroHabilitado = Boolean.parseBoolean(System.getProperty(PROPIEDAD_TABLERO, "false"));
+        this.cuadrosPorSegundoTablero = Integer.getInteger(PROPIEDAD_TABLERO_FPS, DEFAULT_TABLERO_FPS);
+        this.intervaloTelemetriaMs = Long.getLong(PROPIEDAD_TELEMETRIA_INTERVALO_MS, DEFAULT_TELEMETRIA_INTERVALO_MS);
+        this.puertoMetricas = Integer.getInteger(PROPIEDAD_METRICAS_PUERTO);
+        this.direccionMetricas = System.getProperty(PROPIEDAD_METRICAS_DIRECCION);
+        this.muestreoTraza = leerFraccion(PROPIEDAD_TRAZA_MUESTREO, 0);
+        this.capacidadTraza = Integer.getInteger(PROPIEDAD_TRAZA_CAPACIDAD, DEFAULT_TRAZA_CAPACIDAD);
+        if (capacidadTraza < 1) {
+            logger.warn("Valor inválido para {}: {}, se usa {}", PROPIEDAD_TRAZA_CAPACIDAD, capacidadTraza,
+                    DEFAULT_TRAZA_CAPACIDAD);
+            this.capacidadTraza = DEFAULT_TRAZA_CAPACIDAD;
+        }
+        this.archivoTraza = System.getProperty(PROPIEDAD_TRAZA_ARCHIVO, DEFAULT_TRAZA_ARCHIVO);
 
         logger.info("SimulacionManager inicializado");
     }
 
+    /**
+     * Crea el modelo de viaje según la propiedad {@value #PROPIEDAD_RED_VIAL}:
+     * sin definir usa la matriz de distancias en línea recta; con una ruta
+     * carga la red vial desde ese archivo; con "sintetica" genera una cuadrícula.
+     */
+    private ModeloViaje crearModeloViaje() {
+        String redVial = System.getProperty(PROPIEDAD_RED_VIAL);
+        if (redVial == null || redVial.isBlank()) {
+            return MatrizDistancias.getPredeterminada();
+        }
+
+        try {
+            GrafoVial grafo = RED_VIAL_SINTETICA.equalsIgnoreCase(redVial)
+                    ? GrafoVial.generarCuadricula(NODOS_POR_LADO_SINTETICA, RegistroUbicaciones.LADO_CIUDAD_KM, 7L)
+                    : GrafoVial.cargar(Path.of(redVial));
+            return new RuteadorVial(grafo, registroUbicaciones);
+        } catch (IOException e) {
+            logger.error("No se pudo cargar la red vial '{}', se usará distancia en línea recta", redVial, e);
+            return MatrizDistancias.getPredeterminada();
+        }
+    }
+
+    /**
+     * Lee una propiedad con el nombre de una constante del enum, sin
+     * distinguir mayúsculas. Un valor desconocido se avisa y se reemplaza
+     * por el predeterminado en lugar de impedir que arranque la simulación.
+     */
+    private static <E extends Enum<E>> E leerEnum(String propiedad, Class<E> tipo, E porDefecto) {
+        String valor = System.getProperty(propiedad);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            return Enum.valueOf(tipo, valor.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            logger.warn("Valor inválido para {}: '{}', se usa {}", propiedad, valor,
+                    porDefecto.name().toLowerCase(Locale.ROOT));
+            return porDefecto;
+        }
+    }
+
+    /**
+     * Lee una propiedad con una fracción entre 0 y 1. Un valor que no es un
+     * número o está fuera de rango se avisa y se reemplaza por el
+     * predeterminado, como en {@link #leerEnum}.
+     */
+    private static double leerFraccion(String propiedad, double porDefecto) {
+        String valor = System.getProperty(propiedad);
+        if (valor == null || valor.isBlank()) {
+            return porDefecto;
+        }
+        try {
+            double fraccion = Double.parseDouble(valor.trim());
+            if (fraccion >= 0 && fraccion <= 1) {
+                return fraccion;
+            }
+        } catch (NumberFormatException e) {
+            // Se avisa abajo, igual que un valor fuera de rango
+        }
+        logger.warn("Valor inválido para {}: '{}', se usa {}", propiedad, valor, porDefecto);
+        return porDefecto;
+    }
+
+    /**
+     * Crea la salida de mensajes según {@value #PROPIEDAD_SALIDA}: "nula"
+     * descarta todo, "asincrona" escribe en consola desde un hilo propio y
+     * cualquier otro valor escribe directo en consola.
+     */
+    private static Salida crearSalida(String tipo) {
+        if (SALIDA_NULA.equalsIgnoreCase(tipo)) {
+            return SalidaNula.getInstance();
+        }
+        if (SALIDA_ASINCRONA.equalsIgnoreCase(tipo)) {
+            return new SalidaAsincrona(System.out, SalidaAsincrona.CAPACIDAD_PREDETERMINADA);
+        }
+        return SalidaConsola.getInstance();
+    }
+
+    /**
+     * Crea el canal de ingreso: una cola por partición de zonas o una cola
+     * única, ordenada según {@link #ordenCola}. Los plazos se leen de las
+     * propiedades {@code emergencias.sla.*}.
+     */
+    private IngresoPorZonas crearIngreso() {
+        return new IngresoPorZonas(numParticiones(), registroUbicaciones,
+                PoliticaSla.desdePropiedades(), ordenCola == OrdenCola.PLAZO ? CasoEmergencia.POR_PLAZO : null);
+    }
+
+    /**
+     * Particiones del despacho: una sin despacho por zonas, las configuradas
+     * o, en automático, una por procesador hasta el número de zonas (más
+     * despachadores que núcleos solo se turnan la CPU).
+     */
+    private int numParticiones() {
+        if (!despachoPorZonas) {
+            return 1;
+        }
+        if (particiones > 0) {
+            return particiones;
+        }
+        return Math.min(registroUbicaciones.getNumZonas(), Runtime.getRuntime().availableProcessors());
+    }
+
     /**
      * Obtiene la instancia única del SimulacionManager.
      * Implementa double-checked locking para thread-safety y rendimiento.
@@ -99,6 +406,174 @@ public class SimulacionManager {
         logger.debug("EventPublisher configurado");
     }
 
+    /**
+     * Establece el modelo de tiempos de viaje usado por los recursos.
+     * Debe configurarse antes de inicializar la simulación.
+     *
+     * @param modeloViaje el modelo de viaje
+     */
+    public void setModeloViaje(ModeloViaje modeloViaje) {
+        this.modeloViaje = modeloViaje;
+        logger.debug("ModeloViaje configurado: {}", modeloViaje.getClass().getSimpleName());
+    }
+
+    /**
+     * Establece la estrategia del despachador. Debe configurarse antes de
+     * inicializar la simulación.
+     *
+     * @param modoDespacho INDIVIDUAL o LOTE
+     */
+    public void setModoDespacho(Despachador.ModoDespacho modoDespacho) {
+        this.modoDespacho = modoDespacho;
+        logger.debug("Modo de despacho configurado: {}", modoDespacho);
+    }
+
+    /**
+     * Activa o desactiva el despacho particionado por zonas. Debe
+     * configurarse antes de inicializar la simulación.
+     *
+     * @param despachoPorZonas true para un despachador por zona
+     */
+    public void setDespachoPorZonas(boolean despachoPorZonas) {
+        if (simulacionActiva) {
+            logger.warn("No se puede cambiar el particionado con la simulación activa");
+            return;
+        }
+        this.despachoPorZonas = despachoPorZonas;
+        this.ingreso = crearIngreso();
+        logger.debug("Despacho por zonas: {}", despachoPorZonas);
+    }
+
+    /**
+     * Fija el número de particiones del despacho por zonas. Debe
+     * configurarse antes de inicializar la simulación.
+     *
+     * @param particiones entre 1 y el número de zonas, o 0 para una por procesador
+     */
+    public void setParticiones(int particiones) {
+        if (simulacionActiva) {
+            logger.warn("No se puede cambiar el particionado con la simulación activa");
+            return;
+        }
+        if (particiones < 0 || particiones > registroUbicaciones.getNumZonas()) {
+            throw new IllegalArgumentException("Particiones inválidas: " + particiones
+                    + " (zonas: " + registroUbicaciones.getNumZonas() + ")");
+        }
+        this.particiones = particiones;
+        this.ingreso = crearIngreso();
+        logger.debug("Particiones de despacho: {}", numParticiones());
+    }
+
+    /**
+     * Configura la fusión de llamadas repetidas por el mismo incidente. Debe
+     * configurarse antes de inicializar la simulación. Toda llamada con la
+     * misma ubicación y severidad que un caso abierto dentro de la ventana se
+     * fusiona, aunque sea independiente; el resumen informa cuántas fueron.
+     *
+     * @param habilitada true para fusionar llamadas
+     * @param ventanaMs  antigüedad máxima del caso con el que se fusiona, en ms
+     */
+    public void setCorrelacion(boolean habilitada, long ventanaMs) {
+        this.correlacionHabilitada = habilitada;
+        this.ventanaCorrelacionMs = ventanaMs;
+        logger.debug("Correlación de llamadas: {} (ventana {} ms)", habilitada, ventanaMs);
+    }
+
+    /**
+     * Configura el control de admisión. Debe configurarse antes de
+     * inicializar la simulación.
+     *
+     * @param modo        RECHAZAR o DIFERIR los casos LEVE en saturación, o null para no acotar el ingreso
+     * @param capacidad   máximo de casos pendientes no críticos
+     * @param pacienciaMs espera máxima de un llamante diferido, en ms
+     */
+    public void setAdmision(ControlAdmision.ModoAdmision modo, int capacidad, long pacienciaMs) {
+        this.modoAdmision = modo;
+        this.capacidadIngreso = capacidad;
+        this.pacienciaMs = pacienciaMs;
+        logger.debug("Control de admisión: {} (capacidad {}, paciencia {} ms)", modo, capacidad, pacienciaMs);
+    }
+
+    /**
+     * Activa el modelo de central de llamadas en lugar de los hilos de
+     * operador. Debe configurarse antes de inicializar la simulación.
+     *
+     * @param habilitado true para modelar la central
+     */
+    public void setCentroLlamadas(boolean habilitado) {
+        this.centroLlamadasHabilitado = habilitado;
+        logger.debug("Central de llamadas: {}", habilitado);
+    }
+
+    /**
+     * Establece la salida de los mensajes de progreso de todos los
+     * componentes. Debe configurarse antes de inicializar la simulación; el
+     * resumen final siempre se escribe en consola.
+     *
+     * @param salida consola, nula o asincrónica
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
+        logger.debug("Salida de mensajes: {}", salida.getClass().getSimpleName());
+    }
+
+    /**
+     * Activa el tablero de recursos, que se redibuja en su lugar a la
+     * frecuencia indicada enviando solo las celdas que cambiaron. Debe
+     * configurarse antes de inicializar la simulación.
+     *
+     * @param habilitado        true para usar el tablero en vez del panel periódico
+     * @param cuadrosPorSegundo frecuencia de redibujado
+     */
+    public void setTablero(boolean habilitado, int cuadrosPorSegundo) {
+        if (cuadrosPorSegundo < 1) {
+            throw new IllegalArgumentException("Cuadros por segundo inválidos: " + cuadrosPorSegundo);
+        }
+        this.tableroHabilitado = habilitado;
+        this.cuadrosPorSegundoTablero = cuadrosPorSegundo;
+        logger.debug("Tablero de recursos: {} ({} cuadros/s)", habilitado, cuadrosPorSegundo);
+    }
+
+    /**
+     * Establece el orden de servicio de las colas de ingreso. Debe
+     * configurarse antes de inicializar la simulación.
+     *
+     * @param ordenCola PRIORIDAD o PLAZO
+     */
+    public void setOrdenCola(OrdenCola ordenCola) {
+        if (simulacionActiva) {
+            logger.warn("No se puede cambiar el orden de las colas con la simulación activa");
+            return;
+        }
+        this.ordenCola = ordenCola;
+        this.ingreso = crearIngreso();
+        logger.debug("Orden de las colas: {}", ordenCola);
+    }
+
+    /**
+     * Configura el desvío de ambulancias EN_RUTA hacia casos CRITICO. Debe
+     * configurarse antes de inicializar la simulación.
+     *
+     * @param habilitado true para permitir desvíos
+     * @param umbralMs   mejora mínima en el tiempo de llegada, en ms
+     */
+    public void setDesvio(boolean habilitado, long umbralMs) {
+        this.desvioHabilitado = habilitado;
+        this.umbralDesvioMs = umbralMs;
+        logger.debug("Desvío a CRITICO: {} (umbral {} ms)", habilitado, umbralMs);
+    }
+
+    /**
+     * Activa o desactiva la reserva anticipada de unidades que se liberan
+     * pronto. Debe configurarse antes de inicializar la simulación.
+     *
+     * @param habilitada true para permitir reservas
+     */
+    public void setAnticipacion(boolean habilitada) {
+        this.anticipacionHabilitada = habilitada;
+        logger.debug("Reserva anticipada: {}", habilitada);
+    }
+
     /**
      * Inicializa la simulación con parámetros personalizados.
      * 
@@ -117,17 +592,38 @@ public class SimulacionManager {
         logger.info("Inicializando simulación: {} ambulancias, {} equipos médicos, {} operadores",
                 numAmbulancias, numEquiposMedicos, numOperadores);
 
-        // Crear thread pool (+3 para despachador, monitor tiempo real y monitor visual)
-        int totalThreads = numAmbulancias + numEquiposMedicos + numOperadores + 3;
+        // Traza nueva (o apagada) antes de que algún hilo registre; va antes
+        // del pool para que un error de configuración no deje hilos vivos
+        TrazadorCasos.getInstance().configurar(muestreoTraza, capacidadTraza);
+        RegistroCerrojos.getInstance().reiniciar();
+
+        // Crear thread pool (+6 para monitores, telemetría, métricas, control de admisión y generador
+        // de carga, +1 por despachador)
+        int totalThreads = numAmbulancias + numEquiposMedicos + numOperadores + 6 + ingreso.getNumParticiones();
         executorService = Executors.newFixedThreadPool(totalThreads);
 
-        // Inicializar recursos
-        inicializarAmbulancias(numAmbulancias);
-        inicializarEquiposMedicos(numEquiposMedicos);
-        inicializarOperadores(numOperadores);
-        inicializarDespachador();
-        inicializarMonitor();
-        inicializarMonitorVisual();
+        // Estado compartido de la flota, que cada unidad mantiene al día
+        estadoFlota = new EstadoFlota(numAmbulancias, numEquiposMedicos);
+
+        // Inicializar recursos; si falla a medias (p. ej. sin hilos nativos
+        // disponibles) se detiene lo ya lanzado antes de propagar el error
+        try {
+            inicializarAmbulancias(numAmbulancias);
+            inicializarEquiposMedicos(numEquiposMedicos);
+            inicializarOperadores(numOperadores);
+            inicializarDespachadores();
+            inicializarTelemetria();
+            inicializarMetricas();
+            inicializarMonitor();
+            inicializarMonitorVisual();
+        } catch (RuntimeException | Error e) {
+            logger.error("Falló la inicialización de la simulación, deteniendo los componentes lanzados", e);
+            for (Stoppable componente : todosLosComponentes) {
+                componente.stop();
+            }
+            executorService.shutdownNow();
+            throw e;
+        }
 
         // Programar apagado automático
         shutdownExecutor = Executors.newSingleThreadScheduledExecutor();
@@ -144,75 +640,273 @@ public class SimulacionManager {
      * Inicializa las ambulancias y las agrega al pool de recursos.
      */
     private void inicializarAmbulancias(int cantidad) {
+        int[] bases = registroUbicaciones.getBases();
         for (int i = 1; i <= cantidad; i++) {
-            Ambulancia ambulancia = new Ambulancia(100 + i, casosCompletados);
+            Ambulancia ambulancia = new Ambulancia(100 + i, casosCompletados,
+                    bases[(i - 1) % bases.length], modeloViaje);
+            ambulancia.agregarListener(seguimientoSla);
+            ambulancia.agregarListener(latenciaDespacho);
+            ambulancia.setSalida(salidaComponentes());
+            estadoFlota.registrar(ambulancia);
             ambulancias.add(ambulancia);
             executorService.submit(ambulancia);
             todosLosComponentes.add(ambulancia);
         }
         logger.info("{} ambulancias lanzadas y disponibles", cantidad);
-        System.out.println("🚑 " + cantidad + " Ambulancias lanzadas y disponibles.");
+        salida.linea("🚑 " + cantidad + " Ambulancias lanzadas y disponibles.");
     }
 
     /**
      * Inicializa los equipos médicos especializados.
      */
     private void inicializarEquiposMedicos(int cantidad) {
+        int[] hospitales = registroUbicaciones.getHospitales();
         for (int i = 1; i <= cantidad; i++) {
-            EquipoMedico equipo = new EquipoMedico(200 + i);
+            EquipoMedico equipo = new EquipoMedico(200 + i, hospitales[(i - 1) % hospitales.length], modeloViaje);
+            equipo.setSalida(salidaComponentes());
+            estadoFlota.registrar(equipo);
             equiposMedicos.add(equipo);
             executorService.submit(equipo);
             todosLosComponentes.add(equipo);
         }
         logger.info("{} equipos médicos especializados en línea", cantidad);
-        System.out.println("⚕️ " + cantidad + " Equipos Médicos especializados en línea.");
+        salida.linea("⚕️ " + cantidad + " Equipos Médicos especializados en línea.");
     }
 
     /**
-     * Inicializa los operadores de llamadas.
+     * Inicializa los operadores de llamadas. Las llamadas pasan, si están
+     * habilitadas, por la fusión de incidentes y luego por el control de
+     * admisión antes de llegar a las colas. Con la central de llamadas, los
+     * operadores son su capacidad y las llamadas provienen del generador.
      */
     private void inicializarOperadores(int cantidad) {
+        CanalIngreso canal = ingreso;
+        admision = null;
+        if (modoAdmision != null) {
+            admision = new ControlAdmision(canal, modoAdmision, capacidadIngreso, pacienciaMs);
+            executorService.submit(admision);
+            todosLosComponentes.add(admision);
+            canal = admision;
+        }
+        correlacion = correlacionHabilitada ? new CorrelacionIncidentes(canal, ventanaCorrelacionMs) : null;
+        if (correlacion != null) {
+            canal = correlacion;
+        }
+        if (centroLlamadasHabilitado) {
+            inicializarCentroLlamadas(canal, cantidad);
+            return;
+        }
+        centroLlamadas = null;
         for (int i = 1; i <= cantidad; i++) {
-            OperadorLlamadas operador = new OperadorLlamadas(colaCasosEmergencia, "OP-" + i);
+            OperadorLlamadas operador = new OperadorLlamadas(canal, "OP-" + i);
+            operador.setSalida(salidaComponentes());
             executorService.submit(operador);
             todosLosComponentes.add(operador);
         }
         logger.info("{} operadores listos para recibir llamadas", cantidad);
-        System.out.println("📞 " + cantidad + " Operadores listos para recibir llamadas.");
+        salida.linea("📞 " + cantidad + " Operadores listos para recibir llamadas.");
+
+        inicializarGeneradorCarga(canal);
+    }
+
+    /**
+     * Crea la central de llamadas con un operador por cada uno pedido. Si no
+     * se configuró otra carga, las llamadas llegan por un proceso de Poisson
+     * con la tasa que generarían los hilos de operador.
+     */
+    private void inicializarCentroLlamadas(CanalIngreso canal, int operadores) {
+        centroLlamadas = new CentroLlamadas(canal, operadores,
+                Long.getLong(PROPIEDAD_ATENCION_MEDIA_MS, DEFAULT_ATENCION_MEDIA_MS),
+                Long.getLong(PROPIEDAD_PACIENCIA_LLAMANTE_MS, DEFAULT_PACIENCIA_LLAMANTE_MS),
+                Long.getLong(GeneradorCarga.PROPIEDAD_SEMILLA, 42L));
+        todosLosComponentes.add(centroLlamadas);
+        logger.info("Central de llamadas con {} operadores", operadores);
+        salida.linea("📞 Central de llamadas con " + operadores + " operadores en línea.");
+
+        inicializarGeneradorCarga(centroLlamadas);
+        if (generadorCarga == null) {
+            generadorCarga = new GeneradorCarga(centroLlamadas,
+                    new ProcesoPoisson(operadores * LLAMADAS_POR_SEGUNDO_POR_OPERADOR, null,
+                            registroUbicaciones.size(), Long.MAX_VALUE,
+                            Long.getLong(GeneradorCarga.PROPIEDAD_SEMILLA, 42L)),
+                    1.0);
+            executorService.submit(generadorCarga);
+            todosLosComponentes.add(generadorCarga);
+        }
+    }
+
+    /**
+     * Lanza el generador de carga si se configuró con
+     * {@value GeneradorCarga#PROPIEDAD_CARGA}; sus llamadas siguen el mismo
+     * camino que las de los operadores.
+     */
+    private void inicializarGeneradorCarga(CanalIngreso canal) {
+        try {
+            generadorCarga = GeneradorCarga.desdePropiedades(canal, registroUbicaciones);
+        } catch (IOException e) {
+            logger.error("No se pudo abrir la traza de carga, se continúa sin generador", e);
+            generadorCarga = null;
+        } catch (IllegalArgumentException e) {
+            logger.error("Configuración de carga inválida, se continúa sin generador: {}", e.getMessage());
+            generadorCarga = null;
+        }
+        if (generadorCarga != null) {
+            executorService.submit(generadorCarga);
+            todosLosComponentes.add(generadorCarga);
+            salida.linea("📈 Generador de carga activo.");
+        }
     }
 
     /**
-     * Inicializa el despachador de recursos.
+     * Inicializa un despachador por partición del canal de ingreso. Cada uno
+     * indexa solo los recursos con base en sus zonas y consulta los índices
+     * de las demás particiones, de la más cercana a la más lejana, cuando se
+     * queda sin recursos libres.
      */
-    private void inicializarDespachador() {
-        Despachador despachador = new Despachador(colaCasosEmergencia, ambulancias, equiposMedicos);
-        executorService.submit(despachador);
-        todosLosComponentes.add(despachador);
-        logger.info("Despachador en línea para coordinar recursos");
-        System.out.println("🚨 1 Despachador en línea para coordinar recursos.");
+    private void inicializarDespachadores() {
+        int particiones = ingreso.getNumParticiones();
+
+        List<List<Ambulancia>> ambulanciasPorZona = new ArrayList<>();
+        List<List<EquipoMedico>> equiposPorZona = new ArrayList<>();
+        for (int z = 0; z < particiones; z++) {
+            ambulanciasPorZona.add(new ArrayList<>());
+            equiposPorZona.add(new ArrayList<>());
+        }
+        synchronized (ambulancias) {
+            for (Ambulancia ambulancia : ambulancias) {
+                ambulanciasPorZona.get(ingreso.particionDe(ambulancia.getBaseId())).add(ambulancia);
+            }
+        }
+        synchronized (equiposMedicos) {
+            for (EquipoMedico equipo : equiposMedicos) {
+                equiposPorZona.get(ingreso.particionDe(equipo.getSedeId())).add(equipo);
+            }
+        }
+
+        IndiceDisponibles[] indices = new IndiceDisponibles[particiones];
+        for (int z = 0; z < particiones; z++) {
+            indices[z] = new IndiceDisponibles(ambulanciasPorZona.get(z), equiposPorZona.get(z), registroUbicaciones);
+        }
+
+        for (int z = 0; z < particiones; z++) {
+            Despachador despachador = new Despachador(ingreso.getCola(z),
+                    ambulanciasPorZona.get(z), equiposPorZona.get(z), indices[z]);
+            despachador.setZona(z, vecinosPorCercania(z, indices));
+            despachador.setModoDespacho(modoDespacho);
+            despachador.setOrdenCola(ingreso.getOrden());
+            despachador.setDesvio(desvioHabilitado, umbralDesvioMs);
+            despachador.setAnticipacion(anticipacionHabilitada);
+            despachador.setSalida(salidaComponentes());
+            executorService.submit(despachador);
+            todosLosComponentes.add(despachador);
+            despachadores.add(despachador);
+            logger.info("Despachador de zona {} en línea: {} ambulancias, {} equipos médicos (modo {}, orden {})",
+                    z, ambulanciasPorZona.get(z).size(), equiposPorZona.get(z).size(), modoDespacho, ordenCola);
+        }
+        salida.linea("🚨 " + particiones + " Despachador(es) en línea para coordinar recursos.");
+    }
+
+    /**
+     * Índices de las demás particiones ordenados por distancia entre las
+     * bases de su primera zona.
+     */
+    private List<IndiceDisponibles> vecinosPorCercania(int zona, IndiceDisponibles[] indices) {
+        List<Integer> otras = new ArrayList<>();
+        for (int z = 0; z < indices.length; z++) {
+            if (z != zona) {
+                otras.add(z);
+            }
+        }
+        int baseZona = registroUbicaciones.getBaseDeZona(ingreso.primeraZonaDe(zona));
+        otras.sort(Comparator.comparingDouble(z -> modeloViaje.distanciaKm(baseZona,
+                registroUbicaciones.getBaseDeZona(ingreso.primeraZonaDe(z)))));
+
+        List<IndiceDisponibles> vecinos = new ArrayList<>();
+        for (int z : otras) {
+            vecinos.add(indices[z]);
+        }
+        return vecinos;
+    }
+
+    /**
+     * Inicializa el muestreador que alimenta a monitores y vistas. Con el
+     * tablero activo muestrea al menos a la frecuencia del tablero. Toma una
+     * primera muestra antes de lanzarse para que las vistas arranquen con datos.
+     */
+    private void inicializarTelemetria() {
+        long intervalo = tableroHabilitado
+                ? Math.min(intervaloTelemetriaMs, 1000L / cuadrosPorSegundoTablero)
+                : intervaloTelemetriaMs;
+        telemetria = new MuestreadorTelemetria(estadoFlota, casosCompletados, ingreso, Math.max(1, intervalo));
+        telemetria.muestrear();
+        executorService.submit(telemetria);
+        todosLosComponentes.add(telemetria);
+        logger.info("Muestreador de telemetría iniciado (cada {} ms)", telemetria.getIntervaloMs());
+    }
+
+    /**
+     * Expone las métricas en formato Prometheus si se configuró un puerto.
+     * Si el puerto no se puede abrir la simulación sigue sin endpoint.
+     */
+    private void inicializarMetricas() {
+        if (puertoMetricas == null) {
+            return;
+        }
+        ExportadorPrometheus exportador = new ExportadorPrometheus(telemetria, latenciaDespacho,
+                telemetria.getIntervaloMs());
+        exportador.setSeguimientoSla(seguimientoSla);
+        exportador.setEventPublisher(eventPublisher);
+        try {
+            InetAddress direccion = direccionMetricas == null || direccionMetricas.isBlank()
+                    ? InetAddress.getLoopbackAddress() : InetAddress.getByName(direccionMetricas.trim());
+            exportador.iniciar(direccion, puertoMetricas);
+        } catch (IOException e) {
+            logger.error("No se pudo abrir el puerto de métricas {} en '{}', se sigue sin endpoint", puertoMetricas,
+                    direccionMetricas != null ? direccionMetricas : "loopback", e);
+            return;
+        }
+        exportadorMetricas = exportador;
+        executorService.submit(exportador);
+        todosLosComponentes.add(exportador);
+        salida.linea("📡 Métricas en " + exportador.getUrl());
     }
 
     /**
      * Inicializa el monitor de tiempo real.
      */
     private void inicializarMonitor() {
-        MonitorTiempoReal monitor = new MonitorTiempoReal(ambulancias, equiposMedicos, casosCompletados);
+        MonitorTiempoReal monitor = new MonitorTiempoReal(telemetria);
+        monitor.setSeguimientoSla(seguimientoSla);
+        monitor.setSalida(salidaComponentes());
         executorService.submit(monitor);
         todosLosComponentes.add(monitor);
         logger.info("Monitor de tiempo real iniciado");
-        System.out.println("📊 Monitor de Tiempo Real iniciado.");
+        salida.linea("📊 Monitor de Tiempo Real iniciado.");
     }
 
     /**
      * Inicializa el monitor visual.
      */
     private void inicializarMonitorVisual() {
-        MonitorVisual monitorVisual = new MonitorVisual(ambulancias, equiposMedicos,
-                casosCompletados, colaCasosEmergencia, 8);
+        MonitorVisual monitorVisual = new MonitorVisual(telemetria, 8);
+        monitorVisual.setSalida(salida);
+        if (tableroHabilitado) {
+            monitorVisual.setTablero(new TableroRecursos(System.out), cuadrosPorSegundoTablero);
+        }
+        logger.info("Monitor visual iniciado");
+        salida.linea("🎨 Monitor Visual activado.");
+        salida.vaciar();
         executorService.submit(monitorVisual);
         todosLosComponentes.add(monitorVisual);
-        logger.info("Monitor visual iniciado");
-        System.out.println("🎨 Monitor Visual activado.");
+    }
+
+    /**
+     * Salida para los componentes que informan durante la simulación. Con el
+     * tablero activo se silencian: sus líneas desplazarían la pantalla y
+     * romperían el redibujado en su lugar.
+     */
+    private Salida salidaComponentes() {
+        return tableroHabilitado ? SalidaNula.getInstance() : salida;
     }
 
     /**
@@ -225,7 +919,7 @@ public class SimulacionManager {
         }
 
         logger.info("Deteniendo simulación...");
-        System.out.println("\n🛑 TIEMPO FINALIZADO. Deteniendo todos los componentes.");
+        salida.linea("\n🛑 TIEMPO FINALIZADO. Deteniendo todos los componentes.");
 
         // Detener todos los componentes
         for (Stoppable componente : todosLosComponentes) {
@@ -252,30 +946,65 @@ public class SimulacionManager {
             Thread.currentThread().interrupt();
         }
 
-        // Shutdown del scheduled executor
+        logger.info("Simulación detenida exitosamente");
+        salida.linea("✅ Todos los componentes han sido detenidos.");
+        exportarTraza();
+        // Escribir lo pendiente antes de que se pueda imprimir el resumen
+        salida.vaciar();
+
+        // Shutdown del scheduled executor, cancelando el apagado programado
+        // si la simulación se detuvo antes de tiempo
         if (shutdownExecutor != null) {
-            shutdownExecutor.shutdown();
+            shutdownExecutor.shutdownNow();
         }
 
         simulacionActiva = false;
-        logger.info("Simulación detenida exitosamente");
-        System.out.println("✅ Todos los componentes han sido detenidos.");
+    }
+
+    /**
+     * Escribe la traza por caso, si está activa. Un error de escritura se
+     * informa sin interrumpir el cierre.
+     */
+    private void exportarTraza() {
+        TrazadorCasos trazador = TrazadorCasos.getInstance();
+        if (!trazador.isHabilitado()) {
+            return;
+        }
+        Path destino = Path.of(archivoTraza);
+        try {
+            int tramos = new ExportadorTrazaChrome(trazador).exportar(destino);
+            logger.info("Traza de casos exportada a {} ({} tramos, {} registros descartados)",
+                    destino.toAbsolutePath(), tramos, trazador.getDescartados());
+            salida.linea("🧭 Traza de casos en " + destino.toAbsolutePath());
+        } catch (IOException e) {
+            logger.error("No se pudo escribir la traza de casos en {}", destino, e);
+        }
     }
 
     /**
      * Genera un resumen final de la simulación.
      */
     public void generarResumenFinal() {
-        int casosEnCola = colaCasosEmergencia.size();
+        int casosEnCola = ingreso.pendientes();
         int casosAsignados = 0;
+        int casosReservados = 0;
 
+        // Unidades ocupadas leídas de una vez del estado de la flota
+        if (estadoFlota != null) {
+            int[] porEstado = estadoFlota.contarAmbulancias();
+            casosAsignados = ambulancias.size() - porEstado[Ambulancia.StatusAmbulancia.DISPONIBLE.ordinal()];
+        }
         for (Ambulancia ambulancia : ambulancias) {
-            if (ambulancia.getStatusAmbulancia() != Ambulancia.StatusAmbulancia.DISPONIBLE) {
+            if (estadoFlota == null && ambulancia.getStatusAmbulancia() != Ambulancia.StatusAmbulancia.DISPONIBLE) {
                 casosAsignados++;
             }
+            // Caso aparte del que la unidad atiende: espera a que se libere
+            if (ambulancia.tieneReserva()) {
+                casosReservados++;
+            }
         }
 
-        int casosEnProceso = casosEnCola + casosAsignados;
+        int casosEnProceso = casosEnCola + casosAsignados + casosReservados;
 
         System.out.println(
                 "\n\n==========================================================================================");
@@ -286,7 +1015,44 @@ public class SimulacionManager {
         System.out.printf("Total de Casos Atendidos: %d\n", casosCompletados.size());
         System.out.printf("Total de Casos Pendientes (en cola): %d\n", casosEnCola);
         System.out.printf("Total de Casos Asignados (en ruta/ocupados): %d\n", casosAsignados);
-        System.out.printf("Total de Casos EN PROCESO (Pendientes + Asignados): %d\n\n", casosEnProceso);
+        System.out.printf("Total de Casos Reservados (esperan una unidad ocupada): %d\n", casosReservados);
+        System.out.printf("Total de Casos EN PROCESO (Pendientes + Asignados + Reservados): %d\n", casosEnProceso);
+        System.out.printf("Ambulancias prestadas entre zonas: %d\n", getPrestamosEntreZonas());
+        System.out.printf("Desvíos hacia casos CRITICO: %d%s\n", getDesviosRealizados(),
+                desvioHabilitado ? "" : " (desvío deshabilitado)");
+        System.out.printf("Despachos postergados por recursos incompletos: %d\n", getReservasIncompletas());
+        System.out.printf("Reservas anticipadas: %d%s\n", getReservasAnticipadas(),
+                anticipacionHabilitada ? "" : " (anticipación deshabilitada)");
+        System.out.printf("Llamadas fusionadas con incidentes abiertos: %d%s\n", getLlamadasFusionadas(),
+                correlacionHabilitada ? "" : " (correlación deshabilitada)");
+        if (generadorCarga != null) {
+            System.out.printf("Generador de carga: %d llamadas (%d encoladas, %d fusionadas, %d a la central, "
+                    + "%d diferidas, %d rechazadas), atraso máximo %d ms\n",
+                    generadorCarga.getGeneradas(), generadorCarga.getPorResultado(ResultadoIngreso.ENCOLADO),
+                    generadorCarga.getPorResultado(ResultadoIngreso.FUSIONADO),
+                    generadorCarga.getPorResultado(ResultadoIngreso.EN_LINEA),
+                    generadorCarga.getPorResultado(ResultadoIngreso.DIFERIDO),
+                    generadorCarga.getPorResultado(ResultadoIngreso.RECHAZADO), generadorCarga.getAtrasoMaximoMs());
+        }
+        if (centroLlamadas != null) {
+            HistogramaLatencia respuesta = centroLlamadas.getTiempoRespuesta();
+            System.out.printf("Central de llamadas (%d operadores): %d recibidas, %d atendidas, %d abandonadas "
+                    + "(%.1f%%), %d en espera, ocupación %.1f%%\n",
+                    centroLlamadas.getNumOperadores(), centroLlamadas.getRecibidas(), centroLlamadas.getAtendidas(),
+                    centroLlamadas.getAbandonadas(), centroLlamadas.getTasaAbandono(),
+                    centroLlamadas.getLlamadasEnEspera(), centroLlamadas.getOcupacion());
+            System.out.printf("   Tiempo de respuesta (ms): p50 %d, p90 %d, p99 %d, máx %d\n",
+                    respuesta.percentil(50), respuesta.percentil(90), respuesta.percentil(99),
+                    respuesta.getMaximo());
+        }
+        if (admision != null) {
+            System.out.printf("Admisión (%s, capacidad %d): %d rechazadas, %d diferidas, %d readmitidas, "
+                    + "%d abandonadas, %d aún diferidas\n\n",
+                    admision.getModo(), admision.getCapacidad(), admision.getRechazados(), admision.getDiferidos(),
+                    admision.getReadmitidos(), admision.getAbandonados(), admision.getDiferidosEnEspera());
+        } else {
+            System.out.println("Admisión: sin control (ingreso no acotado)\n");
+        }
 
         if (casosCompletados.isEmpty()) {
             System.out.println("No se lograron atender casos en el tiempo de simulación.");
@@ -329,10 +1095,106 @@ public class SimulacionManager {
         System.out
                 .println("==========================================================================================");
 
+        imprimirPercentilesEspera();
+        HistogramaLatencia despacho = latenciaDespacho.getLatencias();
+        System.out.printf("Latencia de despacho (ms, %d despachos): p50 %d, p90 %d, p99 %d, máx %d\n",
+                despacho.getCantidad(), despacho.percentil(50), despacho.percentil(90),
+                despacho.percentil(99), despacho.getMaximo());
+        imprimirCumplimientoSla();
+        imprimirContencionCerrojos();
+
         logger.info("Resumen final generado: {} casos atendidos, {} en cola, {} asignados",
                 casosCompletados.size(), casosEnCola, casosAsignados);
     }
 
+    /**
+     * Imprime, si la instrumentación está activa, la espera y la tenencia de
+     * cada cerrojo compartido (µs) y las tenencias más largas con su pila.
+     */
+    private void imprimirContencionCerrojos() {
+        RegistroCerrojos registro = RegistroCerrojos.getInstance();
+        if (!registro.isHabilitado()) {
+            return;
+        }
+        System.out.println("Contención de cerrojos (µs):");
+        System.out.printf("| %-16s | %-9s | %-8s | %-8s | %-8s | %-8s | %-8s | %-8s |\n",
+                "Cerrojo", "Adquis.", "Esp p50", "Esp p99", "Esp máx", "Ten p50", "Ten p99", "Ten máx");
+        for (EstadisticaCerrojo estadistica : registro.getEstadisticas()) {
+            HistogramaLatencia espera = estadistica.getEsperaNs();
+            HistogramaLatencia tenencia = estadistica.getTenenciaNs();
+            System.out.printf("| %-16s | %-9d | %-8.1f | %-8.1f | %-8.1f | %-8.1f | %-8.1f | %-8.1f |\n",
+                    estadistica.getNombre(), tenencia.getCantidad(),
+                    espera.percentil(50) / 1e3, espera.percentil(99) / 1e3, espera.getMaximo() / 1e3,
+                    tenencia.percentil(50) / 1e3, tenencia.percentil(99) / 1e3, tenencia.getMaximo() / 1e3);
+        }
+        for (EstadisticaCerrojo estadistica : registro.getEstadisticas()) {
+            List<EstadisticaCerrojo.Tenencia> masLargas = estadistica.getMasLargas();
+            if (masLargas.isEmpty()) {
+                continue;
+            }
+            System.out.printf("Tenencias más largas de %s:\n", estadistica.getNombre());
+            for (EstadisticaCerrojo.Tenencia larga : masLargas) {
+                System.out.printf("   %.1f µs en %s\n", larga.getDuracionNs() / 1e3, larga.getHilo());
+                StackTraceElement[] pila = larga.getPila();
+                for (int i = 0; i < Math.min(4, pila.length); i++) {
+                    System.out.println("      at " + pila[i]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Imprime los percentiles del tiempo de espera (recepción a despacho)
+     * de los casos completados, por severidad.
+     */
+    private void imprimirPercentilesEspera() {
+        EnumMap<CasoEmergencia.Severity, HistogramaLatencia> esperas = new EnumMap<>(CasoEmergencia.Severity.class);
+        for (CasoEmergencia.Severity severidad : CasoEmergencia.Severity.values()) {
+            esperas.put(severidad, new HistogramaLatencia());
+        }
+        synchronized (casosCompletados) {
+            for (CasoEmergencia caso : casosCompletados) {
+                esperas.get(caso.getSeveridad()).registrar(caso.getTiempoEsperaMs());
+            }
+        }
+
+        System.out.println("Tiempo de espera por severidad (ms):");
+        System.out.printf("| %-10s | %-6s | %-8s | %-8s | %-8s | %-8s |\n",
+                "Severidad", "Casos", "p50", "p90", "p99", "Máx");
+        for (var entrada : esperas.entrySet()) {
+            HistogramaLatencia histograma = entrada.getValue();
+            System.out.printf("| %-10s | %-6d | %-8d | %-8d | %-8d | %-8d |\n",
+                    entrada.getKey(), histograma.getCantidad(), histograma.percentil(50),
+                    histograma.percentil(90), histograma.percentil(99), histograma.getMaximo());
+        }
+
+        HistogramaLatencia criticos = esperas.get(CasoEmergencia.Severity.CRITICO);
+        logger.info("Espera CRITICO p99: {} ms ({} casos, {} desvíos)",
+                criticos.percentil(99), criticos.getCantidad(), getDesviosRealizados());
+    }
+
+    /**
+     * Imprime, por severidad, el plazo comprometido, las llegadas dentro y
+     * fuera de plazo y los percentiles del retraso de las tardías.
+     */
+    private void imprimirCumplimientoSla() {
+        PoliticaSla politica = ingreso.getPoliticaSla();
+        System.out.printf("Cumplimiento de plazos de llegada (orden de cola: %s):\n", ordenCola);
+        System.out.printf("| %-10s | %-8s | %-8s | %-8s | %-7s | %-10s | %-10s |\n",
+                "Severidad", "Plazo", "A tiempo", "Tarde", "% OK", "Retr. p50", "Retr. p99");
+        for (CasoEmergencia.Severity severidad : CasoEmergencia.Severity.values()) {
+            HistogramaLatencia retrasos = seguimientoSla.getRetrasos(severidad);
+            System.out.printf("| %-10s | %-8d | %-8d | %-8d | %-7.1f | %-10d | %-10d |\n",
+                    severidad, politica.plazoMs(severidad), seguimientoSla.getCumplidos(severidad),
+                    seguimientoSla.getIncumplidos(severidad), seguimientoSla.getPorcentajeCumplimiento(severidad),
+                    retrasos.percentil(50), retrasos.percentil(99));
+        }
+
+        logger.info("Plazos CRITICO: {} a tiempo, {} tarde (orden {})",
+                seguimientoSla.getCumplidos(CasoEmergencia.Severity.CRITICO),
+                seguimientoSla.getIncumplidos(CasoEmergencia.Severity.CRITICO), ordenCola);
+    }
+
     // Getters para acceso a recursos (útil para UI y tests)
 
     public List<Ambulancia> getAmbulancias() {
@@ -347,8 +1209,184 @@ public class SimulacionManager {
         return Collections.unmodifiableList(casosCompletados);
     }
 
-    public BlockingQueue<CasoEmergencia> getColaCasosEmergencia() {
-        return colaCasosEmergencia;
+    public IngresoPorZonas getIngreso() {
+        return ingreso;
+    }
+
+    /**
+     * @return muestreador de la simulación en curso, o null si no se inicializó
+     */
+    public MuestreadorTelemetria getTelemetria() {
+        return telemetria;
+    }
+
+    /**
+     * Configura el puerto del endpoint de métricas Prometheus (0 elige uno
+     * libre, null lo desactiva). Debe configurarse antes de inicializar la
+     * simulación.
+     */
+    public void setPuertoMetricas(Integer puerto) {
+        this.puertoMetricas = puerto;
+        logger.debug("Puerto de métricas: {}", puerto);
+    }
+
+    /**
+     * Configura la interfaz donde escucha el endpoint de métricas (nombre o
+     * IP; null para solo loopback). Debe configurarse antes de inicializar
+     * la simulación.
+     */
+    public void setDireccionMetricas(String direccion) {
+        this.direccionMetricas = direccion;
+        logger.debug("Dirección de métricas: {}", direccion);
+    }
+
+    /**
+     * Configura la traza por caso en formato Chrome. Debe configurarse antes
+     * de inicializar la simulación; se exporta al detenerla.
+     *
+     * @param muestreo  fracción de casos a trazar, 0 para desactivarla
+     * @param capacidad registros por hilo antes de pisar los más viejos
+     * @param archivo   ruta del JSON a escribir
+     */
+    public void setTraza(double muestreo, int capacidad, String archivo) {
+        if (!(muestreo >= 0 && muestreo <= 1)) {
+            throw new IllegalArgumentException("Muestreo fuera de [0, 1]: " + muestreo);
+        }
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidad);
+        }
+        this.muestreoTraza = muestreo;
+        this.capacidadTraza = capacidad;
+        this.archivoTraza = archivo;
+        logger.debug("Traza de casos: muestreo {}, {} registros por hilo, archivo {}", muestreo, capacidad, archivo);
+    }
+
+    /**
+     * Activa la medición de espera y tenencia de los cerrojos compartidos.
+     * Las colas de ingreso pasan a {@code ColaPrioridadInstrumentada}, por lo
+     * que debe configurarse antes de inicializar la simulación.
+     *
+     * @param habilitado true para medir
+     */
+    public void setCerrojosInstrumentados(boolean habilitado) {
+        if (simulacionActiva) {
+            logger.warn("No se puede cambiar la instrumentación de cerrojos con la simulación activa");
+            return;
+        }
+        RegistroCerrojos.getInstance().setHabilitado(habilitado);
+        this.ingreso = crearIngreso();
+        logger.debug("Cerrojos instrumentados: {}", habilitado);
+    }
+
+    /**
+     * @return exportador de métricas en curso, o null si no se expone
+     */
+    public ExportadorPrometheus getExportadorMetricas() {
+        return exportadorMetricas;
+    }
+
+    /**
+     * @return estado compartido de la flota, o null si no se inicializó
+     */
+    public EstadoFlota getEstadoFlota() {
+        return estadoFlota;
+    }
+
+    /**
+     * Última foto del sistema, sin bloquear; vacía antes de inicializar.
+     */
+    public InstantaneaSistema getInstantanea() {
+        MuestreadorTelemetria actual = telemetria;
+        return actual == null ? InstantaneaSistema.VACIA : actual.getInstantanea();
+    }
+
+    public int getCasosPendientes() {
+        return ingreso.pendientes();
+    }
+
+    public long getReservasIncompletas() {
+        long total = 0;
+        synchronized (despachadores) {
+            for (Despachador despachador : despachadores) {
+                total += despachador.getReservasIncompletas();
+            }
+        }
+        return total;
+    }
+
+    public long getReservasAnticipadas() {
+        long total = 0;
+        synchronized (despachadores) {
+            for (Despachador despachador : despachadores) {
+                total += despachador.getReservasAnticipadas();
+            }
+        }
+        return total;
+    }
+
+    public long getDesviosRealizados() {
+        long total = 0;
+        synchronized (despachadores) {
+            for (Despachador despachador : despachadores) {
+                total += despachador.getDesviosRealizados();
+            }
+        }
+        return total;
+    }
+
+    public long getPrestamosEntreZonas() {
+        long total = 0;
+        synchronized (despachadores) {
+            for (Despachador despachador : despachadores) {
+                total += despachador.getPrestamosRecibidos();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * @return el control de admisión activo, o null si el ingreso no está acotado
+     */
+    public ControlAdmision getAdmision() {
+        return admision;
+    }
+
+    /**
+     * @return la central de llamadas, o null si se usan hilos de operador
+     */
+    public CentroLlamadas getCentroLlamadas() {
+        return centroLlamadas;
+    }
+
+    public long getLlamadasFusionadas() {
+        return correlacion != null ? correlacion.getLlamadasFusionadas() : 0;
+    }
+
+    public SeguimientoSla getSeguimientoSla() {
+        return seguimientoSla;
+    }
+
+    public LatenciaDespacho getLatenciaDespacho() {
+        return latenciaDespacho;
+    }
+
+    /**
+     * @return el generador de carga activo, o null si no se configuró carga
+     */
+    public GeneradorCarga getGeneradorCarga() {
+        return generadorCarga;
+    }
+
+    public Salida getSalida() {
+        return salida;
+    }
+
+    public OrdenCola getOrdenCola() {
+        return ordenCola;
+    }
+
+    public ModeloViaje getModeloViaje() {
+        return modeloViaje;
     }
 
     public boolean isSimulacionActiva() {
@@ -364,7 +1402,23 @@ public class SimulacionManager {
             detenerSimulacion();
         }
 
-        colaCasosEmergencia.clear();
+        ingreso.limpiar();
+        if (correlacion != null) {
+            correlacion.limpiar();
+            correlacion = null;
+        }
+        if (admision != null) {
+            admision.limpiar();
+            admision = null;
+        }
+        generadorCarga = null;
+        centroLlamadas = null;
+        telemetria = null;
+        estadoFlota = null;
+        exportadorMetricas = null;
+        despachadores.clear();
+        seguimientoSla = new SeguimientoSla();
+        latenciaDespacho = new LatenciaDespacho();
         ambulancias.clear();
         equiposMedicos.clear();
         casosCompletados.clear();
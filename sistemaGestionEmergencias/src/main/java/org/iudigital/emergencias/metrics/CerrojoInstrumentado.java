@@ -0,0 +1,187 @@
+package org.iudigital.emergencias.metrics;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * {@link ReentrantLock} que registra en una {@link EstadisticaCerrojo} la
+ * espera de cada adquisición y cuánto se retuvo. Solo cuenta la adquisición
+ * externa: las reentradas no abren otra tenencia. Esperar una condición
+ * cierra la tenencia y la reabre al volver, de modo que el tiempo dormido en
+ * {@code await} no se cuenta como retenido.
+ * <p>
+ * La pila de una tenencia larga se toma después de soltar el cerrojo. Si la
+ * tenencia terminó al esperar una condición, queda pendiente hasta el
+ * {@link #unlock} siguiente y se guarda con la pila de ese punto.
+ */
+public class CerrojoInstrumentado implements Lock {
+
+    private final ReentrantLock cerrojo = new ReentrantLock();
+    private final EstadisticaCerrojo estadistica;
+
+    // Marca de la tenencia en curso y la tenencia larga cerrada en un await
+    // cuya pila falta tomar; solo las toca el dueño del cerrojo
+    private long inicioTenencia;
+    private long largaPendiente;
+
+    /**
+     * @param nombre nombre con que se registra en {@link RegistroCerrojos}
+     */
+    public CerrojoInstrumentado(String nombre) {
+        this.estadistica = RegistroCerrojos.getInstance().obtener(nombre);
+    }
+
+    @Override
+    public void lock() {
+        long espera = estadistica.inicioEspera();
+        cerrojo.lock();
+        abrir(espera);
+    }
+
+    @Override
+    public void lockInterruptibly() throws InterruptedException {
+        long espera = estadistica.inicioEspera();
+        cerrojo.lockInterruptibly();
+        abrir(espera);
+    }
+
+    @Override
+    public boolean tryLock() {
+        long espera = estadistica.inicioEspera();
+        if (!cerrojo.tryLock()) {
+            return false;
+        }
+        abrir(espera);
+        return true;
+    }
+
+    @Override
+    public boolean tryLock(long tiempo, TimeUnit unidad) throws InterruptedException {
+        long espera = estadistica.inicioEspera();
+        if (!cerrojo.tryLock(tiempo, unidad)) {
+            return false;
+        }
+        abrir(espera);
+        return true;
+    }
+
+    @Override
+    public void unlock() {
+        long larga = 0L;
+        long pendiente = 0L;
+        if (cerrojo.isHeldByCurrentThread() && cerrojo.getHoldCount() == 1) {
+            larga = cerrar();
+            pendiente = largaPendiente;
+            largaPendiente = 0L;
+        }
+        cerrojo.unlock();
+        estadistica.registrarLarga(pendiente);
+        estadistica.registrarLarga(larga);
+    }
+
+    @Override
+    public Condition newCondition() {
+        return new Condicion(cerrojo.newCondition());
+    }
+
+    private void abrir(long espera) {
+        if (cerrojo.getHoldCount() == 1) {
+            inicioTenencia = estadistica.adquirido(espera);
+        }
+    }
+
+    /**
+     * @return tenencia larga a registrar después de soltar el cerrojo, o 0
+     */
+    private long cerrar() {
+        long inicio = inicioTenencia;
+        inicioTenencia = 0L;
+        return estadistica.liberado(inicio);
+    }
+
+    /**
+     * Cierra la tenencia antes de esperar una condición; si fue larga, su
+     * pila se toma en el próximo {@link #unlock}, fuera del cerrojo.
+     */
+    private void suspender() {
+        largaPendiente = Math.max(largaPendiente, cerrar());
+    }
+
+    public EstadisticaCerrojo getEstadistica() {
+        return estadistica;
+    }
+
+    /**
+     * Condición que suspende la tenencia mientras el hilo espera.
+     */
+    private final class Condicion implements Condition {
+        private final Condition condicion;
+
+        Condicion(Condition condicion) {
+            this.condicion = condicion;
+        }
+
+        @Override
+        public void await() throws InterruptedException {
+            suspender();
+            try {
+                condicion.await();
+            } finally {
+                inicioTenencia = estadistica.inicioTenencia();
+            }
+        }
+
+        @Override
+        public void awaitUninterruptibly() {
+            suspender();
+            try {
+                condicion.awaitUninterruptibly();
+            } finally {
+                inicioTenencia = estadistica.inicioTenencia();
+            }
+        }
+
+        @Override
+        public long awaitNanos(long nanos) throws InterruptedException {
+            suspender();
+            try {
+                return condicion.awaitNanos(nanos);
+            } finally {
+                inicioTenencia = estadistica.inicioTenencia();
+            }
+        }
+
+        @Override
+        public boolean await(long tiempo, TimeUnit unidad) throws InterruptedException {
+            suspender();
+            try {
+                return condicion.await(tiempo, unidad);
+            } finally {
+                inicioTenencia = estadistica.inicioTenencia();
+            }
+        }
+
+        @Override
+        public boolean awaitUntil(Date limite) throws InterruptedException {
+            suspender();
+            try {
+                return condicion.awaitUntil(limite);
+            } finally {
+                inicioTenencia = estadistica.inicioTenencia();
+            }
+        }
+
+        @Override
+        public void signal() {
+            condicion.signal();
+        }
+
+        @Override
+        public void signalAll() {
+            condicion.signalAll();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.iudigital.emergencias.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Contención de un cerrojo con nombre: histogramas de espera por adquirirlo y
+ * de tiempo retenido (en nanosegundos) y las tenencias más largas con la pila
+ * de quien lo retenía. Sirve tanto para un {@link CerrojoInstrumentado} como
+ * para un bloque {@code synchronized} instrumentado a mano:
+ *
+ * <pre>
+ * long espera = estadistica.inicioEspera();
+ * long larga;
+ * synchronized (monitor) {
+ *     long tenencia = estadistica.adquirido(espera);
+ *     ...
+ *     larga = estadistica.liberado(tenencia);
+ * }
+ * estadistica.registrarLarga(larga);
+ * </pre>
+ *
+ * (en {@code finally} si el bloque puede lanzar). La pila de una tenencia
+ * larga se toma en {@link #registrarLarga}, ya fuera del monitor, para que
+ * su costo no se sume a la tenencia ni haga esperar a otros hilos. Con el
+ * registro deshabilitado las marcas valen 0 y nada se mide.
+ */
+public class EstadisticaCerrojo {
+
+    /** Tenencias más largas que se conservan. */
+    public static final int MAS_LARGAS = 5;
+    private static final int MARCOS_PILA = 12;
+
+    private final String nombre;
+    private final RegistroCerrojos registro;
+    private final HistogramaLatencia esperaNs = new HistogramaLatencia();
+    private final HistogramaLatencia tenenciaNs = new HistogramaLatencia();
+
+    // Las más largas, de mayor a menor; el umbral evita tomar el lock (y la
+    // pila) salvo cuando la tenencia entra al ranking
+    private final Tenencia[] masLargas = new Tenencia[MAS_LARGAS];
+    private volatile long umbralMasLargas;
+
+    EstadisticaCerrojo(String nombre, RegistroCerrojos registro) {
+        this.nombre = nombre;
+        this.registro = registro;
+    }
+
+    /**
+     * @return marca para {@link #adquirido}, o 0 si no se mide
+     */
+    public long inicioEspera() {
+        return registro.isHabilitado() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Registra la espera desde la marca y abre la tenencia.
+     *
+     * @return marca para {@link #liberado}, o 0 si no se mide
+     */
+    public long adquirido(long inicioEspera) {
+        if (inicioEspera == 0L) {
+            return 0L;
+        }
+        long ahora = System.nanoTime();
+        esperaNs.registrar(ahora - inicioEspera);
+        return ahora;
+    }
+
+    /**
+     * Abre una tenencia sin espera que registrar, por ejemplo al volver de
+     * esperar una condición.
+     */
+    long inicioTenencia() {
+        return registro.isHabilitado() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Cierra la tenencia abierta en la marca.
+     *
+     * @return duración de la tenencia si entra entre las más largas, para
+     *         {@link #registrarLarga} una vez liberado el cerrojo; si no, 0
+     */
+    public long liberado(long inicioTenencia) {
+        if (inicioTenencia == 0L) {
+            return 0L;
+        }
+        long duracion = System.nanoTime() - inicioTenencia;
+        tenenciaNs.registrar(duracion);
+        return duracion > umbralMasLargas ? duracion : 0L;
+    }
+
+    /**
+     * Guarda una tenencia devuelta por {@link #liberado} con la pila del
+     * hilo actual, que es quien retenía el cerrojo. Debe llamarse después de
+     * soltarlo; con 0 no hace nada.
+     */
+    public void registrarLarga(long duracionNs) {
+        // Otra tenencia pudo haber subido el umbral desde que se liberó
+        if (duracionNs == 0L || duracionNs <= umbralMasLargas) {
+            return;
+        }
+        Thread hilo = Thread.currentThread();
+        Tenencia tenencia = new Tenencia(duracionNs, hilo.getName(), System.currentTimeMillis(),
+                recortarPila(hilo.getStackTrace()));
+        synchronized (masLargas) {
+            int i = MAS_LARGAS - 1;
+            if (masLargas[i] != null && masLargas[i].duracionNs >= duracionNs) {
+                return;
+            }
+            while (i > 0 && (masLargas[i - 1] == null || masLargas[i - 1].duracionNs < duracionNs)) {
+                masLargas[i] = masLargas[i - 1];
+                i--;
+            }
+            masLargas[i] = tenencia;
+            Tenencia ultima = masLargas[MAS_LARGAS - 1];
+            umbralMasLargas = (ultima == null) ? 0L : ultima.duracionNs;
+        }
+    }
+
+    /**
+     * Quita los marcos de getStackTrace y de la instrumentación, y se queda
+     * con los primeros de la aplicación.
+     */
+    private static StackTraceElement[] recortarPila(StackTraceElement[] pila) {
+        int desde = 0;
+        while (desde < pila.length && (pila[desde].getClassName().equals(Thread.class.getName())
+                || pila[desde].getClassName().startsWith(EstadisticaCerrojo.class.getName())
+                || pila[desde].getClassName().startsWith(CerrojoInstrumentado.class.getName()))) {
+            desde++;
+        }
+        return Arrays.copyOfRange(pila, desde, Math.min(pila.length, desde + MARCOS_PILA));
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public HistogramaLatencia getEsperaNs() {
+        return esperaNs;
+    }
+
+    public HistogramaLatencia getTenenciaNs() {
+        return tenenciaNs;
+    }
+
+    /**
+     * @return tenencias más largas registradas, de mayor a menor
+     */
+    public List<Tenencia> getMasLargas() {
+        List<Tenencia> copia = new ArrayList<>(MAS_LARGAS);
+        synchronized (masLargas) {
+            for (Tenencia tenencia : masLargas) {
+                if (tenencia != null) {
+                    copia.add(tenencia);
+                }
+            }
+        }
+        return copia;
+    }
+
+    /**
+     * Descarta lo medido.
+     */
+    public void reiniciar() {
+        esperaNs.reiniciar();
+        tenenciaNs.reiniciar();
+        synchronized (masLargas) {
+            Arrays.fill(masLargas, null);
+            umbralMasLargas = 0L;
+        }
+    }
+
+    /**
+     * Una tenencia larga: cuánto duró, qué hilo lo retenía, cuándo se
+     * liberó y desde dónde.
+     */
+    public static final class Tenencia {
+        private final long duracionNs;
+        private final String hilo;
+        private final long liberadaMs;
+        private final StackTraceElement[] pila;
+
+        Tenencia(long duracionNs, String hilo, long liberadaMs, StackTraceElement[] pila) {
+            this.duracionNs = duracionNs;
+            this.hilo = hilo;
+            this.liberadaMs = liberadaMs;
+            this.pila = pila;
+        }
+
+        public long getDuracionNs() {
+            return duracionNs;
+        }
+
+        public String getHilo() {
+            return hilo;
+        }
+
+        public long getLiberadaMs() {
+            return liberadaMs;
+        }
+
+        public StackTraceElement[] getPila() {
+            return pila.clone();
+        }
+    }
+}
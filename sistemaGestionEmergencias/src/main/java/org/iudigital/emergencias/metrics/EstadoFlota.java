@@ -0,0 +1,211 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Estado de toda la flota en arreglos primitivos (un byte de estado y el id
+ * del caso por unidad) protegidos por un seqlock. Cada unidad escribe su
+ * ranura al cambiar de estado; los lectores copian la flota completa sin
+ * bloquear a nadie y reintentan si una escritura se cruzó con la copia, de
+ * modo que siempre obtienen una vista coherente de un mismo instante.
+ * <p>
+ * Protocolo: la secuencia es par en reposo. Un escritor la pasa a impar con
+ * CAS (los escritores se excluyen entre sí, pero la sección crítica son dos
+ * asignaciones), escribe y la deja en el siguiente par con semántica de
+ * liberación. Un lector lee la secuencia, copia los arreglos y vuelve a
+ * leerla: si era impar o cambió, la copia puede estar rota y se repite.
+ */
+public class EstadoFlota {
+
+    private final AtomicLong secuencia = new AtomicLong();
+
+    private final int[] idsAmbulancias;
+    private final byte[] estadosAmbulancias;
+    private final long[] casosAmbulancias;
+    private int ambulanciasRegistradas;
+
+    private final int[] idsEquipos;
+    private final byte[] estadosEquipos;
+    private final long[] casosEquipos;
+    private int equiposRegistrados;
+
+    private final AtomicLong reintentosLectura = new AtomicLong();
+
+    /**
+     * @param capacidadAmbulancias máximo de ambulancias a registrar
+     * @param capacidadEquipos     máximo de equipos médicos a registrar
+     */
+    public EstadoFlota(int capacidadAmbulancias, int capacidadEquipos) {
+        this.idsAmbulancias = new int[capacidadAmbulancias];
+        this.estadosAmbulancias = new byte[capacidadAmbulancias];
+        this.casosAmbulancias = new long[capacidadAmbulancias];
+        this.idsEquipos = new int[capacidadEquipos];
+        this.estadosEquipos = new byte[capacidadEquipos];
+        this.casosEquipos = new long[capacidadEquipos];
+    }
+
+    /**
+     * Asigna una ranura a la ambulancia, que publica ahí su estado actual y
+     * desde entonces lo mantiene al día.
+     *
+     * @throws IllegalStateException si no quedan ranuras
+     */
+    public void registrar(Ambulancia ambulancia) {
+        long s = bloquearEscritura();
+        int ranura = ambulanciasRegistradas;
+        if (ranura == idsAmbulancias.length) {
+            secuencia.set(s);
+            throw new IllegalStateException("Capacidad de ambulancias agotada: " + ranura);
+        }
+        idsAmbulancias[ranura] = ambulancia.getIdAmbulancia();
+        estadosAmbulancias[ranura] = (byte) Ambulancia.StatusAmbulancia.DISPONIBLE.ordinal();
+        casosAmbulancias[ranura] = -1;
+        ambulanciasRegistradas = ranura + 1;
+        secuencia.set(s + 2);
+        ambulancia.setEstadoFlota(this, ranura);
+    }
+
+    /**
+     * Asigna una ranura al equipo (ver {@link #registrar(Ambulancia)}).
+     *
+     * @throws IllegalStateException si no quedan ranuras
+     */
+    public void registrar(EquipoMedico equipo) {
+        long s = bloquearEscritura();
+        int ranura = equiposRegistrados;
+        if (ranura == idsEquipos.length) {
+            secuencia.set(s);
+            throw new IllegalStateException("Capacidad de equipos médicos agotada: " + ranura);
+        }
+        idsEquipos[ranura] = equipo.getIdEquipo();
+        estadosEquipos[ranura] = (byte) EquipoMedico.StatusEquipo.DISPONIBLE.ordinal();
+        casosEquipos[ranura] = -1;
+        equiposRegistrados = ranura + 1;
+        secuencia.set(s + 2);
+        equipo.setEstadoFlota(this, ranura);
+    }
+
+    /**
+     * Publica el estado de una ambulancia. La llama la propia unidad dentro
+     * de su monitor, por lo que las escrituras de una ranura llegan en orden.
+     */
+    public void actualizarAmbulancia(int ranura, Ambulancia.StatusAmbulancia estado, long casoId) {
+        long s = bloquearEscritura();
+        estadosAmbulancias[ranura] = (byte) estado.ordinal();
+        casosAmbulancias[ranura] = casoId;
+        secuencia.setRelease(s + 2);
+    }
+
+    /**
+     * Publica el estado de un equipo médico (ver {@link #actualizarAmbulancia}).
+     */
+    public void actualizarEquipo(int ranura, EquipoMedico.StatusEquipo estado, long casoId) {
+        long s = bloquearEscritura();
+        estadosEquipos[ranura] = (byte) estado.ordinal();
+        casosEquipos[ranura] = casoId;
+        secuencia.setRelease(s + 2);
+    }
+
+    private long bloquearEscritura() {
+        while (true) {
+            long s = secuencia.get();
+            if ((s & 1) == 0 && secuencia.compareAndSet(s, s + 1)) {
+                return s;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Copia coherente de toda la flota, sin bloquear a los escritores.
+     */
+    Copia copiar() {
+        while (true) {
+            long s = secuencia.getAcquire();
+            if ((s & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int ambulancias = Math.min(ambulanciasRegistradas, idsAmbulancias.length);
+            int equipos = Math.min(equiposRegistrados, idsEquipos.length);
+            Copia copia = new Copia(ambulancias, equipos);
+            System.arraycopy(idsAmbulancias, 0, copia.idsAmbulancias, 0, ambulancias);
+            System.arraycopy(estadosAmbulancias, 0, copia.estadosAmbulancias, 0, ambulancias);
+            System.arraycopy(casosAmbulancias, 0, copia.casosAmbulancias, 0, ambulancias);
+            System.arraycopy(idsEquipos, 0, copia.idsEquipos, 0, equipos);
+            System.arraycopy(estadosEquipos, 0, copia.estadosEquipos, 0, equipos);
+            System.arraycopy(casosEquipos, 0, copia.casosEquipos, 0, equipos);
+            // Las lecturas de los arreglos no pueden pasar a la relectura
+            VarHandle.acquireFence();
+            if (secuencia.get() == s) {
+                return copia;
+            }
+            reintentosLectura.incrementAndGet();
+        }
+    }
+
+    /**
+     * Cuenta las ambulancias en cada estado (índice = ordinal) en un único
+     * recorrido coherente del arreglo de estados, sin copiarlo.
+     */
+    public int[] contarAmbulancias() {
+        int[] conteo = new int[Ambulancia.StatusAmbulancia.values().length];
+        while (true) {
+            long s = secuencia.getAcquire();
+            if ((s & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            Arrays.fill(conteo, 0);
+            int ambulancias = Math.min(ambulanciasRegistradas, estadosAmbulancias.length);
+            for (int i = 0; i < ambulancias; i++) {
+                conteo[estadosAmbulancias[i]]++;
+            }
+            VarHandle.acquireFence();
+            if (secuencia.get() == s) {
+                return conteo;
+            }
+            reintentosLectura.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return escrituras publicadas desde la creación
+     */
+    public long getEscrituras() {
+        return secuencia.get() >>> 1;
+    }
+
+    /**
+     * @return lecturas repetidas porque una escritura se cruzó con la copia
+     */
+    public long getReintentosLectura() {
+        return reintentosLectura.get();
+    }
+
+    /**
+     * Copia de los arreglos de la flota tomada en un mismo instante.
+     */
+    static final class Copia {
+        final int[] idsAmbulancias;
+        final byte[] estadosAmbulancias;
+        final long[] casosAmbulancias;
+        final int[] idsEquipos;
+        final byte[] estadosEquipos;
+        final long[] casosEquipos;
+
+        Copia(int ambulancias, int equipos) {
+            this.idsAmbulancias = new int[ambulancias];
+            this.estadosAmbulancias = new byte[ambulancias];
+            this.casosAmbulancias = new long[ambulancias];
+            this.idsEquipos = new int[equipos];
+            this.estadosEquipos = new byte[equipos];
+            this.casosEquipos = new long[equipos];
+        }
+    }
+}
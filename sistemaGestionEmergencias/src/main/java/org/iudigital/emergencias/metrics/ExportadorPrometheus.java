@@ -0,0 +1,357 @@
+package org.iudigital.emergencias.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.observer.EventPublisher;
+import org.iudigital.emergencias.worker.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Expone las métricas de la simulación en formato de texto de Prometheus
+ * por HTTP ({@code GET /metrics}), con el servidor HTTP del JDK.
+ * <p>
+ * El cuerpo se arma en un hilo propio a intervalos fijos, a partir de la
+ * última {@link InstantaneaSistema} y de los histogramas, y se publica como
+ * un arreglo de bytes ya codificado. Atender una consulta es solo escribir
+ * ese arreglo: no recorre recursos ni listas ni toma locks de la simulación.
+ * Por defecto escucha solo en la interfaz de loopback.
+ */
+public class ExportadorPrometheus implements Runnable, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportadorPrometheus.class);
+
+    private static final String TIPO_CONTENIDO = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Límites de los buckets en la unidad de cada histograma
+    private static final long[] LIMITES_DESPACHO_MS =
+            {5, 10, 25, 50, 100, 250, 500, 1_000, 2_500, 5_000, 10_000, 30_000, 60_000};
+    private static final long[] LIMITES_ENTREGA_US =
+            {1, 5, 10, 50, 100, 500, 1_000, 5_000, 10_000, 50_000, 100_000};
+    private static final long[] LIMITES_CERROJO_NS =
+            {1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000, 1_000_000_000};
+
+    private final MuestreadorTelemetria telemetria;
+    private final LatenciaDespacho latenciaDespacho;
+    private final long intervaloMs;
+    private SeguimientoSla seguimientoSla;
+    private EventPublisher eventPublisher;
+    private volatile boolean corriendo = true;
+
+    private HttpServer servidor;
+    private ExecutorService hiloHttp;
+    private volatile byte[] cuerpo = new byte[0];
+
+    // Estado del armado (solo lo usa el hilo del exportador)
+    private final StringBuilder texto = new StringBuilder(8192);
+    private final long[] acumulados = new long[Math.max(LIMITES_DESPACHO_MS.length,
+            Math.max(LIMITES_ENTREGA_US.length, LIMITES_CERROJO_NS.length))];
+    private long completadosPrevios = -1;
+    private long instantePrevioMs;
+    private double casosPorSegundo;
+
+    private final MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+    private final ThreadMXBean hilos = ManagementFactory.getThreadMXBean();
+    private final com.sun.management.OperatingSystemMXBean sistema =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+    public ExportadorPrometheus(MuestreadorTelemetria telemetria, LatenciaDespacho latenciaDespacho,
+            long intervaloMs) {
+        if (intervaloMs < 1) {
+            throw new IllegalArgumentException("Intervalo inválido: " + intervaloMs);
+        }
+        this.telemetria = telemetria;
+        this.latenciaDespacho = latenciaDespacho;
+        this.intervaloMs = intervaloMs;
+    }
+
+    /**
+     * Agrega el cumplimiento de plazos por severidad.
+     */
+    public void setSeguimientoSla(SeguimientoSla seguimientoSla) {
+        this.seguimientoSla = seguimientoSla;
+    }
+
+    /**
+     * Agrega la demora de entrega del bus de eventos.
+     */
+    public void setEventPublisher(EventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Arma el primer cuerpo y empieza a escuchar en la interfaz de loopback.
+     *
+     * @param puerto puerto TCP (0 para uno libre)
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public void iniciar(int puerto) throws IOException {
+        iniciar(InetAddress.getLoopbackAddress(), puerto);
+    }
+
+    /**
+     * Arma el primer cuerpo y empieza a escuchar en la dirección indicada.
+     *
+     * @param direccion interfaz local donde escuchar
+     * @param puerto    puerto TCP (0 para uno libre)
+     * @throws IOException si no se puede abrir el puerto
+     */
+    public void iniciar(InetAddress direccion, int puerto) throws IOException {
+        actualizar();
+        servidor = HttpServer.create(new InetSocketAddress(direccion, puerto), 0);
+        servidor.createContext("/metrics", this::atender);
+        hiloHttp = Executors.newSingleThreadExecutor(r -> {
+            Thread hilo = new Thread(r, "Metricas-HTTP");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        servidor.setExecutor(hiloHttp);
+        servidor.start();
+        logger.info("Métricas Prometheus en {}", getUrl());
+    }
+
+    @Override
+    public void run() {
+        Thread.currentThread().setName("Exportador-Prometheus");
+
+        try {
+            while (corriendo) {
+                TimeUnit.MILLISECONDS.sleep(intervaloMs);
+                actualizar();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void atender(HttpExchange intercambio) throws IOException {
+        try (intercambio) {
+            if (!"GET".equals(intercambio.getRequestMethod())) {
+                intercambio.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] actual = cuerpo;
+            intercambio.getResponseHeaders().set("Content-Type", TIPO_CONTENIDO);
+            intercambio.sendResponseHeaders(200, actual.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(actual);
+            }
+        }
+    }
+
+    /**
+     * Rearma el cuerpo con los valores actuales y lo publica.
+     */
+    synchronized void actualizar() {
+        InstantaneaSistema instantanea = telemetria.getInstantanea();
+        texto.setLength(0);
+
+        // Cola por severidad
+        encabezado("emergencias_casos_en_cola", "gauge", "Casos pendientes de despacho por severidad");
+        for (CasoEmergencia.Severity severidad : CasoEmergencia.Severity.values()) {
+            muestra("emergencias_casos_en_cola", "severidad", severidad.name().toLowerCase(Locale.ROOT),
+                    instantanea.getCasosEnCola(severidad));
+        }
+
+        // Casos completados y ritmo
+        long completados = instantanea.getCasosCompletados();
+        long ahora = instantanea.getMarcaTiempoMs();
+        if (completadosPrevios >= 0 && ahora > instantePrevioMs) {
+            casosPorSegundo = Math.max(0, completados - completadosPrevios) * 1000.0 / (ahora - instantePrevioMs);
+        }
+        if (ahora != instantePrevioMs) {
+            completadosPrevios = completados;
+            instantePrevioMs = ahora;
+        }
+        encabezado("emergencias_casos_completados_total", "counter", "Casos completados");
+        muestra("emergencias_casos_completados_total", completados);
+        encabezado("emergencias_casos_por_segundo", "gauge", "Casos completados por segundo entre muestras");
+        muestra("emergencias_casos_por_segundo", casosPorSegundo);
+
+        // Unidades por estado y utilización
+        encabezado("emergencias_ambulancias", "gauge", "Ambulancias por estado");
+        for (Ambulancia.StatusAmbulancia estado : Ambulancia.StatusAmbulancia.values()) {
+            muestra("emergencias_ambulancias", "estado", estado.name().toLowerCase(Locale.ROOT),
+                    instantanea.contarAmbulancias(estado));
+        }
+        encabezado("emergencias_equipos_medicos", "gauge", "Equipos médicos por estado");
+        for (EquipoMedico.StatusEquipo estado : EquipoMedico.StatusEquipo.values()) {
+            muestra("emergencias_equipos_medicos", "estado", estado.name().toLowerCase(Locale.ROOT),
+                    instantanea.contarEquipos(estado));
+        }
+        encabezado("emergencias_utilizacion", "gauge", "Fracción de unidades no disponibles");
+        muestra("emergencias_utilizacion", "recurso", "ambulancias", utilizacion(
+                instantanea.getCantidadAmbulancias(),
+                instantanea.contarAmbulancias(Ambulancia.StatusAmbulancia.DISPONIBLE)));
+        muestra("emergencias_utilizacion", "recurso", "equipos_medicos", utilizacion(
+                instantanea.getCantidadEquipos(),
+                instantanea.contarEquipos(EquipoMedico.StatusEquipo.DISPONIBLE)));
+
+        // Latencias
+        histograma("emergencias_latencia_despacho_seconds",
+                "Desde que se recibe el caso hasta que sale una ambulancia",
+                latenciaDespacho.getLatencias(), LIMITES_DESPACHO_MS, 1e3);
+        if (eventPublisher != null) {
+            histograma("emergencias_eventos_demora_entrega_seconds",
+                    "Demora de entrega síncrona de cada evento a los observadores",
+                    eventPublisher.getDemoraEntregaUs(), LIMITES_ENTREGA_US, 1e6);
+        }
+        if (RegistroCerrojos.getInstance().isHabilitado()) {
+            cerrojos();
+        }
+        if (seguimientoSla != null) {
+            encabezado("emergencias_sla_cumplimiento_ratio", "gauge", "Fracción de llegadas dentro del plazo");
+            for (CasoEmergencia.Severity severidad : CasoEmergencia.Severity.values()) {
+                muestra("emergencias_sla_cumplimiento_ratio", "severidad", severidad.name().toLowerCase(Locale.ROOT),
+                        seguimientoSla.getPorcentajeCumplimiento(severidad) / 100.0);
+            }
+        }
+
+        // JVM
+        MemoryUsage heap = memoria.getHeapMemoryUsage();
+        encabezado("emergencias_jvm_heap_usado_bytes", "gauge", "Heap usado");
+        muestra("emergencias_jvm_heap_usado_bytes", heap.getUsed());
+        encabezado("emergencias_jvm_heap_max_bytes", "gauge", "Heap máximo");
+        muestra("emergencias_jvm_heap_max_bytes", heap.getMax());
+        encabezado("emergencias_jvm_hilos", "gauge", "Hilos vivos");
+        muestra("emergencias_jvm_hilos", hilos.getThreadCount());
+        encabezado("emergencias_jvm_cpu_proceso_ratio", "gauge", "Uso de CPU del proceso (0 a 1)");
+        muestra("emergencias_jvm_cpu_proceso_ratio", Math.max(0, sistema.getProcessCpuLoad()));
+        encabezado("emergencias_jvm_gc_colecciones_total", "counter", "Colecciones por recolector");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            muestra("emergencias_jvm_gc_colecciones_total", "gc", gc.getName(), gc.getCollectionCount());
+        }
+        encabezado("emergencias_jvm_gc_pausa_seconds_total", "counter", "Tiempo acumulado en recolección");
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            muestra("emergencias_jvm_gc_pausa_seconds_total", "gc", gc.getName(), gc.getCollectionTime() / 1000.0);
+        }
+
+        cuerpo = texto.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Espera y tenencia de cada cerrojo instrumentado, con el nombre del
+     * cerrojo como etiqueta.
+     */
+    private void cerrojos() {
+        List<EstadisticaCerrojo> estadisticas = RegistroCerrojos.getInstance().getEstadisticas();
+        encabezado("emergencias_cerrojo_espera_seconds", "histogram", "Espera por adquirir cada cerrojo");
+        for (EstadisticaCerrojo estadistica : estadisticas) {
+            serie("emergencias_cerrojo_espera_seconds", "cerrojo=\"" + estadistica.getNombre() + "\",",
+                    estadistica.getEsperaNs(), LIMITES_CERROJO_NS, 1e9);
+        }
+        encabezado("emergencias_cerrojo_tenencia_seconds", "histogram", "Tiempo retenido cada cerrojo");
+        for (EstadisticaCerrojo estadistica : estadisticas) {
+            serie("emergencias_cerrojo_tenencia_seconds", "cerrojo=\"" + estadistica.getNombre() + "\",",
+                    estadistica.getTenenciaNs(), LIMITES_CERROJO_NS, 1e9);
+        }
+        encabezado("emergencias_cerrojo_tenencia_maxima_seconds", "gauge", "Tenencia más larga de cada cerrojo");
+        for (EstadisticaCerrojo estadistica : estadisticas) {
+            muestra("emergencias_cerrojo_tenencia_maxima_seconds", "cerrojo", estadistica.getNombre(),
+                    estadistica.getTenenciaNs().getMaximo() / 1e9);
+        }
+    }
+
+    private void histograma(String nombre, String ayuda, HistogramaLatencia histograma, long[] limites,
+            double divisor) {
+        encabezado(nombre, "histogram", ayuda);
+        serie(nombre, "", histograma, limites, divisor);
+    }
+
+    /**
+     * Buckets, suma y cuenta de un histograma; {@code etiquetas} va delante
+     * de {@code le} y, si no está vacío, termina en coma.
+     */
+    private void serie(String nombre, String etiquetas, HistogramaLatencia histograma, long[] limites,
+            double divisor) {
+        long cantidad = histograma.getCantidad();
+        histograma.acumularHasta(limites, acumulados);
+        for (int i = 0; i < limites.length; i++) {
+            texto.append(nombre).append("_bucket{").append(etiquetas).append("le=\"");
+            numero(limites[i] / divisor);
+            texto.append("\"} ").append(Math.min(acumulados[i], cantidad)).append('\n');
+        }
+        texto.append(nombre).append("_bucket{").append(etiquetas).append("le=\"+Inf\"} ")
+                .append(cantidad).append('\n');
+        String sinComa = etiquetas.isEmpty() ? "" : "{" + etiquetas.substring(0, etiquetas.length() - 1) + "}";
+        texto.append(nombre).append("_sum").append(sinComa).append(' ');
+        numero(histograma.getSuma() / divisor);
+        texto.append('\n');
+        texto.append(nombre).append("_count").append(sinComa).append(' ').append(cantidad).append('\n');
+    }
+
+    private void encabezado(String nombre, String tipo, String ayuda) {
+        texto.append("# HELP ").append(nombre).append(' ').append(ayuda).append('\n');
+        texto.append("# TYPE ").append(nombre).append(' ').append(tipo).append('\n');
+    }
+
+    private void muestra(String nombre, double valor) {
+        texto.append(nombre).append(' ');
+        numero(valor);
+        texto.append('\n');
+    }
+
+    private void muestra(String nombre, String etiqueta, String valorEtiqueta, double valor) {
+        texto.append(nombre).append('{').append(etiqueta).append("=\"").append(valorEtiqueta).append("\"} ");
+        numero(valor);
+        texto.append('\n');
+    }
+
+    private void numero(double valor) {
+        if (valor == Math.rint(valor) && Math.abs(valor) < 1e15) {
+            texto.append((long) valor);
+        } else {
+            texto.append(valor);
+        }
+    }
+
+    private static double utilizacion(int total, int disponibles) {
+        return total == 0 ? 0.0 : (double) (total - disponibles) / total;
+    }
+
+    /**
+     * @return puerto en que escucha, o -1 si no se inició
+     */
+    public int getPuerto() {
+        return servidor == null ? -1 : servidor.getAddress().getPort();
+    }
+
+    /**
+     * @return URL del endpoint, o null si no se inició
+     */
+    public String getUrl() {
+        if (servidor == null) {
+            return null;
+        }
+        String host = servidor.getAddress().getHostString();
+        return "http://" + (host.indexOf(':') >= 0 ? "[" + host + "]" : host) + ":" + getPuerto() + "/metrics";
+    }
+
+    @Override
+    public void stop() {
+        this.corriendo = false;
+        if (servidor != null) {
+            servidor.stop(0);
+            hiloHttp.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Escribe la traza de {@link TrazadorCasos} en el formato de eventos de
+ * Chrome (chrome://tracing, Perfetto): cada caso es un proceso con una pista
+ * para sus fases de cola y despacho y una por cada ambulancia y equipo que lo
+ * atendió. Cada fase se vuelve un tramo hasta la siguiente de su pista; las
+ * que siguen abiertas al exportar se cierran en ese instante.
+ */
+public class ExportadorTrazaChrome {
+
+    // Pistas dentro del proceso de un caso
+    private static final int PISTA_CASO = 0;
+    private static final int BASE_PISTA_AMBULANCIA = 1_000_000;
+    private static final int BASE_PISTA_EQUIPO = 2_000_000;
+
+    private static final CasoEmergencia.Severity[] SEVERIDADES = CasoEmergencia.Severity.values();
+
+    private final TrazadorCasos trazador;
+
+    public ExportadorTrazaChrome(TrazadorCasos trazador) {
+        this.trazador = trazador;
+    }
+
+    /**
+     * Exporta la traza al archivo indicado.
+     *
+     * @return tramos escritos
+     */
+    public int exportar(Path archivo) throws IOException {
+        try (BufferedWriter escritor = Files.newBufferedWriter(archivo, StandardCharsets.UTF_8)) {
+            return exportar(escritor);
+        }
+    }
+
+    /**
+     * Exporta la traza al escritor, sin cerrarlo.
+     *
+     * @return tramos escritos
+     */
+    public int exportar(Writer escritor) throws IOException {
+        TrazadorCasos.Registros registros = trazador.copiar();
+        int n = registros.cantidad;
+        Integer[] orden = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            orden[i] = i;
+        }
+        // Por caso, por pista y por tiempo: cada grupo contiguo es una pista
+        Arrays.sort(orden, Comparator.<Integer>comparingLong(i -> registros.casos[i])
+                .thenComparingInt(i -> pistaDe(registros, i))
+                .thenComparingLong(i -> registros.tiempos[i]));
+
+        StringBuilder linea = new StringBuilder(256);
+        escritor.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+        int tramos = 0;
+        int eventos = 0;
+        long casoActual = Long.MIN_VALUE;
+        int pistaActual = -1;
+        for (int k = 0; k < n; k++) {
+            int i = orden[k];
+            long caso = registros.casos[i];
+            int pista = pistaDe(registros, i);
+            TrazadorCasos.Fase fase = TrazadorCasos.fase(registros.fases[i]);
+
+            linea.setLength(0);
+            if (caso != casoActual) {
+                casoActual = caso;
+                pistaActual = -1;
+                separar(linea, eventos++);
+                metadatos(linea, "process_name", caso, PISTA_CASO, nombreCaso(registros, orden, k));
+            }
+            if (pista != pistaActual) {
+                pistaActual = pista;
+                separar(linea, eventos++);
+                metadatos(linea, "thread_name", caso, pista, nombrePista(pista));
+            }
+
+            boolean siguienteEnPista = k + 1 < n && registros.casos[orden[k + 1]] == caso
+                    && pistaDe(registros, orden[k + 1]) == pista;
+            long inicio = registros.tiempos[i];
+            if (fase == TrazadorCasos.Fase.COMPLETADO) {
+                separar(linea, eventos++);
+                linea.append("{\"name\":\"").append(fase.getNombre()).append("\",\"ph\":\"i\",\"s\":\"t\",\"ts\":");
+                microsegundos(linea, inicio);
+                linea.append(",\"pid\":").append(caso).append(",\"tid\":").append(pista).append('}');
+            } else if (!fase.esFin()) {
+                separar(linea, eventos++);
+                long fin = siguienteEnPista ? registros.tiempos[orden[k + 1]] : registros.finNs;
+                linea.append("{\"name\":\"").append(fase.getNombre()).append("\",\"cat\":\"")
+                        .append(fase.getPista().name().toLowerCase()).append("\",\"ph\":\"X\",\"ts\":");
+                microsegundos(linea, inicio);
+                linea.append(",\"dur\":");
+                microsegundos(linea, fin - inicio);
+                linea.append(",\"pid\":").append(caso).append(",\"tid\":").append(pista);
+                if (!siguienteEnPista) {
+                    linea.append(",\"args\":{\"abierto\":true}");
+                }
+                linea.append('}');
+                tramos++;
+            }
+            escritor.append(linea);
+        }
+        escritor.write("\n]}\n");
+        return tramos;
+    }
+
+    private static int pistaDe(TrazadorCasos.Registros registros, int i) {
+        return switch (TrazadorCasos.fase(registros.fases[i]).getPista()) {
+            case AMBULANCIA -> BASE_PISTA_AMBULANCIA + registros.datos[i];
+            case EQUIPO -> BASE_PISTA_EQUIPO + registros.datos[i];
+            case CASO -> PISTA_CASO;
+        };
+    }
+
+    /**
+     * Nombre del proceso del caso, con la severidad si se registró su ingreso
+     * (el primer registro del caso en el orden, por ser de la pista 0).
+     */
+    private static String nombreCaso(TrazadorCasos.Registros registros, Integer[] orden, int k) {
+        int i = orden[k];
+        String nombre = "Caso #" + registros.casos[i];
+        if (TrazadorCasos.fase(registros.fases[i]) == TrazadorCasos.Fase.ENCOLADO
+                && registros.datos[i] >= 0 && registros.datos[i] < SEVERIDADES.length) {
+            nombre += " " + SEVERIDADES[registros.datos[i]];
+        }
+        return nombre;
+    }
+
+    private static String nombrePista(int pista) {
+        if (pista >= BASE_PISTA_EQUIPO) {
+            return "Equipo " + (pista - BASE_PISTA_EQUIPO);
+        }
+        if (pista >= BASE_PISTA_AMBULANCIA) {
+            return "Ambulancia " + (pista - BASE_PISTA_AMBULANCIA);
+        }
+        return "Caso";
+    }
+
+    private static void metadatos(StringBuilder linea, String tipo, long pid, int tid, String nombre) {
+        linea.append("{\"name\":\"").append(tipo).append("\",\"ph\":\"M\",\"pid\":").append(pid)
+                .append(",\"tid\":").append(tid).append(",\"args\":{\"name\":\"").append(nombre)
+                .append("\"}}");
+    }
+
+    private static void separar(StringBuilder linea, int eventosPrevios) {
+        if (eventosPrevios > 0) {
+            linea.append(",\n");
+        }
+    }
+
+    /**
+     * Nanosegundos como microsegundos con tres decimales, sin pasar por
+     * String.format.
+     */
+    private static void microsegundos(StringBuilder linea, long nanos) {
+        long valor = Math.max(0, nanos);
+        linea.append(valor / 1000).append('.');
+        long resto = valor % 1000;
+        if (resto < 100) {
+            linea.append('0');
+        }
+        if (resto < 10) {
+            linea.append('0');
+        }
+        linea.append(resto);
+    }
+}
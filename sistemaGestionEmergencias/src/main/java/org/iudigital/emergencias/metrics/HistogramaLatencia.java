@@ -0,0 +1,132 @@
+package org.iudigital.emergencias.metrics;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latencias en milisegundos con buckets log-lineales: valores
+ * menores a 64 se cuentan exactos y por encima cada potencia de dos se divide
+ * en 32 sub-buckets, lo que da un error relativo menor al 3%. Registrar es
+ * O(1) y sin locks, por lo que puede usarse desde cualquier hilo; los
+ * percentiles se calculan recorriendo los buckets.
+ */
+public class HistogramaLatencia {
+
+    private static final int BITS_SUB_BUCKET = 5;
+    private static final int SUB_BUCKETS = 1 << BITS_SUB_BUCKET;
+    private static final int NUM_BUCKETS = (64 - BITS_SUB_BUCKET) * SUB_BUCKETS;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(NUM_BUCKETS);
+    private final LongAdder cantidad = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * Registra un valor. Los negativos se cuentan como 0.
+     *
+     * @param valorMs latencia en milisegundos
+     */
+    public void registrar(long valorMs) {
+        long valor = Math.max(0, valorMs);
+        conteos.incrementAndGet(indiceDe(valor));
+        cantidad.increment();
+        suma.add(valor);
+        maximo.accumulateAndGet(valor, Math::max);
+    }
+
+    /**
+     * Valor bajo el cual cae el porcentaje indicado de las muestras.
+     *
+     * @param percentil entre 0 y 100
+     * @return límite superior del bucket que contiene el percentil, o 0 si no hay muestras
+     */
+    public long percentil(double percentil) {
+        long total = cantidad.sum();
+        if (total == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(percentil / 100.0 * total));
+        long acumulado = 0;
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            acumulado += conteos.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        return maximo.get();
+    }
+
+    public long getCantidad() {
+        return cantidad.sum();
+    }
+
+    public long getSuma() {
+        return suma.sum();
+    }
+
+    /**
+     * Cuenta acumulada de muestras por debajo de cada límite, en una sola
+     * pasada por los buckets (como los buckets {@code le} de Prometheus). Un
+     * bucket se asigna al primer límite que cubre su límite superior, de
+     * modo que el error es el mismo que el de los percentiles.
+     *
+     * @param limites límites ascendentes
+     * @param destino recibe la cuenta acumulada de cada límite
+     */
+    public void acumularHasta(long[] limites, long[] destino) {
+        Arrays.fill(destino, 0);
+        int limite = 0;
+        for (int i = 0; i < NUM_BUCKETS && limite < limites.length; i++) {
+            long conteo = conteos.get(i);
+            if (conteo == 0) {
+                continue;
+            }
+            while (limite < limites.length && limiteSuperior(i) > limites[limite]) {
+                limite++;
+            }
+            if (limite < limites.length) {
+                destino[limite] += conteo;
+            }
+        }
+        for (int k = 1; k < destino.length; k++) {
+            destino[k] += destino[k - 1];
+        }
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long total = cantidad.sum();
+        return total == 0 ? 0 : (double) suma.sum() / total;
+    }
+
+    public void reiniciar() {
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            conteos.set(i, 0);
+        }
+        cantidad.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+
+    static int indiceDe(long valor) {
+        if (valor < 2 * SUB_BUCKETS) {
+            return (int) valor;
+        }
+        int exponente = (63 - Long.numberOfLeadingZeros(valor)) - BITS_SUB_BUCKET;
+        return (exponente + 1) * SUB_BUCKETS + (int) ((valor >>> exponente) - SUB_BUCKETS);
+    }
+
+    static long limiteSuperior(int indice) {
+        if (indice < 2 * SUB_BUCKETS) {
+            return indice;
+        }
+        int exponente = indice / SUB_BUCKETS - 1;
+        long sub = (indice % SUB_BUCKETS) + SUB_BUCKETS;
+        return ((sub + 1) << exponente) - 1;
+    }
+}
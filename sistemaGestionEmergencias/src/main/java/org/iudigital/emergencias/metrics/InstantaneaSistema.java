@@ -0,0 +1,185 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+
+import java.util.List;
+
+/**
+ * Foto inmutable del estado del sistema en un instante: estado de cada
+ * unidad, conteos por estado, cola por severidad y agregados de los casos
+ * completados. La produce {@link MuestreadorTelemetria}; las vistas la leen
+ * sin tomar locks ni recorrer los recursos. La versión crece con cada foto,
+ * así una vista puede omitir el redibujado si no cambió.
+ */
+public final class InstantaneaSistema {
+
+    private static final Ambulancia.StatusAmbulancia[] ESTADOS_AMBULANCIA = Ambulancia.StatusAmbulancia.values();
+    private static final EquipoMedico.StatusEquipo[] ESTADOS_EQUIPO = EquipoMedico.StatusEquipo.values();
+    private static final int SEVERIDADES = CasoEmergencia.Severity.values().length;
+
+    /** Foto sin recursos, disponible antes de la primera muestra. */
+    public static final InstantaneaSistema VACIA = new InstantaneaSistema(0, 0L,
+            new int[0], new byte[0], new long[0], new int[0], new byte[0],
+            new int[SEVERIDADES], 0, 0, 0L, 0L);
+
+    private final long version;
+    private final long marcaTiempoMs;
+
+    private final int[] idsAmbulancias;
+    private final byte[] estadosAmbulancias;
+    private final long[] casosAmbulancias;
+    private final int[] conteoAmbulancias = new int[ESTADOS_AMBULANCIA.length];
+
+    private final int[] idsEquipos;
+    private final byte[] estadosEquipos;
+    private final int[] conteoEquipos = new int[ESTADOS_EQUIPO.length];
+
+    private final int[] colaPorSeveridad;
+    private final int casosEnCola;
+    private final int casosCompletados;
+    private final long sumaEsperaMs;
+    private final long sumaServicioMs;
+
+    /**
+     * Los arreglos pasan a ser de la foto y no deben modificarse después.
+     */
+    InstantaneaSistema(long version, long marcaTiempoMs,
+            int[] idsAmbulancias, byte[] estadosAmbulancias, long[] casosAmbulancias,
+            int[] idsEquipos, byte[] estadosEquipos,
+            int[] colaPorSeveridad, int casosEnCola, int casosCompletados, long sumaEsperaMs, long sumaServicioMs) {
+        this.version = version;
+        this.marcaTiempoMs = marcaTiempoMs;
+        this.idsAmbulancias = idsAmbulancias;
+        this.estadosAmbulancias = estadosAmbulancias;
+        this.casosAmbulancias = casosAmbulancias;
+        for (byte estado : estadosAmbulancias) {
+            conteoAmbulancias[estado]++;
+        }
+        this.idsEquipos = idsEquipos;
+        this.estadosEquipos = estadosEquipos;
+        for (byte estado : estadosEquipos) {
+            conteoEquipos[estado]++;
+        }
+        this.colaPorSeveridad = colaPorSeveridad;
+        this.casosEnCola = casosEnCola;
+        this.casosCompletados = casosCompletados;
+        this.sumaEsperaMs = sumaEsperaMs;
+        this.sumaServicioMs = sumaServicioMs;
+    }
+
+    /**
+     * Foto armada directamente desde las listas, sin muestreador ni detalle
+     * de la cola por severidad ni tiempos promedio. Lee cada unidad por
+     * separado, así que no es coherente como la de {@link EstadoFlota}. Para
+     * usos puntuales, como el panel de consola.
+     */
+    public static InstantaneaSistema de(List<Ambulancia> ambulancias, List<EquipoMedico> equipos,
+            int casosEnCola, int casosCompletados) {
+        Ambulancia[] copiaAmbulancias;
+        synchronized (ambulancias) {
+            copiaAmbulancias = ambulancias.toArray(new Ambulancia[0]);
+        }
+        EquipoMedico[] copiaEquipos;
+        synchronized (equipos) {
+            copiaEquipos = equipos.toArray(new EquipoMedico[0]);
+        }
+        int[] idsAmbulancias = new int[copiaAmbulancias.length];
+        byte[] estadosAmbulancias = new byte[copiaAmbulancias.length];
+        long[] casosAmbulancias = new long[copiaAmbulancias.length];
+        for (int i = 0; i < copiaAmbulancias.length; i++) {
+            idsAmbulancias[i] = copiaAmbulancias[i].getIdAmbulancia();
+            estadosAmbulancias[i] = (byte) copiaAmbulancias[i].getStatusAmbulancia().ordinal();
+            casosAmbulancias[i] = copiaAmbulancias[i].getCasoActualId();
+        }
+        int[] idsEquipos = new int[copiaEquipos.length];
+        byte[] estadosEquipos = new byte[copiaEquipos.length];
+        for (int i = 0; i < copiaEquipos.length; i++) {
+            idsEquipos[i] = copiaEquipos[i].getIdEquipo();
+            estadosEquipos[i] = (byte) copiaEquipos[i].getStatusEquipo().ordinal();
+        }
+        return new InstantaneaSistema(0, System.currentTimeMillis(), idsAmbulancias, estadosAmbulancias,
+                casosAmbulancias, idsEquipos, estadosEquipos, new int[SEVERIDADES], casosEnCola, casosCompletados,
+                0L, 0L);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getMarcaTiempoMs() {
+        return marcaTiempoMs;
+    }
+
+    public int getCantidadAmbulancias() {
+        return idsAmbulancias.length;
+    }
+
+    public int getIdAmbulancia(int indice) {
+        return idsAmbulancias[indice];
+    }
+
+    public Ambulancia.StatusAmbulancia getEstadoAmbulancia(int indice) {
+        return ESTADOS_AMBULANCIA[estadosAmbulancias[indice]];
+    }
+
+    /**
+     * @return id del caso que atendía la ambulancia, o -1 si ninguno
+     */
+    public long getCasoAmbulancia(int indice) {
+        return casosAmbulancias[indice];
+    }
+
+    /**
+     * @return ambulancias que estaban en el estado indicado
+     */
+    public int contarAmbulancias(Ambulancia.StatusAmbulancia estado) {
+        return conteoAmbulancias[estado.ordinal()];
+    }
+
+    public int getCantidadEquipos() {
+        return idsEquipos.length;
+    }
+
+    public int getIdEquipo(int indice) {
+        return idsEquipos[indice];
+    }
+
+    public EquipoMedico.StatusEquipo getEstadoEquipo(int indice) {
+        return ESTADOS_EQUIPO[estadosEquipos[indice]];
+    }
+
+    /**
+     * @return equipos que estaban en el estado indicado
+     */
+    public int contarEquipos(EquipoMedico.StatusEquipo estado) {
+        return conteoEquipos[estado.ordinal()];
+    }
+
+    public int getCasosEnCola() {
+        return casosEnCola;
+    }
+
+    public int getCasosEnCola(CasoEmergencia.Severity severidad) {
+        return colaPorSeveridad[severidad.ordinal()];
+    }
+
+    public int getCasosCompletados() {
+        return casosCompletados;
+    }
+
+    /**
+     * @return espera promedio de los casos completados (ms), 0 si no hay
+     */
+    public double getEsperaPromedioMs() {
+        return casosCompletados == 0 ? 0.0 : (double) sumaEsperaMs / casosCompletados;
+    }
+
+    /**
+     * @return tiempo total de servicio promedio de los casos completados (ms), 0 si no hay
+     */
+    public double getServicioPromedioMs() {
+        return casosCompletados == 0 ? 0.0 : (double) sumaServicioMs / casosCompletados;
+    }
+}
@@ -0,0 +1,41 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.observer.RecursoEstadoListener;
+
+/**
+ * Latencia de despacho en vivo: desde que se recibe el caso hasta que una
+ * ambulancia sale hacia él. Se registra como listener de las ambulancias y
+ * mide en cada paso a EN_RUTA, sea por asignación directa o por reserva
+ * anticipada (un desvío no cambia de estado y no se cuenta); un caso con
+ * varias unidades aporta una muestra por unidad.
+ */
+public class LatenciaDespacho implements RecursoEstadoListener {
+
+    private final HistogramaLatencia latencias = new HistogramaLatencia();
+
+    @Override
+    public void onCambioEstadoAmbulancia(Ambulancia ambulancia,
+            Ambulancia.StatusAmbulancia estadoAnterior,
+            Ambulancia.StatusAmbulancia estadoNuevo) {
+        if (estadoNuevo != Ambulancia.StatusAmbulancia.EN_RUTA) {
+            return;
+        }
+        CasoEmergencia caso = ambulancia.getCasoActual();
+        if (caso != null) {
+            latencias.registrar(System.currentTimeMillis() - caso.getHoraRecibido());
+        }
+    }
+
+    /**
+     * @return histograma de la latencia de despacho (ms)
+     */
+    public HistogramaLatencia getLatencias() {
+        return latencias;
+    }
+
+    public long getDespachos() {
+        return latencias.getCantidad();
+    }
+}
@@ -0,0 +1,127 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.intake.IngresoPorZonas;
+import org.iudigital.emergencias.worker.Stoppable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Muestreador único del estado del sistema. Cada {@code intervaloMs} arma una
+ * {@link InstantaneaSistema} y la publica; monitores de consola, tablero y
+ * vista gráfica leen la última publicada en lugar de recorrer cada uno los
+ * recursos y las colas, de modo que el costo del monitoreo no depende de
+ * cuántas vistas haya.
+ * <p>
+ * El estado de las unidades sale de una copia coherente de
+ * {@link EstadoFlota}, sin tomar el monitor de ninguna unidad. Los agregados
+ * de casos completados se acumulan de forma incremental: en cada muestra solo
+ * se recorren los casos nuevos.
+ */
+public class MuestreadorTelemetria implements Runnable, Stoppable {
+
+    private static final int SEVERIDADES = CasoEmergencia.Severity.values().length;
+    private static final EstadisticaCerrojo CERROJO_COMPLETADOS =
+            RegistroCerrojos.getInstance().obtener("casosCompletados");
+
+    private final EstadoFlota estadoFlota;
+    private final List<CasoEmergencia> casosCompletados;
+    private final IngresoPorZonas ingreso;
+    private final long intervaloMs;
+    private volatile boolean corriendo = true;
+
+    private volatile InstantaneaSistema actual = InstantaneaSistema.VACIA;
+    private long version;
+
+    // Agregados incrementales de los casos completados
+    private int completadosProcesados;
+    private long sumaEsperaMs;
+    private long sumaServicioMs;
+
+    public MuestreadorTelemetria(EstadoFlota estadoFlota, List<CasoEmergencia> casosCompletados,
+            IngresoPorZonas ingreso, long intervaloMs) {
+        if (intervaloMs < 1) {
+            throw new IllegalArgumentException("Intervalo inválido: " + intervaloMs);
+        }
+        this.estadoFlota = estadoFlota;
+        this.casosCompletados = casosCompletados;
+        this.ingreso = ingreso;
+        this.intervaloMs = intervaloMs;
+    }
+
+    @Override
+    public void run() {
+        Thread.currentThread().setName("Muestreador-Telemetria");
+
+        try {
+            while (corriendo) {
+                TimeUnit.MILLISECONDS.sleep(intervaloMs);
+                muestrear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Arma y publica una foto nueva.
+     *
+     * @return la foto publicada
+     */
+    public synchronized InstantaneaSistema muestrear() {
+        EstadoFlota.Copia flota = estadoFlota.copiar();
+
+        int[] colaPorSeveridad = new int[SEVERIDADES];
+        ingreso.contarPorSeveridad(colaPorSeveridad);
+        int enCola = 0;
+        for (int cantidad : colaPorSeveridad) {
+            enCola += cantidad;
+        }
+
+        int completados;
+        long espera = CERROJO_COMPLETADOS.inicioEspera();
+        long larga;
+        synchronized (casosCompletados) {
+            long tenencia = CERROJO_COMPLETADOS.adquirido(espera);
+            completados = casosCompletados.size();
+            if (completados < completadosProcesados) {
+                // La lista se vació (reset): se acumula de nuevo
+                completadosProcesados = 0;
+                sumaEsperaMs = 0;
+                sumaServicioMs = 0;
+            }
+            for (int i = completadosProcesados; i < completados; i++) {
+                CasoEmergencia caso = casosCompletados.get(i);
+                sumaEsperaMs += caso.getTiempoEsperaMs();
+                sumaServicioMs += caso.getTiempoTotalServicioMs();
+            }
+            completadosProcesados = completados;
+            larga = CERROJO_COMPLETADOS.liberado(tenencia);
+        }
+        CERROJO_COMPLETADOS.registrarLarga(larga);
+
+        InstantaneaSistema instantanea = new InstantaneaSistema(++version, System.currentTimeMillis(),
+                flota.idsAmbulancias, flota.estadosAmbulancias, flota.casosAmbulancias,
+                flota.idsEquipos, flota.estadosEquipos, colaPorSeveridad, enCola,
+                completados, sumaEsperaMs, sumaServicioMs);
+        actual = instantanea;
+        return instantanea;
+    }
+
+    /**
+     * @return la última foto publicada, sin bloquear
+     */
+    public InstantaneaSistema getInstantanea() {
+        return actual;
+    }
+
+    public long getIntervaloMs() {
+        return intervaloMs;
+    }
+
+    @Override
+    public void stop() {
+        this.corriendo = false;
+    }
+}
@@ -0,0 +1,59 @@
+package org.iudigital.emergencias.metrics;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registro de las estadísticas de contención por nombre de cerrojo. Los
+ * puntos instrumentados piden su {@link EstadisticaCerrojo} una vez y la
+ * conservan; el reporte final y el exportador de métricas recorren el
+ * registro. Deshabilitado por defecto, con lo que las marcas de tiempo no se
+ * toman.
+ */
+public final class RegistroCerrojos {
+
+    private static final RegistroCerrojos INSTANCE = new RegistroCerrojos();
+
+    private volatile boolean habilitado;
+    private final Map<String, EstadisticaCerrojo> porNombre = new LinkedHashMap<>();
+
+    private RegistroCerrojos() {
+    }
+
+    public static RegistroCerrojos getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return la estadística del cerrojo con ese nombre, creándola si no existe
+     */
+    public synchronized EstadisticaCerrojo obtener(String nombre) {
+        return porNombre.computeIfAbsent(nombre, n -> new EstadisticaCerrojo(n, this));
+    }
+
+    /**
+     * @return estadísticas registradas, en orden de creación
+     */
+    public synchronized List<EstadisticaCerrojo> getEstadisticas() {
+        return new ArrayList<>(porNombre.values());
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    /**
+     * Descarta lo medido en todos los cerrojos, p. ej. al empezar una corrida.
+     */
+    public void reiniciar() {
+        for (EstadisticaCerrojo estadistica : getEstadisticas()) {
+            estadistica.reiniciar();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.iudigital.emergencias.observer.RecursoEstadoListener;
+
+import java.util.EnumMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contabilidad en vivo del cumplimiento de plazos. Se registra como listener
+ * de las ambulancias: cuando una pasa de EN_RUTA a OCUPADA llegó al caso, y
+ * la primera llegada de cada caso se compara contra su hora límite. Lleva
+ * por severidad los plazos cumplidos e incumplidos y el histograma del
+ * retraso de los incumplidos.
+ */
+public class SeguimientoSla implements RecursoEstadoListener {
+
+    private final EnumMap<Severity, LongAdder> cumplidos = new EnumMap<>(Severity.class);
+    private final EnumMap<Severity, LongAdder> incumplidos = new EnumMap<>(Severity.class);
+    private final EnumMap<Severity, HistogramaLatencia> retrasos = new EnumMap<>(Severity.class);
+
+    public SeguimientoSla() {
+        for (Severity severidad : Severity.values()) {
+            cumplidos.put(severidad, new LongAdder());
+            incumplidos.put(severidad, new LongAdder());
+            retrasos.put(severidad, new HistogramaLatencia());
+        }
+    }
+
+    @Override
+    public void onCambioEstadoAmbulancia(Ambulancia ambulancia,
+            Ambulancia.StatusAmbulancia estadoAnterior,
+            Ambulancia.StatusAmbulancia estadoNuevo) {
+        if (estadoAnterior != Ambulancia.StatusAmbulancia.EN_RUTA
+                || estadoNuevo != Ambulancia.StatusAmbulancia.OCUPADA) {
+            return;
+        }
+        CasoEmergencia caso = ambulancia.getCasoActual();
+        long ahora = System.currentTimeMillis();
+        if (caso != null && caso.registrarLlegada(ahora)) {
+            registrar(caso, ahora);
+        }
+    }
+
+    /**
+     * Registra la llegada al caso contra su hora límite.
+     */
+    public void registrar(CasoEmergencia caso, long horaLlegada) {
+        long retraso = horaLlegada - caso.getHoraLimite();
+        if (retraso <= 0) {
+            cumplidos.get(caso.getSeveridad()).increment();
+        } else {
+            incumplidos.get(caso.getSeveridad()).increment();
+            retrasos.get(caso.getSeveridad()).registrar(retraso);
+        }
+    }
+
+    public long getCumplidos(Severity severidad) {
+        return cumplidos.get(severidad).sum();
+    }
+
+    public long getIncumplidos(Severity severidad) {
+        return incumplidos.get(severidad).sum();
+    }
+
+    /**
+     * @return porcentaje de llegadas dentro del plazo, o 100 si no hubo llegadas
+     */
+    public double getPorcentajeCumplimiento(Severity severidad) {
+        long ok = getCumplidos(severidad);
+        long total = ok + getIncumplidos(severidad);
+        return total == 0 ? 100.0 : ok * 100.0 / total;
+    }
+
+    /**
+     * @return histograma del retraso (ms) de las llegadas fuera de plazo
+     */
+    public HistogramaLatencia getRetrasos(Severity severidad) {
+        return retrasos.get(severidad);
+    }
+}
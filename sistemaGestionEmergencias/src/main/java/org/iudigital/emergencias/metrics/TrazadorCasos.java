@@ -0,0 +1,264 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Traza del ciclo de vida de los casos: cola, despacho, viaje, escena,
+ * retorno y cierre, junto con las fases de cada ambulancia y equipo médico
+ * que los atiende. Cada hilo escribe en su propio anillo preasignado (sin
+ * locks ni asignaciones por registro); cuando se llena se pisan los registros
+ * más viejos. {@link ExportadorTrazaChrome} arma los tramos al final.
+ * <p>
+ * El muestreo se decide por id de caso, así que un caso muestreado queda
+ * completo aunque sus fases las registren hilos distintos. Con muestreo 0 el
+ * costo de {@link #registrar} es una lectura y un salto.
+ */
+public final class TrazadorCasos {
+
+    /**
+     * Pista a la que pertenece una fase dentro de la traza de un caso.
+     */
+    public enum Pista {
+        CASO,
+        AMBULANCIA,
+        EQUIPO
+    }
+
+    /**
+     * Fase registrada. Cada una abre un tramo que dura hasta la siguiente de
+     * la misma pista, salvo las finales, que solo cierran el anterior.
+     */
+    public enum Fase {
+        ENCOLADO(Pista.CASO, "En cola", false),
+        DESPACHADO(Pista.CASO, "Despachado", false),
+        COMPLETADO(Pista.CASO, "Completado", true),
+        AMBULANCIA_EN_RUTA(Pista.AMBULANCIA, "En ruta", false),
+        AMBULANCIA_EN_ESCENA(Pista.AMBULANCIA, "En escena", false),
+        AMBULANCIA_RETORNANDO(Pista.AMBULANCIA, "Retornando", false),
+        AMBULANCIA_LIBERADA(Pista.AMBULANCIA, "Liberada", true),
+        EQUIPO_EN_RUTA(Pista.EQUIPO, "En ruta", false),
+        EQUIPO_EN_ESCENA(Pista.EQUIPO, "En escena", false),
+        EQUIPO_RETORNANDO(Pista.EQUIPO, "Retornando", false),
+        EQUIPO_LIBERADO(Pista.EQUIPO, "Liberado", true);
+
+        private final Pista pista;
+        private final String nombre;
+        private final boolean fin;
+
+        Fase(Pista pista, String nombre, boolean fin) {
+            this.pista = pista;
+            this.nombre = nombre;
+            this.fin = fin;
+        }
+
+        public Pista getPista() {
+            return pista;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public boolean esFin() {
+            return fin;
+        }
+    }
+
+    private static final Fase[] FASES = Fase.values();
+    private static final int ESCALA_MUESTREO = 1 << 16;
+    private static final TrazadorCasos INSTANCE = new TrazadorCasos();
+
+    // 0 = apagado; si no, se trazan los casos cuyo hash cae por debajo
+    private volatile int umbralMuestreo;
+    private volatile int capacidad = 8192;
+    private volatile int generacion;
+    private volatile long origenNs = System.nanoTime();
+
+    private final List<Anillo> anillos = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<Anillo> anilloDelHilo = new ThreadLocal<>();
+
+    private TrazadorCasos() {
+    }
+
+    public static TrazadorCasos getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Empieza una traza nueva: descarta los anillos anteriores y toma el
+     * instante actual como origen. Debe llamarse antes de lanzar los hilos
+     * que registran.
+     *
+     * @param muestreo  fracción de casos a trazar, de 0 (apagado) a 1 (todos)
+     * @param capacidad registros por hilo; se redondea a potencia de 2
+     */
+    public synchronized void configurar(double muestreo, int capacidad) {
+        if (!(muestreo >= 0 && muestreo <= 1)) {
+            throw new IllegalArgumentException("Muestreo fuera de [0, 1]: " + muestreo);
+        }
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidad);
+        }
+        int potencia = Integer.highestOneBit(capacidad);
+        this.capacidad = (potencia < capacidad) ? potencia << 1 : potencia;
+        this.origenNs = System.nanoTime();
+        anillos.clear();
+        generacion++;
+        this.umbralMuestreo = (int) Math.ceil(muestreo * ESCALA_MUESTREO);
+    }
+
+    public boolean isHabilitado() {
+        return umbralMuestreo > 0;
+    }
+
+    /**
+     * @return true si los registros del caso entran a la traza
+     */
+    public boolean muestrea(long casoId) {
+        int umbral = umbralMuestreo;
+        return umbral > 0 && (mezclar(casoId) & (ESCALA_MUESTREO - 1)) < umbral;
+    }
+
+    /**
+     * Registra una fase del caso en el anillo del hilo actual, si el caso
+     * está muestreado.
+     *
+     * @param dato severidad (ordinal) al encolar; id de la unidad en las
+     *             fases de ambulancia y equipo o al despachar
+     */
+    public void registrar(CasoEmergencia caso, Fase fase, int dato) {
+        long casoId = caso.getCasoId();
+        if (!muestrea(casoId)) {
+            return;
+        }
+        Anillo anillo = anilloDelHilo.get();
+        if (anillo == null || anillo.generacion != generacion) {
+            anillo = new Anillo(capacidad, generacion);
+            anilloDelHilo.set(anillo);
+            anillos.add(anillo);
+        }
+        anillo.agregar(System.nanoTime() - origenNs, casoId, (byte) fase.ordinal(), dato);
+    }
+
+    /**
+     * Copia los registros vigentes de todos los anillos. Se puede llamar con
+     * la simulación en marcha: lo que se pisa durante la copia se descarta.
+     */
+    Registros copiar() {
+        List<Anillo> actuales = new ArrayList<>(anillos);
+        int total = 0;
+        for (Anillo anillo : actuales) {
+            total += (int) Math.min(anillo.escritos.getAcquire(), anillo.tiempos.length);
+        }
+        Registros registros = new Registros(total, System.nanoTime() - origenNs);
+        for (Anillo anillo : actuales) {
+            anillo.copiarEn(registros);
+        }
+        return registros;
+    }
+
+    /**
+     * @return registros perdidos por anillos llenos desde la última configuración
+     */
+    public long getDescartados() {
+        long descartados = 0;
+        for (Anillo anillo : anillos) {
+            descartados += Math.max(0, anillo.escritos.get() - anillo.tiempos.length);
+        }
+        return descartados;
+    }
+
+    static Fase fase(byte ordinal) {
+        return FASES[ordinal];
+    }
+
+    // Finalizador de SplitMix64: ids consecutivos quedan bien repartidos
+    private static long mezclar(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Anillo de un hilo. Un solo escritor; el contador se publica con
+     * semántica de liberación después de escribir el registro.
+     */
+    private static final class Anillo {
+        final int generacion;
+        final int mascara;
+        final long[] tiempos;
+        final long[] casos;
+        final int[] datos;
+        final byte[] fases;
+        final AtomicLong escritos = new AtomicLong();
+
+        Anillo(int capacidad, int generacion) {
+            this.generacion = generacion;
+            this.mascara = capacidad - 1;
+            this.tiempos = new long[capacidad];
+            this.casos = new long[capacidad];
+            this.datos = new int[capacidad];
+            this.fases = new byte[capacidad];
+        }
+
+        void agregar(long tiempoNs, long casoId, byte fase, int dato) {
+            long n = escritos.get();
+            int i = (int) (n & mascara);
+            tiempos[i] = tiempoNs;
+            casos[i] = casoId;
+            datos[i] = dato;
+            fases[i] = fase;
+            escritos.setRelease(n + 1);
+        }
+
+        void copiarEn(Registros destino) {
+            long fin = escritos.getAcquire();
+            long inicio = Math.max(0, fin - tiempos.length);
+            int base = destino.cantidad;
+            for (long n = inicio; n < fin && destino.cantidad < destino.tiempos.length; n++) {
+                int i = (int) (n & mascara);
+                int j = destino.cantidad++;
+                destino.tiempos[j] = tiempos[i];
+                destino.casos[j] = casos[i];
+                destino.datos[j] = datos[i];
+                destino.fases[j] = fases[i];
+            }
+            // Los registros que el escritor alcanzó durante la copia pueden
+            // estar rotos, incluido el que tal vez esté escribiendo ahora
+            long pisados = escritos.getAcquire() + 1 - tiempos.length - inicio;
+            if (pisados > 0) {
+                int validos = destino.cantidad - base - (int) Math.min(pisados, destino.cantidad - base);
+                System.arraycopy(destino.tiempos, destino.cantidad - validos, destino.tiempos, base, validos);
+                System.arraycopy(destino.casos, destino.cantidad - validos, destino.casos, base, validos);
+                System.arraycopy(destino.datos, destino.cantidad - validos, destino.datos, base, validos);
+                System.arraycopy(destino.fases, destino.cantidad - validos, destino.fases, base, validos);
+                destino.cantidad = base + validos;
+            }
+        }
+    }
+
+    /**
+     * Registros copiados de todos los anillos, sin orden.
+     */
+    static final class Registros {
+        final long[] tiempos;
+        final long[] casos;
+        final int[] datos;
+        final byte[] fases;
+        final long finNs;
+        int cantidad;
+
+        Registros(int capacidad, long finNs) {
+            this.tiempos = new long[capacidad];
+            this.casos = new long[capacidad];
+            this.datos = new int[capacidad];
+            this.fases = new byte[capacidad];
+            this.finNs = finNs;
+        }
+    }
+}
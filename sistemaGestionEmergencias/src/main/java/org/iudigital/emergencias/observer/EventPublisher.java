@@ -3,6 +3,7 @@ package org.iudigital.emergencias.observer;
 import org.iudigital.emergencias.domain.Ambulancia;
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.metrics.HistogramaLatencia;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -14,6 +15,10 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * Implementa el patrón Observer para notificar a múltiples observadores
  * sobre eventos del sistema de manera desacoplada.
  * Thread-safe usando CopyOnWriteArrayList.
+ * <p>
+ * La entrega es síncrona: quien publica espera a todos los observadores.
+ * Esa demora (el retraso que el bus agrega al hilo que publica) se registra
+ * por evento en microsegundos.
  */
 public class EventPublisher {
 
@@ -22,6 +27,9 @@ public class EventPublisher {
     // Lista thread-safe de observadores
     private final List<EmergenciaObserver> observers;
 
+    // Demora de entrega de cada evento a todos los observadores (µs)
+    private final HistogramaLatencia demoraEntregaUs = new HistogramaLatencia();
+
     /**
      * Constructor que inicializa la lista de observadores.
      */
@@ -66,6 +74,7 @@ public class EventPublisher {
      */
     public void publicarNuevoCasoRecibido(CasoEmergencia caso, String operadorId, int pendientes) {
         logger.debug("Publicando evento: nuevo caso recibido #{}", caso.getCasoId());
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onNuevoCasoRecibido(caso, operadorId, pendientes);
@@ -73,6 +82,7 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre nuevo caso", e);
             }
         }
+        registrarEntrega(inicio);
     }
 
     /**
@@ -81,6 +91,7 @@ public class EventPublisher {
     public void publicarCasoAsignado(CasoEmergencia caso, Ambulancia ambulancia) {
         logger.debug("Publicando evento: caso #{} asignado a ambulancia {}",
                 caso.getCasoId(), ambulancia.getIdAmbulancia());
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onCasoAsignado(caso, ambulancia);
@@ -88,6 +99,7 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre caso asignado", e);
             }
         }
+        registrarEntrega(inicio);
     }
 
     /**
@@ -96,6 +108,7 @@ public class EventPublisher {
     public void publicarEquipoMedicoAsignado(CasoEmergencia caso, EquipoMedico equipo) {
         logger.debug("Publicando evento: equipo médico {} asignado a caso #{}",
                 equipo.getIdEquipo(), caso.getCasoId());
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onEquipoMedicoAsignado(caso, equipo);
@@ -103,6 +116,7 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre equipo médico asignado", e);
             }
         }
+        registrarEntrega(inicio);
     }
 
     /**
@@ -110,6 +124,7 @@ public class EventPublisher {
      */
     public void publicarCasoCompletado(CasoEmergencia caso, long tiempoEsperaMs, long tiempoTotalMs) {
         logger.debug("Publicando evento: caso #{} completado", caso.getCasoId());
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onCasoCompletado(caso, tiempoEsperaMs, tiempoTotalMs);
@@ -117,6 +132,7 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre caso completado", e);
             }
         }
+        registrarEntrega(inicio);
     }
 
     /**
@@ -127,6 +143,7 @@ public class EventPublisher {
             Ambulancia.StatusAmbulancia estadoNuevo) {
         logger.debug("Publicando evento: cambio estado ambulancia {} de {} a {}",
                 ambulancia.getIdAmbulancia(), estadoAnterior, estadoNuevo);
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onCambioEstadoAmbulancia(ambulancia, estadoAnterior, estadoNuevo);
@@ -134,6 +151,7 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre cambio estado ambulancia", e);
             }
         }
+        registrarEntrega(inicio);
     }
 
     /**
@@ -144,6 +162,7 @@ public class EventPublisher {
             EquipoMedico.StatusEquipo estadoNuevo) {
         logger.debug("Publicando evento: cambio estado equipo médico {} de {} a {}",
                 equipo.getIdEquipo(), estadoAnterior, estadoNuevo);
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onCambioEstadoEquipoMedico(equipo, estadoAnterior, estadoNuevo);
@@ -151,6 +170,7 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre cambio estado equipo médico", e);
             }
         }
+        registrarEntrega(inicio);
     }
 
     /**
@@ -159,6 +179,7 @@ public class EventPublisher {
     public void publicarRecursoNoDisponible(CasoEmergencia caso, String tipoRecurso) {
         logger.debug("Publicando evento: recurso {} no disponible para caso #{}",
                 tipoRecurso, caso.getCasoId());
+        long inicio = System.nanoTime();
         for (EmergenciaObserver observer : observers) {
             try {
                 observer.onRecursoNoDisponible(caso, tipoRecurso);
@@ -166,6 +187,18 @@ public class EventPublisher {
                 logger.error("Error al notificar observer sobre recurso no disponible", e);
             }
         }
+        registrarEntrega(inicio);
+    }
+
+    private void registrarEntrega(long inicioNs) {
+        demoraEntregaUs.registrar((System.nanoTime() - inicioNs) / 1_000);
+    }
+
+    /**
+     * @return demora de entrega de los eventos a los observadores, en microsegundos
+     */
+    public HistogramaLatencia getDemoraEntregaUs() {
+        return demoraEntregaUs;
     }
 
     /**
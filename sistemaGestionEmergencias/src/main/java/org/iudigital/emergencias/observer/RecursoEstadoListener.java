@@ -0,0 +1,39 @@
+package org.iudigital.emergencias.observer;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+
+/**
+ * Listener síncrono de cambios de estado de los recursos.
+ * A diferencia de {@link EmergenciaObserver}, se invoca en el mismo hilo que
+ * realiza la transición y antes de que otro hilo pueda observar el siguiente
+ * cambio, por lo que sirve para mantener estructuras internas (índices,
+ * contadores) consistentes con el estado real. Las implementaciones deben ser
+ * rápidas y no bloquear.
+ */
+public interface RecursoEstadoListener {
+
+    /**
+     * Notifica un cambio de estado de una ambulancia.
+     *
+     * @param ambulancia     la ambulancia
+     * @param estadoAnterior el estado anterior
+     * @param estadoNuevo    el estado nuevo
+     */
+    default void onCambioEstadoAmbulancia(Ambulancia ambulancia,
+            Ambulancia.StatusAmbulancia estadoAnterior,
+            Ambulancia.StatusAmbulancia estadoNuevo) {
+    }
+
+    /**
+     * Notifica un cambio de estado de un equipo médico.
+     *
+     * @param equipo         el equipo médico
+     * @param estadoAnterior el estado anterior
+     * @param estadoNuevo    el estado nuevo
+     */
+    default void onCambioEstadoEquipoMedico(EquipoMedico equipo,
+            EquipoMedico.StatusEquipo estadoAnterior,
+            EquipoMedico.StatusEquipo estadoNuevo) {
+    }
+}
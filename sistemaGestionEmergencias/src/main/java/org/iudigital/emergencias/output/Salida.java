@@ -0,0 +1,34 @@
+package org.iudigital.emergencias.output;
+
+/**
+ * Destino de los mensajes de progreso que los workers escriben en cada
+ * transición. Se inyecta en cada componente para que la simulación pueda
+ * correr con la consola sincrónica, sin salida o con una salida asincrónica
+ * que no bloquea a los hilos que escriben.
+ */
+public interface Salida {
+
+    /**
+     * @return false si la salida descarta todo; quien arma un texto costoso
+     *         puede consultarlo antes de construirlo
+     */
+    boolean habilitada();
+
+    /**
+     * Escribe una línea tal cual.
+     */
+    void linea(String texto);
+
+    /**
+     * Escribe una línea con formato ({@link String#format}). Las
+     * implementaciones pueden diferir el formateo, por lo que los argumentos
+     * no deben modificarse después de la llamada.
+     */
+    void linea(String formato, Object... args);
+
+    /**
+     * Espera a que se escriba lo pendiente. Por defecto no hay nada pendiente.
+     */
+    default void vaciar() {
+    }
+}
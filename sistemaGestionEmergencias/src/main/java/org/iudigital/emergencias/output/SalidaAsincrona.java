@@ -0,0 +1,173 @@
+package org.iudigital.emergencias.output;
+
+import org.iudigital.emergencias.worker.Stoppable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Salida asincrónica con buffer acotado: los workers solo encolan el mensaje
+ * (sin formatear) y un hilo escritor propio lo formatea y lo escribe en lotes,
+ * con un flush por lote. Nunca bloquea a quien escribe: si el buffer está
+ * lleno el mensaje se descarta y se cuenta.
+ */
+public class SalidaAsincrona implements Salida, Stoppable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SalidaAsincrona.class);
+
+    public static final int CAPACIDAD_PREDETERMINADA = 65_536;
+
+    private static final int MENSAJES_POR_LOTE = 1024;
+    private static final long ESPERA_VACIADO_MS = 5000;
+
+    private final PrintStream destino;
+    private final ArrayBlockingQueue<Mensaje> cola;
+    private final Thread escritor;
+
+    private final LongAdder encolados = new LongAdder();
+    private final LongAdder escritos = new LongAdder();
+    private final LongAdder descartados = new LongAdder();
+    private volatile boolean corriendo = true;
+
+    /**
+     * Mensaje pendiente: texto literal si no tiene argumentos, o formato y
+     * argumentos para {@link String#format}.
+     */
+    private static final class Mensaje {
+        final String texto;
+        final Object[] args;
+
+        Mensaje(String texto, Object[] args) {
+            this.texto = texto;
+            this.args = args;
+        }
+
+        String formatear() {
+            if (args == null) {
+                return texto;
+            }
+            try {
+                return String.format(texto, args);
+            } catch (RuntimeException e) {
+                return texto;
+            }
+        }
+    }
+
+    /**
+     * @param destino   stream donde escribe el hilo escritor
+     * @param capacidad mensajes que admite el buffer antes de descartar
+     */
+    public SalidaAsincrona(PrintStream destino, int capacidad) {
+        if (capacidad < 1) {
+            throw new IllegalArgumentException("Capacidad inválida: " + capacidad);
+        }
+        this.destino = destino;
+        this.cola = new ArrayBlockingQueue<>(capacidad);
+        this.escritor = new Thread(this::escribir, "Salida-Asincrona");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+    }
+
+    @Override
+    public boolean habilitada() {
+        return true;
+    }
+
+    @Override
+    public void linea(String texto) {
+        encolar(new Mensaje(texto, null));
+    }
+
+    @Override
+    public void linea(String formato, Object... args) {
+        encolar(new Mensaje(formato, args));
+    }
+
+    private void encolar(Mensaje mensaje) {
+        if (corriendo && cola.offer(mensaje)) {
+            encolados.increment();
+        } else {
+            descartados.increment();
+        }
+    }
+
+    private void escribir() {
+        List<Mensaje> lote = new ArrayList<>(MENSAJES_POR_LOTE);
+        StringBuilder texto = new StringBuilder();
+        String separador = System.lineSeparator();
+        try {
+            while (corriendo || !cola.isEmpty()) {
+                Mensaje primero = cola.poll(100, TimeUnit.MILLISECONDS);
+                if (primero == null) {
+                    continue;
+                }
+                lote.add(primero);
+                cola.drainTo(lote, MENSAJES_POR_LOTE - 1);
+                for (Mensaje mensaje : lote) {
+                    texto.append(mensaje.formatear()).append(separador);
+                }
+                destino.print(texto);
+                destino.flush();
+                escritos.add(lote.size());
+                lote.clear();
+                texto.setLength(0);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Espera, hasta {@value #ESPERA_VACIADO_MS} ms, a que se escriba todo lo
+     * encolado hasta ahora. Se llama durante el apagado, cuando el hilo
+     * puede estar interrumpido: la espera no se corta y la interrupción se
+     * restablece al salir.
+     */
+    @Override
+    public void vaciar() {
+        long objetivo = encolados.sum();
+        long limite = System.currentTimeMillis() + ESPERA_VACIADO_MS;
+        boolean interrumpido = false;
+        while (escritos.sum() < objetivo && escritor.isAlive() && System.currentTimeMillis() < limite) {
+            try {
+                TimeUnit.MILLISECONDS.sleep(5);
+            } catch (InterruptedException e) {
+                interrumpido = true;
+            }
+        }
+        if (interrumpido) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Deja de aceptar mensajes; el escritor termina después de escribir lo
+     * que quedaba en el buffer.
+     */
+    @Override
+    public void stop() {
+        corriendo = false;
+        if (descartados.sum() > 0) {
+            logger.warn("Salida asincrónica: {} mensajes descartados por buffer lleno", descartados.sum());
+        }
+    }
+
+    public long getEscritos() {
+        return escritos.sum();
+    }
+
+    public long getDescartados() {
+        return descartados.sum();
+    }
+
+    public int getPendientes() {
+        return cola.size();
+    }
+}
@@ -0,0 +1,30 @@
+package org.iudigital.emergencias.output;
+
+/**
+ * Escribe directamente en {@code System.out}. Es el comportamiento
+ * original: cada línea toma el lock del stream, por lo que a tasas altas
+ * los workers se serializan en la consola.
+ */
+public class SalidaConsola implements Salida {
+
+    private static final SalidaConsola INSTANCIA = new SalidaConsola();
+
+    public static SalidaConsola getInstance() {
+        return INSTANCIA;
+    }
+
+    @Override
+    public boolean habilitada() {
+        return true;
+    }
+
+    @Override
+    public void linea(String texto) {
+        System.out.println(texto);
+    }
+
+    @Override
+    public void linea(String formato, Object... args) {
+        System.out.println(String.format(formato, args));
+    }
+}
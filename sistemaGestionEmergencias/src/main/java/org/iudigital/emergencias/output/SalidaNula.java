@@ -0,0 +1,27 @@
+package org.iudigital.emergencias.output;
+
+/**
+ * Descarta todos los mensajes: modo silencioso para benchmarks y corridas
+ * sin interfaz.
+ */
+public class SalidaNula implements Salida {
+
+    private static final SalidaNula INSTANCIA = new SalidaNula();
+
+    public static SalidaNula getInstance() {
+        return INSTANCIA;
+    }
+
+    @Override
+    public boolean habilitada() {
+        return false;
+    }
+
+    @Override
+    public void linea(String texto) {
+    }
+
+    @Override
+    public void linea(String formato, Object... args) {
+    }
+}
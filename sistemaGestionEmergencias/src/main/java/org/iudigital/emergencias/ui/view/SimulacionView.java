@@ -19,7 +19,10 @@ import javafx.util.Duration;
 import org.iudigital.emergencias.domain.Ambulancia;
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.geo.Ubicacion;
 import org.iudigital.emergencias.manager.SimulacionManager;
+import org.iudigital.emergencias.metrics.InstantaneaSistema;
 import org.iudigital.emergencias.observer.EventPublisher;
 import org.iudigital.emergencias.ui.model.SimulacionConfig;
 import org.iudigital.emergencias.ui.observer.JavaFXObserver;
@@ -57,6 +60,7 @@ public class SimulacionView {
     private Timeline uiUpdater;
     private long startTime;
     private boolean simulacionTerminada = false;
+    private long versionRecursosMostrada = -1;
     private final Random random = new Random();
 
     // Entidades visuales
@@ -342,8 +346,9 @@ public class SimulacionView {
             timeLabel.setText(String.format("Tiempo: %ds / %ds", elapsed, config.getDuracionSegundos()));
             progressBar.setProgress(progress);
 
-            int completados = manager.getCasosCompletados().size();
-            int enCola = manager.getColaCasosEmergencia().size();
+            InstantaneaSistema instantanea = manager.getInstantanea();
+            int completados = instantanea.getCasosCompletados();
+            int enCola = instantanea.getCasosEnCola();
             casosLabel.setText(String.format("Casos: %d atendidos | %d en cola", completados, enCola));
 
             // Detectar si el tiempo terminó (solo una vez)
@@ -352,28 +357,33 @@ public class SimulacionView {
                 detenerSimulacion();
             }
 
-            updateStatsPanel();
+            updateStatsPanel(instantanea);
         });
     }
 
-    private void updateStatsPanel() {
-        recursosPanel.getChildren().clear();
+    private void updateStatsPanel(InstantaneaSistema instantanea) {
+        // Los recursos solo se rearman si hay una foto nueva
+        if (instantanea.getVersion() != versionRecursosMostrada) {
+            versionRecursosMostrada = instantanea.getVersion();
+            recursosPanel.getChildren().clear();
 
-        // Actualizar recursos
-        for (Ambulancia amb : manager.getAmbulancias()) {
-            HBox stat = createStatRow(
-                    "🚑 AMB-" + amb.getIdAmbulancia(),
-                    amb.getStatusAmbulancia().toString(),
-                    getColorForStatus(amb.getStatusAmbulancia()));
-            recursosPanel.getChildren().add(stat);
-        }
+            for (int i = 0; i < instantanea.getCantidadAmbulancias(); i++) {
+                Ambulancia.StatusAmbulancia estado = instantanea.getEstadoAmbulancia(i);
+                HBox stat = createStatRow(
+                        "🚑 AMB-" + instantanea.getIdAmbulancia(i),
+                        estado.toString(),
+                        getColorForStatus(estado));
+                recursosPanel.getChildren().add(stat);
+            }
 
-        for (EquipoMedico eq : manager.getEquiposMedicos()) {
-            HBox stat = createStatRow(
-                    "⚕️ EQM-" + eq.getIdEquipo(),
-                    eq.getStatusEquipo().toString(),
-                    getColorForEquipoStatus(eq.getStatusEquipo()));
-            recursosPanel.getChildren().add(stat);
+            for (int i = 0; i < instantanea.getCantidadEquipos(); i++) {
+                EquipoMedico.StatusEquipo estado = instantanea.getEstadoEquipo(i);
+                HBox stat = createStatRow(
+                        "⚕️ EQM-" + instantanea.getIdEquipo(i),
+                        estado.toString(),
+                        getColorForEquipoStatus(estado));
+                recursosPanel.getChildren().add(stat);
+            }
         }
 
         // Actualizar panel de hilos
@@ -548,8 +558,10 @@ public class SimulacionView {
 
     public void addCasoVisual(CasoEmergencia caso) {
         Platform.runLater(() -> {
-            double x = random.nextDouble() * (mapCanvas.getWidth() - 100) + 50;
-            double y = random.nextDouble() * (mapCanvas.getHeight() - 100) + 50;
+            // Ubicar el caso según las coordenadas registradas de su lugar
+            Ubicacion ubicacion = RegistroUbicaciones.getInstance().get(caso.getUbicacionId());
+            double x = ubicacion.getX() / RegistroUbicaciones.LADO_CIUDAD_KM * (mapCanvas.getWidth() - 100) + 50;
+            double y = ubicacion.getY() / RegistroUbicaciones.LADO_CIUDAD_KM * (mapCanvas.getHeight() - 100) + 50;
             casosVisuales.add(new CasoVisual(caso, x, y));
         });
     }
@@ -602,13 +614,13 @@ public class SimulacionView {
                         "⏳ Casos en cola: %d\n" +
                         "📊 Eficiencia: %.1f%%",
                         (System.currentTimeMillis() - startTime) / 1000,
-                        manager.getCasosCompletados().size() + manager.getColaCasosEmergencia().size(),
+                        manager.getCasosCompletados().size() + manager.getCasosPendientes(),
                         manager.getCasosCompletados().size(),
-                        manager.getColaCasosEmergencia().size(),
+                        manager.getCasosPendientes(),
                         manager.getCasosCompletados().isEmpty() ? 0
                                 : (manager.getCasosCompletados().size() * 100.0) /
                                         (manager.getCasosCompletados().size()
-                                                + manager.getColaCasosEmergencia().size()))));
+                                                + manager.getCasosPendientes()))));
 
         // Ambulancias
         StringBuilder ambStats = new StringBuilder();
@@ -3,6 +3,9 @@ package org.iudigital.emergencias.util;
 import org.iudigital.emergencias.domain.Ambulancia;
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.metrics.InstantaneaSistema;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 
 import java.util.List;
 
@@ -91,66 +94,111 @@ public class ConsoleUI {
             List<EquipoMedico> equipos,
             int casosEnCola,
             int casosCompletados) {
-        System.out.println("\n" + AnsiColors.BRIGHT_WHITE + TOP_LEFT +
-                repetir(HORIZONTAL, 76) + TOP_RIGHT + AnsiColors.RESET);
-        System.out.println(AnsiColors.BRIGHT_WHITE + VERTICAL +
-                centrar(" ESTADO DEL SISTEMA EN TIEMPO REAL ", 76) +
-                VERTICAL + AnsiColors.RESET);
-        System.out.println(AnsiColors.BRIGHT_WHITE + T_RIGHT +
-                repetir(HORIZONTAL, 76) + T_LEFT + AnsiColors.RESET);
+        mostrarPanelRecursos(SalidaConsola.getInstance(), ambulancias, equipos, casosEnCola, casosCompletados);
+    }
+
+    /**
+     * Crea el panel de estado de recursos y lo escribe en la salida indicada
+     * como un único bloque, para que no se intercale con otros mensajes.
+     * Para refrescos frecuentes o flotas grandes ver {@link TableroRecursos}.
+     */
+    public static void mostrarPanelRecursos(Salida salida,
+            List<Ambulancia> ambulancias,
+            List<EquipoMedico> equipos,
+            int casosEnCola,
+            int casosCompletados) {
+        mostrarPanelRecursos(salida, InstantaneaSistema.de(ambulancias, equipos, casosEnCola, casosCompletados));
+    }
+
+    /**
+     * Crea el panel de estado de recursos a partir de una foto del sistema.
+     */
+    public static void mostrarPanelRecursos(Salida salida, InstantaneaSistema instantanea) {
+        StringBuilder panel = new StringBuilder(4096);
+        panel.append('\n').append(AnsiColors.BRIGHT_WHITE).append(TOP_LEFT)
+                .append(repetir(HORIZONTAL, 76)).append(TOP_RIGHT).append(AnsiColors.RESET).append('\n');
+        panel.append(AnsiColors.BRIGHT_WHITE).append(VERTICAL)
+                .append(centrar(" ESTADO DEL SISTEMA EN TIEMPO REAL ", 76))
+                .append(VERTICAL).append(AnsiColors.RESET).append('\n');
+        separador(panel);
 
         // Sección de Ambulancias
-        System.out.println(AnsiColors.BRIGHT_WHITE + VERTICAL +
-                AnsiColors.BRIGHT_YELLOW + " 🚑 AMBULANCIAS " +
-                AnsiColors.BRIGHT_WHITE + repetir(" ", 61) + VERTICAL + AnsiColors.RESET);
-
-        for (Ambulancia amb : ambulancias) {
-            String status = dibujarBarraEstado(amb);
-            System.out.println(AnsiColors.BRIGHT_WHITE + VERTICAL + "  " + status +
-                    repetir(" ", 74 - status.replaceAll("\u001B\\[[;\\d]*m", "").length()) +
-                    VERTICAL + AnsiColors.RESET);
+        panel.append(AnsiColors.BRIGHT_WHITE).append(VERTICAL)
+                .append(AnsiColors.BRIGHT_YELLOW).append(" 🚑 AMBULANCIAS ")
+                .append(AnsiColors.BRIGHT_WHITE).append(repetir(" ", 61)).append(VERTICAL)
+                .append(AnsiColors.RESET).append('\n');
+        for (int i = 0; i < instantanea.getCantidadAmbulancias(); i++) {
+            filaPanel(panel, "  " + dibujarBarraEstado(instantanea, i));
         }
-
-        System.out.println(AnsiColors.BRIGHT_WHITE + T_RIGHT +
-                repetir(HORIZONTAL, 76) + T_LEFT + AnsiColors.RESET);
+        separador(panel);
 
         // Sección de Equipos Médicos
-        System.out.println(AnsiColors.BRIGHT_WHITE + VERTICAL +
-                AnsiColors.BRIGHT_GREEN + " ⚕️  EQUIPOS MÉDICOS " +
-                AnsiColors.BRIGHT_WHITE + repetir(" ", 56) + VERTICAL + AnsiColors.RESET);
-
-        for (EquipoMedico eq : equipos) {
-            String status = dibujarBarraEstadoEquipo(eq);
-            System.out.println(AnsiColors.BRIGHT_WHITE + VERTICAL + "  " + status +
-                    repetir(" ", 74 - status.replaceAll("\u001B\\[[;\\d]*m", "").length()) +
-                    VERTICAL + AnsiColors.RESET);
+        panel.append(AnsiColors.BRIGHT_WHITE).append(VERTICAL)
+                .append(AnsiColors.BRIGHT_GREEN).append(" ⚕️  EQUIPOS MÉDICOS ")
+                .append(AnsiColors.BRIGHT_WHITE).append(repetir(" ", 56)).append(VERTICAL)
+                .append(AnsiColors.RESET).append('\n');
+        for (int i = 0; i < instantanea.getCantidadEquipos(); i++) {
+            filaPanel(panel, "  " + dibujarBarraEstadoEquipo(instantanea, i));
         }
-
-        System.out.println(AnsiColors.BRIGHT_WHITE + T_RIGHT +
-                repetir(HORIZONTAL, 76) + T_LEFT + AnsiColors.RESET);
+        separador(panel);
 
         // Estadísticas
-        String stats = String.format(" 📊 Cola: %s%d%s | Completados: %s%d%s ",
-                AnsiColors.BRIGHT_YELLOW, casosEnCola, AnsiColors.RESET,
-                AnsiColors.BRIGHT_GREEN, casosCompletados, AnsiColors.RESET);
-        System.out.println(AnsiColors.BRIGHT_WHITE + VERTICAL + stats +
-                repetir(" ", 76 - stats.replaceAll("\u001B\\[[;\\d]*m", "").length()) +
-                VERTICAL + AnsiColors.RESET);
-
-        System.out.println(AnsiColors.BRIGHT_WHITE + BOTTOM_LEFT +
-                repetir(HORIZONTAL, 76) + BOTTOM_RIGHT + AnsiColors.RESET);
+        filaPanel(panel, String.format(" 📊 Cola: %s%d%s | Completados: %s%d%s ",
+                AnsiColors.BRIGHT_YELLOW, instantanea.getCasosEnCola(), AnsiColors.RESET,
+                AnsiColors.BRIGHT_GREEN, instantanea.getCasosCompletados(), AnsiColors.RESET));
+
+        panel.append(AnsiColors.BRIGHT_WHITE).append(BOTTOM_LEFT)
+                .append(repetir(HORIZONTAL, 76)).append(BOTTOM_RIGHT).append(AnsiColors.RESET);
+        salida.linea(panel.toString());
+    }
+
+    private static void separador(StringBuilder panel) {
+        panel.append(AnsiColors.BRIGHT_WHITE).append(T_RIGHT)
+                .append(repetir(HORIZONTAL, 76)).append(T_LEFT).append(AnsiColors.RESET).append('\n');
+    }
+
+    /**
+     * Agrega una fila del panel con el contenido rellenado hasta el borde.
+     */
+    private static void filaPanel(StringBuilder panel, String contenido) {
+        panel.append(AnsiColors.BRIGHT_WHITE).append(VERTICAL).append(contenido)
+                .append(repetir(" ", 76 - anchoVisible(contenido)))
+                .append(VERTICAL).append(AnsiColors.RESET).append('\n');
+    }
+
+    /**
+     * Ancho en columnas de un texto, sin contar las secuencias de escape
+     * ANSI (ESC '[' parámetros letra final). Recorre el texto una vez, sin
+     * expresiones regulares; los pares sustitutos (emoji) cuentan como dos
+     * columnas, igual que se ven en la mayoría de las terminales.
+     */
+    public static int anchoVisible(String texto) {
+        int ancho = 0;
+        int n = texto.length();
+        for (int i = 0; i < n; i++) {
+            char c = texto.charAt(i);
+            if (c == '\u001B' && i + 1 < n && texto.charAt(i + 1) == '[') {
+                i += 2;
+                while (i < n && (texto.charAt(i) < '@' || texto.charAt(i) > '~')) {
+                    i++;
+                }
+            } else {
+                ancho++;
+            }
+        }
+        return ancho;
     }
 
     /**
      * Dibuja una barra de estado visual para una ambulancia.
      */
-    private static String dibujarBarraEstado(Ambulancia ambulancia) {
-        String id = String.format("AMB-%d", ambulancia.getIdAmbulancia());
+    private static String dibujarBarraEstado(InstantaneaSistema instantanea, int indice) {
+        String id = String.format("AMB-%d", instantanea.getIdAmbulancia(indice));
         String statusText;
         String color;
         String icon;
 
-        switch (ambulancia.getStatusAmbulancia()) {
+        switch (instantanea.getEstadoAmbulancia(indice)) {
             case DISPONIBLE -> {
                 statusText = "DISPONIBLE";
                 color = AnsiColors.BRIGHT_GREEN;
@@ -178,7 +226,7 @@ public class ConsoleUI {
             }
         }
 
-        long casoId = ambulancia.getCasoActualId();
+        long casoId = instantanea.getCasoAmbulancia(indice);
         String casoInfo = (casoId != -1) ? String.format("Caso #%d", casoId) : "";
 
         return String.format("%s%s %s [%s%s%s] %s",
@@ -188,13 +236,13 @@ public class ConsoleUI {
     /**
      * Dibuja una barra de estado visual para un equipo médico.
      */
-    private static String dibujarBarraEstadoEquipo(EquipoMedico equipo) {
-        String id = String.format("EQM-%d", equipo.getIdEquipo());
+    private static String dibujarBarraEstadoEquipo(InstantaneaSistema instantanea, int indice) {
+        String id = String.format("EQM-%d", instantanea.getIdEquipo(indice));
         String statusText;
         String color;
         String icon;
 
-        switch (equipo.getStatusEquipo()) {
+        switch (instantanea.getEstadoEquipo(indice)) {
             case DISPONIBLE -> {
                 statusText = "DISPONIBLE";
                 color = AnsiColors.BRIGHT_GREEN;
@@ -0,0 +1,259 @@
+package org.iudigital.emergencias.util;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * Pantalla de terminal con doble buffer de celdas. Se dibuja en el buffer
+ * fuera de pantalla (un carácter y un color por celda) y {@link #volcar()}
+ * escribe solo las celdas que cambiaron desde el cuadro anterior, usando
+ * secuencias de posicionamiento del cursor, en una única escritura por
+ * cuadro. Así no hay parpadeo ni se reescribe lo que no cambió.
+ * <p>
+ * Cada celda ocupa una columna: los textos deben usar caracteres de ancho
+ * simple (los de dibujo de cajas sirven, los emoji no). El color va aparte
+ * del texto, por lo que el ancho visible es siempre la cantidad de
+ * caracteres. No es thread-safe: la dibuja un solo hilo.
+ */
+public class PantallaTerminal {
+
+    /** Colores de celda: índices en {@link #PALETA}. */
+    public static final byte NORMAL = 0;
+    public static final byte BLANCO = 1;
+    public static final byte VERDE = 2;
+    public static final byte AMARILLO = 3;
+    public static final byte ROJO = 4;
+    public static final byte CIAN = 5;
+    public static final byte ATENUADO = 6;
+
+    private static final String[] PALETA = {
+            AnsiColors.RESET,
+            AnsiColors.BRIGHT_WHITE,
+            AnsiColors.BRIGHT_GREEN,
+            AnsiColors.BRIGHT_YELLOW,
+            AnsiColors.BRIGHT_RED,
+            AnsiColors.BRIGHT_CYAN,
+            AnsiColors.DIM,
+    };
+
+    private static final String ESC = "\u001B[";
+    private static final String LIMPIAR_PANTALLA = ESC + "2J";
+    private static final String OCULTAR_CURSOR = ESC + "?25l";
+    private static final String MOSTRAR_CURSOR = ESC + "?25h";
+
+    // Carácter imposible en el cuadro anterior: fuerza a redibujar la celda
+    private static final char INVALIDA = '\uFFFF';
+
+    private final PrintStream destino;
+    private final int filaOrigen;
+    private int filas;
+    private final int columnas;
+
+    private char[] caracteres;
+    private byte[] colores;
+    private char[] caracteresPrevios;
+    private byte[] coloresPrevios;
+
+    private final StringBuilder cuadro = new StringBuilder(8192);
+    private boolean primerCuadro = true;
+    private long caracteresEnviados;
+
+    /**
+     * @param destino    stream de la terminal
+     * @param filaOrigen fila de pantalla (desde 1) donde empieza el buffer
+     * @param filas      filas iniciales (ver {@link #redimensionar(int)})
+     * @param columnas   columnas
+     */
+    public PantallaTerminal(PrintStream destino, int filaOrigen, int filas, int columnas) {
+        if (filaOrigen < 1 || filas < 1 || columnas < 1) {
+            throw new IllegalArgumentException("Dimensiones inválidas: " + filas + "x" + columnas);
+        }
+        this.destino = destino;
+        this.filaOrigen = filaOrigen;
+        this.columnas = columnas;
+        redimensionar(filas);
+    }
+
+    /**
+     * Cambia la cantidad de filas. El contenido se descarta y el próximo
+     * cuadro se dibuja completo.
+     */
+    public void redimensionar(int filas) {
+        if (filas < 1) {
+            throw new IllegalArgumentException("Filas inválidas: " + filas);
+        }
+        int previas = this.filas;
+        this.filas = filas;
+        this.caracteres = new char[filas * columnas];
+        this.colores = new byte[filas * columnas];
+        this.caracteresPrevios = new char[filas * columnas];
+        this.coloresPrevios = new byte[filas * columnas];
+        limpiar();
+        Arrays.fill(caracteresPrevios, INVALIDA);
+        if (previas > filas) {
+            // Borrar las filas que quedan fuera del nuevo tamaño
+            cuadro.setLength(0);
+            for (int f = filas; f < previas; f++) {
+                moverCursor(f, 0);
+                cuadro.append(ESC).append("2K");
+            }
+            enviar();
+        }
+    }
+
+    /**
+     * Llena el buffer con espacios sin color.
+     */
+    public void limpiar() {
+        Arrays.fill(caracteres, ' ');
+        Arrays.fill(colores, NORMAL);
+    }
+
+    /**
+     * Escribe un carácter en una celda; fuera de la pantalla se ignora.
+     */
+    public void poner(int fila, int columna, char c, byte color) {
+        if (fila < 0 || fila >= filas || columna < 0 || columna >= columnas) {
+            return;
+        }
+        int i = fila * columnas + columna;
+        caracteres[i] = c;
+        colores[i] = color;
+    }
+
+    /**
+     * Escribe un texto desde una celda, recortado al borde derecho.
+     *
+     * @return la columna siguiente al último carácter escrito
+     */
+    public int escribir(int fila, int columna, CharSequence texto, byte color) {
+        int n = Math.min(texto.length(), columnas - columna);
+        for (int k = 0; k < n; k++) {
+            poner(fila, columna + k, texto.charAt(k), color);
+        }
+        return columna + Math.max(n, 0);
+    }
+
+    /**
+     * Escribe un número entero sin crear Strings, alineado a la derecha en
+     * el ancho indicado.
+     *
+     * @return la columna siguiente al campo
+     */
+    public int escribirNumero(int fila, int columna, long valor, int ancho, byte color) {
+        int fin = columna + ancho;
+        int c = fin - 1;
+        long resto = Math.abs(valor);
+        do {
+            poner(fila, c--, (char) ('0' + (resto % 10)), color);
+            resto /= 10;
+        } while (resto > 0 && c >= columna);
+        if (valor < 0 && c >= columna) {
+            poner(fila, c--, '-', color);
+        }
+        while (c >= columna) {
+            poner(fila, c--, ' ', color);
+        }
+        return fin;
+    }
+
+    /**
+     * Repite un carácter en una fila.
+     */
+    public void repetir(int fila, int columna, char c, int cantidad, byte color) {
+        for (int k = 0; k < cantidad; k++) {
+            poner(fila, columna + k, c, color);
+        }
+    }
+
+    /**
+     * Escribe en la terminal las celdas que cambiaron y toma el buffer como
+     * cuadro anterior. Recorre cada fila agrupando tramos contiguos para
+     * emitir una sola secuencia de cursor por tramo, y un cambio de color solo
+     * cuando difiere del último emitido.
+     *
+     * @return cantidad de celdas reescritas
+     */
+    public int volcar() {
+        cuadro.setLength(0);
+        if (primerCuadro) {
+            cuadro.append(OCULTAR_CURSOR).append(LIMPIAR_PANTALLA);
+            primerCuadro = false;
+        }
+
+        int cambiadas = 0;
+        int colorActual = -1;
+        int filaCursor = -1;
+        int columnaCursor = -1;
+        for (int f = 0; f < filas; f++) {
+            int base = f * columnas;
+            for (int c = 0; c < columnas; c++) {
+                int i = base + c;
+                if (caracteres[i] == caracteresPrevios[i] && colores[i] == coloresPrevios[i]) {
+                    continue;
+                }
+                if (f != filaCursor || c != columnaCursor) {
+                    moverCursor(f, c);
+                }
+                if (colores[i] != colorActual) {
+                    colorActual = colores[i];
+                    cuadro.append(AnsiColors.RESET);
+                    if (colorActual != NORMAL) {
+                        cuadro.append(PALETA[colorActual]);
+                    }
+                }
+                cuadro.append(caracteres[i]);
+                filaCursor = f;
+                columnaCursor = c + 1;
+                cambiadas++;
+            }
+        }
+        System.arraycopy(caracteres, 0, caracteresPrevios, 0, caracteres.length);
+        System.arraycopy(colores, 0, coloresPrevios, 0, colores.length);
+
+        if (cambiadas > 0) {
+            cuadro.append(AnsiColors.RESET);
+            // Dejar el cursor debajo de la pantalla por si otro texto se cuela
+            moverCursor(filas, 0);
+            enviar();
+        }
+        return cambiadas;
+    }
+
+    /**
+     * Restaura el cursor y lo deja debajo de la pantalla, borrando lo que
+     * se haya colado ahí durante los cuadros.
+     */
+    public void cerrar() {
+        cuadro.setLength(0);
+        cuadro.append(AnsiColors.RESET);
+        moverCursor(filas, 0);
+        cuadro.append(ESC).append('J').append(MOSTRAR_CURSOR);
+        enviar();
+    }
+
+    private void moverCursor(int fila, int columna) {
+        cuadro.append(ESC).append(filaOrigen + fila).append(';').append(columna + 1).append('H');
+    }
+
+    private void enviar() {
+        destino.print(cuadro);
+        destino.flush();
+        caracteresEnviados += cuadro.length();
+    }
+
+    public int getFilas() {
+        return filas;
+    }
+
+    public int getColumnas() {
+        return columnas;
+    }
+
+    /**
+     * @return caracteres enviados a la terminal desde la creación
+     */
+    public long getCaracteresEnviados() {
+        return caracteresEnviados;
+    }
+}
@@ -0,0 +1,182 @@
+package org.iudigital.emergencias.util;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.metrics.InstantaneaSistema;
+
+import java.io.PrintStream;
+
+/**
+ * Tablero de recursos para terminal, pensado para refrescarse varias veces
+ * por segundo con flotas grandes. Cada unidad es una celda con un símbolo y
+ * color según su estado (○ disponible, → en ruta/asignado, ● ocupada,
+ * ← retornando), de modo que 1000 ambulancias ocupan unas 14 filas. Se
+ * dibuja sobre una {@link PantallaTerminal}, que solo reescribe las celdas
+ * que cambiaron entre cuadros.
+ */
+public class TableroRecursos {
+
+    public static final int COLUMNAS = 80;
+
+    // Bordes "║ " y " ║" a cada lado
+    private static final int ANCHO_INTERIOR = COLUMNAS - 4;
+    private static final int FILAS_MAXIMAS_POR_SECCION = 25;
+    private static final String TITULO = " ESTADO DEL SISTEMA EN TIEMPO REAL ";
+
+    private static final Ambulancia.StatusAmbulancia[] ESTADOS_AMBULANCIA = Ambulancia.StatusAmbulancia.values();
+    private static final EquipoMedico.StatusEquipo[] ESTADOS_EQUIPO = EquipoMedico.StatusEquipo.values();
+
+    private final PantallaTerminal pantalla;
+    private final int[] conteo = new int[4];
+    private long versionDibujada = -1;
+    private long cuadros;
+
+    public TableroRecursos(PrintStream destino) {
+        this.pantalla = new PantallaTerminal(destino, 1, filasPara(0, 0), COLUMNAS);
+    }
+
+    /**
+     * Dibuja la foto y vuelca a la terminal solo lo que cambió. Si la foto es
+     * la misma del cuadro anterior no hace nada.
+     *
+     * @return celdas reescritas en este cuadro
+     */
+    public int dibujar(InstantaneaSistema instantanea) {
+        if (instantanea.getVersion() == versionDibujada) {
+            return 0;
+        }
+        versionDibujada = instantanea.getVersion();
+        int ambulancias = instantanea.getCantidadAmbulancias();
+        int equipos = instantanea.getCantidadEquipos();
+        int filas = filasPara(ambulancias, equipos);
+        if (filas != pantalla.getFilas()) {
+            pantalla.redimensionar(filas);
+        }
+
+        pantalla.limpiar();
+        int fila = 0;
+        borde(fila++, '╔', '╗');
+        pantalla.poner(fila, 0, '║', PantallaTerminal.BLANCO);
+        pantalla.escribir(fila, (COLUMNAS - TITULO.length()) / 2, TITULO, PantallaTerminal.BLANCO);
+        pantalla.poner(fila++, COLUMNAS - 1, '║', PantallaTerminal.BLANCO);
+        borde(fila++, '╠', '╣');
+
+        for (Ambulancia.StatusAmbulancia estado : ESTADOS_AMBULANCIA) {
+            conteo[estado.ordinal()] = instantanea.contarAmbulancias(estado);
+        }
+        fila = encabezado(fila, "AMBULANCIAS", PantallaTerminal.AMARILLO, ambulancias);
+        int filasAmbulancias = filasDeCuadricula(ambulancias);
+        for (int i = 0; i < Math.min(ambulancias, filasAmbulancias * ANCHO_INTERIOR); i++) {
+            celda(fila + i / ANCHO_INTERIOR, i % ANCHO_INTERIOR, instantanea.getEstadoAmbulancia(i).ordinal());
+        }
+        fila = bordesLaterales(fila, filasAmbulancias);
+        borde(fila++, '╠', '╣');
+
+        for (EquipoMedico.StatusEquipo estado : ESTADOS_EQUIPO) {
+            conteo[estado.ordinal()] = instantanea.contarEquipos(estado);
+        }
+        fila = encabezado(fila, "EQUIPOS MÉDICOS", PantallaTerminal.VERDE, equipos);
+        int filasEquipos = filasDeCuadricula(equipos);
+        for (int i = 0; i < Math.min(equipos, filasEquipos * ANCHO_INTERIOR); i++) {
+            celda(fila + i / ANCHO_INTERIOR, i % ANCHO_INTERIOR, instantanea.getEstadoEquipo(i).ordinal());
+        }
+        fila = bordesLaterales(fila, filasEquipos);
+        borde(fila++, '╠', '╣');
+
+        pantalla.poner(fila, 0, '║', PantallaTerminal.BLANCO);
+        int columna = pantalla.escribir(fila, 2, "Cola: ", PantallaTerminal.NORMAL);
+        columna = pantalla.escribirNumero(fila, columna, instantanea.getCasosEnCola(), 6, PantallaTerminal.AMARILLO);
+        columna = pantalla.escribir(fila, columna, "   Completados: ", PantallaTerminal.NORMAL);
+        columna = pantalla.escribirNumero(fila, columna, instantanea.getCasosCompletados(), 7, PantallaTerminal.VERDE);
+        columna = pantalla.escribir(fila, columna, "   Cuadro: ", PantallaTerminal.ATENUADO);
+        pantalla.escribirNumero(fila, columna, ++cuadros, 8, PantallaTerminal.ATENUADO);
+        pantalla.poner(fila++, COLUMNAS - 1, '║', PantallaTerminal.BLANCO);
+        borde(fila, '╚', '╝');
+
+        return pantalla.volcar();
+    }
+
+    /**
+     * Restaura el cursor debajo del tablero.
+     */
+    public void cerrar() {
+        pantalla.cerrar();
+    }
+
+    /**
+     * Fila de encabezado de una sección con el total y la cantidad por estado
+     * (los conteos deben estar cargados en {@link #conteo}).
+     */
+    private int encabezado(int fila, String titulo, byte color, int total) {
+        pantalla.poner(fila, 0, '║', PantallaTerminal.BLANCO);
+        int columna = pantalla.escribir(fila, 2, titulo, color);
+        columna = pantalla.escribirNumero(fila, columna, total, 7, PantallaTerminal.BLANCO);
+        columna += 2;
+        for (int estado = 0; estado < 4; estado++) {
+            pantalla.poner(fila, columna, simbolo(estado), colorDe(estado));
+            columna = pantalla.escribirNumero(fila, columna + 1, conteo[estado], 7, colorDe(estado));
+            columna += 2;
+        }
+        pantalla.poner(fila, COLUMNAS - 1, '║', PantallaTerminal.BLANCO);
+        return fila + 1;
+    }
+
+    private void celda(int fila, int indice, int estado) {
+        pantalla.poner(fila, 2 + indice, simbolo(estado), colorDe(estado));
+    }
+
+    private int bordesLaterales(int fila, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            pantalla.poner(fila + i, 0, '║', PantallaTerminal.BLANCO);
+            pantalla.poner(fila + i, COLUMNAS - 1, '║', PantallaTerminal.BLANCO);
+        }
+        return fila + cantidad;
+    }
+
+    private void borde(int fila, char izquierda, char derecha) {
+        pantalla.poner(fila, 0, izquierda, PantallaTerminal.BLANCO);
+        pantalla.repetir(fila, 1, '═', COLUMNAS - 2, PantallaTerminal.BLANCO);
+        pantalla.poner(fila, COLUMNAS - 1, derecha, PantallaTerminal.BLANCO);
+    }
+
+    /**
+     * Símbolo por estado, en el orden común de ambos enums (disponible,
+     * en camino, ocupado, retornando).
+     */
+    private static char simbolo(int estado) {
+        return switch (estado) {
+            case 0 -> '○';
+            case 1 -> '→';
+            case 2 -> '●';
+            default -> '←';
+        };
+    }
+
+    private static byte colorDe(int estado) {
+        return switch (estado) {
+            case 0 -> PantallaTerminal.VERDE;
+            case 1 -> PantallaTerminal.AMARILLO;
+            case 2 -> PantallaTerminal.ROJO;
+            default -> PantallaTerminal.CIAN;
+        };
+    }
+
+    private static int filasDeCuadricula(int unidades) {
+        return Math.max(1, Math.min(FILAS_MAXIMAS_POR_SECCION, (unidades + ANCHO_INTERIOR - 1) / ANCHO_INTERIOR));
+    }
+
+    /**
+     * Bordes, título, dos secciones (encabezado y cuadrícula) y estadísticas.
+     */
+    private static int filasPara(int ambulancias, int equipos) {
+        return 9 + filasDeCuadricula(ambulancias) + filasDeCuadricula(equipos);
+    }
+
+    public long getCuadros() {
+        return cuadros;
+    }
+
+    public long getCaracteresEnviados() {
+        return pantalla.getCaracteresEnviados();
+    }
+}
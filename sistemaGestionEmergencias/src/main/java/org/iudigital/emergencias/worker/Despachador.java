@@ -1,100 +1,777 @@
 package org.iudigital.emergencias.worker;
 
+import org.iudigital.emergencias.dispatch.AsignadorHungaro;
+import org.iudigital.emergencias.dispatch.IndiceDisponibles;
+import org.iudigital.emergencias.dispatch.ReservaRecursos;
 import org.iudigital.emergencias.domain.Ambulancia;
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.jfr.CasoDesencoladoEvento;
+import org.iudigital.emergencias.jfr.CasoEncoladoEvento;
+import org.iudigital.emergencias.jfr.DecisionDespachoEvento;
+import org.iudigital.emergencias.metrics.TrazadorCasos;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.TimeUnit;
 
 public class Despachador implements Runnable, Stoppable {
 
+    /**
+     * Estrategia de despacho.
+     * INDIVIDUAL: un caso a la vez, a la unidad libre más rápida.
+     * LOTE: en cada tick drena la cola y resuelve una asignación óptima
+     * casos × unidades sobre tiempos de viaje ponderados por severidad.
+     */
+    public enum ModoDespacho {
+        INDIVIDUAL,
+        LOTE
+    }
+
     private final BlockingQueue<CasoEmergencia> casoEmergencias;
     private final List<Ambulancia> recursosPool;
     private final List<EquipoMedico> equipoMedicoPool;
-    private final Lock recursosLock = new ReentrantLock();
+
+    // Zona atendida y zonas vecinas (por cercanía) a las que se piden recursos prestados
+    private int zona = 0;
+    private List<IndiceDisponibles> indicesVecinos = List.of();
+    private volatile long prestamosRecibidos = 0;
+
+    // Casos que esperaron porque no se pudo reunir el conjunto completo de recursos
+    private volatile long reservasIncompletas = 0;
+
+    // Índice espacial de recursos libres y número de candidatos a evaluar
+    private static final int CANDIDATOS_CERCANOS = 4;
+    private final IndiceDisponibles indiceDisponibles;
+    private final Ambulancia[] candidatasAmbulancia = new Ambulancia[CANDIDATOS_CERCANOS];
+    private final EquipoMedico[] candidatosEquipo = new EquipoMedico[CANDIDATOS_CERCANOS];
+    private final long[] tiemposCandidatos = new long[CANDIDATOS_CERCANOS];
+
+    // Desvío de ambulancias EN_RUTA hacia casos CRITICO
+    private static final int VALOR_MAXIMO_DESVIABLE = 2; // MODERADO o LEVE
+    private volatile boolean desvioHabilitado = false;
+    private volatile long umbralDesvioMs = 1000;
+    private volatile long desviosRealizados = 0;
+    private long tiempoDesvio;
+
+    // Reserva anticipada de unidades que se liberan pronto
+    private static final long HORIZONTE_ANTICIPACION_MS = 10_000;
+    private volatile boolean anticipacionHabilitada = false;
+    private volatile long reservasAnticipadas = 0;
+    private long tiempoAnticipado;
+
+    // Despacho por lotes
+    private static final long INTERVALO_LOTE_MS = 250;
+    private static final int CANDIDATOS_POR_CASO_LOTE = 8;
+    private volatile ModoDespacho modoDespacho = ModoDespacho.INDIVIDUAL;
+    private final AsignadorHungaro asignador = new AsignadorHungaro();
+    private final List<CasoEmergencia> lotePendiente = new ArrayList<>();
+    private final List<CasoEmergencia> casosLote = new ArrayList<>();
+    private final List<Ambulancia> unidadesLote = new ArrayList<>();
+    private final Map<Ambulancia, Boolean> unidadesVistas = new IdentityHashMap<>();
+    private final Ambulancia[] candidatasLote = new Ambulancia[CANDIDATOS_POR_CASO_LOTE];
+
+    // Datos de la decisión en curso para el evento JFR. El conteo y el
+    // resultado son baratos y se llevan siempre; los tiempos solo se miden
+    // si el evento está habilitado.
+    private int candidatasEvaluadas;
+    private int ambulanciaElegida;
+    private String resultadoDecision;
+    private boolean medirRetencion;
+    private long inicioRetencionNs;
+    private long retencionNs;
+
+    // Orden de servicio de la cola (null = orden natural de los casos)
+    private Comparator<CasoEmergencia> ordenCola;
+
+    private Salida salida = SalidaConsola.getInstance();
+    private final TrazadorCasos trazador = TrazadorCasos.getInstance();
 
     private volatile boolean corriendo = true;
     private Thread selfThread;
 
     public Despachador(BlockingQueue<CasoEmergencia> casoEmergencias, List<Ambulancia> recursosPool,
             List<EquipoMedico> equipoMedicoPool) {
+        this(casoEmergencias, recursosPool, equipoMedicoPool,
+                new IndiceDisponibles(recursosPool, equipoMedicoPool, RegistroUbicaciones.getInstance()));
+    }
+
+    public Despachador(BlockingQueue<CasoEmergencia> casoEmergencias, List<Ambulancia> recursosPool,
+            List<EquipoMedico> equipoMedicoPool, IndiceDisponibles indiceDisponibles) {
         this.casoEmergencias = casoEmergencias;
         this.recursosPool = recursosPool;
         this.equipoMedicoPool = equipoMedicoPool;
+        this.indiceDisponibles = indiceDisponibles;
+    }
+
+    /**
+     * Configura la zona que atiende este despachador y los índices de las
+     * zonas vecinas, ordenados de la más cercana a la más lejana. Cuando la
+     * zona propia no tiene recursos libres se toman prestados de ellas.
+     * Debe llamarse antes de iniciar el hilo.
+     *
+     * @param zona            zona atendida
+     * @param indicesVecinos  índices de disponibles de las zonas vecinas
+     */
+    public void setZona(int zona, List<IndiceDisponibles> indicesVecinos) {
+        this.zona = zona;
+        this.indicesVecinos = List.copyOf(indicesVecinos);
+    }
+
+    /**
+     * Destino de los mensajes de despacho; por defecto la consola. Debe
+     * llamarse antes de iniciar el hilo.
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
     }
 
     @Override
     public void run() {
         // Nombrar el hilo del despachador
-        Thread.currentThread().setName("Despachador");
+        Thread.currentThread().setName("Despachador-Z" + zona);
 
         selfThread = Thread.currentThread();
         try {
             while (corriendo) {
-                CasoEmergencia concurrentCaso = casoEmergencias.take();
-
-                if (!corriendo)
-                    return;
-
-                recursosLock.lock();
-                try {
-                    Ambulancia ambulanciaAsignada = encontrarYAsignarAmbulancia(concurrentCaso);
-
-                    if (ambulanciaAsignada != null) {
-
-                        concurrentCaso.setRecursoAsignado(ambulanciaAsignada);
-                        concurrentCaso.setHoraInicioServicio(System.currentTimeMillis());
-                        ambulanciaAsignada.setOcupada(concurrentCaso);
-
-                        if (concurrentCaso.getSeveridad() == CasoEmergencia.Severity.CRITICO ||
-                                concurrentCaso.getSeveridad() == CasoEmergencia.Severity.GRAVE) {
-
-                            EquipoMedico equipoAsignado = encontrarYAsignarEquipoMedico();
-
-                            if (equipoAsignado != null) {
-                                equipoAsignado.asignarCaso(concurrentCaso);
-                                System.out.printf("   [ASIGNADO] Equipo %d asignado a caso #%d.\n",
-                                        equipoAsignado.getIdEquipo(), concurrentCaso.getCasoId());
-                            } else {
-                                System.out.printf("   [ALERTA] No hay Equipo Médico disponible para caso #%d.\n",
-                                        concurrentCaso.getCasoId());
-                            }
-                        }
-                    } else {
-                        casoEmergencias.put(concurrentCaso);
-                        TimeUnit.MILLISECONDS.sleep(500);
+                if (modoDespacho == ModoDespacho.LOTE) {
+                    despacharLote();
+                } else {
+                    despacharIndividual();
+                }
+            }
+        } catch (InterruptedException e) {
+            salida.linea("📢 Despachador de zona %d interrumpido y detenido.", zona);
+        }
+    }
+
+    /**
+     * Despacho greedy: toma el caso más prioritario y le asigna la unidad
+     * con menor tiempo de llegada esperado. Las unidades se reservan con
+     * {@link Ambulancia#asignarSiDisponible}, sin lock compartido entre
+     * despachadores.
+     */
+    private void despacharIndividual() throws InterruptedException {
+        CasoEmergencia concurrentCaso = casoEmergencias.take();
+
+        if (!corriendo)
+            return;
+
+        CasoDesencoladoEvento.emitir(concurrentCaso, zona);
+        if (!despacharCaso(concurrentCaso)) {
+            reencolar(concurrentCaso, CasoEncoladoEvento.REINTENTO);
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+    }
+
+    /**
+     * Reúne todos los recursos del caso o ninguno. Primero aparta los
+     * equipos médicos requeridos; si faltan, el caso vuelve a la cola sin
+     * comprometer nada. Luego las ambulancias: un incidente múltiple aparta
+     * las libres más rápidas; un caso de una sola ambulancia elige entre tres
+     * opciones por tiempo de llegada esperado: una unidad libre, una EN_RUTA
+     * desviable (solo casos CRITICO, con exigencia de mejora de
+     * {@code umbralDesvioMs}) y una que se libera pronto, a la que se le
+     * reserva el caso. La libre se prefiere mientras no llegue más tarde que
+     * las alternativas.
+     *
+     * Cada decisión se registra como {@link DecisionDespachoEvento} cuando
+     * ese evento está habilitado en la grabación JFR.
+     *
+     * @return true si el caso quedó asignado o reservado
+     */
+    private boolean despacharCaso(CasoEmergencia caso) throws InterruptedException {
+        DecisionDespachoEvento evento = DecisionDespachoEvento.iniciar();
+        iniciarDecision(evento != null);
+        boolean asignado = decidir(caso);
+        if (evento != null && evento.shouldCommit()) {
+            evento.completar(caso, zona, modoDespacho.name(), candidatasEvaluadas, ambulanciaElegida,
+                    resultadoDecision, retencionNs);
+            evento.commit();
+        }
+        return asignado;
+    }
+
+    private boolean decidir(CasoEmergencia caso) throws InterruptedException {
+        ReservaRecursos reserva = new ReservaRecursos(caso,
+                Math.min(caso.getAmbulanciasRequeridas(), ambulanciasEnFlota()),
+                Math.min(caso.getEquiposRequeridos(), equiposEnFlota()));
+        marcarInicioRetencion();
+
+        while (reserva.equiposFaltantes() > 0 && apartarEquipo(reserva)) {
+            // apartar el siguiente equipo más cercano
+        }
+        if (reserva.equiposFaltantes() > 0) {
+            reserva.revertir();
+            marcarFinRetencion();
+            reservasIncompletas++;
+            resultadoDecision = DecisionDespachoEvento.SIN_RECURSOS;
+            return false;
+        }
+
+        if (reserva.ambulanciasFaltantes() > 1) {
+            while (reserva.ambulanciasFaltantes() > 0 && apartarAmbulancia(reserva, Long.MAX_VALUE)) {
+                // apartar la siguiente ambulancia más rápida
+            }
+            return cerrarReserva(reserva, false);
+        }
+
+        Ambulancia desviable = (desvioHabilitado && caso.getSeveridad() == CasoEmergencia.Severity.CRITICO)
+                ? buscarDesviable(caso)
+                : null;
+        Ambulancia porLiberar = anticipacionHabilitada ? buscarPorLiberar(caso) : null;
+        long limiteDesvio = (desviable != null) ? tiempoDesvio + umbralDesvioMs : Long.MAX_VALUE;
+        long limiteAnticipado = (porLiberar != null) ? tiempoAnticipado : Long.MAX_VALUE;
+
+        if (apartarAmbulancia(reserva, Math.min(limiteDesvio, limiteAnticipado))) {
+            return cerrarReserva(reserva, false);
+        }
+
+        boolean desvioPrimero = desviable != null && (porLiberar == null || tiempoDesvio <= tiempoAnticipado);
+        if (desvioPrimero && desviarHacia(caso, desviable)) {
+            reserva.registrarComprometida(desviable);
+            return cerrarReserva(reserva, false);
+        }
+        if (porLiberar != null && reservarHacia(caso, porLiberar)) {
+            reserva.registrarComprometida(porLiberar);
+            return cerrarReserva(reserva, true);
+        }
+        if (desviable != null && !desvioPrimero && desviarHacia(caso, desviable)) {
+            reserva.registrarComprometida(desviable);
+            return cerrarReserva(reserva, false);
+        }
+
+        apartarAmbulancia(reserva, Long.MAX_VALUE);
+        return cerrarReserva(reserva, false);
+    }
+
+    /**
+     * Confirma la reserva si está completa o la revierte si no.
+     *
+     * @param anticipada true si la ambulancia se reservó al liberarse
+     * @return true si se confirmó
+     */
+    private boolean cerrarReserva(ReservaRecursos reserva, boolean anticipada) {
+        if (!reserva.estaCompleta()) {
+            reserva.revertir();
+            marcarFinRetencion();
+            reservasIncompletas++;
+            resultadoDecision = DecisionDespachoEvento.SIN_RECURSOS;
+            return false;
+        }
+        if (trazador.muestrea(reserva.getCaso().getCasoId())) {
+            // Antes de confirmar, para que preceda a la salida de las unidades
+            trazador.registrar(reserva.getCaso(), TrazadorCasos.Fase.DESPACHADO,
+                    reserva.getAmbulancias().get(0).getIdAmbulancia());
+        }
+        if (anticipada) {
+            // Los equipos salen con la ambulancia, no mientras termina su caso anterior
+            reserva.confirmarSinEquipos();
+            reserva.getAmbulancias().get(0).alTomarReservado(reserva.getCaso(), reserva::confirmarEquipos);
+        } else {
+            reserva.confirmar();
+        }
+        marcarFinRetencion();
+        completarAsignacion(reserva, anticipada);
+        ambulanciaElegida = reserva.getAmbulancias().get(0).getIdAmbulancia();
+        if (resultadoDecision == null) {
+            resultadoDecision = anticipada ? DecisionDespachoEvento.ANTICIPADA : DecisionDespachoEvento.ASIGNADO;
+        }
+        return true;
+    }
+
+    private void iniciarDecision(boolean medir) {
+        candidatasEvaluadas = 0;
+        ambulanciaElegida = -1;
+        resultadoDecision = null;
+        medirRetencion = medir;
+        retencionNs = 0;
+    }
+
+    /**
+     * Desde aquí las unidades que se aparten quedan fuera del alcance de
+     * los demás despachadores hasta confirmar o revertir la reserva.
+     */
+    private void marcarInicioRetencion() {
+        if (medirRetencion) {
+            inicioRetencionNs = System.nanoTime();
+        }
+    }
+
+    private void marcarFinRetencion() {
+        if (medirRetencion) {
+            retencionNs = System.nanoTime() - inicioRetencionNs;
+        }
+    }
+
+    private void reencolar(CasoEmergencia caso, String motivo) throws InterruptedException {
+        CasoEncoladoEvento.emitir(caso, zona, motivo);
+        trazador.registrar(caso, TrazadorCasos.Fase.ENCOLADO, caso.getSeveridad().ordinal());
+        casoEmergencias.put(caso);
+    }
+
+    private int ambulanciasEnFlota() {
+        int total = indiceDisponibles.getTotalAmbulancias();
+        for (IndiceDisponibles vecino : indicesVecinos) {
+            total += vecino.getTotalAmbulancias();
+        }
+        return Math.max(1, total);
+    }
+
+    private int equiposEnFlota() {
+        int total = indiceDisponibles.getTotalEquipos();
+        for (IndiceDisponibles vecino : indicesVecinos) {
+            total += vecino.getTotalEquipos();
+        }
+        return total;
+    }
+
+    /**
+     * Despacho por lotes: drena todos los casos pendientes y resuelve la
+     * asignación de costo mínimo contra las unidades libres cercanas. Los
+     * casos que no alcanzan unidad vuelven a la cola.
+     */
+    private void despacharLote() throws InterruptedException {
+        CasoEmergencia primero = casoEmergencias.poll(INTERVALO_LOTE_MS, TimeUnit.MILLISECONDS);
+        if (primero == null || !corriendo) {
+            if (primero != null) {
+                casoEmergencias.put(primero);
+            }
+            return;
+        }
+
+        lotePendiente.clear();
+        lotePendiente.add(primero);
+        casoEmergencias.drainTo(lotePendiente);
+        for (int i = 0; i < lotePendiente.size(); i++) {
+            CasoDesencoladoEvento.emitir(lotePendiente.get(i), zona);
+        }
+        // drainTo no respeta el orden de prioridad
+        lotePendiente.sort(ordenCola);
+
+        if (asignarLote(lotePendiente) == 0) {
+            TimeUnit.MILLISECONDS.sleep(500);
+        }
+    }
+
+    /**
+     * Arma la matriz de costos (tiempo de viaje × valor de severidad) entre los
+     * casos más prioritarios del lote y la unión de las unidades libres más
+     * cercanas a cada uno, y aplica la asignación óptima. Si la zona no tiene
+     * unidades suficientes se suman candidatas de las zonas vecinas. Una
+     * unidad que otro despachador reservó mientras tanto deja su caso en cola.
+     *
+     * @return número de casos asignados
+     */
+    private int asignarLote(List<CasoEmergencia> casos) throws InterruptedException {
+        // Los incidentes múltiples no entran a la matriz: se despachan aparte
+        casosLote.clear();
+        for (int i = 0; i < casos.size() && casosLote.size() < AsignadorHungaro.MAX_FILAS; i++) {
+            if (casos.get(i).getAmbulanciasRequeridas() == 1) {
+                casosLote.add(casos.get(i));
+            }
+        }
+        int nCasos = casosLote.size();
+
+        unidadesLote.clear();
+        unidadesVistas.clear();
+        agregarCandidatasLote(indiceDisponibles, casosLote, nCasos);
+        int propias = unidadesLote.size();
+        for (int v = 0; v < indicesVecinos.size() && unidadesLote.size() < nCasos; v++) {
+            agregarCandidatasLote(indicesVecinos.get(v), casosLote, nCasos);
+        }
+
+        int filas = Math.min(nCasos, unidadesLote.size());
+        int columnas = unidadesLote.size();
+        Map<CasoEmergencia, Boolean> asignados = new IdentityHashMap<>();
+        if (filas > 0) {
+            double[] costo = new double[filas * columnas];
+            for (int i = 0; i < filas; i++) {
+                CasoEmergencia caso = casosLote.get(i);
+                int destinoId = caso.getUbicacionId();
+                int peso = caso.getValorSeveridad();
+                for (int j = 0; j < columnas; j++) {
+                    Ambulancia ambulancia = unidadesLote.get(j);
+                    costo[i * columnas + j] = (double) peso
+                            * ambulancia.getModeloViaje().tiempoViajeMs(ambulancia.getUbicacionActualId(), destinoId);
+                }
+            }
+
+            int[] asignacion = asignador.resolver(costo, filas, columnas);
+            for (int i = 0; i < filas; i++) {
+                CasoEmergencia caso = casosLote.get(i);
+                Ambulancia ambulancia = unidadesLote.get(asignacion[i]);
+                DecisionDespachoEvento evento = DecisionDespachoEvento.iniciar();
+                iniciarDecision(evento != null);
+                ReservaRecursos reserva = new ReservaRecursos(caso, 1,
+                        Math.min(caso.getEquiposRequeridos(), equiposEnFlota()));
+                marcarInicioRetencion();
+                boolean asignado = false;
+                if (reserva.apartar(ambulancia)) {
+                    while (reserva.equiposFaltantes() > 0 && apartarEquipo(reserva)) {
+                        // apartar el siguiente equipo más cercano
                     }
-                } finally {
-                    recursosLock.unlock();
+                    asignado = cerrarReserva(reserva, false);
+                } else {
+                    reserva.revertir();
+                    resultadoDecision = DecisionDespachoEvento.SIN_RECURSOS;
+                }
+                if (asignado) {
+                    if (asignacion[i] >= propias) {
+                        prestamosRecibidos++;
+                    }
+                    asignados.put(caso, Boolean.TRUE);
+                }
+                if (evento != null && evento.shouldCommit()) {
+                    // La matriz evaluó todas las columnas para cada caso
+                    evento.completar(caso, zona, ModoDespacho.LOTE.name(), columnas + candidatasEvaluadas,
+                            ambulanciaElegida, resultadoDecision, retencionNs);
+                    evento.commit();
                 }
+            }
+        }
 
+        int totalAsignados = asignados.size();
+        for (CasoEmergencia caso : casos) {
+            if (asignados.containsKey(caso)) {
+                continue;
             }
-        } catch (InterruptedException e) {
-            System.out.println("📢 Despachador interrumpido y detenido.");
+            // Sin unidad en el lote: incidente múltiple, desvío, reserva anticipada u otra libre
+            boolean intentar = caso.getAmbulanciasRequeridas() > 1 || desvioHabilitado || anticipacionHabilitada;
+            if (intentar && despacharCaso(caso)) {
+                totalAsignados++;
+                continue;
+            }
+            reencolar(caso, CasoEncoladoEvento.REINTENTO);
+        }
+        return totalAsignados;
+    }
+
+    private void agregarCandidatasLote(IndiceDisponibles indice, List<CasoEmergencia> casos, int nCasos) {
+        for (int i = 0; i < nCasos && unidadesLote.size() < AsignadorHungaro.MAX_COLUMNAS; i++) {
+            int n = indice.ambulanciasCercanas(casos.get(i).getUbicacionId(),
+                    CANDIDATOS_POR_CASO_LOTE, candidatasLote);
+            for (int k = 0; k < n && unidadesLote.size() < AsignadorHungaro.MAX_COLUMNAS; k++) {
+                Ambulancia ambulancia = candidatasLote[k];
+                candidatasLote[k] = null;
+                if (ambulancia.getStatusAmbulancia() == Ambulancia.StatusAmbulancia.DISPONIBLE
+                        && unidadesVistas.put(ambulancia, Boolean.TRUE) == null) {
+                    unidadesLote.add(ambulancia);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra en el caso la asignación ya confirmada. En una reserva
+     * anticipada la espera del caso sigue corriendo hasta que la ambulancia
+     * sale hacia él, y es ella quien marca el inicio.
+     */
+    private void completarAsignacion(ReservaRecursos reserva, boolean anticipada) {
+        CasoEmergencia caso = reserva.getCaso();
+        List<Ambulancia> ambulanciasCaso = reserva.getAmbulancias();
+        caso.setRecursoAsignado(ambulanciasCaso.get(0));
+        if (!anticipada) {
+            caso.setHoraInicioServicio(System.currentTimeMillis());
+        }
+
+        if (ambulanciasCaso.size() > 1 && salida.habilitada()) {
+            StringBuilder ids = new StringBuilder();
+            for (Ambulancia ambulancia : ambulanciasCaso) {
+                ids.append(ids.length() == 0 ? "" : ", ").append(ambulancia.getIdAmbulancia());
+            }
+            salida.linea("   [MÚLTIPLE] Caso #%d despacha %d ambulancias: %s.",
+                    caso.getCasoId(), ambulanciasCaso.size(), ids.toString());
+        }
+        for (EquipoMedico equipo : reserva.getEquipos()) {
+            salida.linea("   [ASIGNADO] Equipo %d asignado a caso #%d.",
+                    equipo.getIdEquipo(), caso.getCasoId());
+        }
+    }
+
+    /**
+     * Aparta para la reserva la ambulancia libre con menor tiempo de llegada:
+     * primero entre las más cercanas de la zona propia, luego en las zonas
+     * vecinas y, como último recurso, recorriendo el pool de la zona.
+     *
+     * @param tiempoMaximo tiempo de llegada máximo aceptable en ms
+     * @return true si se apartó una ambulancia
+     */
+    private boolean apartarAmbulancia(ReservaRecursos reserva, long tiempoMaximo) {
+        if (apartarAmbulanciaCercana(indiceDisponibles, reserva, tiempoMaximo)) {
+            return true;
+        }
+        for (IndiceDisponibles vecino : indicesVecinos) {
+            if (apartarAmbulanciaCercana(vecino, reserva, tiempoMaximo)) {
+                prestamosRecibidos++;
+                return true;
+            }
+        }
+
+        int destinoId = reserva.getCaso().getUbicacionId();
+        for (Ambulancia candidata : recursosPool) {
+            candidatasEvaluadas++;
+            if (tiempoMaximo != Long.MAX_VALUE && candidata.getModeloViaje()
+                    .tiempoViajeMs(candidata.getUbicacionActualId(), destinoId) > tiempoMaximo) {
+                continue;
+            }
+            if (reserva.apartar(candidata)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ambulancia EN_RUTA hacia un caso desplazable con menor tiempo de
+     * llegada al caso, buscando en la zona propia y en las vecinas. Deja ese
+     * tiempo en {@code tiempoDesvio}.
+     */
+    private Ambulancia buscarDesviable(CasoEmergencia caso) {
+        int destinoId = caso.getUbicacionId();
+        Ambulancia mejor = null;
+        long mejorTiempo = Long.MAX_VALUE;
+        for (int v = -1; v < indicesVecinos.size(); v++) {
+            IndiceDisponibles indice = (v < 0) ? indiceDisponibles : indicesVecinos.get(v);
+            int n = indice.ambulanciasEnRutaCercanas(destinoId, CANDIDATOS_CERCANOS, candidatasAmbulancia);
+            candidatasEvaluadas += n;
+            for (int i = 0; i < n; i++) {
+                Ambulancia ambulancia = candidatasAmbulancia[i];
+                candidatasAmbulancia[i] = null;
+                CasoEmergencia actual = ambulancia.getCasoActual();
+                if (actual == null || actual.getValorSeveridad() > VALOR_MAXIMO_DESVIABLE) {
+                    continue;
+                }
+                long tiempo = ambulancia.getModeloViaje().tiempoViajeMs(ambulancia.getUbicacionActualId(), destinoId);
+                if (tiempo < mejorTiempo) {
+                    mejorTiempo = tiempo;
+                    mejor = ambulancia;
+                }
+            }
+        }
+        tiempoDesvio = mejorTiempo;
+        return mejor;
+    }
+
+    /**
+     * Ambulancia OCUPADA o RETORNANDO, sin reserva y que se libera dentro del
+     * horizonte, con menor tiempo de llegada esperado: lo que le falta para
+     * liberarse más el viaje desde el hospital de entrega. Deja ese tiempo en
+     * {@code tiempoAnticipado}.
+     */
+    private Ambulancia buscarPorLiberar(CasoEmergencia caso) {
+        int destinoId = caso.getUbicacionId();
+        long ahora = System.currentTimeMillis();
+        Ambulancia mejor = null;
+        long mejorTiempo = Long.MAX_VALUE;
+        for (int v = -1; v < indicesVecinos.size(); v++) {
+            IndiceDisponibles indice = (v < 0) ? indiceDisponibles : indicesVecinos.get(v);
+            int n = indice.ambulanciasPorLiberarCercanas(destinoId, CANDIDATOS_CERCANOS, candidatasAmbulancia);
+            candidatasEvaluadas += n;
+            for (int i = 0; i < n; i++) {
+                Ambulancia ambulancia = candidatasAmbulancia[i];
+                candidatasAmbulancia[i] = null;
+                long faltante = Math.max(0, ambulancia.getLiberacionEstimadaMs() - ahora);
+                if (faltante > HORIZONTE_ANTICIPACION_MS || ambulancia.tieneReserva()) {
+                    continue;
+                }
+                long tiempo = faltante + ambulancia.getModeloViaje()
+                        .tiempoViajeMs(ambulancia.getUbicacionLiberacionId(), destinoId);
+                if (tiempo < mejorTiempo) {
+                    mejorTiempo = tiempo;
+                    mejor = ambulancia;
+                }
+            }
+        }
+        tiempoAnticipado = mejorTiempo;
+        return mejor;
+    }
+
+    private boolean reservarHacia(CasoEmergencia caso, Ambulancia ambulancia) {
+        if (!ambulancia.reservarSiguiente(caso)) {
+            return false;
         }
+        reservasAnticipadas++;
+        salida.linea("   [RESERVA] Ambulancia %d tomará caso #%d al liberarse (llegada estimada %d ms).",
+                ambulancia.getIdAmbulancia(), caso.getCasoId(), tiempoAnticipado);
+        return true;
     }
 
-    private Ambulancia encontrarYAsignarAmbulancia(CasoEmergencia casoRef) {
-        for (Ambulancia ambulancia : recursosPool) {
-            if (ambulancia.getStatusAmbulancia() == Ambulancia.StatusAmbulancia.DISPONIBLE) {
-                return ambulancia;
+    /**
+     * Desvía la ambulancia al caso y reencola el caso desplazado.
+     *
+     * @return false si la ambulancia ya no era desviable
+     */
+    private boolean desviarHacia(CasoEmergencia caso, Ambulancia ambulancia) throws InterruptedException {
+        CasoEmergencia desplazado = ambulancia.desviar(caso, VALOR_MAXIMO_DESVIABLE);
+        if (desplazado == null) {
+            return false;
+        }
+        desplazado.setRecursoAsignado(null);
+        desplazado.setHoraInicioServicio(0);
+        reencolar(desplazado, CasoEncoladoEvento.DESPLAZADO);
+        desviosRealizados++;
+        resultadoDecision = DecisionDespachoEvento.DESVIO;
+        salida.linea("   [DESVÍO] Ambulancia %d deja caso #%d (%s) para atender caso CRITICO #%d.",
+                ambulancia.getIdAmbulancia(), desplazado.getCasoId(), desplazado.getSeveridad(), caso.getCasoId());
+        return true;
+    }
+
+    /**
+     * Ordena las candidatas del índice por tiempo de llegada y aparta la
+     * primera que siga libre dentro del tiempo máximo.
+     */
+    private boolean apartarAmbulanciaCercana(IndiceDisponibles indice, ReservaRecursos reserva,
+            long tiempoMaximo) {
+        int destinoId = reserva.getCaso().getUbicacionId();
+        int n = indice.ambulanciasCercanas(destinoId, CANDIDATOS_CERCANOS, candidatasAmbulancia);
+        candidatasEvaluadas += n;
+        for (int i = 0; i < n; i++) {
+            Ambulancia ambulancia = candidatasAmbulancia[i];
+            long tiempo = ambulancia.getModeloViaje().tiempoViajeMs(ambulancia.getUbicacionActualId(), destinoId);
+            // Inserción ordenada (n es pequeño)
+            int j = i;
+            while (j > 0 && tiemposCandidatos[j - 1] > tiempo) {
+                tiemposCandidatos[j] = tiemposCandidatos[j - 1];
+                candidatasAmbulancia[j] = candidatasAmbulancia[j - 1];
+                j--;
+            }
+            tiemposCandidatos[j] = tiempo;
+            candidatasAmbulancia[j] = ambulancia;
+        }
+
+        boolean apartada = false;
+        for (int i = 0; i < n; i++) {
+            if (!apartada && tiemposCandidatos[i] <= tiempoMaximo && reserva.apartar(candidatasAmbulancia[i])) {
+                apartada = true;
             }
+            candidatasAmbulancia[i] = null;
         }
-        return null;
+        return apartada;
     }
 
-    private EquipoMedico encontrarYAsignarEquipoMedico() {
+    /**
+     * Aparta para la reserva el equipo médico libre más rápido, con el mismo
+     * orden de búsqueda que las ambulancias.
+     *
+     * @return true si se apartó un equipo
+     */
+    private boolean apartarEquipo(ReservaRecursos reserva) {
+        if (apartarEquipoCercano(indiceDisponibles, reserva)) {
+            return true;
+        }
+        for (IndiceDisponibles vecino : indicesVecinos) {
+            if (apartarEquipoCercano(vecino, reserva)) {
+                return true;
+            }
+        }
+
+        for (EquipoMedico candidato : equipoMedicoPool) {
+            candidatasEvaluadas++;
+            if (reserva.apartar(candidato)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean apartarEquipoCercano(IndiceDisponibles indice, ReservaRecursos reserva) {
+        int destinoId = reserva.getCaso().getUbicacionId();
+        int n = indice.equiposCercanos(destinoId, CANDIDATOS_CERCANOS, candidatosEquipo);
+        candidatasEvaluadas += n;
+        for (int i = 0; i < n; i++) {
+            EquipoMedico equipo = candidatosEquipo[i];
+            long tiempo = equipo.getModeloViaje().tiempoViajeMs(equipo.getUbicacionActualId(), destinoId);
+            int j = i;
+            while (j > 0 && tiemposCandidatos[j - 1] > tiempo) {
+                tiemposCandidatos[j] = tiemposCandidatos[j - 1];
+                candidatosEquipo[j] = candidatosEquipo[j - 1];
+                j--;
+            }
+            tiemposCandidatos[j] = tiempo;
+            candidatosEquipo[j] = equipo;
+        }
 
-        for (EquipoMedico equipo : equipoMedicoPool) {
-            if (equipo.getStatusEquipo() == EquipoMedico.StatusEquipo.DISPONIBLE) {
-                return equipo;
+        boolean apartado = false;
+        for (int i = 0; i < n; i++) {
+            if (!apartado && reserva.apartar(candidatosEquipo[i])) {
+                apartado = true;
             }
+            candidatosEquipo[i] = null;
         }
-        return null;
+        return apartado;
+    }
+
+    /**
+     * Activa el desvío de ambulancias EN_RUTA hacia casos CRITICO.
+     *
+     * @param habilitado true para permitir desvíos
+     * @param umbralMs   mejora mínima en el tiempo de llegada, en ms, para desviar
+     */
+    public void setDesvio(boolean habilitado, long umbralMs) {
+        this.desvioHabilitado = habilitado;
+        this.umbralDesvioMs = umbralMs;
+    }
+
+    /**
+     * Activa la reserva anticipada de unidades que se liberan pronto.
+     *
+     * @param habilitada true para permitir reservas
+     */
+    public void setAnticipacion(boolean habilitada) {
+        this.anticipacionHabilitada = habilitada;
+    }
+
+    /**
+     * @return intentos de despacho revertidos por no reunir todos los recursos
+     */
+    public long getReservasIncompletas() {
+        return reservasIncompletas;
+    }
+
+    public long getReservasAnticipadas() {
+        return reservasAnticipadas;
+    }
+
+    public long getDesviosRealizados() {
+        return desviosRealizados;
+    }
+
+    public int getZona() {
+        return zona;
+    }
+
+    /**
+     * @return ambulancias tomadas de zonas vecinas
+     */
+    public long getPrestamosRecibidos() {
+        return prestamosRecibidos;
+    }
+
+    /**
+     * Orden en que la cola entrega los casos; el despacho por lotes lo usa
+     * para decidir qué casos entran a la matriz. Debe llamarse antes de
+     * iniciar el hilo.
+     *
+     * @param ordenCola comparador de la cola, o null para el orden natural
+     */
+    public void setOrdenCola(Comparator<CasoEmergencia> ordenCola) {
+        this.ordenCola = ordenCola;
+    }
+
+    public void setModoDespacho(ModoDespacho modoDespacho) {
+        this.modoDespacho = modoDespacho;
+    }
+
+    public ModoDespacho getModoDespacho() {
+        return modoDespacho;
     }
 
     @Override
@@ -3,22 +3,42 @@ package org.iudigital.emergencias.worker;
 import org.iudigital.emergencias.domain.Ambulancia;
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.metrics.InstantaneaSistema;
+import org.iudigital.emergencias.metrics.MuestreadorTelemetria;
+import org.iudigital.emergencias.metrics.SeguimientoSla;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 
-import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+/**
+ * Reporte periódico del estado de los recursos, armado con la última foto
+ * del {@link MuestreadorTelemetria}.
+ */
 public class MonitorTiempoReal implements Runnable, Stoppable {
 
-    private final List<Ambulancia> recursoPool;
-    private final List<EquipoMedico> equipoMedicoPool;
-    private final List<CasoEmergencia> casosCompletados;
+    private final MuestreadorTelemetria telemetria;
+    private SeguimientoSla seguimientoSla;
+    private Salida salida = SalidaConsola.getInstance();
     private volatile boolean corriendo = true;
 
-    public MonitorTiempoReal(List<Ambulancia> recursoPool, List<EquipoMedico> equipoMedicoPool,
-            List<CasoEmergencia> casosCompletados) {
-        this.recursoPool = recursoPool;
-        this.equipoMedicoPool = equipoMedicoPool;
-        this.casosCompletados = casosCompletados;
+    public MonitorTiempoReal(MuestreadorTelemetria telemetria) {
+        this.telemetria = telemetria;
+    }
+
+    /**
+     * Activa la línea de cumplimiento de plazos en cada reporte.
+     */
+    public void setSeguimientoSla(SeguimientoSla seguimientoSla) {
+        this.seguimientoSla = seguimientoSla;
+    }
+
+    /**
+     * Destino de los reportes; con una salida deshabilitada el monitor no
+     * recorre los recursos.
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
     }
 
     @Override
@@ -29,88 +49,84 @@ public class MonitorTiempoReal implements Runnable, Stoppable {
         try {
             while (corriendo) {
                 TimeUnit.SECONDS.sleep(5);
+                if (!salida.habilitada()) {
+                    continue;
+                }
 
-                System.out.println("\n═══════════════════════════════════════════════════");
-                System.out.println("📊 Monitoreo en Tiempo Real");
-                System.out.println("═══════════════════════════════════════════════════");
+                salida.linea("\n═══════════════════════════════════════════════════");
+                salida.linea("📊 Monitoreo en Tiempo Real");
+                salida.linea("═══════════════════════════════════════════════════");
 
-                mostrarEstadoAmbulancia();
-                mostrarEstadoEquipoMedico();
-                mostrarResumenEstadistico();
+                InstantaneaSistema instantanea = telemetria.getInstantanea();
+                mostrarEstadoAmbulancia(instantanea);
+                mostrarEstadoEquipoMedico(instantanea);
+                mostrarResumenEstadistico(instantanea);
+                mostrarCumplimientoSla();
 
-                System.out.println("═══════════════════════════════════════════════════\n");
+                salida.linea("═══════════════════════════════════════════════════\n");
             }
         } catch (InterruptedException e) {
-            System.out.println("📊 Monitor interrumpido y detenido.");
+            salida.linea("📊 Monitor interrumpido y detenido.");
         }
     }
 
-    private void mostrarEstadoAmbulancia() {
-        System.out.println("\n🚑 Estado de Ambulancias:");
-        int disponibles = 0;
-        int ocupadas = 0;
-        for (Ambulancia ambulancia : recursoPool) {
-            Ambulancia.StatusAmbulancia status = ambulancia.getStatusAmbulancia();
-            long casoId = ambulancia.getCasoActualId();
-
-            if (status == Ambulancia.StatusAmbulancia.DISPONIBLE) {
-                disponibles++;
-            } else {
-                ocupadas++;
-            }
-
-            System.out.printf("   Ambulancia %d: %s%s\n",
-                    ambulancia.getIdAmbulancia(),
-                    status,
+    private void mostrarEstadoAmbulancia(InstantaneaSistema instantanea) {
+        salida.linea("\n🚑 Estado de Ambulancias:");
+        for (int i = 0; i < instantanea.getCantidadAmbulancias(); i++) {
+            long casoId = instantanea.getCasoAmbulancia(i);
+            salida.linea("   Ambulancia %d: %s%s",
+                    instantanea.getIdAmbulancia(i),
+                    instantanea.getEstadoAmbulancia(i),
                     (casoId != -1 ? " [Caso #" + casoId + "]" : ""));
         }
-        System.out.printf("   Total: %d disponibles, %d ocupadas\n", disponibles, ocupadas);
+        int disponibles = instantanea.contarAmbulancias(Ambulancia.StatusAmbulancia.DISPONIBLE);
+        salida.linea("   Total: %d disponibles, %d ocupadas",
+                disponibles, instantanea.getCantidadAmbulancias() - disponibles);
     }
 
-    private void mostrarEstadoEquipoMedico() {
-        System.out.println("\n⚕️ Estado de Equipos Médicos:");
-        int disponibles = 0;
-        int ocupados = 0;
-        for (EquipoMedico equipo : equipoMedicoPool) {
-            EquipoMedico.StatusEquipo status = equipo.getStatusEquipo();
-
-            if (status == EquipoMedico.StatusEquipo.DISPONIBLE) {
-                disponibles++;
-            } else {
-                ocupados++;
-            }
-
-            System.out.printf("   Equipo Médico %d: %s\n",
-                    equipo.getIdEquipo(),
-                    status);
+    private void mostrarEstadoEquipoMedico(InstantaneaSistema instantanea) {
+        salida.linea("\n⚕️ Estado de Equipos Médicos:");
+        for (int i = 0; i < instantanea.getCantidadEquipos(); i++) {
+            salida.linea("   Equipo Médico %d: %s",
+                    instantanea.getIdEquipo(i),
+                    instantanea.getEstadoEquipo(i));
         }
-        System.out.printf("   Total: %d disponibles, %d ocupados\n", disponibles, ocupados);
+        int disponibles = instantanea.contarEquipos(EquipoMedico.StatusEquipo.DISPONIBLE);
+        salida.linea("   Total: %d disponibles, %d ocupados",
+                disponibles, instantanea.getCantidadEquipos() - disponibles);
     }
 
-    private void mostrarResumenEstadistico() {
-        System.out.println("\n📈 Resumen Estadístico de Casos Completados:");
-
-        synchronized (casosCompletados) {
-            if (casosCompletados.isEmpty()) {
-                System.out.println("   (No hay casos completados aún)");
-                return;
-            }
-
-            long sumaEspera = 0;
-            long sumaServicio = 0;
-
-            for (CasoEmergencia caso : casosCompletados) {
-                sumaEspera += caso.getTiempoEsperaMs();
-                sumaServicio += caso.getTiempoTotalServicioMs();
-            }
+    private void mostrarResumenEstadistico(InstantaneaSistema instantanea) {
+        salida.linea("\n📈 Resumen Estadístico de Casos Completados:");
+        salida.linea("   En cola: %d (%d críticos, %d graves, %d moderados, %d leves)",
+                instantanea.getCasosEnCola(),
+                instantanea.getCasosEnCola(CasoEmergencia.Severity.CRITICO),
+                instantanea.getCasosEnCola(CasoEmergencia.Severity.GRAVE),
+                instantanea.getCasosEnCola(CasoEmergencia.Severity.MODERADO),
+                instantanea.getCasosEnCola(CasoEmergencia.Severity.LEVE));
+
+        if (instantanea.getCasosCompletados() == 0) {
+            salida.linea("   (No hay casos completados aún)");
+            return;
+        }
 
-            int total = casosCompletados.size();
-            double promedioEsperaSeg = (sumaEspera / 1000.0) / total;
-            double promedioServicioSeg = (sumaServicio / 1000.0) / total;
+        salida.linea("   Casos completados: %d", instantanea.getCasosCompletados());
+        salida.linea("   Tiempo promedio de espera: %.2f s", instantanea.getEsperaPromedioMs() / 1000.0);
+        salida.linea("   Tiempo promedio de servicio: %.2f s", instantanea.getServicioPromedioMs() / 1000.0);
+    }
 
-            System.out.printf("   Casos completados: %d\n", total);
-            System.out.printf("   Tiempo promedio de espera: %.2f s\n", promedioEsperaSeg);
-            System.out.printf("   Tiempo promedio de servicio: %.2f s\n", promedioServicioSeg);
+    private void mostrarCumplimientoSla() {
+        if (seguimientoSla == null) {
+            return;
+        }
+        salida.linea("\n⏱️ Cumplimiento de Plazos de Llegada:");
+        for (CasoEmergencia.Severity severidad : CasoEmergencia.Severity.values()) {
+            long tarde = seguimientoSla.getIncumplidos(severidad);
+            salida.linea("   %-9s %5.1f%% a tiempo (%d tarde, retraso p90 %d ms)",
+                    severidad,
+                    seguimientoSla.getPorcentajeCumplimiento(severidad),
+                    tarde,
+                    seguimientoSla.getRetrasos(severidad).percentil(90));
         }
     }
 
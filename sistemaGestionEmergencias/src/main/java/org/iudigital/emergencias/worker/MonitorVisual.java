@@ -1,12 +1,11 @@
 package org.iudigital.emergencias.worker;
 
-import org.iudigital.emergencias.domain.Ambulancia;
-import org.iudigital.emergencias.domain.CasoEmergencia;
-import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.metrics.MuestreadorTelemetria;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 import org.iudigital.emergencias.util.ConsoleUI;
+import org.iudigital.emergencias.util.TableroRecursos;
 
-import java.util.List;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -15,36 +14,56 @@ import java.util.concurrent.TimeUnit;
  */
 public class MonitorVisual implements Runnable, Stoppable {
 
-    private final List<Ambulancia> ambulancias;
-    private final List<EquipoMedico> equiposMedicos;
-    private final List<CasoEmergencia> casosCompletados;
-    private final BlockingQueue<CasoEmergencia> colaCasos;
+    private final MuestreadorTelemetria telemetria;
     private volatile boolean corriendo = true;
     private final int intervaloSegundos;
+    private Salida salida = SalidaConsola.getInstance();
+    private TableroRecursos tablero;
+    private long periodoTableroMs;
 
-    public MonitorVisual(List<Ambulancia> ambulancias,
-            List<EquipoMedico> equiposMedicos,
-            List<CasoEmergencia> casosCompletados,
-            BlockingQueue<CasoEmergencia> colaCasos,
-            int intervaloSegundos) {
-        this.ambulancias = ambulancias;
-        this.equiposMedicos = equiposMedicos;
-        this.casosCompletados = casosCompletados;
-        this.colaCasos = colaCasos;
+    public MonitorVisual(MuestreadorTelemetria telemetria, int intervaloSegundos) {
+        this.telemetria = telemetria;
         this.intervaloSegundos = intervaloSegundos;
     }
 
+    /**
+     * Destino del panel; con una salida deshabilitada el panel no se arma.
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
+    }
+
+    /**
+     * Activa el modo tablero: en lugar de imprimir el panel cada
+     * {@code intervaloSegundos}, redibuja el tablero en su lugar a la
+     * frecuencia indicada, enviando solo las celdas que cambiaron.
+     */
+    public void setTablero(TableroRecursos tablero, int cuadrosPorSegundo) {
+        if (cuadrosPorSegundo < 1) {
+            throw new IllegalArgumentException("Cuadros por segundo inválidos: " + cuadrosPorSegundo);
+        }
+        this.tablero = tablero;
+        this.periodoTableroMs = 1000L / cuadrosPorSegundo;
+    }
+
     @Override
     public void run() {
         // Nombrar el hilo del monitor visual
         Thread.currentThread().setName("Monitor-Visual");
 
+        if (tablero != null) {
+            ejecutarTablero();
+            return;
+        }
+
         try {
             while (corriendo) {
                 TimeUnit.SECONDS.sleep(intervaloSegundos);
 
                 if (!corriendo)
                     break;
+                if (!salida.habilitada())
+                    continue;
 
                 mostrarEstadoVisual();
             }
@@ -53,20 +72,41 @@ public class MonitorVisual implements Runnable, Stoppable {
         }
     }
 
+    /**
+     * Bucle del modo tablero, a ritmo fijo: el tiempo de dibujo se descuenta
+     * de la espera para sostener la frecuencia.
+     */
+    private void ejecutarTablero() {
+        try {
+            long siguiente = System.nanoTime();
+            while (corriendo) {
+                tablero.dibujar(telemetria.getInstantanea());
+                siguiente += TimeUnit.MILLISECONDS.toNanos(periodoTableroMs);
+                long espera = siguiente - System.nanoTime();
+                if (espera > 0) {
+                    TimeUnit.NANOSECONDS.sleep(espera);
+                } else {
+                    siguiente = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            tablero.cerrar();
+        }
+    }
+
     /**
      * Muestra el estado visual completo del sistema.
      */
     private void mostrarEstadoVisual() {
-        int casosEnCola = colaCasos.size();
-        int completados = casosCompletados.size();
-
         // Separador visual
-        System.out.println("\n" + "═".repeat(80));
+        salida.linea("\n" + "═".repeat(80));
 
         // Mostrar panel de recursos con gráficos
-        ConsoleUI.mostrarPanelRecursos(ambulancias, equiposMedicos, casosEnCola, completados);
+        ConsoleUI.mostrarPanelRecursos(salida, telemetria.getInstantanea());
 
-        System.out.println("═".repeat(80) + "\n");
+        salida.linea("═".repeat(80) + "\n");
     }
 
     @Override
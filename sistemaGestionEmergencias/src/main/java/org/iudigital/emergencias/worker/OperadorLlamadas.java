@@ -2,19 +2,41 @@ package org.iudigital.emergencias.worker;
 
 import org.iudigital.emergencias.domain.CasoEmergencia;
 import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.iudigital.emergencias.intake.CanalIngreso;
+import org.iudigital.emergencias.intake.ResultadoIngreso;
+import org.iudigital.emergencias.output.Salida;
+import org.iudigital.emergencias.output.SalidaConsola;
 
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
 
 public class OperadorLlamadas implements Runnable, Stoppable {
 
-    private final BlockingQueue<CasoEmergencia> emergencias;
+    private final CanalIngreso emergencias;
     private final String idOperador;
+    private final RegistroUbicaciones registroUbicaciones;
+    private Salida salida = SalidaConsola.getInstance();
     private volatile boolean corriendo = true;
 
-    public OperadorLlamadas(BlockingQueue<CasoEmergencia> emergencias, String idOperador) {
+    // Fracción de casos CRITICO que son incidentes múltiples (2 ambulancias + 1 equipo)
+    private static final double PROB_INCIDENTE_MULTIPLE = 0.1;
+
+    // Tiempo extra por llamada cuando el sistema está saturado (triage y
+    // derivación de llamantes a la línea no urgente)
+    private static final long DEMORA_SATURACION_MS = 1000;
+
+    public OperadorLlamadas(CanalIngreso emergencias, String idOperador) {
         this.emergencias = emergencias;
         this.idOperador = idOperador;
+        this.registroUbicaciones = RegistroUbicaciones.getInstance();
+    }
+
+    /**
+     * Destino de los mensajes de cada llamada; por defecto la consola.
+     * Debe configurarse antes de lanzar el hilo.
+     */
+    public void setSalida(Salida salida) {
+        this.salida = salida;
     }
 
     @Override
@@ -24,29 +46,44 @@ public class OperadorLlamadas implements Runnable, Stoppable {
 
         try {
             while (corriendo) {
-                TimeUnit.MILLISECONDS.sleep(500 + (long) (Math.random() * 1500));
+                TimeUnit.MILLISECONDS.sleep(500 + (long) (Math.random() * 1500)
+                        + (emergencias.saturado() ? DEMORA_SATURACION_MS : 0));
 
                 Severity ramdonSeverity = getRamdonSeverity();
-                String lugar = "Lugar- " + (int) (Math.random() * 50);
+                int ubicacionId = registroUbicaciones.ubicacionAleatoria();
 
-                CasoEmergencia nuevoCaso = new CasoEmergencia(ramdonSeverity, lugar);
+                CasoEmergencia nuevoCaso = (ramdonSeverity == Severity.CRITICO
+                        && Math.random() < PROB_INCIDENTE_MULTIPLE)
+                                ? new CasoEmergencia(ramdonSeverity, ubicacionId, 2, 1)
+                                : new CasoEmergencia(ramdonSeverity, ubicacionId);
 
-                emergencias.put(nuevoCaso);
+                ResultadoIngreso resultado = emergencias.recibir(nuevoCaso);
 
-                System.out.printf(" %s Recibe llamadas #%d: %s en %s. Pendientes: %d\n",
+                salida.linea(" %s Recibe llamadas #%d: %s en %s.%s Pendientes: %d",
                         idOperador,
                         nuevoCaso.getCasoId(),
                         ramdonSeverity,
-                        lugar,
-                        emergencias.size());
+                        nuevoCaso.getLugar(),
+                        describir(resultado),
+                        emergencias.pendientes());
 
             }
         } catch (InterruptedException e) {
-            System.out.println(idOperador + "interrumpido y detenido.");
+            salida.linea("%s interrumpido y detenido.", idOperador);
             Thread.currentThread().interrupt();
         }
     }
 
+    private static String describir(ResultadoIngreso resultado) {
+        return switch (resultado) {
+            case ENCOLADO -> "";
+            case FUSIONADO -> " (incidente ya reportado)";
+            case EN_LINEA -> " (en espera de operador)";
+            case DIFERIDO -> " (sistema saturado: llamada diferida)";
+            case RECHAZADO -> " (sistema saturado: derivada a línea no urgente)";
+        };
+    }
+
     private CasoEmergencia.Severity getRamdonSeverity() {
         double r = Math.random();
         if (r < 0.2) {
@@ -0,0 +1,65 @@
+package org.iudigital.emergencias.dispatch;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * El algoritmo húngaro frente a la búsqueda exhaustiva en matrices chicas.
+ */
+class AsignadorHungaroTest {
+
+    @Test
+    void igualaAlOptimoExhaustivo() {
+        Random random = new Random(42L);
+        // Una sola instancia: los arreglos de trabajo se reutilizan entre tamaños
+        AsignadorHungaro asignador = new AsignadorHungaro();
+        for (int prueba = 0; prueba < 500; prueba++) {
+            int n = 1 + random.nextInt(5);
+            int m = n + random.nextInt(3);
+            double[] costo = new double[n * m];
+            for (int k = 0; k < costo.length; k++) {
+                // Enteros chicos para forzar empates
+                costo[k] = random.nextInt(prueba % 2 == 0 ? 10 : 1000);
+            }
+
+            int[] asignacion = asignador.resolver(costo, n, m);
+
+            assertEquals(n, asignacion.length);
+            boolean[] usada = new boolean[m];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                assertFalse(usada[asignacion[i]], "columna repetida");
+                usada[asignacion[i]] = true;
+                total += costo[i * m + asignacion[i]];
+            }
+            assertEquals(minimoExhaustivo(costo, n, m, 0, new boolean[m]), total, 1e-9,
+                    "matriz " + n + "x" + m + " de la prueba " + prueba);
+        }
+    }
+
+    @Test
+    void rechazaMasFilasQueColumnas() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AsignadorHungaro().resolver(new double[6], 3, 2));
+    }
+
+    private static double minimoExhaustivo(double[] costo, int n, int m, int fila, boolean[] usada) {
+        if (fila == n) {
+            return 0;
+        }
+        double mejor = Double.POSITIVE_INFINITY;
+        for (int j = 0; j < m; j++) {
+            if (!usada[j]) {
+                usada[j] = true;
+                mejor = Math.min(mejor, costo[fila * m + j] + minimoExhaustivo(costo, n, m, fila + 1, usada));
+                usada[j] = false;
+            }
+        }
+        return mejor;
+    }
+}
@@ -0,0 +1,162 @@
+package org.iudigital.emergencias.dispatch;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reservas todo-o-nada que compiten por las mismas unidades: al terminar,
+ * cada unidad es entera de una reserva confirmada o quedó libre.
+ */
+class ReservaRecursosTest {
+
+    private static final int HILOS = 6;
+    private static final int RONDAS = 300;
+    private static final int AMBULANCIAS = 7;
+    private static final int EQUIPOS = 4;
+
+    @Test
+    void ningunaUnidadQuedaAMedioApartar() throws InterruptedException {
+        Random semillas = new Random(3L);
+        int confirmadasTotal = 0;
+        for (int ronda = 0; ronda < RONDAS; ronda++) {
+            List<Ambulancia> ambulancias = new ArrayList<>();
+            for (int i = 0; i < AMBULANCIAS; i++) {
+                ambulancias.add(new Ambulancia(100 + i, new ArrayList<>()));
+            }
+            List<EquipoMedico> equipos = new ArrayList<>();
+            for (int i = 0; i < EQUIPOS; i++) {
+                equipos.add(new EquipoMedico(200 + i));
+            }
+
+            ConcurrentLinkedQueue<ReservaRecursos> confirmadas = new ConcurrentLinkedQueue<>();
+            AtomicReference<Throwable> error = new AtomicReference<>();
+            CyclicBarrier largada = new CyclicBarrier(HILOS);
+            List<Thread> hilos = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                long semilla = semillas.nextLong();
+                Thread hilo = new Thread(() -> {
+                    try {
+                        // Cada despachador recorre las unidades en su propio orden
+                        Random random = new Random(semilla);
+                        List<Ambulancia> ordenAmbulancias = new ArrayList<>(ambulancias);
+                        List<EquipoMedico> ordenEquipos = new ArrayList<>(equipos);
+                        Collections.shuffle(ordenAmbulancias, random);
+                        Collections.shuffle(ordenEquipos, random);
+                        ReservaRecursos reserva = new ReservaRecursos(
+                                new CasoEmergencia(Severity.CRITICO, random.nextInt(50), 2, 1));
+                        largada.await();
+                        for (Ambulancia ambulancia : ordenAmbulancias) {
+                            if (reserva.ambulanciasFaltantes() > 0) {
+                                reserva.apartar(ambulancia);
+                            }
+                        }
+                        for (EquipoMedico equipo : ordenEquipos) {
+                            if (reserva.equiposFaltantes() > 0) {
+                                reserva.apartar(equipo);
+                            }
+                        }
+                        if (reserva.estaCompleta()) {
+                            reserva.confirmar();
+                            confirmadas.add(reserva);
+                        } else {
+                            reserva.revertir();
+                        }
+                    } catch (Throwable t) {
+                        error.compareAndSet(null, t);
+                    }
+                }, "despachador-" + h);
+                hilos.add(hilo);
+                hilo.start();
+            }
+            for (Thread hilo : hilos) {
+                hilo.join();
+            }
+            assertNull(error.get());
+            verificar(ambulancias, equipos, confirmadas);
+            confirmadasTotal += confirmadas.size();
+        }
+        assertTrue(confirmadasTotal > 0);
+    }
+
+    /**
+     * Las reservas confirmadas tienen unidades disjuntas y completas, ligadas
+     * a su caso; el resto de las unidades está disponible y sin apartar.
+     */
+    private static void verificar(List<Ambulancia> ambulancias, List<EquipoMedico> equipos,
+            ConcurrentLinkedQueue<ReservaRecursos> confirmadas) {
+        Map<Object, ReservaRecursos> duenos = new IdentityHashMap<>();
+        for (ReservaRecursos reserva : confirmadas) {
+            assertEquals(2, reserva.getNumAmbulancias());
+            assertEquals(1, reserva.getNumEquipos());
+            for (Ambulancia ambulancia : reserva.getAmbulancias()) {
+                assertNull(duenos.put(ambulancia, reserva), "ambulancia en dos reservas");
+                assertEquals(Ambulancia.StatusAmbulancia.EN_RUTA, ambulancia.getStatusAmbulancia());
+                assertSame(reserva.getCaso(), ambulancia.getCasoActual());
+            }
+            for (EquipoMedico equipo : reserva.getEquipos()) {
+                assertNull(duenos.put(equipo, reserva), "equipo en dos reservas");
+                assertEquals(EquipoMedico.StatusEquipo.ASIGNADO, equipo.getStatusEquipo());
+            }
+        }
+
+        Object sonda = new Object();
+        for (Ambulancia ambulancia : ambulancias) {
+            if (!duenos.containsKey(ambulancia)) {
+                assertEquals(Ambulancia.StatusAmbulancia.DISPONIBLE, ambulancia.getStatusAmbulancia());
+                assertTrue(ambulancia.apartar(sonda), "ambulancia " + ambulancia.getIdAmbulancia()
+                        + " quedó apartada");
+                ambulancia.soltar(sonda);
+            }
+        }
+        for (EquipoMedico equipo : equipos) {
+            if (!duenos.containsKey(equipo)) {
+                assertEquals(EquipoMedico.StatusEquipo.DISPONIBLE, equipo.getStatusEquipo());
+                assertTrue(equipo.apartar(sonda), "equipo " + equipo.getIdEquipo() + " quedó apartado");
+                equipo.soltar(sonda);
+            }
+        }
+    }
+
+    @Test
+    void unaReservaIncompletaNoSeConfirmaYAlRevertirSueltaTodo() {
+        Ambulancia ambulancia = new Ambulancia(100, new ArrayList<>());
+        EquipoMedico equipo = new EquipoMedico(200);
+        ReservaRecursos reserva = new ReservaRecursos(new CasoEmergencia(Severity.GRAVE, 4, 2, 1));
+        assertTrue(reserva.apartar(ambulancia));
+        assertTrue(reserva.apartar(equipo));
+
+        // Apartadas por la reserva, otra no puede tomarlas
+        ReservaRecursos otra = new ReservaRecursos(new CasoEmergencia(Severity.LEVE, 5));
+        assertFalse(otra.apartar(ambulancia));
+        assertFalse(otra.apartar(equipo));
+
+        assertFalse(reserva.estaCompleta());
+        assertThrows(IllegalStateException.class, reserva::confirmar);
+        reserva.revertir();
+
+        assertTrue(otra.apartar(ambulancia));
+        assertTrue(otra.apartar(equipo));
+        assertEquals(Ambulancia.StatusAmbulancia.DISPONIBLE, ambulancia.getStatusAmbulancia());
+        assertThrows(IllegalStateException.class, () -> reserva.apartar(new Ambulancia(101, new ArrayList<>())));
+    }
+}
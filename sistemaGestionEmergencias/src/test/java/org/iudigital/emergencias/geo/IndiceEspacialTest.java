@@ -0,0 +1,146 @@
+package org.iudigital.emergencias.geo;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La búsqueda por anillos de celdas frente a la búsqueda exhaustiva.
+ */
+class IndiceEspacialTest {
+
+    private static final double LADO_KM = 20.0;
+    private static final int CELDAS = 10;
+
+    // Esquinas, bordes y centro de la ciudad, y puntos apenas fuera
+    private static final double[][] CONSULTAS_FIJAS = {
+            {0, 0}, {LADO_KM, 0}, {0, LADO_KM}, {LADO_KM, LADO_KM},
+            {LADO_KM / 2, 0}, {0, LADO_KM / 2}, {LADO_KM, LADO_KM / 2}, {LADO_KM / 2, LADO_KM},
+            {LADO_KM / 2, LADO_KM / 2}, {-1, -1}, {LADO_KM + 1, LADO_KM / 3}};
+
+    @Test
+    void igualaALaBusquedaExhaustiva() {
+        Random random = new Random(5L);
+        // De muy disperso (casi todas las celdas vacías) a denso
+        for (int cantidad : new int[] {1, 3, 12, 80, 600}) {
+            IndiceEspacial indice = new IndiceEspacial(LADO_KM, CELDAS);
+            double[] xs = new double[cantidad];
+            double[] ys = new double[cantidad];
+            for (int id = 0; id < cantidad; id++) {
+                xs[id] = random.nextDouble() * LADO_KM;
+                ys[id] = random.nextDouble() * LADO_KM;
+                indice.insertar(id, xs[id], ys[id]);
+            }
+            boolean[] presente = new boolean[cantidad];
+            Arrays.fill(presente, true);
+            verificarConsultas(indice, xs, ys, presente, random);
+        }
+    }
+
+    @Test
+    void kMayorQueLaCantidadDevuelveTodos() {
+        IndiceEspacial indice = new IndiceEspacial(LADO_KM, CELDAS);
+        indice.insertar(0, 1, 1);
+        indice.insertar(1, 19, 19);
+        indice.insertar(2, 10, 2);
+        int[] salida = new int[10];
+
+        assertEquals(3, indice.vecinosMasCercanos(0, 0, 10, salida));
+        assertArrayEquals(new int[] {0, 2, 1}, Arrays.copyOf(salida, 3));
+        assertEquals(0, new IndiceEspacial(LADO_KM, CELDAS).vecinosMasCercanos(5, 5, 4, salida));
+        assertEquals(0, indice.vecinosMasCercanos(5, 5, 0, salida));
+    }
+
+    @Test
+    void insertarMoverYEliminar() {
+        Random random = new Random(9L);
+        int cantidad = 200;
+        IndiceEspacial indice = new IndiceEspacial(LADO_KM, CELDAS);
+        double[] xs = new double[cantidad];
+        double[] ys = new double[cantidad];
+        boolean[] presente = new boolean[cantidad];
+        for (int paso = 0; paso < 2000; paso++) {
+            int id = random.nextInt(cantidad);
+            if (presente[id] && random.nextInt(3) == 0) {
+                indice.eliminar(id);
+                presente[id] = false;
+            } else {
+                // Inserta o mueve a otra celda
+                xs[id] = random.nextDouble() * LADO_KM;
+                ys[id] = random.nextDouble() * LADO_KM;
+                indice.insertar(id, xs[id], ys[id]);
+                presente[id] = true;
+            }
+            if (paso % 100 == 0) {
+                verificarConsultas(indice, xs, ys, presente, random);
+            }
+        }
+
+        int presentes = 0;
+        for (int id = 0; id < cantidad; id++) {
+            assertEquals(presente[id], indice.contiene(id));
+            presentes += presente[id] ? 1 : 0;
+        }
+        assertEquals(presentes, indice.size());
+
+        // Eliminar dos veces descuenta una sola
+        indice.insertar(0, 3, 3);
+        int antes = indice.size();
+        indice.eliminar(0);
+        indice.eliminar(0);
+        assertEquals(antes - 1, indice.size());
+        assertFalse(indice.contiene(0));
+    }
+
+    private static void verificarConsultas(IndiceEspacial indice, double[] xs, double[] ys, boolean[] presente,
+            Random random) {
+        for (double[] consulta : CONSULTAS_FIJAS) {
+            for (int k : new int[] {1, 3, 8, xs.length + 2}) {
+                verificar(indice, consulta[0], consulta[1], k, xs, ys, presente);
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            verificar(indice, random.nextDouble() * LADO_KM, random.nextDouble() * LADO_KM,
+                    1 + random.nextInt(10), xs, ys, presente);
+        }
+    }
+
+    /**
+     * Compara las distancias (los ids pueden diferir en empates).
+     */
+    private static void verificar(IndiceEspacial indice, double x, double y, int k, double[] xs, double[] ys,
+            boolean[] presente) {
+        double[] todas = new double[xs.length];
+        int n = 0;
+        for (int id = 0; id < xs.length; id++) {
+            if (presente[id]) {
+                todas[n++] = distancia2(xs[id], ys[id], x, y);
+            }
+        }
+        double[] esperadas = Arrays.copyOf(todas, n);
+        Arrays.sort(esperadas);
+        esperadas = Arrays.copyOf(esperadas, Math.min(k, n));
+
+        int[] salida = new int[k];
+        int encontrados = indice.vecinosMasCercanos(x, y, k, salida);
+        assertEquals(esperadas.length, encontrados, "cantidad en (" + x + ", " + y + "), k=" + k);
+        double[] obtenidas = new double[encontrados];
+        for (int i = 0; i < encontrados; i++) {
+            assertTrue(presente[salida[i]], "id eliminado " + salida[i]);
+            obtenidas[i] = distancia2(xs[salida[i]], ys[salida[i]], x, y);
+        }
+        assertArrayEquals(esperadas, obtenidas, 1e-12, "vecinos de (" + x + ", " + y + "), k=" + k);
+    }
+
+    private static double distancia2(double ax, double ay, double bx, double by) {
+        double dx = ax - bx;
+        double dy = ay - by;
+        return dx * dx + dy * dy;
+    }
+}
@@ -0,0 +1,75 @@
+package org.iudigital.emergencias.geo;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * El A* con landmarks debe encontrar los mismos tiempos que un Dijkstra
+ * simple sobre la misma red.
+ */
+class RuteadorVialTest {
+
+    private static GrafoVial grafo;
+    private static RuteadorVial ruteador;
+
+    @BeforeAll
+    static void crearRed() {
+        grafo = GrafoVial.generarCuadricula(30, RegistroUbicaciones.LADO_CIUDAD_KM, 7L);
+        ruteador = new RuteadorVial(grafo, RegistroUbicaciones.getInstance(), 4, 1024);
+    }
+
+    @Test
+    void tiemposIgualesADijkstra() {
+        Random random = new Random(11L);
+        for (int origen : new int[] {0, 137, 450, grafo.getNumNodos() - 1}) {
+            float[] esperado = dijkstra(origen);
+            for (int i = 0; i < 200; i++) {
+                int destino = random.nextInt(grafo.getNumNodos());
+                float obtenido = ruteador.rutaEntreNodos(origen, destino).getTiempoMs();
+                if (esperado[destino] == Float.POSITIVE_INFINITY) {
+                    continue;
+                }
+                assertEquals(esperado[destino], obtenido, 1e-3f * Math.max(1f, esperado[destino]),
+                        "ruta " + origen + " -> " + destino);
+            }
+        }
+    }
+
+    @Test
+    void consultaRepetidaUsaLaCache() {
+        ruteador.rutaEntreNodos(3, 812);
+        long aciertos = ruteador.getCache().getAciertos();
+        ruteador.rutaEntreNodos(3, 812);
+        assertEquals(aciertos + 1, ruteador.getCache().getAciertos());
+    }
+
+    private static float[] dijkstra(int fuente) {
+        float[] distancia = new float[grafo.getNumNodos()];
+        Arrays.fill(distancia, Float.POSITIVE_INFINITY);
+        distancia[fuente] = 0f;
+        PriorityQueue<float[]> cola = new PriorityQueue<>((a, b) -> Float.compare(a[1], b[1]));
+        cola.add(new float[] {fuente, 0f});
+        while (!cola.isEmpty()) {
+            float[] actual = cola.poll();
+            int u = (int) actual[0];
+            if (actual[1] > distancia[u]) {
+                continue;
+            }
+            for (int arco = grafo.inicioSalientes(u); arco < grafo.finSalientes(u); arco++) {
+                int v = grafo.destino(arco);
+                float nueva = distancia[u] + grafo.tiempoMs(arco);
+                if (nueva < distancia[v]) {
+                    distancia[v] = nueva;
+                    cola.add(new float[] {v, nueva});
+                }
+            }
+        }
+        return distancia;
+    }
+}
@@ -0,0 +1,143 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.iudigital.emergencias.intake.ControlAdmision.ModoAdmision;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Umbrales de admisión por severidad, readmisión de diferidos y abandono.
+ */
+class ControlAdmisionTest {
+
+    private static final int CAPACIDAD = 10;
+    private static final long PACIENCIA_MS = 1000;
+
+    /**
+     * Canal con un nivel de pendientes fijado por el test, más los casos que recibe.
+     */
+    private static final class CanalNivel implements CanalIngreso {
+        final List<CasoEmergencia> recibidos = new ArrayList<>();
+        int nivel;
+
+        @Override
+        public ResultadoIngreso recibir(CasoEmergencia caso) {
+            recibidos.add(caso);
+            return ResultadoIngreso.ENCOLADO;
+        }
+
+        @Override
+        public int pendientes() {
+            return nivel + recibidos.size();
+        }
+    }
+
+    @Test
+    void leveDejaDeAdmitirseALaMitadDeLaCapacidad() throws InterruptedException {
+        CanalNivel canal = new CanalNivel();
+        ControlAdmision diferir = new ControlAdmision(canal, ModoAdmision.DIFERIR, CAPACIDAD, PACIENCIA_MS);
+        ControlAdmision rechazar = new ControlAdmision(canal, ModoAdmision.RECHAZAR, CAPACIDAD, PACIENCIA_MS);
+
+        canal.nivel = CAPACIDAD / 2 - 1;
+        assertEquals(ResultadoIngreso.ENCOLADO, diferir.recibir(new CasoEmergencia(Severity.LEVE, 1)));
+
+        assertEquals(ResultadoIngreso.DIFERIDO, diferir.recibir(new CasoEmergencia(Severity.LEVE, 1)));
+        assertEquals(ResultadoIngreso.RECHAZADO, rechazar.recibir(new CasoEmergencia(Severity.LEVE, 1)));
+        assertEquals(1, canal.recibidos.size());
+        assertEquals(1, diferir.getDiferidos());
+        assertEquals(1, rechazar.getRechazados());
+    }
+
+    @Test
+    void elRestoDejaDeAdmitirseALaCapacidad() throws InterruptedException {
+        CanalNivel canal = new CanalNivel();
+        ControlAdmision control = new ControlAdmision(canal, ModoAdmision.DIFERIR, CAPACIDAD, PACIENCIA_MS);
+
+        canal.nivel = CAPACIDAD - 1;
+        assertEquals(ResultadoIngreso.ENCOLADO, control.recibir(new CasoEmergencia(Severity.MODERADO, 1)));
+        assertEquals(ResultadoIngreso.RECHAZADO, control.recibir(new CasoEmergencia(Severity.MODERADO, 1)));
+        assertEquals(ResultadoIngreso.RECHAZADO, control.recibir(new CasoEmergencia(Severity.GRAVE, 1)));
+
+        // Solo LEVE se difiere
+        assertEquals(0, control.getDiferidosEnEspera());
+        assertEquals(2, control.getRechazados());
+    }
+
+    @Test
+    void criticoSeAdmiteSiempre() throws InterruptedException {
+        CanalNivel canal = new CanalNivel();
+        ControlAdmision control = new ControlAdmision(canal, ModoAdmision.RECHAZAR, CAPACIDAD, PACIENCIA_MS);
+
+        canal.nivel = CAPACIDAD * 10;
+        assertEquals(ResultadoIngreso.ENCOLADO, control.recibir(new CasoEmergencia(Severity.CRITICO, 1)));
+        assertEquals(1, control.getAdmitidos());
+        assertEquals(0, control.getRechazados());
+    }
+
+    @Test
+    void losDiferidosSeReadmitenEnOrdenAlBajarLaCola() throws InterruptedException {
+        CanalNivel canal = new CanalNivel();
+        ControlAdmision control = new ControlAdmision(canal, ModoAdmision.DIFERIR, CAPACIDAD, PACIENCIA_MS);
+        canal.nivel = CAPACIDAD / 2;
+        List<CasoEmergencia> diferidos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CasoEmergencia caso = new CasoEmergencia(Severity.LEVE, i);
+            diferidos.add(caso);
+            control.recibir(caso);
+        }
+        long ahora = diferidos.get(0).getHoraRecibido();
+
+        // Con la cola aún en el umbral no entra ninguno
+        control.revisarDiferidos(ahora);
+        assertEquals(0, canal.recibidos.size());
+        assertEquals(3, control.pendientes() - canal.pendientes());
+
+        // Entran hasta volver al umbral: dos de los tres
+        canal.nivel = CAPACIDAD / 2 - 2;
+        control.revisarDiferidos(ahora);
+        assertEquals(diferidos.subList(0, 2), canal.recibidos);
+        assertEquals(2, control.getReadmitidos());
+        assertEquals(1, control.getDiferidosEnEspera());
+        assertEquals(0, control.getAbandonados());
+    }
+
+    @Test
+    void unDiferidoQueSuperaLaPacienciaAbandona() throws InterruptedException {
+        CanalNivel canal = new CanalNivel();
+        ControlAdmision control = new ControlAdmision(canal, ModoAdmision.DIFERIR, CAPACIDAD, PACIENCIA_MS);
+        canal.nivel = CAPACIDAD / 2;
+        CasoEmergencia caso = new CasoEmergencia(Severity.LEVE, 1);
+        control.recibir(caso);
+
+        control.revisarDiferidos(caso.getHoraRecibido() + PACIENCIA_MS);
+        assertEquals(1, control.getDiferidosEnEspera());
+
+        control.revisarDiferidos(caso.getHoraRecibido() + PACIENCIA_MS + 1);
+        assertEquals(0, control.getDiferidosEnEspera());
+        assertEquals(1, control.getAbandonados());
+
+        // Un abandonado no se readmite aunque la cola baje
+        canal.nivel = 0;
+        control.revisarDiferidos(caso.getHoraRecibido() + PACIENCIA_MS + 2);
+        assertEquals(0, canal.recibidos.size());
+        assertEquals(0, control.getReadmitidos());
+    }
+
+    @Test
+    void conElBufferLlenoLeveSeRechaza() throws InterruptedException {
+        CanalNivel canal = new CanalNivel();
+        ControlAdmision control = new ControlAdmision(canal, ModoAdmision.DIFERIR, 2, PACIENCIA_MS);
+        canal.nivel = 1;
+
+        assertEquals(ResultadoIngreso.DIFERIDO, control.recibir(new CasoEmergencia(Severity.LEVE, 1)));
+        assertEquals(ResultadoIngreso.DIFERIDO, control.recibir(new CasoEmergencia(Severity.LEVE, 2)));
+        assertEquals(ResultadoIngreso.RECHAZADO, control.recibir(new CasoEmergencia(Severity.LEVE, 3)));
+        assertEquals(2, control.getDiferidosEnEspera());
+        assertEquals(1, control.getRechazados());
+    }
+}
@@ -0,0 +1,109 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Fusión de llamadas repetidas: misma clave, dentro de la ventana y con el
+ * caso aún sin atender.
+ */
+class CorrelacionIncidentesTest {
+
+    /**
+     * Canal que guarda los casos y responde siempre lo mismo.
+     */
+    private static final class CanalFijo implements CanalIngreso {
+        final List<CasoEmergencia> recibidos = new ArrayList<>();
+        ResultadoIngreso resultado = ResultadoIngreso.ENCOLADO;
+
+        @Override
+        public ResultadoIngreso recibir(CasoEmergencia caso) {
+            recibidos.add(caso);
+            return resultado;
+        }
+
+        @Override
+        public int pendientes() {
+            return recibidos.size();
+        }
+    }
+
+    @Test
+    void fusionaLlamadasDelMismoIncidente() throws InterruptedException {
+        CanalFijo canal = new CanalFijo();
+        CorrelacionIncidentes correlacion = new CorrelacionIncidentes(canal, 60_000);
+        CasoEmergencia original = new CasoEmergencia(Severity.GRAVE, 3);
+
+        assertEquals(ResultadoIngreso.ENCOLADO, correlacion.recibir(original));
+        assertEquals(ResultadoIngreso.FUSIONADO, correlacion.recibir(new CasoEmergencia(Severity.GRAVE, 3)));
+        assertEquals(ResultadoIngreso.FUSIONADO, correlacion.recibir(new CasoEmergencia(Severity.GRAVE, 3)));
+
+        assertEquals(List.of(original), canal.recibidos);
+        assertEquals(3, original.getLlamadas());
+        assertEquals(2, correlacion.getLlamadasFusionadas());
+    }
+
+    @Test
+    void otraUbicacionUOtraSeveridadNoSeFusionan() throws InterruptedException {
+        CanalFijo canal = new CanalFijo();
+        CorrelacionIncidentes correlacion = new CorrelacionIncidentes(canal, 60_000);
+
+        correlacion.recibir(new CasoEmergencia(Severity.GRAVE, 3));
+        assertEquals(ResultadoIngreso.ENCOLADO, correlacion.recibir(new CasoEmergencia(Severity.GRAVE, 4)));
+        assertEquals(ResultadoIngreso.ENCOLADO, correlacion.recibir(new CasoEmergencia(Severity.LEVE, 3)));
+
+        assertEquals(3, canal.recibidos.size());
+        assertEquals(0, correlacion.getLlamadasFusionadas());
+    }
+
+    @Test
+    void fueraDeLaVentanaAbreUnCasoNuevo() throws InterruptedException {
+        CanalFijo canal = new CanalFijo();
+        CorrelacionIncidentes correlacion = new CorrelacionIncidentes(canal, 20);
+        correlacion.recibir(new CasoEmergencia(Severity.MODERADO, 5));
+
+        Thread.sleep(50);
+        CasoEmergencia tardia = new CasoEmergencia(Severity.MODERADO, 5);
+        assertEquals(ResultadoIngreso.ENCOLADO, correlacion.recibir(tardia));
+
+        // La tardía reemplaza a la vencida en el índice
+        assertEquals(ResultadoIngreso.FUSIONADO, correlacion.recibir(new CasoEmergencia(Severity.MODERADO, 5)));
+        assertEquals(2, tardia.getLlamadas());
+    }
+
+    @Test
+    void unCasoYaAtendidoNoRecibeLlamadas() throws InterruptedException {
+        CanalFijo canal = new CanalFijo();
+        CorrelacionIncidentes correlacion = new CorrelacionIncidentes(canal, 60_000);
+        CasoEmergencia atendido = new CasoEmergencia(Severity.CRITICO, 8);
+        correlacion.recibir(atendido);
+        atendido.setHoraAtendido(System.currentTimeMillis());
+
+        assertEquals(ResultadoIngreso.ENCOLADO, correlacion.recibir(new CasoEmergencia(Severity.CRITICO, 8)));
+        assertEquals(1, atendido.getLlamadas());
+        assertEquals(2, canal.recibidos.size());
+    }
+
+    @Test
+    void unCasoDiferidoNoSeIndexa() throws InterruptedException {
+        CanalFijo canal = new CanalFijo();
+        CorrelacionIncidentes correlacion = new CorrelacionIncidentes(canal, 60_000);
+        canal.resultado = ResultadoIngreso.DIFERIDO;
+        correlacion.recibir(new CasoEmergencia(Severity.LEVE, 2));
+
+        canal.resultado = ResultadoIngreso.EN_LINEA;
+        CasoEmergencia enLinea = new CasoEmergencia(Severity.LEVE, 2);
+        assertEquals(ResultadoIngreso.EN_LINEA, correlacion.recibir(enLinea));
+        assertEquals(ResultadoIngreso.FUSIONADO, correlacion.recibir(new CasoEmergencia(Severity.LEVE, 2)));
+
+        assertSame(enLinea, canal.recibidos.get(1));
+        assertEquals(2, enLinea.getLlamadas());
+    }
+}
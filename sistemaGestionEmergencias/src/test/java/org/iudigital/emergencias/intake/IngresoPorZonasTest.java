@@ -0,0 +1,64 @@
+package org.iudigital.emergencias.intake;
+
+import org.iudigital.emergencias.dispatch.PoliticaSla;
+import org.iudigital.emergencias.domain.CasoEmergencia;
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.iudigital.emergencias.geo.RegistroUbicaciones;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reparto de las zonas entre cualquier número de particiones.
+ */
+class IngresoPorZonasTest {
+
+    private final RegistroUbicaciones registro = RegistroUbicaciones.getInstance();
+
+    @Test
+    void cadaParticionRecibeZonasContiguas() {
+        int zonas = registro.getNumZonas();
+        for (int particiones = 1; particiones <= zonas; particiones++) {
+            IngresoPorZonas ingreso = nuevo(particiones);
+            int anterior = 0;
+            int[] zonasPorParticion = new int[particiones];
+            for (int zona = 0; zona < zonas; zona++) {
+                int particion = ingreso.particionDe(registro.getBaseDeZona(zona));
+                assertTrue(particion == anterior || particion == anterior + 1,
+                        "zona " + zona + " en la partición " + particion + " con " + particiones);
+                anterior = particion;
+                zonasPorParticion[particion]++;
+            }
+            for (int p = 0; p < particiones; p++) {
+                assertTrue(zonasPorParticion[p] > 0, "partición " + p + " vacía con " + particiones);
+                assertEquals(p, ingreso.particionDe(registro.getBaseDeZona(ingreso.primeraZonaDe(p))));
+            }
+        }
+    }
+
+    @Test
+    void elCasoEntraALaColaDeSuParticion() throws InterruptedException {
+        IngresoPorZonas ingreso = nuevo(2);
+        int ultimaZona = registro.getNumZonas() - 1;
+        CasoEmergencia caso = new CasoEmergencia(Severity.GRAVE, registro.getBaseDeZona(ultimaZona));
+
+        assertEquals(ResultadoIngreso.ENCOLADO, ingreso.recibir(caso));
+
+        assertSame(caso, ingreso.getCola(1).peek());
+        assertEquals(0, ingreso.getCola(0).size());
+        assertEquals(1, ingreso.pendientes());
+    }
+
+    @Test
+    void rechazaParticionesFueraDeRango() {
+        assertThrows(IllegalArgumentException.class, () -> nuevo(0));
+        assertThrows(IllegalArgumentException.class, () -> nuevo(registro.getNumZonas() + 1));
+    }
+
+    private IngresoPorZonas nuevo(int particiones) {
+        return new IngresoPorZonas(particiones, registro, PoliticaSla.desdePropiedades(), null);
+    }
+}
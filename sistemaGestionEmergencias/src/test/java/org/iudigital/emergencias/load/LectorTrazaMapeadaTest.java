@@ -0,0 +1,140 @@
+package org.iudigital.emergencias.load;
+
+import org.iudigital.emergencias.domain.CasoEmergencia.Severity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * El lector mapeado debe interpretar igual los registros que cruzan el
+ * límite de un bloque de copia o de una ventana de mapeo.
+ */
+class LectorTrazaMapeadaTest {
+
+    private static final int UBICACIONES = 50;
+    private static final Severity[] SEVERIDADES = Severity.values();
+
+    @TempDir
+    Path directorio;
+
+    @Test
+    void registrosQueCruzanBloques() throws IOException {
+        Path traza = escribir(3L * LectorTrazaMapeada.TAMANO_BLOQUE + 17);
+        verificarTodos(traza);
+    }
+
+    @Test
+    void registrosQueCruzanLaVentana() throws IOException {
+        Path traza = escribir(LectorTrazaMapeada.TAMANO_VENTANA + 3L * LectorTrazaMapeada.TAMANO_BLOQUE);
+        verificarTodos(traza);
+    }
+
+    @Test
+    void buscarTrasElLimiteDeBloque() throws IOException {
+        Path traza = escribir(3L * LectorTrazaMapeada.TAMANO_BLOQUE);
+        // Un registro cercano al primer límite de bloque
+        long objetivo = registroCercaDe(traza, LectorTrazaMapeada.TAMANO_BLOQUE);
+        try (LectorTrazaMapeada lector = new LectorTrazaMapeada(traza, UBICACIONES)) {
+            lector.buscar(tiempo(objetivo));
+            for (long i = objetivo; i < objetivo + 1000; i++) {
+                LlegadaProgramada llegada = lector.siguiente();
+                assertNotNull(llegada);
+                assertEquals(tiempo(i) - tiempo(objetivo), llegada.getTiempoMs());
+                assertEquals(ubicacion(i), llegada.getUbicacionId());
+            }
+        }
+    }
+
+    @Test
+    void rechazaUbicacionDesconocida() throws IOException {
+        Path traza = directorio.resolve("invalida.csv");
+        Files.writeString(traza, "tiempoMs,severidad,ubicacion\n0,LEVE,3\n5,GRAVE," + UBICACIONES + "\n");
+        try (LectorTrazaMapeada lector = new LectorTrazaMapeada(traza, UBICACIONES)) {
+            assertNotNull(lector.siguiente());
+            assertThrows(IOException.class, lector::siguiente);
+        }
+    }
+
+    private void verificarTodos(Path traza) throws IOException {
+        long cantidad = 0;
+        try (LectorTrazaMapeada lector = new LectorTrazaMapeada(traza, UBICACIONES)) {
+            LlegadaProgramada llegada;
+            while ((llegada = lector.siguiente()) != null) {
+                assertEquals(tiempo(cantidad), llegada.getTiempoMs(), "registro " + cantidad);
+                assertEquals(severidad(cantidad), llegada.getSeveridad(), "registro " + cantidad);
+                assertEquals(ubicacion(cantidad), llegada.getUbicacionId(), "registro " + cantidad);
+                cantidad++;
+            }
+            assertNull(lector.siguiente());
+        }
+        assertEquals(contarRegistros(traza), cantidad);
+    }
+
+    /**
+     * Escribe registros de largo variable (3 o 5 campos, algunos
+     * comentarios y líneas en blanco) hasta superar el tamaño pedido.
+     */
+    private Path escribir(long bytesMinimos) throws IOException {
+        Path traza = directorio.resolve("traza.csv");
+        long escritos = 0;
+        try (BufferedWriter escritor = Files.newBufferedWriter(traza, StandardCharsets.US_ASCII)) {
+            escritor.write("tiempoMs,severidad,ubicacionId,ambulancias,equipos\n");
+            for (long i = 0; escritos < bytesMinimos; i++) {
+                String linea = tiempo(i) + "," + severidad(i).name() + "," + ubicacion(i)
+                        + (i % 3 == 0 ? ",1,1" : "") + (i % 97 == 0 ? "\n# comentario\n\n" : "\n");
+                escritor.write(linea);
+                escritos += linea.length();
+            }
+        }
+        return traza;
+    }
+
+    private long contarRegistros(Path traza) throws IOException {
+        try (var lineas = Files.lines(traza, StandardCharsets.US_ASCII)) {
+            return lineas.filter(l -> !l.isEmpty() && Character.isDigit(l.charAt(0))).count();
+        }
+    }
+
+    /**
+     * Índice del primer registro que empieza en o después de un offset.
+     */
+    private long registroCercaDe(Path traza, long offset) throws IOException {
+        long posicion = 0;
+        long registro = 0;
+        try (var lineas = Files.lines(traza, StandardCharsets.US_ASCII)) {
+            for (String linea : (Iterable<String>) lineas::iterator) {
+                boolean esRegistro = !linea.isEmpty() && Character.isDigit(linea.charAt(0));
+                if (esRegistro && posicion >= offset) {
+                    return registro;
+                }
+                if (esRegistro) {
+                    registro++;
+                }
+                posicion += linea.length() + 1;
+            }
+        }
+        throw new IllegalStateException("offset fuera de la traza");
+    }
+
+    private static long tiempo(long i) {
+        return i * 3;
+    }
+
+    private static Severity severidad(long i) {
+        return SEVERIDADES[(int) (i % SEVERIDADES.length)];
+    }
+
+    private static int ubicacion(long i) {
+        return (int) (i % UBICACIONES);
+    }
+}
@@ -0,0 +1,188 @@
+package org.iudigital.emergencias.metrics;
+
+import org.iudigital.emergencias.domain.Ambulancia;
+import org.iudigital.emergencias.domain.Ambulancia.StatusAmbulancia;
+import org.iudigital.emergencias.domain.EquipoMedico;
+import org.iudigital.emergencias.domain.EquipoMedico.StatusEquipo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * El seqlock de la flota bajo escritores concurrentes: ninguna copia debe
+ * mezclar escrituras de instantes distintos.
+ */
+class EstadoFlotaTest {
+
+    private static final int ESCRITORES = 4;
+    private static final int AMBULANCIAS_POR_ESCRITOR = 256;
+    private static final int EQUIPOS_POR_ESCRITOR = 64;
+    // Por tiempo y no por rondas, para que haya cruces aun con un solo núcleo
+    private static final long DURACION_MS = 1500;
+
+    private static final StatusAmbulancia[] ESTADOS_AMBULANCIA = StatusAmbulancia.values();
+    private static final StatusEquipo[] ESTADOS_EQUIPO = StatusEquipo.values();
+
+    /**
+     * Cada escritor es dueño de sus ranuras y en la ronda k escribe en orden
+     * todas ellas con el caso k·n + ordinal, como una unidad que cambia de
+     * estado. En una copia coherente, las ranuras de un escritor tienen
+     * rondas no crecientes que difieren a lo sumo en uno, el estado coincide
+     * con el caso y ninguna ranura retrocede respecto de la copia anterior.
+     */
+    @Test
+    void ningunaCopiaMezclaEscrituras() throws InterruptedException {
+        EstadoFlota flota = new EstadoFlota(ESCRITORES * AMBULANCIAS_POR_ESCRITOR,
+                ESCRITORES * EQUIPOS_POR_ESCRITOR);
+        for (int i = 0; i < ESCRITORES * AMBULANCIAS_POR_ESCRITOR; i++) {
+            flota.registrar(new Ambulancia(100 + i, new ArrayList<>()));
+        }
+        for (int i = 0; i < ESCRITORES * EQUIPOS_POR_ESCRITOR; i++) {
+            flota.registrar(new EquipoMedico(200 + i));
+        }
+
+        CountDownLatch largada = new CountDownLatch(1);
+        AtomicBoolean terminado = new AtomicBoolean();
+        AtomicReference<String> falla = new AtomicReference<>();
+        long[] rondas = new long[ESCRITORES];
+
+        List<Thread> escritores = new ArrayList<>();
+        for (int w = 0; w < ESCRITORES; w++) {
+            int escritor = w;
+            escritores.add(iniciar("escritor-" + w, () -> {
+                esperar(largada);
+                long fin = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURACION_MS);
+                long k = 0;
+                for (; System.nanoTime() < fin; k++) {
+                    StatusAmbulancia estado = ESTADOS_AMBULANCIA[(int) (k % ESTADOS_AMBULANCIA.length)];
+                    for (int j = 0; j < AMBULANCIAS_POR_ESCRITOR; j++) {
+                        flota.actualizarAmbulancia(escritor * AMBULANCIAS_POR_ESCRITOR + j, estado,
+                                k * ESTADOS_AMBULANCIA.length + estado.ordinal());
+                    }
+                    StatusEquipo estadoEquipo = ESTADOS_EQUIPO[(int) (k % ESTADOS_EQUIPO.length)];
+                    for (int j = 0; j < EQUIPOS_POR_ESCRITOR; j++) {
+                        flota.actualizarEquipo(escritor * EQUIPOS_POR_ESCRITOR + j, estadoEquipo,
+                                k * ESTADOS_EQUIPO.length + estadoEquipo.ordinal());
+                    }
+                }
+                rondas[escritor] = k;
+            }));
+        }
+
+        Thread lector = iniciar("lector", () -> {
+            esperar(largada);
+            long[] anterioresAmbulancias = new long[ESCRITORES * AMBULANCIAS_POR_ESCRITOR];
+            long[] anterioresEquipos = new long[ESCRITORES * EQUIPOS_POR_ESCRITOR];
+            Arrays.fill(anterioresAmbulancias, -1);
+            Arrays.fill(anterioresEquipos, -1);
+            boolean ultima = false;
+            while (falla.get() == null && !ultima) {
+                // Una copia más después de que terminan los escritores
+                ultima = terminado.get();
+                EstadoFlota.Copia copia = flota.copiar();
+                String error = verificar(copia.estadosAmbulancias, copia.casosAmbulancias,
+                        ESTADOS_AMBULANCIA.length, AMBULANCIAS_POR_ESCRITOR, anterioresAmbulancias);
+                if (error == null) {
+                    error = verificar(copia.estadosEquipos, copia.casosEquipos,
+                            ESTADOS_EQUIPO.length, EQUIPOS_POR_ESCRITOR, anterioresEquipos);
+                }
+                if (error != null) {
+                    falla.compareAndSet(null, error);
+                }
+            }
+        });
+
+        largada.countDown();
+        for (Thread escritor : escritores) {
+            escritor.join();
+        }
+        terminado.set(true);
+        lector.join();
+
+        assertNull(falla.get());
+        // Registrar cuenta dos escrituras por unidad: la ranura y su estado inicial
+        int unidadesPorEscritor = AMBULANCIAS_POR_ESCRITOR + EQUIPOS_POR_ESCRITOR;
+        assertEquals(Arrays.stream(rondas).sum() * unidadesPorEscritor + 2L * ESCRITORES * unidadesPorEscritor,
+                flota.getEscrituras());
+
+        // Al final cada ranura tiene la última ronda de su escritor
+        EstadoFlota.Copia copia = flota.copiar();
+        for (int i = 0; i < copia.casosAmbulancias.length; i++) {
+            assertEquals(rondas[i / AMBULANCIAS_POR_ESCRITOR] - 1,
+                    copia.casosAmbulancias[i] / ESTADOS_AMBULANCIA.length);
+        }
+        for (int i = 0; i < copia.casosEquipos.length; i++) {
+            assertEquals(rondas[i / EQUIPOS_POR_ESCRITOR] - 1, copia.casosEquipos[i] / ESTADOS_EQUIPO.length);
+        }
+    }
+
+    @Test
+    void contarAmbulanciasSumaLaFlota() {
+        EstadoFlota flota = new EstadoFlota(3, 0);
+        for (int i = 0; i < 3; i++) {
+            flota.registrar(new Ambulancia(100 + i, new ArrayList<>()));
+        }
+        flota.actualizarAmbulancia(1, StatusAmbulancia.EN_RUTA, 7);
+
+        int[] conteo = flota.contarAmbulancias();
+
+        assertEquals(2, conteo[StatusAmbulancia.DISPONIBLE.ordinal()]);
+        assertEquals(1, conteo[StatusAmbulancia.EN_RUTA.ordinal()]);
+    }
+
+    /**
+     * @return descripción de la primera inconsistencia, o null si la copia es coherente
+     */
+    private static String verificar(byte[] estados, long[] casos, int cantidadEstados, int ranurasPorEscritor,
+            long[] anteriores) {
+        for (int w = 0; w < ESCRITORES; w++) {
+            long primera = Long.MIN_VALUE;
+            long previa = Long.MAX_VALUE;
+            for (int j = 0; j < ranurasPorEscritor; j++) {
+                int ranura = w * ranurasPorEscritor + j;
+                long caso = casos[ranura];
+                // -1 es el estado inicial publicado al registrar, antes de la primera ronda
+                long ronda = caso < 0 ? -1 : caso / cantidadEstados;
+                int estadoEsperado = caso < 0 ? 0 : (int) (caso % cantidadEstados);
+                if (estados[ranura] != estadoEsperado) {
+                    return "ranura " + ranura + ": estado " + estados[ranura] + " con caso " + caso;
+                }
+                if (caso < anteriores[ranura]) {
+                    return "ranura " + ranura + ": caso " + caso + " después de " + anteriores[ranura];
+                }
+                anteriores[ranura] = caso;
+                if (j == 0) {
+                    primera = ronda;
+                }
+                if (ronda > previa || primera - ronda > 1) {
+                    return "escritor " + w + ": ronda " + ronda + " en la ranura " + j + " tras " + previa;
+                }
+                previa = ronda;
+            }
+        }
+        return null;
+    }
+
+    private static Thread iniciar(String nombre, Runnable tarea) {
+        Thread hilo = new Thread(tarea, nombre);
+        hilo.start();
+        return hilo;
+    }
+
+    private static void esperar(CountDownLatch largada) {
+        try {
+            largada.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}